@@ -0,0 +1,358 @@
+package org.p2p.solanaj.accounts;
+
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.MultipleAccountsInfo;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.rpc.types.config.MultipleAccountsConfig;
+import org.p2p.solanaj.ws.SubscriptionManager;
+import org.p2p.solanaj.ws.listeners.SlotAwareNotificationEventListener;
+
+import java.io.Closeable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-through cache of account data in front of getAccountInfo and getMultipleAccounts.
+ * <p>
+ * An account read for the first time is fetched over RPC and, if admitted, subscribed to with accountSubscribe;
+ * its notifications then update the cached data in place, so later reads need no round trip. Every read reports
+ * the slot of the data it returns. After a reconnect, accounts are fetched again on their next read, since
+ * notifications may have been missed in between.
+ * <p>
+ * The cache is bounded by the approximate size of the cached data. When full, a new account is only admitted if it
+ * has been read more often recently than the least recently used account it would replace, so that a burst of
+ * one-off reads does not displace hot accounts such as pools, oracles and mints. Evicted accounts are unsubscribed.
+ * <p>
+ * Subscriptions go through the {@link RpcClient#getSubscriptionManager() subscription manager} of the client, so
+ * accounts also watched elsewhere in the application share one subscription.
+ */
+public class AccountCache implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(AccountCache.class.getName());
+
+    /** Approximate memory of an entry besides its data. */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final RpcClient client;
+    private final Commitment commitment;
+    private final long maxBytes;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<PublicKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong notifications = new AtomicLong();
+    private long sizeBytes;
+
+    public AccountCache(RpcClient client) {
+        this(client, 64L * 1024 * 1024, Commitment.CONFIRMED);
+    }
+
+    /**
+     * @param maxBytes   upper bound of the approximate size of the cached data
+     * @param commitment commitment of both the fetches and the subscriptions
+     */
+    public AccountCache(RpcClient client, long maxBytes, Commitment commitment) {
+        this.client = client;
+        this.commitment = commitment;
+        this.maxBytes = maxBytes;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(256, maxBytes / 512)));
+    }
+
+    /**
+     * An account in the cache, which is also the listener of its subscription.
+     */
+    private class Entry implements SlotAwareNotificationEventListener {
+        final PublicKey address;
+        AccountInfo.Value value;
+        long slot;
+        long weight;
+        boolean stale;
+        boolean evicted;
+        SubscriptionManager.Subscription subscription;
+        int confirmations;
+
+        Entry(PublicKey address, AccountInfo.Value value, long slot) {
+            this.address = address;
+            this.value = value;
+            this.slot = slot;
+            this.weight = weigh(value);
+        }
+
+        @Override
+        public void onNotificationEvent(Object data, long slot) {
+            if (!(data instanceof AbstractMap)) {
+                return;
+            }
+            AccountInfo.Value value;
+            try {
+                value = new AccountInfo.Value((AbstractMap) data);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Invalid account notification: " + data, e);
+                return;
+            }
+            notifications.incrementAndGet();
+            // a closed account is reported with no lamports
+            update(this, value.getLamports() == 0 ? null : value, slot);
+        }
+
+        @Override
+        public void onSubscribed(long subscriptionId) {
+            synchronized (AccountCache.this) {
+                // confirmed again after a reconnect: updates may have been missed in between
+                stale |= confirmations++ > 0;
+            }
+        }
+    }
+
+    /**
+     * Returns an account, from the cache if present.
+     *
+     * @param address the account address
+     * @return the account, with a null value if it does not exist, and the slot of the data
+     * @throws RpcException if the account was not cached and could not be fetched
+     */
+    public AccountInfo getAccountInfo(PublicKey address) throws RpcException {
+        AccountInfo cached = lookup(address);
+        if (cached != null) {
+            return cached;
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("commitment", commitment);
+        params.put("encoding", "base64");
+        AccountInfo fetched = client.getApi().getAccountInfo(address, params);
+        long slot = fetched.getContext() != null ? fetched.getContext().getSlot() : -1;
+        admit(address, fetched.getValue(), slot);
+        return new AccountInfo(slot, fetched.getValue());
+    }
+
+    /**
+     * Returns several accounts, fetching the ones not cached with getMultipleAccounts.
+     *
+     * @param addresses the account addresses
+     * @return one value per address in the same order, null for accounts that do not exist; the context slot is
+     * the oldest slot of any returned account
+     * @throws RpcException if accounts not cached could not be fetched
+     */
+    public MultipleAccountsInfo getMultipleAccounts(List<PublicKey> addresses) throws RpcException {
+        List<AccountInfo.Value> values = new ArrayList<>(addresses.size());
+        List<PublicKey> missing = new ArrayList<>();
+        List<Integer> missingIndexes = new ArrayList<>();
+        long slot = Long.MAX_VALUE;
+        for (PublicKey address : addresses) {
+            AccountInfo cached = lookup(address);
+            if (cached != null) {
+                slot = Math.min(slot, cached.getContext().getSlot());
+                values.add(cached.getValue());
+            } else {
+                missingIndexes.add(values.size());
+                missing.add(address);
+                values.add(null);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            MultipleAccountsConfig config = new MultipleAccountsConfig();
+            config.setCommitment(commitment);
+            MultipleAccountsInfo fetched = client.getApi().getMultipleAccountsChunked(missing, config);
+            long fetchedSlot = fetched.getContext().getSlot();
+            for (int i = 0; i < missing.size(); i++) {
+                AccountInfo.Value value = fetched.getValue().get(i);
+                values.set(missingIndexes.get(i), value);
+                admit(missing.get(i), value, fetchedSlot);
+            }
+            slot = Math.min(slot, fetchedSlot);
+        }
+
+        return new MultipleAccountsInfo(slot == Long.MAX_VALUE ? -1 : slot, values);
+    }
+
+    private AccountInfo lookup(PublicKey address) {
+        sketch.increment(address);
+        synchronized (this) {
+            Entry entry = entries.get(address);
+            if (entry != null && !entry.stale) {
+                hits.incrementAndGet();
+                return new AccountInfo(entry.slot, entry.value);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void admit(PublicKey address, AccountInfo.Value value, long slot) {
+        Entry entry;
+        List<SubscriptionManager.Subscription> evicted = new ArrayList<>();
+        synchronized (this) {
+            Entry existing = entries.get(address);
+            if (existing != null) {
+                // already subscribed, e.g. refreshed after a reconnect or fetched concurrently
+                existing.stale = false;
+                update(existing, value, slot);
+                return;
+            }
+
+            entry = new Entry(address, value, slot);
+            if (entry.weight > maxBytes) {
+                rejections.incrementAndGet();
+                return;
+            }
+            int frequency = sketch.frequency(address);
+            Iterator<Entry> eldest = entries.values().iterator();
+            List<Entry> victims = new ArrayList<>();
+            long freed = 0;
+            while (sizeBytes - freed + entry.weight > maxBytes) {
+                Entry victim = eldest.next();
+                if (frequency <= sketch.frequency(victim.address)) {
+                    rejections.incrementAndGet();
+                    return;
+                }
+                victims.add(victim);
+                freed += victim.weight;
+            }
+            for (Entry victim : victims) {
+                entries.remove(victim.address);
+                sizeBytes -= victim.weight;
+                victim.evicted = true;
+                evictions.incrementAndGet();
+                // otherwise closed by the thread still subscribing it
+                if (victim.subscription != null) {
+                    evicted.add(victim.subscription);
+                }
+            }
+            entries.put(address, entry);
+            sizeBytes += entry.weight;
+        }
+
+        evicted.forEach(SubscriptionManager.Subscription::close);
+        SubscriptionManager.Subscription subscription = client.getSubscriptionManager()
+                .accountSubscribe(client.getEndpoint(), address.toBase58(), commitment, "base64", entry);
+        boolean close;
+        synchronized (this) {
+            entry.subscription = subscription;
+            close = entry.evicted;
+        }
+        if (close) {
+            subscription.close();
+        }
+    }
+
+    private synchronized void update(Entry entry, AccountInfo.Value value, long slot) {
+        if (entry.evicted || slot < entry.slot) {
+            return;
+        }
+        long weight = weigh(value);
+        sizeBytes += weight - entry.weight;
+        entry.weight = weight;
+        entry.value = value;
+        entry.slot = slot;
+    }
+
+    private static long weigh(AccountInfo.Value value) {
+        if (value == null || value.getData() == null || value.getData().isEmpty()) {
+            return ENTRY_OVERHEAD;
+        }
+        return ENTRY_OVERHEAD + value.getData().get(0).length();
+    }
+
+    /**
+     * Drops an account from the cache and unsubscribes it.
+     *
+     * @param address the account address
+     */
+    public void invalidate(PublicKey address) {
+        SubscriptionManager.Subscription subscription;
+        synchronized (this) {
+            Entry entry = entries.remove(address);
+            if (entry == null) {
+                return;
+            }
+            sizeBytes -= entry.weight;
+            entry.evicted = true;
+            subscription = entry.subscription;
+        }
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the fraction of reads answered from the cache.
+     *
+     * @return the hit ratio, 0 if nothing was read yet
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns how many fetched accounts were not cached, because they were read less often than the accounts
+     * they would have replaced.
+     *
+     * @return the number of rejected accounts
+     */
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /**
+     * Returns how many account notifications updated or tried to update the cache.
+     *
+     * @return the number of notifications
+     */
+    public long getNotifications() {
+        return notifications.get();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Empties the cache and unsubscribes all accounts.
+     */
+    @Override
+    public void close() {
+        List<PublicKey> addresses;
+        synchronized (this) {
+            addresses = new ArrayList<>(entries.keySet());
+        }
+        addresses.forEach(this::invalidate);
+    }
+}
@@ -0,0 +1,582 @@
+package org.p2p.solanaj.accounts;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.AccountMeta;
+import org.p2p.solanaj.core.AddressLookupTable;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.core.VersionedMessage;
+import org.p2p.solanaj.core.VersionedTransaction;
+import org.p2p.solanaj.programs.AddressLookupTableProgram;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.MultipleAccountsInfo;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.rpc.types.config.MultipleAccountsConfig;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig;
+import org.p2p.solanaj.ws.SubscriptionManager;
+import org.p2p.solanaj.ws.listeners.SlotAwareNotificationEventListener;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps address lookup tables in memory and chooses the ones to compile a {@link VersionedMessage} against.
+ * <p>
+ * Tables are fetched once and then subscribed to with accountSubscribe, through the
+ * {@link RpcClient#getSubscriptionManager() subscription manager} of the client, so extensions and deactivations are
+ * seen without polling, and choosing the tables of a message needs no round trip. Table contents only grow while a table
+ * is in use, so a notification missed while the connection was down only hides new addresses; such tables are
+ * fetched again by {@link #refresh()}.
+ * <p>
+ * {@link #selectTables(Collection)} records how many of the accounts that could be looked up were found in a table.
+ * {@link #maintain(Account)} adds the accounts missed repeatedly to a table of the given authority, creating one when
+ * none has room, as long as that share stays below the target hit ratio.
+ */
+public class LookupTableManager implements Closeable {
+
+    /**
+     * Fewest accounts a table must add to be used: a table costs 34 bytes in the message and every account looked
+     * up instead of listed saves 31.
+     */
+    private static final int MIN_ACCOUNTS_PER_TABLE = 2;
+
+    private static final Logger LOGGER = Logger.getLogger(LookupTableManager.class.getName());
+
+    /** Share of the accounts that could be looked up that should be found in a table. */
+    @Getter
+    @Setter
+    private double targetHitRatio = 0.9;
+
+    /** Times an account must have been missed recently before {@link #maintain(Account)} adds it to a table. */
+    @Getter
+    @Setter
+    private int minMisses = 3;
+
+    /** Most addresses added by one transaction, which must fit the 1232 byte limit. */
+    @Getter
+    @Setter
+    private int maxAddressesPerTransaction = 20;
+
+    /**
+     * Time after which an address sent to be added, but not seen in a table yet, may be sent again, and after which
+     * a table created but not seen yet is given up.
+     */
+    @Getter
+    @Setter
+    private Duration extensionTimeout = Duration.ofMinutes(1);
+
+    private final RpcClient client;
+
+    @Getter
+    private final Commitment commitment;
+
+    private final Map<PublicKey, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Source of {@link Entry#order}. */
+    private final AtomicLong added = new AtomicLong();
+
+    private final FrequencySketch misses = new FrequencySketch(4096);
+
+    /** Accounts missed often enough to be added to a table, guarded by itself. */
+    private final Set<PublicKey> candidates = new LinkedHashSet<>();
+
+    /** Accounts sent to be added to a table, with the time they were sent, guarded by {@link #candidates}. */
+    private final Map<PublicKey, Long> requested = new LinkedHashMap<>();
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    /** Lookups and hits since the last {@link #maintain(Account)}. */
+    private final AtomicLong recentLookups = new AtomicLong();
+
+    private final AtomicLong recentHits = new AtomicLong();
+
+    public LookupTableManager(RpcClient client) {
+        this(client, Commitment.CONFIRMED);
+    }
+
+    /**
+     * @param commitment commitment of both the fetches and the subscriptions; addresses added to a table can only
+     *                   be looked up from the next slot on, so processed is not safe
+     */
+    public LookupTableManager(RpcClient client, Commitment commitment) {
+        this.client = client;
+        this.commitment = commitment;
+    }
+
+    /**
+     * A table, which is also the listener of its subscription.
+     */
+    private class Entry implements SlotAwareNotificationEventListener {
+        final PublicKey key;
+        /** Position in the order tables were added, which decides between equally useful tables. */
+        final long order = added.getAndIncrement();
+        volatile AddressLookupTable table;
+        long slot = -1;
+        boolean stale;
+        boolean removed;
+        SubscriptionManager.Subscription subscription;
+        int confirmations;
+        /** Authority of a table created by {@link #maintain(Account)} but not seen yet. */
+        PublicKey creator;
+        /** Addresses sent to be added but not seen yet. */
+        int reserved;
+        /** Time the table was last created or extended, from {@link System#nanoTime()}. */
+        long reservedAt;
+
+        Entry(PublicKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onNotificationEvent(Object data, long slot) {
+            if (!(data instanceof AbstractMap)) {
+                return;
+            }
+            try {
+                update(this, new AccountInfo.Value((AbstractMap) data), slot);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Invalid lookup table notification: " + data, e);
+            }
+        }
+
+        @Override
+        public synchronized void onSubscribed(long subscriptionId) {
+            stale |= confirmations++ > 0;
+        }
+
+        int size() {
+            AddressLookupTable current = table;
+            return (current == null ? 0 : current.getAddresses().size()) + reserved;
+        }
+    }
+
+    /**
+     * Fetches tables not known yet and keeps them up to date.
+     *
+     * @param keys the addresses of the lookup tables
+     * @throws RpcException if the tables could not be fetched
+     */
+    public void addTables(Collection<PublicKey> keys) throws RpcException {
+        List<Entry> added = new ArrayList<>();
+        for (PublicKey key : keys) {
+            Entry entry = new Entry(key);
+            if (entries.putIfAbsent(key, entry) == null) {
+                added.add(entry);
+            }
+        }
+        fetch(added);
+        added.forEach(this::subscribe);
+    }
+
+    private void subscribe(Entry entry) {
+        SubscriptionManager.Subscription subscription = client.getSubscriptionManager()
+                .accountSubscribe(client.getEndpoint(), entry.key.toBase58(), commitment, "base64", entry);
+        boolean close;
+        synchronized (entry) {
+            entry.subscription = subscription;
+            close = entry.removed;
+        }
+        // removed while subscribing
+        if (close) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * Fetches again the tables whose subscription was restored after a reconnect.
+     *
+     * @throws RpcException if the tables could not be fetched
+     */
+    public void refresh() throws RpcException {
+        List<Entry> stale = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            synchronized (entry) {
+                if (entry.stale) {
+                    entry.stale = false;
+                    stale.add(entry);
+                }
+            }
+        }
+        fetch(stale);
+    }
+
+    private void fetch(List<Entry> tables) throws RpcException {
+        if (tables.isEmpty()) {
+            return;
+        }
+        List<PublicKey> keys = new ArrayList<>(tables.size());
+        tables.forEach(entry -> keys.add(entry.key));
+        MultipleAccountsConfig config = new MultipleAccountsConfig();
+        config.setCommitment(commitment);
+        MultipleAccountsInfo fetched = client.getApi().getMultipleAccountsChunked(keys, config);
+        long slot = fetched.getContext() != null ? fetched.getContext().getSlot() : -1;
+        for (int i = 0; i < tables.size(); i++) {
+            update(tables.get(i), fetched.getValue().get(i), slot);
+        }
+    }
+
+    private void update(Entry entry, AccountInfo.Value value, long slot) {
+        AddressLookupTable table = decode(entry.key, value);
+        synchronized (entry) {
+            if (entry.removed || slot < entry.slot) {
+                return;
+            }
+            int previous = entry.table == null ? 0 : entry.table.getAddresses().size();
+            int grown = table == null ? 0 : table.getAddresses().size() - previous;
+            entry.reserved = Math.max(0, entry.reserved - grown);
+            if (table != null) {
+                entry.creator = null;
+            }
+            entry.table = table;
+            entry.slot = slot;
+        }
+        if (table != null) {
+            synchronized (candidates) {
+                table.getAddresses().forEach(requested::remove);
+            }
+        }
+    }
+
+    private static AddressLookupTable decode(PublicKey key, AccountInfo.Value value) {
+        // a closed table is reported with no lamports
+        if (value == null || value.getLamports() == 0 || value.getData() == null || value.getData().isEmpty()) {
+            return null;
+        }
+        return AddressLookupTable.deserialize(key, Base64.getDecoder().decode(value.getData().get(0)));
+    }
+
+    /**
+     * Returns a table.
+     *
+     * @param key the address of the lookup table
+     * @return the table, or null if it is not known or does not exist
+     */
+    public AddressLookupTable getTable(PublicKey key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.table;
+    }
+
+    /**
+     * Returns the known tables that are active.
+     *
+     * @return the tables, in the order they were added
+     */
+    public List<AddressLookupTable> getTables() {
+        List<AddressLookupTable> tables = new ArrayList<>();
+        for (Entry entry : orderedEntries()) {
+            AddressLookupTable table = entry.table;
+            if (table != null && table.isActive()) {
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Compiles a message against the tables chosen by {@link #selectTables(PublicKey, List)}.
+     *
+     * @param feePayer     the account paying the fees
+     * @param instructions the instructions of the message
+     * @return the message
+     */
+    public VersionedMessage compile(PublicKey feePayer, List<TransactionInstruction> instructions) {
+        return new VersionedMessage(feePayer, instructions, selectTables(feePayer, instructions));
+    }
+
+    /**
+     * Chooses the tables to look up the accounts of a message in: those accounts that are neither signers nor
+     * invoked programs.
+     *
+     * @param feePayer     the account paying the fees
+     * @param instructions the instructions of the message
+     * @return the tables, in the order they should be searched
+     */
+    public List<AddressLookupTable> selectTables(PublicKey feePayer, List<TransactionInstruction> instructions) {
+        Set<PublicKey> excluded = new HashSet<>();
+        excluded.add(feePayer);
+        Set<PublicKey> accounts = new LinkedHashSet<>();
+        for (TransactionInstruction instruction : instructions) {
+            excluded.add(instruction.getProgramId());
+            for (AccountMeta meta : instruction.getKeys()) {
+                (meta.isSigner() ? excluded : accounts).add(meta.getPublicKey());
+            }
+        }
+        accounts.removeAll(excluded);
+        return selectTables(accounts);
+    }
+
+    /**
+     * Chooses the tables to look up accounts in. Tables are picked greedily, the one containing the most accounts
+     * not found yet first, as long as a table adds enough accounts to make the message smaller. Of tables adding
+     * as many accounts, the one added first is picked.
+     *
+     * @param accounts the accounts to look up
+     * @return the tables, in the order they should be searched
+     */
+    public List<AddressLookupTable> selectTables(Collection<PublicKey> accounts) {
+        List<PublicKey> remaining = new ArrayList<>(accounts);
+        List<AddressLookupTable> tables = getTables();
+        List<AddressLookupTable> selected = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            AddressLookupTable best = null;
+            int bestCount = MIN_ACCOUNTS_PER_TABLE - 1;
+            for (AddressLookupTable table : tables) {
+                int count = 0;
+                for (PublicKey account : remaining) {
+                    if (table.indexOf(account) >= 0) {
+                        count++;
+                    }
+                }
+                if (count > bestCount) {
+                    best = table;
+                    bestCount = count;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            selected.add(best);
+            tables.remove(best);
+            AddressLookupTable table = best;
+            remaining.removeIf(account -> table.indexOf(account) >= 0);
+        }
+
+        int found = accounts.size() - remaining.size();
+        lookups.addAndGet(accounts.size());
+        recentLookups.addAndGet(accounts.size());
+        hits.addAndGet(found);
+        recentHits.addAndGet(found);
+        for (PublicKey account : remaining) {
+            recordMiss(account, tables);
+        }
+        return selected;
+    }
+
+    private void recordMiss(PublicKey account, List<AddressLookupTable> unselected) {
+        // accounts in a table that was not worth using need no other table
+        for (AddressLookupTable table : unselected) {
+            if (table.indexOf(account) >= 0) {
+                return;
+            }
+        }
+        misses.increment(account);
+        if (misses.frequency(account) >= minMisses) {
+            synchronized (candidates) {
+                candidates.add(account);
+            }
+        }
+    }
+
+    /**
+     * Adds the accounts missed repeatedly to tables of an authority, if the hit ratio since the last call is below
+     * the target. Tables of the authority are extended while they have room, and new tables are created as needed.
+     * The transactions are sent without waiting for confirmation; the tables are updated by their notifications.
+     *
+     * @param authority the authority of the tables, which also pays for them
+     * @return the signatures of the transactions sent
+     * @throws RpcException if a transaction could not be sent
+     */
+    public List<String> maintain(Account authority) throws RpcException {
+        refresh();
+        long lookedUp = recentLookups.getAndSet(0);
+        long found = recentHits.getAndSet(0);
+        if (lookedUp == 0 || (double) found / lookedUp >= targetHitRatio) {
+            return List.of();
+        }
+
+        expireReservations();
+        List<PublicKey> addresses = takeCandidates();
+        List<String> signatures = new ArrayList<>();
+        int next = 0;
+        while (next < addresses.size()) {
+            Entry entry = tableWithRoom(authority.getPublicKey());
+            if (entry == null && isCreating(authority.getPublicKey())) {
+                // an extension sent before the creation has landed would fail; the rest waits for the next call
+                release(addresses.subList(next, addresses.size()));
+                break;
+            }
+            List<TransactionInstruction> instructions = new ArrayList<>();
+            if (entry == null) {
+                long slot = client.getApi().getSlot(Commitment.FINALIZED);
+                instructions.add(AddressLookupTableProgram.createLookupTable(authority.getPublicKey(),
+                        authority.getPublicKey(), slot));
+                entry = new Entry(AddressLookupTableProgram.deriveLookupTableAddress(authority.getPublicKey(), slot)
+                        .getAddress());
+                entry.creator = authority.getPublicKey();
+            }
+            int count = Math.min(Math.min(maxAddressesPerTransaction, addresses.size() - next),
+                    AddressLookupTableProgram.LOOKUP_TABLE_MAX_ADDRESSES - entry.size());
+            List<PublicKey> batch = addresses.subList(next, next + count);
+            instructions.add(AddressLookupTableProgram.extendLookupTable(entry.key, authority.getPublicKey(),
+                    authority.getPublicKey(), batch));
+
+            VersionedTransaction transaction = new VersionedTransaction(authority.getPublicKey(), instructions,
+                    List.of());
+            try {
+                signatures.add(client.getApi().sendTransaction(transaction, List.of(authority), null,
+                        new RpcSendTransactionConfig()));
+            } catch (RpcException e) {
+                release(addresses.subList(next, addresses.size()));
+                throw e;
+            }
+            synchronized (entry) {
+                entry.reserved += count;
+                entry.reservedAt = System.nanoTime();
+            }
+            if (entries.putIfAbsent(entry.key, entry) == null) {
+                subscribe(entry);
+            }
+            next += count;
+        }
+        return signatures;
+    }
+
+    /**
+     * Removes the candidates not sent to a table recently and marks them as sent.
+     */
+    private List<PublicKey> takeCandidates() {
+        List<PublicKey> addresses = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (candidates) {
+            requested.values().removeIf(sentAt -> now - sentAt > extensionTimeout.toNanos());
+            for (Iterator<PublicKey> iterator = candidates.iterator(); iterator.hasNext(); ) {
+                PublicKey address = iterator.next();
+                iterator.remove();
+                if (!requested.containsKey(address)) {
+                    requested.put(address, now);
+                    addresses.add(address);
+                }
+            }
+        }
+        return addresses;
+    }
+
+    private void release(List<PublicKey> addresses) {
+        synchronized (candidates) {
+            addresses.forEach(requested::remove);
+            candidates.addAll(addresses);
+        }
+    }
+
+    /**
+     * Returns the first active table of the authority with room for more addresses. Tables created but not seen
+     * yet are not extended.
+     */
+    private Entry tableWithRoom(PublicKey authority) {
+        for (Entry entry : orderedEntries()) {
+            synchronized (entry) {
+                AddressLookupTable table = entry.table;
+                if (table != null && table.isActive() && authority.equals(table.getAuthority())
+                        && entry.size() < AddressLookupTableProgram.LOOKUP_TABLE_MAX_ADDRESSES) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isCreating(PublicKey authority) {
+        for (Entry entry : entries.values()) {
+            synchronized (entry) {
+                if (entry.table == null && authority.equals(entry.creator)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forgets the addresses sent to tables more than {@link #extensionTimeout} ago but not seen yet, and drops the
+     * tables created that long ago but never seen, as their transactions failed or expired.
+     */
+    private void expireReservations() {
+        long now = System.nanoTime();
+        for (Entry entry : orderedEntries()) {
+            boolean neverCreated;
+            synchronized (entry) {
+                if (now - entry.reservedAt <= extensionTimeout.toNanos()) {
+                    continue;
+                }
+                entry.reserved = 0;
+                neverCreated = entry.table == null && entry.creator != null;
+            }
+            if (neverCreated) {
+                removeTable(entry.key);
+            }
+        }
+    }
+
+    private List<Entry> orderedEntries() {
+        List<Entry> ordered = new ArrayList<>(entries.values());
+        ordered.sort(Comparator.comparingLong(entry -> entry.order));
+        return ordered;
+    }
+
+    /**
+     * Stops keeping a table up to date.
+     *
+     * @param key the address of the lookup table
+     */
+    public void removeTable(PublicKey key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        SubscriptionManager.Subscription subscription;
+        synchronized (entry) {
+            entry.removed = true;
+            subscription = entry.subscription;
+        }
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the share of the accounts that could be looked up that were found in a chosen table.
+     *
+     * @return the hit ratio, 0 if nothing was looked up yet
+     */
+    public double getHitRatio() {
+        long total = getLookups();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Stops keeping all tables up to date.
+     */
+    @Override
+    public void close() {
+        new ArrayList<>(entries.keySet()).forEach(this::removeTable);
+    }
+}
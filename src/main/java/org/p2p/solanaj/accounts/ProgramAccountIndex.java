@@ -0,0 +1,365 @@
+package org.p2p.solanaj.accounts;
+
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.ProgramAccountStream;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.rpc.types.config.ProgramAccountConfig;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig.Encoding;
+import org.p2p.solanaj.ws.SubscriptionManager;
+import org.p2p.solanaj.ws.listeners.SlotAwareNotificationEventListener;
+
+import java.io.Closeable;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * A live local copy of the accounts of a program.
+ * <p>
+ * {@link #start()} subscribes to programSubscribe and then loads a getProgramAccounts snapshot, so that no update
+ * falls between the two. Every account remembers the slot it was last written at, and snapshots and notifications
+ * only replace an account with data from the same or a newer slot, whichever arrives first. Closed accounts are
+ * kept as tombstones, so that a snapshot taken before they were closed does not bring them back, until they are
+ * {@link #TOMBSTONE_SLOTS} slots old and no snapshot is loading.
+ * <p>
+ * Notifications sent while the WebSocket connection was down are lost. When the subscription is confirmed again
+ * after a reconnect, a new snapshot is loaded in the background: accounts it contains are updated where it is newer,
+ * and accounts missing from it are dropped unless a notification newer than the snapshot wrote them. The
+ * subscription goes through the {@link RpcClient#getSubscriptionManager() subscription manager} of the client.
+ * <p>
+ * Lookups by address and through {@link SecondaryIndex secondary indexes} are lock-free; updates are serialized.
+ */
+public class ProgramAccountIndex implements SlotAwareNotificationEventListener, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ProgramAccountIndex.class.getName());
+
+    /**
+     * How many slots behind the latest slot closed accounts are remembered, about a minute. Snapshots older than
+     * that are not expected.
+     */
+    public static final long TOMBSTONE_SLOTS = 150;
+
+    private final RpcClient client;
+    private final PublicKey program;
+    private final List<Object> filters;
+    private final Commitment commitment;
+
+    private final ConcurrentHashMap<PublicKey, Entry> entries = new ConcurrentHashMap<>();
+    private final List<SecondaryIndex<?>> indexes = new CopyOnWriteArrayList<>();
+    // tombstones in the order they were written, guarded by this
+    private final ArrayDeque<Map.Entry<PublicKey, Entry>> tombstones = new ArrayDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicInteger confirmations = new AtomicInteger();
+    private final AtomicLong snapshotSlot = new AtomicLong(-1);
+    private final AtomicLong latestSlot = new AtomicLong(-1);
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final Object reconcileLock = new Object();
+    private final ExecutorService reconciler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solanaj-account-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile SubscriptionManager.Subscription subscription;
+    private volatile boolean reconciling;
+
+    /**
+     * Entry of the index; a null account marks an account closed at the given slot.
+     */
+    private static class Entry {
+        final ProgramAccount account;
+        final long slot;
+
+        Entry(ProgramAccount account, long slot) {
+            this.account = account;
+            this.slot = slot;
+        }
+    }
+
+    public ProgramAccountIndex(RpcClient client, PublicKey program) {
+        this(client, program, null, Commitment.CONFIRMED);
+    }
+
+    /**
+     * @param filters    memcmp and dataSize filters limiting the indexed accounts, as in getProgramAccounts, or null
+     * @param commitment commitment of both the snapshots and the subscription
+     */
+    public ProgramAccountIndex(RpcClient client, PublicKey program, List<Object> filters, Commitment commitment) {
+        this.client = client;
+        this.program = program;
+        this.filters = filters;
+        this.commitment = commitment;
+    }
+
+    /**
+     * Subscribes to the program's updates and loads the initial snapshot.
+     *
+     * @throws RpcException if the snapshot could not be loaded
+     */
+    public void start() throws RpcException {
+        subscription = client.getSubscriptionManager().programSubscribe(client.getEndpoint(), program.toBase58(),
+                commitment, Encoding.base64.toString(), filters, this);
+        reconcile();
+    }
+
+    /**
+     * Loads a getProgramAccounts snapshot and merges it into the index by slot.
+     *
+     * @throws RpcException if the snapshot could not be loaded
+     */
+    public void reconcile() throws RpcException {
+        ProgramAccountConfig config = new ProgramAccountConfig(filters);
+        config.setEncoding(Encoding.base64);
+        config.setCommitment(commitment.getValue());
+        config.setWithContext(true);
+
+        synchronized (reconcileLock) {
+            reconciling = true;
+            try {
+                Set<PublicKey> seen = new HashSet<>();
+                long slot;
+                try (ProgramAccountStream accounts = client.getApi().streamProgramAccounts(program, config)) {
+                    slot = accounts.getContextSlot();
+                    if (slot < 0) {
+                        throw new RpcException("getProgramAccounts response has no context slot");
+                    }
+                    while (accounts.hasNext()) {
+                        ProgramAccount account = accounts.next();
+                        PublicKey address = account.getPublicKey();
+                        seen.add(address);
+                        apply(address, account, slot);
+                    }
+                } catch (UncheckedIOException e) {
+                    throw new RpcException("Error while loading snapshot: " + e.getMessage());
+                }
+
+                synchronized (this) {
+                    for (Map.Entry<PublicKey, Entry> entry : entries.entrySet()) {
+                        Entry current = entry.getValue();
+                        if (current.slot <= slot && !seen.contains(entry.getKey())) {
+                            remove(entry.getKey(), current);
+                        }
+                    }
+                }
+                snapshotSlot.set(slot);
+                latestSlot.accumulateAndGet(slot, Math::max);
+                reconciliations.incrementAndGet();
+            } finally {
+                reconciling = false;
+            }
+            synchronized (this) {
+                pruneTombstones(latestSlot.get());
+            }
+        }
+    }
+
+    @Override
+    public void onNotificationEvent(Object data, long slot) {
+        if (!(data instanceof AbstractMap)) {
+            LOGGER.warning("Unexpected program notification: " + data);
+            return;
+        }
+        try {
+            ProgramAccount account = new ProgramAccount((AbstractMap<?, ?>) data);
+            boolean closed = account.getAccount().getLamports() == 0
+                    || !program.toBase58().equals(account.getAccount().getOwner());
+            apply(account.getPublicKey(), closed ? null : account, slot);
+            latestSlot.accumulateAndGet(slot, Math::max);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Invalid program notification: " + data, e);
+        }
+    }
+
+    @Override
+    public void onSubscribed(long subscriptionId) {
+        if (confirmations.incrementAndGet() > 1) {
+            // resubscribed after a reconnect: updates may have been missed in between
+            reconciler.execute(() -> {
+                try {
+                    reconcile();
+                } catch (RpcException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Could not reconcile the index of " + program, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes an account unless the index already holds a newer version.
+     *
+     * @return whether the account was written
+     */
+    synchronized boolean apply(PublicKey address, ProgramAccount account, long slot) {
+        Entry previous = entries.get(address);
+        if (previous != null && previous.slot > slot) {
+            return false;
+        }
+        ProgramAccount previousAccount = previous != null ? previous.account : null;
+        Entry entry = new Entry(account, slot);
+        entries.put(address, entry);
+        size.addAndGet((account != null ? 1 : 0) - (previousAccount != null ? 1 : 0));
+        for (SecondaryIndex<?> index : indexes) {
+            index.update(address, previousAccount, account);
+        }
+        if (account == null) {
+            tombstones.add(new AbstractMap.SimpleImmutableEntry<>(address, entry));
+        }
+        pruneTombstones(Math.max(slot, latestSlot.get()));
+        return true;
+    }
+
+    /**
+     * Drops the tombstones older than {@link #TOMBSTONE_SLOTS} before the given slot, unless a snapshot is loading
+     * and may still hold the closed accounts.
+     */
+    private void pruneTombstones(long latest) {
+        while (!reconciling && !tombstones.isEmpty() && tombstones.peek().getValue().slot < latest - TOMBSTONE_SLOTS) {
+            Map.Entry<PublicKey, Entry> tombstone = tombstones.poll();
+            // a no-op if the account was written again since
+            entries.remove(tombstone.getKey(), tombstone.getValue());
+        }
+    }
+
+    private void remove(PublicKey address, Entry entry) {
+        entries.remove(address, entry);
+        if (entry.account != null) {
+            size.decrementAndGet();
+            for (SecondaryIndex<?> index : indexes) {
+                index.update(address, entry.account, null);
+            }
+        }
+    }
+
+    /**
+     * Adds a secondary index over the accounts, such as {@code addIndex(SecondaryIndex.publicKeyAt(0))} for the
+     * mint of token accounts. Accounts for which the key function returns null are not indexed.
+     *
+     * @param keyFunction derives the key of an account
+     * @return the index, kept up to date from now on
+     */
+    public synchronized <K> SecondaryIndex<K> addIndex(Function<ProgramAccount, K> keyFunction) {
+        SecondaryIndex<K> index = new SecondaryIndex<>(keyFunction);
+        entries.forEach((address, entry) -> {
+            if (entry.account != null) {
+                index.update(address, null, entry.account);
+            }
+        });
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Returns the account at the given address.
+     *
+     * @param address the account address
+     * @return the account, or null if the index does not hold it
+     */
+    public ProgramAccount get(PublicKey address) {
+        Entry entry = entries.get(address);
+        return entry != null ? entry.account : null;
+    }
+
+    /**
+     * Returns the slot at which the account at the given address was last written or closed.
+     *
+     * @param address the account address
+     * @return the slot, or -1 if the index has no record of the account
+     */
+    public long getSlot(PublicKey address) {
+        Entry entry = entries.get(address);
+        return entry != null ? entry.slot : -1;
+    }
+
+    /**
+     * Returns the accounts at the given addresses that the index holds.
+     *
+     * @param addresses account addresses, e.g. from a {@link SecondaryIndex}
+     * @return the accounts, in the order of the addresses
+     */
+    public List<ProgramAccount> getAll(Iterable<PublicKey> addresses) {
+        List<ProgramAccount> accounts = new ArrayList<>();
+        for (PublicKey address : addresses) {
+            ProgramAccount account = get(address);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Returns a copy of all accounts.
+     *
+     * @return the accounts, in no particular order
+     */
+    public List<ProgramAccount> getAccounts() {
+        return entries.values().stream()
+                .filter(entry -> entry.account != null)
+                .map(entry -> entry.account)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the number of accounts and tombstones held.
+     */
+    int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the slot of the last snapshot merged into the index.
+     *
+     * @return the slot, or -1 before the first snapshot
+     */
+    public long getSnapshotSlot() {
+        return snapshotSlot.get();
+    }
+
+    /**
+     * Returns the newest slot of any snapshot or notification seen.
+     *
+     * @return the slot, or -1 if none was seen
+     */
+    public long getLatestSlot() {
+        return latestSlot.get();
+    }
+
+    /**
+     * Returns how many snapshots have been merged, the initial one included.
+     *
+     * @return the number of snapshots
+     */
+    public long getReconciliations() {
+        return reconciliations.get();
+    }
+
+    @Override
+    public void close() {
+        reconciler.shutdownNow();
+        if (subscription != null) {
+            subscription.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.p2p.solanaj.accounts;
+
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Accounts of a {@link ProgramAccountIndex} grouped by a key derived from each account, for example the mint or
+ * owner stored in a token account. Lookups are lock-free; the index is kept up to date by its
+ * {@link ProgramAccountIndex}.
+ *
+ * @param <K> the type of the derived key
+ */
+public class SecondaryIndex<K> {
+
+    private final Function<ProgramAccount, K> keyFunction;
+    private final ConcurrentHashMap<K, Set<PublicKey>> accounts = new ConcurrentHashMap<>();
+
+    SecondaryIndex(Function<ProgramAccount, K> keyFunction) {
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Derives the public key stored at the given offset of the account data, e.g. offset 0 for the mint and 32
+     * for the owner of an SPL token account.
+     *
+     * @param offset offset of the 32 key bytes within the account data
+     * @return the key function
+     */
+    public static Function<ProgramAccount, PublicKey> publicKeyAt(int offset) {
+        return account -> {
+            byte[] data = account.getAccount().getDecodedData();
+            return data.length >= offset + PublicKey.PUBLIC_KEY_LENGTH
+                    ? PublicKey.readPubkey(data, offset)
+                    : null;
+        };
+    }
+
+    /**
+     * Returns the accounts whose derived key equals the given key.
+     *
+     * @param key the derived key
+     * @return live, unmodifiable view of the account addresses
+     */
+    public Set<PublicKey> get(K key) {
+        Set<PublicKey> keys = accounts.get(key);
+        return keys != null ? Collections.unmodifiableSet(keys) : Collections.emptySet();
+    }
+
+    void update(PublicKey address, ProgramAccount previous, ProgramAccount current) {
+        K previousKey = previous != null ? keyFunction.apply(previous) : null;
+        K currentKey = current != null ? keyFunction.apply(current) : null;
+        if (previousKey != null && !previousKey.equals(currentKey)) {
+            accounts.computeIfPresent(previousKey, (key, keys) -> {
+                keys.remove(address);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+        if (currentKey != null) {
+            accounts.computeIfAbsent(currentKey, key -> ConcurrentHashMap.newKeySet()).add(address);
+        }
+    }
+}
@@ -3,15 +3,15 @@ package org.p2p.solanaj.core;
 import java.util.*;
 
 public class AccountKeysList {
-    private final Map<String, AccountMeta> accounts;
+    // keyed by the key bytes rather than base58, in insertion order
+    private final Map<PublicKey, AccountMeta> accounts;
 
     public AccountKeysList() {
-        accounts = new HashMap<>();
+        accounts = new LinkedHashMap<>();
     }
 
     public void add(AccountMeta accountMeta) {
-        String key = accountMeta.getPublicKey().toString();
-        accounts.merge(key, accountMeta, (existing, newMeta) ->
+        accounts.merge(accountMeta.getPublicKey(), accountMeta, (existing, newMeta) ->
             !existing.isWritable() && newMeta.isWritable() ? newMeta : existing);
     }
 
@@ -19,6 +19,10 @@ public class AccountKeysList {
         metas.forEach(this::add);
     }
 
+    public int size() {
+        return accounts.size();
+    }
+
     public ArrayList<AccountMeta> getList() {
         ArrayList<AccountMeta> accountKeysList = new ArrayList<>(accounts.values());
         accountKeysList.sort(metaComparator);
@@ -0,0 +1,137 @@
+package org.p2p.solanaj.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The addresses of an address lookup table, as used to compile a {@link VersionedMessage}.
+ */
+public class AddressLookupTable {
+
+    /** Length of the account data before the addresses. */
+    public static final int META_LENGTH = 56;
+
+    /** Deactivation slot of a table that is not deactivated, u64::MAX. */
+    public static final long ACTIVE = -1L;
+
+    private static final int LOOKUP_TABLE_TYPE = 1;
+
+    private final PublicKey key;
+    private final List<PublicKey> addresses;
+    private final PublicKey authority;
+    private final long deactivationSlot;
+    private final long lastExtendedSlot;
+    private final Map<PublicKey, Integer> indexes;
+
+    /**
+     * @param key       the address of the lookup table account
+     * @param addresses the addresses stored in the table, in order
+     */
+    public AddressLookupTable(PublicKey key, List<PublicKey> addresses) {
+        this(key, addresses, null, ACTIVE, 0);
+    }
+
+    private AddressLookupTable(PublicKey key, List<PublicKey> addresses, PublicKey authority, long deactivationSlot,
+                               long lastExtendedSlot) {
+        this.key = key;
+        this.addresses = Collections.unmodifiableList(addresses);
+        this.authority = authority;
+        this.deactivationSlot = deactivationSlot;
+        this.lastExtendedSlot = lastExtendedSlot;
+        this.indexes = new HashMap<>(addresses.size() * 2);
+        for (int i = addresses.size() - 1; i >= 0; i--) {
+            indexes.put(addresses.get(i), i);
+        }
+    }
+
+    /**
+     * Decodes the data of a lookup table account.
+     *
+     * @param key  the address of the lookup table account
+     * @param data the account data
+     * @return the lookup table
+     * @throws IllegalArgumentException if the data is not that of a lookup table
+     */
+    public static AddressLookupTable deserialize(PublicKey key, byte[] data) {
+        if (data.length < META_LENGTH || (data.length - META_LENGTH) % PublicKey.PUBLIC_KEY_LENGTH != 0) {
+            throw new IllegalArgumentException("Invalid lookup table length: " + data.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int type = buffer.getInt();
+        if (type != LOOKUP_TABLE_TYPE) {
+            throw new IllegalArgumentException("Account is not a lookup table: type " + type);
+        }
+        long deactivationSlot = buffer.getLong();
+        long lastExtendedSlot = buffer.getLong();
+        // the start index of the last extension, then the optional authority
+        buffer.get();
+        PublicKey authority = buffer.get() == 1
+                ? new PublicKey(Arrays.copyOfRange(data, 22, 22 + PublicKey.PUBLIC_KEY_LENGTH))
+                : null;
+
+        List<PublicKey> addresses = new ArrayList<>((data.length - META_LENGTH) / PublicKey.PUBLIC_KEY_LENGTH);
+        for (int offset = META_LENGTH; offset < data.length; offset += PublicKey.PUBLIC_KEY_LENGTH) {
+            addresses.add(new PublicKey(Arrays.copyOfRange(data, offset, offset + PublicKey.PUBLIC_KEY_LENGTH)));
+        }
+        return new AddressLookupTable(key, addresses, authority, deactivationSlot, lastExtendedSlot);
+    }
+
+    public PublicKey getKey() {
+        return key;
+    }
+
+    public List<PublicKey> getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * Returns the account that can extend, freeze, deactivate and close the table.
+     *
+     * @return the authority, or null if the table is frozen or was not decoded from account data
+     */
+    public PublicKey getAuthority() {
+        return authority;
+    }
+
+    /**
+     * @return the slot the table was deactivated at, or {@link #ACTIVE}
+     */
+    public long getDeactivationSlot() {
+        return deactivationSlot;
+    }
+
+    public boolean isActive() {
+        return deactivationSlot == ACTIVE;
+    }
+
+    /**
+     * Returns the slot the table was last extended at. Addresses added in that slot can only be looked up by
+     * transactions of later slots.
+     *
+     * @return the slot, 0 if the table was never extended
+     */
+    public long getLastExtendedSlot() {
+        return lastExtendedSlot;
+    }
+
+    /**
+     * Returns the index of an address in the table.
+     *
+     * @param address the address
+     * @return its first index, or -1 if the table does not contain it
+     */
+    public int indexOf(PublicKey address) {
+        return indexes.getOrDefault(address, -1);
+    }
+
+    @Override
+    public String toString() {
+        return "AddressLookupTable(key=" + key + ", addresses=" + addresses.size() + ")";
+    }
+}
@@ -1,44 +1,15 @@
 package org.p2p.solanaj.core;
 
 import org.bitcoinj.core.Base58;
-import org.p2p.solanaj.utils.ShortvecEncoding;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class Message {
-    private class MessageHeader {
-        static final int HEADER_LENGTH = 3;
 
-        byte numRequiredSignatures = 0;
-        byte numReadonlySignedAccounts = 0;
-        byte numReadonlyUnsignedAccounts = 0;
-
-        byte[] toByteArray() {
-            return new byte[] { numRequiredSignatures, numReadonlySignedAccounts, numReadonlyUnsignedAccounts };
-        }
-    }
-
-    private class CompiledInstruction {
-        byte programIdIndex;
-        byte[] keyIndicesCount;
-        byte[] keyIndices;
-        byte[] dataLength;
-        byte[] data;
-
-        int getLength() {
-            // 1 = programIdIndex length
-            return 1 + keyIndicesCount.length + keyIndices.length + dataLength.length + data.length;
-        }
-    }
-
-    private static final int RECENT_BLOCK_HASH_LENGTH = 32;
-
-    private MessageHeader messageHeader;
-    private String recentBlockhash;
+    private byte[] recentBlockhash;
     private AccountKeysList accountKeys;
     private List<TransactionInstruction> instructions;
     private Account feePayer;
@@ -57,11 +28,65 @@ public class Message {
     }
 
     public void setRecentBlockHash(String recentBlockhash) {
-        this.recentBlockhash = recentBlockhash;
+        byte[] decoded = Base58.decode(recentBlockhash);
+        if (decoded.length != MessageCompiler.RECENT_BLOCK_HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid recentBlockhash: " + recentBlockhash);
+        }
+        this.recentBlockhash = decoded;
+    }
+
+    /**
+     * Parses a legacy or version 0 message from the wire format. Messages are built with this class; parsed ones
+     * are read-only views over the given bytes.
+     *
+     * @param data the serialized message
+     * @return the parsed message
+     * @throws IllegalArgumentException if the bytes are not a message of a supported version
+     */
+    public static SerializedMessage deserialize(byte[] data) {
+        return SerializedMessage.deserialize(data);
     }
 
     public byte[] serialize() {
+        List<AccountMeta> keysList = compile();
+        byte[] out = new byte[MessageCompiler.serializedSize(keysList, instructions)];
+        MessageCompiler.get().write(keysList, recentBlockhash, instructions, out, 0, null);
+        return out;
+    }
 
+    /**
+     * Serializes the message, recording where the blockhash and the instruction data were written.
+     *
+     * @param positions receives the position of the blockhash followed by the position of the data of every
+     *                  instruction, so it needs room for one more than the number of instructions
+     * @return the serialized message
+     */
+    byte[] serialize(int[] positions) {
+        List<AccountMeta> keysList = compile();
+        byte[] out = new byte[MessageCompiler.serializedSize(keysList, instructions)];
+        MessageCompiler.get().write(keysList, recentBlockhash, instructions, out, 0, positions);
+        return out;
+    }
+
+    /**
+     * Serializes the message into a buffer supplied by the caller.
+     *
+     * @param buffer the buffer
+     * @param offset the position to write at
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if the message does not fit into the buffer
+     */
+    public int serialize(byte[] buffer, int offset) {
+        List<AccountMeta> keysList = compile();
+        int size = MessageCompiler.serializedSize(keysList, instructions);
+        if (offset < 0 || buffer.length - offset < size) {
+            throw new IllegalArgumentException("Message of " + size + " bytes does not fit into the buffer");
+        }
+        MessageCompiler.get().write(keysList, recentBlockhash, instructions, buffer, offset, null);
+        return size;
+    }
+
+    private List<AccountMeta> compile() {
         if (recentBlockhash == null) {
             throw new IllegalArgumentException("recentBlockhash required");
         }
@@ -70,77 +95,7 @@ public class Message {
             throw new IllegalArgumentException("No instructions provided");
         }
 
-        messageHeader = new MessageHeader();
-
-        List<AccountMeta> keysList = getAccountKeys();
-        int accountKeysSize = keysList.size();
-
-        byte[] accountAddressesLength = ShortvecEncoding.encodeLength(accountKeysSize);
-
-        int compiledInstructionsLength = 0;
-        List<CompiledInstruction> compiledInstructions = new ArrayList<CompiledInstruction>();
-
-        for (TransactionInstruction instruction : instructions) {
-            int keysSize = instruction.getKeys().size();
-
-            byte[] keyIndices = new byte[keysSize];
-            for (int i = 0; i < keysSize; i++) {
-                keyIndices[i] = (byte) findAccountIndex(keysList, instruction.getKeys().get(i).getPublicKey());
-            }
-
-            CompiledInstruction compiledInstruction = new CompiledInstruction();
-            compiledInstruction.programIdIndex = (byte) findAccountIndex(keysList, instruction.getProgramId());
-            compiledInstruction.keyIndicesCount = ShortvecEncoding.encodeLength(keysSize);
-            compiledInstruction.keyIndices = keyIndices;
-            compiledInstruction.dataLength = ShortvecEncoding.encodeLength(instruction.getData().length);
-            compiledInstruction.data = instruction.getData();
-
-            compiledInstructions.add(compiledInstruction);
-
-            compiledInstructionsLength += compiledInstruction.getLength();
-        }
-
-        byte[] instructionsLength = ShortvecEncoding.encodeLength(compiledInstructions.size());
-
-        int bufferSize = MessageHeader.HEADER_LENGTH + RECENT_BLOCK_HASH_LENGTH + accountAddressesLength.length
-                + (accountKeysSize * PublicKey.PUBLIC_KEY_LENGTH) + instructionsLength.length
-                + compiledInstructionsLength;
-
-        ByteBuffer out = ByteBuffer.allocate(bufferSize);
-
-        ByteBuffer accountKeysBuff = ByteBuffer.allocate(accountKeysSize * PublicKey.PUBLIC_KEY_LENGTH);
-        for (AccountMeta accountMeta : keysList) {
-            accountKeysBuff.put(accountMeta.getPublicKey().toByteArray());
-
-            if (accountMeta.isSigner()) {
-                messageHeader.numRequiredSignatures += 1;
-                if (!accountMeta.isWritable()) {
-                    messageHeader.numReadonlySignedAccounts += 1;
-                }
-            } else {
-                if (!accountMeta.isWritable()) {
-                    messageHeader.numReadonlyUnsignedAccounts += 1;
-                }
-            }
-        }
-
-        out.put(messageHeader.toByteArray());
-
-        out.put(accountAddressesLength);
-        out.put(accountKeysBuff.array());
-
-        out.put(Base58.decode(recentBlockhash));
-
-        out.put(instructionsLength);
-        for (CompiledInstruction compiledInstruction : compiledInstructions) {
-            out.put(compiledInstruction.programIdIndex);
-            out.put(compiledInstruction.keyIndicesCount);
-            out.put(compiledInstruction.keyIndices);
-            out.put(compiledInstruction.dataLength);
-            out.put(compiledInstruction.data);
-        }
-
-        return out.array();
+        return getAccountKeys();
     }
 
     protected void setFeePayer(Account feePayer) {
@@ -159,23 +114,22 @@ public class Message {
                     .collect(Collectors.toList());
         }
 
-        int feePayerIndex = findAccountIndex(keysList, feePayer.getPublicKey());
-        List<AccountMeta> newList = new ArrayList<AccountMeta>();
-        AccountMeta feePayerMeta = keysList.get(feePayerIndex);
-        newList.add(new AccountMeta(feePayerMeta.getPublicKey(), true, true));
-        keysList.remove(feePayerIndex);
-        newList.addAll(keysList);
-
-        return newList;
-    }
-
-    private int findAccountIndex(List<AccountMeta> accountMetaList, PublicKey key) {
-        for (int i = 0; i < accountMetaList.size(); i++) {
-            if (accountMetaList.get(i).getPublicKey().equals(key)) {
-                return i;
+        PublicKey feePayerKey = feePayer.getPublicKey();
+        List<AccountMeta> newList = new ArrayList<AccountMeta>(keysList.size());
+        newList.add(new AccountMeta(feePayerKey, true, true));
+        boolean feePayerFound = false;
+        for (int i = 0; i < keysList.size(); i++) {
+            AccountMeta accountMeta = keysList.get(i);
+            if (!feePayerFound && accountMeta.getPublicKey().equals(feePayerKey)) {
+                feePayerFound = true;
+            } else {
+                newList.add(accountMeta);
             }
         }
+        if (!feePayerFound) {
+            throw new RuntimeException("unable to find account index");
+        }
 
-        throw new RuntimeException("unable to find account index");
+        return newList;
     }
 }
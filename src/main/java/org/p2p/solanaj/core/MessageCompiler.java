@@ -0,0 +1,196 @@
+package org.p2p.solanaj.core;
+
+import org.p2p.solanaj.utils.ShortvecEncoding;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes messages in the wire format.
+ * <p>
+ * Account indexes are resolved through an open addressing table from key to index instead of scanning the account
+ * keys for every reference, and the message is written straight into the output buffer after computing its exact
+ * size. Each thread reuses one compiler, so compiling a message allocates nothing but the output.
+ */
+final class MessageCompiler {
+
+    static final int HEADER_LENGTH = 3;
+    static final int RECENT_BLOCK_HASH_LENGTH = 32;
+
+    private static final ThreadLocal<MessageCompiler> POOL = ThreadLocal.withInitial(MessageCompiler::new);
+
+    private PublicKey[] slots = new PublicKey[64];
+    private int[] indexes = new int[64];
+
+    private MessageCompiler() {
+    }
+
+    static MessageCompiler get() {
+        return POOL.get();
+    }
+
+    /**
+     * Returns the size of a legacy message.
+     *
+     * @param accountKeys  the account keys of the message, in order
+     * @param instructions the instructions of the message
+     * @return the size in bytes
+     */
+    static int serializedSize(List<AccountMeta> accountKeys, List<TransactionInstruction> instructions) {
+        return HEADER_LENGTH + ShortvecEncoding.encodedLength(accountKeys.size())
+                + accountKeys.size() * PublicKey.PUBLIC_KEY_LENGTH + RECENT_BLOCK_HASH_LENGTH
+                + instructionsSize(instructions);
+    }
+
+    /**
+     * Returns the size of the compiled instructions, including their count.
+     *
+     * @param instructions the instructions
+     * @return the size in bytes
+     */
+    static int instructionsSize(List<TransactionInstruction> instructions) {
+        int size = ShortvecEncoding.encodedLength(instructions.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            TransactionInstruction instruction = instructions.get(i);
+            int keys = instruction.getKeys().size();
+            int data = instruction.getData().length;
+            // 1 = programIdIndex length
+            size += 1 + ShortvecEncoding.encodedLength(keys) + keys + ShortvecEncoding.encodedLength(data) + data;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a legacy message.
+     *
+     * @param accountKeys     the account keys of the message, in order
+     * @param recentBlockhash the decoded recent blockhash
+     * @param instructions    the instructions of the message
+     * @param out             the buffer, with room for {@link #serializedSize(List, List)} bytes from the offset
+     * @param offset          the position to write at
+     * @param positions       if not null, receives the position of the blockhash followed by the position of the
+     *                        data of every instruction
+     * @return the position after the message
+     */
+    int write(List<AccountMeta> accountKeys, byte[] recentBlockhash, List<TransactionInstruction> instructions,
+              byte[] out, int offset, int[] positions) {
+        index(accountKeys);
+
+        int numRequiredSignatures = 0;
+        int numReadonlySignedAccounts = 0;
+        int numReadonlyUnsignedAccounts = 0;
+        int position = offset + HEADER_LENGTH;
+        position = ShortvecEncoding.writeLength(out, position, accountKeys.size());
+        for (int i = 0; i < accountKeys.size(); i++) {
+            AccountMeta accountMeta = accountKeys.get(i);
+            System.arraycopy(accountMeta.getPublicKey().toByteArray(), 0, out, position, PublicKey.PUBLIC_KEY_LENGTH);
+            position += PublicKey.PUBLIC_KEY_LENGTH;
+
+            if (accountMeta.isSigner()) {
+                numRequiredSignatures++;
+                if (!accountMeta.isWritable()) {
+                    numReadonlySignedAccounts++;
+                }
+            } else if (!accountMeta.isWritable()) {
+                numReadonlyUnsignedAccounts++;
+            }
+        }
+        out[offset] = (byte) numRequiredSignatures;
+        out[offset + 1] = (byte) numReadonlySignedAccounts;
+        out[offset + 2] = (byte) numReadonlyUnsignedAccounts;
+
+        if (positions != null) {
+            positions[0] = position;
+        }
+        System.arraycopy(recentBlockhash, 0, out, position, RECENT_BLOCK_HASH_LENGTH);
+        position += RECENT_BLOCK_HASH_LENGTH;
+
+        return writeInstructions(instructions, out, position, positions);
+    }
+
+    /**
+     * Writes the compiled instructions, including their count, resolving accounts against the last indexed keys.
+     *
+     * @param instructions the instructions
+     * @param out          the buffer
+     * @param offset       the position to write at
+     * @param positions    if not null, receives the position of the data of instruction i at index i + 1
+     * @return the position after the instructions
+     */
+    int writeInstructions(List<TransactionInstruction> instructions, byte[] out, int offset, int[] positions) {
+        int position = ShortvecEncoding.writeLength(out, offset, instructions.size());
+        for (int i = 0; i < instructions.size(); i++) {
+            TransactionInstruction instruction = instructions.get(i);
+            List<AccountMeta> keys = instruction.getKeys();
+            byte[] data = instruction.getData();
+
+            out[position++] = (byte) indexOf(instruction.getProgramId());
+            position = ShortvecEncoding.writeLength(out, position, keys.size());
+            for (int k = 0; k < keys.size(); k++) {
+                out[position++] = (byte) indexOf(keys.get(k).getPublicKey());
+            }
+            position = ShortvecEncoding.writeLength(out, position, data.length);
+            if (positions != null) {
+                positions[i + 1] = position;
+            }
+            System.arraycopy(data, 0, out, position, data.length);
+            position += data.length;
+        }
+        return position;
+    }
+
+    /**
+     * Indexes account keys for {@link #indexOf(PublicKey)}, replacing the previously indexed keys. A key present
+     * more than once keeps its first index.
+     *
+     * @param accountKeys the account keys, in order
+     */
+    void index(List<AccountMeta> accountKeys) {
+        int capacity = slots.length;
+        while (capacity < accountKeys.size() * 2) {
+            capacity <<= 1;
+        }
+        if (capacity != slots.length) {
+            slots = new PublicKey[capacity];
+            indexes = new int[capacity];
+        } else {
+            Arrays.fill(slots, null);
+        }
+
+        int mask = capacity - 1;
+        for (int i = 0; i < accountKeys.size(); i++) {
+            PublicKey key = accountKeys.get(i).getPublicKey();
+            int slot = hash(key) & mask;
+            while (slots[slot] != null && !slots[slot].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == null) {
+                slots[slot] = key;
+                indexes[slot] = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a key among the last indexed account keys.
+     *
+     * @param key the key
+     * @return its index
+     */
+    int indexOf(PublicKey key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        for (PublicKey candidate = slots[slot]; candidate != null; candidate = slots[slot]) {
+            if (candidate == key || candidate.equals(key)) {
+                return indexes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new RuntimeException("unable to find account index");
+    }
+
+    private static int hash(PublicKey key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,335 @@
+package org.p2p.solanaj.core;
+
+import org.p2p.solanaj.utils.ByteUtils;
+import org.p2p.solanaj.utils.ShortvecEncoding;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A legacy or version 0 message read from the wire format, without copying it.
+ * <p>
+ * Parsing only walks the message once to check its structure and record where its sections start. Account keys,
+ * the blockhash, instructions and lookups are decoded from the underlying bytes when they are accessed, so reading,
+ * say, the account keys of every transaction of a block costs nothing for the parts left alone. The bytes must not
+ * be modified while the message is in use.
+ */
+public class SerializedMessage {
+
+    /** Version of a legacy message, which has no version prefix. */
+    public static final int LEGACY = -1;
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+    private final int version;
+    private final int headerOffset;
+    private final int accountKeyCount;
+    private final int accountKeysOffset;
+    private final int recentBlockhashOffset;
+    private final int[] instructionOffsets;
+    private final int addressTableLookupCount;
+    private final int addressTableLookupsOffset;
+    private List<PublicKey> accountKeys;
+
+    /**
+     * Parses a message filling the given range of a buffer.
+     *
+     * @throws IllegalArgumentException if the bytes are not a message of a supported version
+     */
+    SerializedMessage(ByteBuffer buffer, int offset, int end) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = end - offset;
+        ByteBuffer cursor = buffer.duplicate();
+        cursor.limit(end).position(offset);
+        try {
+            int prefix = cursor.get(offset) & 0xff;
+            if ((prefix & VersionedMessage.VERSION_PREFIX) != 0) {
+                version = prefix & ~VersionedMessage.VERSION_PREFIX;
+                if (version != 0) {
+                    throw new IllegalArgumentException("Unsupported message version " + version);
+                }
+                cursor.get();
+            } else {
+                version = LEGACY;
+            }
+            headerOffset = cursor.position();
+            skip(cursor, MessageCompiler.HEADER_LENGTH);
+            accountKeyCount = ShortvecEncoding.decodeLength(cursor);
+            accountKeysOffset = cursor.position();
+            skip(cursor, accountKeyCount * PublicKey.PUBLIC_KEY_LENGTH);
+            recentBlockhashOffset = cursor.position();
+            skip(cursor, MessageCompiler.RECENT_BLOCK_HASH_LENGTH);
+
+            instructionOffsets = new int[ShortvecEncoding.decodeLength(cursor)];
+            for (int i = 0; i < instructionOffsets.length; i++) {
+                instructionOffsets[i] = cursor.position();
+                cursor.get();
+                skip(cursor, ShortvecEncoding.decodeLength(cursor));
+                skip(cursor, ShortvecEncoding.decodeLength(cursor));
+            }
+
+            if (version == LEGACY) {
+                addressTableLookupCount = 0;
+                addressTableLookupsOffset = cursor.position();
+            } else {
+                addressTableLookupCount = ShortvecEncoding.decodeLength(cursor);
+                addressTableLookupsOffset = cursor.position();
+                for (int i = 0; i < addressTableLookupCount; i++) {
+                    skip(cursor, PublicKey.PUBLIC_KEY_LENGTH);
+                    skip(cursor, ShortvecEncoding.decodeLength(cursor));
+                    skip(cursor, ShortvecEncoding.decodeLength(cursor));
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated message", e);
+        }
+        if (cursor.hasRemaining()) {
+            throw new IllegalArgumentException(cursor.remaining() + " bytes after the end of the message");
+        }
+    }
+
+    private static void skip(ByteBuffer cursor, int length) {
+        if (length > cursor.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        cursor.position(cursor.position() + length);
+    }
+
+    /**
+     * Parses a serialized message.
+     *
+     * @param data the serialized message
+     * @return the message, backed by the given array
+     * @throws IllegalArgumentException if the bytes are not a message of a supported version
+     */
+    public static SerializedMessage deserialize(byte[] data) {
+        return deserialize(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Parses a serialized message between the position and the limit of a buffer, which are left unchanged.
+     *
+     * @param buffer the buffer holding the message
+     * @return the message, backed by the given buffer
+     * @throws IllegalArgumentException if the bytes are not a message of a supported version
+     */
+    public static SerializedMessage deserialize(ByteBuffer buffer) {
+        return new SerializedMessage(buffer, buffer.position(), buffer.limit());
+    }
+
+    /**
+     * @return the message version, or {@link #LEGACY}
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public int getNumRequiredSignatures() {
+        return buffer.get(headerOffset) & 0xff;
+    }
+
+    public int getNumReadonlySignedAccounts() {
+        return buffer.get(headerOffset + 1) & 0xff;
+    }
+
+    public int getNumReadonlyUnsignedAccounts() {
+        return buffer.get(headerOffset + 2) & 0xff;
+    }
+
+    /**
+     * Returns the number of accounts listed in the message, not counting those loaded from lookup tables.
+     *
+     * @return the number of static account keys
+     */
+    public int getAccountKeyCount() {
+        return accountKeyCount;
+    }
+
+    public PublicKey getAccountKey(int index) {
+        return new PublicKey(bytes(keyOffset(index), PublicKey.PUBLIC_KEY_LENGTH));
+    }
+
+    /**
+     * Returns the accounts listed in the message, signers first. Keys are decoded on first access.
+     *
+     * @return the static account keys
+     */
+    public List<PublicKey> getAccountKeys() {
+        List<PublicKey> keys = accountKeys;
+        if (keys == null) {
+            PublicKey[] decoded = new PublicKey[accountKeyCount];
+            for (int i = 0; i < decoded.length; i++) {
+                decoded[i] = getAccountKey(i);
+            }
+            keys = List.of(decoded);
+            accountKeys = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns whether a listed account signs the message.
+     *
+     * @param index the index of the static account key
+     * @return true for the first {@link #getNumRequiredSignatures()} accounts
+     */
+    public boolean isSigner(int index) {
+        return index < getNumRequiredSignatures();
+    }
+
+    /**
+     * Returns whether the message writes a listed account.
+     *
+     * @param index the index of the static account key
+     * @return true unless the account is among the readonly signers or the readonly non-signers
+     */
+    public boolean isWritable(int index) {
+        int signers = getNumRequiredSignatures();
+        if (index < signers) {
+            return index < signers - getNumReadonlySignedAccounts();
+        }
+        return index < accountKeyCount - getNumReadonlyUnsignedAccounts();
+    }
+
+    public String getRecentBlockhash() {
+        return ByteUtils.encodeBase58(bytes(recentBlockhashOffset, MessageCompiler.RECENT_BLOCK_HASH_LENGTH));
+    }
+
+    public int getInstructionCount() {
+        return instructionOffsets.length;
+    }
+
+    public CompiledInstruction getInstruction(int index) {
+        return new CompiledInstruction(instructionOffsets[index]);
+    }
+
+    public List<CompiledInstruction> getInstructions() {
+        return new AbstractList<>() {
+            @Override
+            public CompiledInstruction get(int index) {
+                return getInstruction(index);
+            }
+
+            @Override
+            public int size() {
+                return instructionOffsets.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the accounts loaded from lookup tables, one entry per table; always empty for legacy messages.
+     *
+     * @return the address table lookups
+     */
+    public List<VersionedMessage.AddressTableLookup> getAddressTableLookups() {
+        if (addressTableLookupCount == 0) {
+            return Collections.emptyList();
+        }
+        ByteBuffer cursor = buffer.duplicate();
+        cursor.position(addressTableLookupsOffset);
+        List<VersionedMessage.AddressTableLookup> lookups = new ArrayList<>(addressTableLookupCount);
+        for (int i = 0; i < addressTableLookupCount; i++) {
+            byte[] key = new byte[PublicKey.PUBLIC_KEY_LENGTH];
+            cursor.get(key);
+            byte[] writableIndexes = new byte[ShortvecEncoding.decodeLength(cursor)];
+            cursor.get(writableIndexes);
+            byte[] readonlyIndexes = new byte[ShortvecEncoding.decodeLength(cursor)];
+            cursor.get(readonlyIndexes);
+            lookups.add(new VersionedMessage.AddressTableLookup(new PublicKey(key), writableIndexes,
+                    readonlyIndexes));
+        }
+        return lookups;
+    }
+
+    /**
+     * Returns the length of the serialized message.
+     *
+     * @return the number of bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns a copy of the serialized message, which is what its signatures sign.
+     *
+     * @return the message bytes
+     */
+    public byte[] serialize() {
+        return bytes(offset, length);
+    }
+
+    private int keyOffset(int index) {
+        if (index < 0 || index >= accountKeyCount) {
+            throw new IndexOutOfBoundsException("Account key " + index + " out of " + accountKeyCount);
+        }
+        return accountKeysOffset + index * PublicKey.PUBLIC_KEY_LENGTH;
+    }
+
+    private byte[] bytes(int position, int count) {
+        byte[] out = new byte[count];
+        buffer.get(position, out);
+        return out;
+    }
+
+    /**
+     * An instruction of the message, whose accounts are indexes into the account keys.
+     */
+    public class CompiledInstruction {
+        private final int instructionOffset;
+
+        CompiledInstruction(int instructionOffset) {
+            this.instructionOffset = instructionOffset;
+        }
+
+        public int getProgramIdIndex() {
+            return buffer.get(instructionOffset) & 0xff;
+        }
+
+        /**
+         * Returns the invoked program, which is always a listed account.
+         *
+         * @return the program id
+         */
+        public PublicKey getProgramId() {
+            return getAccountKey(getProgramIdIndex());
+        }
+
+        /**
+         * Returns the indexes of the accounts passed to the instruction. Indexes past the static account keys refer
+         * to accounts loaded from lookup tables, writable ones before readonly ones.
+         *
+         * @return the account indexes
+         */
+        public int[] getAccountIndexes() {
+            ByteBuffer cursor = cursor();
+            int[] indexes = new int[ShortvecEncoding.decodeLength(cursor)];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = cursor.get() & 0xff;
+            }
+            return indexes;
+        }
+
+        public byte[] getData() {
+            ByteBuffer cursor = cursor();
+            int accountCount = ShortvecEncoding.decodeLength(cursor);
+            cursor.position(cursor.position() + accountCount);
+            byte[] data = new byte[ShortvecEncoding.decodeLength(cursor)];
+            cursor.get(data);
+            return data;
+        }
+
+        private ByteBuffer cursor() {
+            ByteBuffer cursor = buffer.duplicate();
+            cursor.position(instructionOffset + 1);
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.p2p.solanaj.core;
+
+import org.p2p.solanaj.utils.ByteUtils;
+import org.p2p.solanaj.utils.ShortvecEncoding;
+import org.p2p.solanaj.utils.TweetNaclFast;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A legacy or version 0 transaction read from the wire format, without copying it, e.g. from the base64 encoded
+ * transactions of getBlock. Signatures are encoded and the message is decoded only as far as they are accessed, see
+ * {@link SerializedMessage}. The bytes must not be modified while the transaction is in use.
+ */
+public class SerializedTransaction {
+
+    private final ByteBuffer buffer;
+    private final int signatureCount;
+    private final int signaturesOffset;
+    private final SerializedMessage message;
+
+    private SerializedTransaction(ByteBuffer buffer, int offset, int end) {
+        this.buffer = buffer;
+        ByteBuffer cursor = buffer.duplicate();
+        cursor.limit(end).position(offset);
+        try {
+            signatureCount = ShortvecEncoding.decodeLength(cursor);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated transaction", e);
+        }
+        signaturesOffset = cursor.position();
+        int messageOffset = signaturesOffset + signatureCount * Transaction.SIGNATURE_LENGTH;
+        if (messageOffset > end) {
+            throw new IllegalArgumentException("Truncated transaction");
+        }
+        message = new SerializedMessage(buffer, messageOffset, end);
+        if (message.getNumRequiredSignatures() != signatureCount) {
+            throw new IllegalArgumentException("Transaction has " + signatureCount
+                    + " signatures, its message requires " + message.getNumRequiredSignatures());
+        }
+    }
+
+    /**
+     * Parses a serialized transaction.
+     *
+     * @param data the serialized transaction
+     * @return the transaction, backed by the given array
+     * @throws IllegalArgumentException if the bytes are not a transaction of a supported version
+     */
+    public static SerializedTransaction deserialize(byte[] data) {
+        return new SerializedTransaction(ByteBuffer.wrap(data), 0, data.length);
+    }
+
+    /**
+     * Parses a serialized transaction stored in a range of an array.
+     *
+     * @param data   the array holding the transaction
+     * @param offset the position of the transaction
+     * @param length the length of the transaction
+     * @return the transaction, backed by the given array
+     * @throws IllegalArgumentException if the bytes are not a transaction of a supported version
+     */
+    public static SerializedTransaction deserialize(byte[] data, int offset, int length) {
+        return new SerializedTransaction(ByteBuffer.wrap(data), offset, offset + length);
+    }
+
+    /**
+     * Parses a serialized transaction between the position and the limit of a buffer, which are left unchanged.
+     *
+     * @param buffer the buffer holding the transaction
+     * @return the transaction, backed by the given buffer
+     * @throws IllegalArgumentException if the bytes are not a transaction of a supported version
+     */
+    public static SerializedTransaction deserialize(ByteBuffer buffer) {
+        return new SerializedTransaction(buffer, buffer.position(), buffer.limit());
+    }
+
+    public SerializedMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the message version, or {@link SerializedMessage#LEGACY}
+     */
+    public int getVersion() {
+        return message.getVersion();
+    }
+
+    public int getSignatureCount() {
+        return signatureCount;
+    }
+
+    /**
+     * Returns the signature of the fee payer, which identifies the transaction.
+     *
+     * @return the base58 encoded signature
+     */
+    public String getSignature() {
+        return getSignature(0);
+    }
+
+    /**
+     * Returns the signature of the account key with the same index.
+     *
+     * @param index the index of the signature
+     * @return the base58 encoded signature
+     */
+    public String getSignature(int index) {
+        return ByteUtils.encodeBase58(getSignatureBytes(index));
+    }
+
+    public byte[] getSignatureBytes(int index) {
+        if (index < 0 || index >= signatureCount) {
+            throw new IndexOutOfBoundsException("Signature " + index + " out of " + signatureCount);
+        }
+        byte[] signature = new byte[Transaction.SIGNATURE_LENGTH];
+        buffer.get(signaturesOffset + index * Transaction.SIGNATURE_LENGTH, signature);
+        return signature;
+    }
+
+    /**
+     * Returns the signatures, encoded on access.
+     *
+     * @return the base58 encoded signatures
+     */
+    public List<String> getSignatures() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getSignature(index);
+            }
+
+            @Override
+            public int size() {
+                return signatureCount;
+            }
+        };
+    }
+
+    /**
+     * Checks every signature against the account key it belongs to.
+     *
+     * @return true if all signatures are valid
+     */
+    public boolean verifySignatures() {
+        byte[] serializedMessage = message.serialize();
+        for (int i = 0; i < signatureCount; i++) {
+            TweetNaclFast.Signature verifier = new TweetNaclFast.Signature(
+                    message.getAccountKey(i).toByteArray(), new byte[0]);
+            if (!verifier.detached_verify(serializedMessage, getSignatureBytes(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
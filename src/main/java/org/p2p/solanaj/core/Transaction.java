@@ -91,6 +91,18 @@ public class Transaction {
         }
     }
 
+    /**
+     * Parses a legacy or version 0 transaction from the wire format. Transactions are built with this class; parsed
+     * ones are read-only views over the given bytes.
+     *
+     * @param data The serialized transaction
+     * @return The parsed transaction
+     * @throws IllegalArgumentException if the bytes are not a transaction of a supported version
+     */
+    public static SerializedTransaction deserialize(byte[] data) {
+        return SerializedTransaction.deserialize(data);
+    }
+
     /**
      * Serializes the transaction into a byte array.
      *
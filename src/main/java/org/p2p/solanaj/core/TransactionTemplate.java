@@ -0,0 +1,248 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.p2p.solanaj.utils.ShortvecEncoding;
+import org.p2p.solanaj.utils.TweetNaclFast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A transaction compiled once and patched in place for every send.
+ * <p>
+ * The template serializes its instructions once, and remembers where the recent blockhash and the data of every
+ * instruction are in the serialized transaction. Preparing a send then only overwrites those bytes, e.g. the
+ * amount or price fields declared with {@link #field(int, int, int)}, and signs again: the account keys are not
+ * collected, sorted or indexed again, and nothing is serialized again.
+ * <pre>{@code
+ * TransactionTemplate template = new TransactionTemplate(instructions, List.of(owner));
+ * TransactionTemplate.Field amount = template.field(1, 1, 8);
+ * ...
+ * amount.setLong(quantity);
+ * template.setRecentBlockhash(blockhash);
+ * template.sign();
+ * client.getApi().sendRawTransaction(template.serialize(), config);
+ * }</pre>
+ * Only the declared fields and the blockhash may change: the accounts, programs and data lengths are fixed.
+ * A template is not thread safe; use one per thread.
+ */
+public class TransactionTemplate {
+
+    private final byte[] transaction;
+    private final int messageOffset;
+    private final int blockhashOffset;
+    private final int[] dataOffsets;
+    private final int[] dataLengths;
+    private final TweetNaclFast.Signature[] signers;
+    private final int[] signatureOffsets;
+
+    /**
+     * Field of an instruction's data, written in little endian.
+     */
+    public final class Field {
+        private final int offset;
+        private final int length;
+
+        private Field(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public Field setByte(byte value) {
+            checkLength(1);
+            transaction[offset] = value;
+            return this;
+        }
+
+        public Field setShort(short value) {
+            checkLength(2);
+            writeLittleEndian(value, 2);
+            return this;
+        }
+
+        public Field setInt(int value) {
+            checkLength(4);
+            writeLittleEndian(value, 4);
+            return this;
+        }
+
+        public Field setLong(long value) {
+            checkLength(8);
+            writeLittleEndian(value, 8);
+            return this;
+        }
+
+        public Field setBytes(byte[] value) {
+            checkLength(value.length);
+            System.arraycopy(value, 0, transaction, offset, length);
+            return this;
+        }
+
+        private void writeLittleEndian(long value, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                transaction[offset + i] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        private void checkLength(int bytes) {
+            if (bytes != length) {
+                throw new IllegalArgumentException("Field has " + length + " bytes, not " + bytes);
+            }
+        }
+    }
+
+    /**
+     * Compiles a template.
+     *
+     * @param instructions the instructions of the transaction
+     * @param signers      the accounts signing the transaction, the fee payer first
+     * @throws IllegalArgumentException if there are no instructions, or an account required to sign is missing
+     */
+    public TransactionTemplate(List<TransactionInstruction> instructions, List<Account> signers) {
+        Objects.requireNonNull(instructions, "Instructions cannot be null");
+        if (signers == null || signers.isEmpty()) {
+            throw new IllegalArgumentException("No signers provided");
+        }
+
+        Message message = new Message();
+        instructions.forEach(message::addInstruction);
+        // compiled with an empty blockhash, which is set before every send
+        message.setRecentBlockHash(Base58.encode(new byte[MessageCompiler.RECENT_BLOCK_HASH_LENGTH]));
+        message.setFeePayer(signers.get(0));
+        int[] positions = new int[instructions.size() + 1];
+        byte[] serializedMessage = message.serialize(positions);
+
+        int numRequiredSignatures = serializedMessage[0] & 0xff;
+        int signaturesLength = ShortvecEncoding.encodedLength(numRequiredSignatures);
+        messageOffset = signaturesLength + numRequiredSignatures * Transaction.SIGNATURE_LENGTH;
+        transaction = new byte[messageOffset + serializedMessage.length];
+        ShortvecEncoding.writeLength(transaction, 0, numRequiredSignatures);
+        System.arraycopy(serializedMessage, 0, transaction, messageOffset, serializedMessage.length);
+
+        blockhashOffset = messageOffset + positions[0];
+        dataOffsets = new int[instructions.size()];
+        dataLengths = new int[instructions.size()];
+        for (int i = 0; i < instructions.size(); i++) {
+            dataOffsets[i] = messageOffset + positions[i + 1];
+            dataLengths[i] = instructions.get(i).getData().length;
+        }
+
+        // every signature goes to the slot of its key among the leading signer keys
+        int keysOffset = messageOffset + MessageCompiler.HEADER_LENGTH
+                + ShortvecEncoding.encodedLength(readLength(serializedMessage, MessageCompiler.HEADER_LENGTH));
+        List<TweetNaclFast.Signature> signatureProviders = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        for (int slot = 0; slot < numRequiredSignatures; slot++) {
+            int keyOffset = keysOffset + slot * PublicKey.PUBLIC_KEY_LENGTH;
+            byte[] key = Arrays.copyOfRange(transaction, keyOffset, keyOffset + PublicKey.PUBLIC_KEY_LENGTH);
+            Account signer = signers.stream()
+                    .filter(account -> Arrays.equals(account.getPublicKey().toByteArray(), key))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Missing signer " + Base58.encode(key)));
+            signatureProviders.add(new TweetNaclFast.Signature(new byte[0], signer.getSecretKey()));
+            offsets.add(signaturesLength + slot * Transaction.SIGNATURE_LENGTH);
+        }
+        this.signers = signatureProviders.toArray(new TweetNaclFast.Signature[0]);
+        this.signatureOffsets = offsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int readLength(byte[] bytes, int offset) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int elem = bytes[offset++] & 0xff;
+            length |= (elem & 0x7f) << shift;
+            if ((elem & 0x80) == 0) {
+                return length;
+            }
+        }
+    }
+
+    /**
+     * Declares a field of an instruction's data that changes between sends.
+     *
+     * @param instruction the index of the instruction
+     * @param offset      the offset of the field in the instruction's data
+     * @param length      the length of the field in bytes
+     * @return the field
+     * @throws IndexOutOfBoundsException if the field is not within the instruction's data
+     */
+    public Field field(int instruction, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, dataLengths[instruction]);
+        return new Field(dataOffsets[instruction] + offset, length);
+    }
+
+    /**
+     * Sets the recent blockhash.
+     *
+     * @param recentBlockhash the recent blockhash
+     * @return this template
+     */
+    public TransactionTemplate setRecentBlockhash(String recentBlockhash) {
+        return setRecentBlockhash(Base58.decode(recentBlockhash));
+    }
+
+    /**
+     * Sets the recent blockhash, already decoded.
+     *
+     * @param recentBlockhash the 32 bytes of the recent blockhash
+     * @return this template
+     */
+    public TransactionTemplate setRecentBlockhash(byte[] recentBlockhash) {
+        if (recentBlockhash.length != MessageCompiler.RECENT_BLOCK_HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid recentBlockhash length: " + recentBlockhash.length);
+        }
+        System.arraycopy(recentBlockhash, 0, transaction, blockhashOffset, recentBlockhash.length);
+        return this;
+    }
+
+    /**
+     * Signs the transaction as it is now, replacing the previous signatures.
+     *
+     * @return this template
+     */
+    public TransactionTemplate sign() {
+        int messageLength = transaction.length - messageOffset;
+        for (int i = 0; i < signers.length; i++) {
+            byte[] signed = signers[i].sign(transaction, messageOffset, messageLength);
+            System.arraycopy(signed, 0, transaction, signatureOffsets[i], Transaction.SIGNATURE_LENGTH);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the signature of the fee payer, which identifies the transaction.
+     *
+     * @return the base58 encoded signature
+     */
+    public String getSignature() {
+        return Base58.encode(Arrays.copyOfRange(transaction, signatureOffsets[0],
+                signatureOffsets[0] + Transaction.SIGNATURE_LENGTH));
+    }
+
+    /**
+     * Returns a copy of the serialized transaction.
+     *
+     * @return the serialized transaction
+     */
+    public byte[] serialize() {
+        return transaction.clone();
+    }
+
+    /**
+     * Copies the serialized transaction into a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the position to write at
+     * @return the number of bytes written
+     */
+    public int serialize(byte[] buffer, int offset) {
+        System.arraycopy(transaction, 0, buffer, offset, transaction.length);
+        return transaction.length;
+    }
+
+    public int getLength() {
+        return transaction.length;
+    }
+}
@@ -0,0 +1,251 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.p2p.solanaj.utils.ShortvecEncoding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A version 0 message, which can load accounts from address lookup tables.
+ * <p>
+ * The account keys are ordered as the runtime expects: the fee payer, the other writable signers, the readonly
+ * signers, the writable and then the readonly non-signers. Every non-signer account that is not an invoked program
+ * and is found in one of the given lookup tables is referenced by its index in the table instead of being listed,
+ * which saves 31 bytes per account. Tables are searched in the given order, and tables not used are left out.
+ */
+public class VersionedMessage {
+
+    /** Marks a versioned message in the first byte, which is the signature count of a legacy message. */
+    static final int VERSION_PREFIX = 0x80;
+
+    /** Most accounts a message can reference, static and looked up. */
+    private static final int MAX_ACCOUNTS = 256;
+
+    private final List<AccountMeta> staticAccountKeys;
+    private final List<AddressTableLookup> addressTableLookups;
+    private final List<AccountMeta> accountKeys;
+    private final List<TransactionInstruction> instructions;
+    private final int numRequiredSignatures;
+    private final int numReadonlySignedAccounts;
+    private final int numReadonlyUnsignedAccounts;
+    private byte[] recentBlockhash;
+
+    /**
+     * The accounts a message loads from one lookup table.
+     */
+    public static class AddressTableLookup {
+        private final PublicKey accountKey;
+        private final byte[] writableIndexes;
+        private final byte[] readonlyIndexes;
+
+        AddressTableLookup(PublicKey accountKey, byte[] writableIndexes, byte[] readonlyIndexes) {
+            this.accountKey = accountKey;
+            this.writableIndexes = writableIndexes;
+            this.readonlyIndexes = readonlyIndexes;
+        }
+
+        public PublicKey getAccountKey() {
+            return accountKey;
+        }
+
+        public byte[] getWritableIndexes() {
+            return writableIndexes.clone();
+        }
+
+        public byte[] getReadonlyIndexes() {
+            return readonlyIndexes.clone();
+        }
+
+        int serializedSize() {
+            return PublicKey.PUBLIC_KEY_LENGTH + ShortvecEncoding.encodedLength(writableIndexes.length)
+                    + writableIndexes.length + ShortvecEncoding.encodedLength(readonlyIndexes.length)
+                    + readonlyIndexes.length;
+        }
+    }
+
+    /**
+     * Compiles a message.
+     *
+     * @param feePayer     the account paying the fees
+     * @param instructions the instructions of the message
+     * @param lookupTables the lookup tables to load accounts from, may be empty
+     * @throws IllegalArgumentException if there are no instructions or the message references too many accounts
+     */
+    public VersionedMessage(PublicKey feePayer, List<TransactionInstruction> instructions,
+                            List<AddressLookupTable> lookupTables) {
+        if (instructions.isEmpty()) {
+            throw new IllegalArgumentException("No instructions provided");
+        }
+        this.instructions = new ArrayList<>(instructions);
+
+        // the flags of an account referenced several times are combined
+        Map<PublicKey, AccountMeta> metas = new LinkedHashMap<>();
+        metas.put(feePayer, new AccountMeta(feePayer, true, true));
+        Set<PublicKey> programIds = new HashSet<>();
+        for (TransactionInstruction instruction : instructions) {
+            for (AccountMeta meta : instruction.getKeys()) {
+                metas.merge(meta.getPublicKey(), meta, (existing, added) -> new AccountMeta(existing.getPublicKey(),
+                        existing.isSigner() || added.isSigner(), existing.isWritable() || added.isWritable()));
+            }
+            metas.putIfAbsent(instruction.getProgramId(), new AccountMeta(instruction.getProgramId(), false, false));
+            programIds.add(instruction.getProgramId());
+        }
+
+        List<AccountMeta> writableSigners = new ArrayList<>();
+        List<AccountMeta> readonlySigners = new ArrayList<>();
+        List<AccountMeta> writableNonSigners = new ArrayList<>();
+        List<AccountMeta> readonlyNonSigners = new ArrayList<>();
+        // writable and readonly accounts found in each table, in table order
+        List<List<AccountMeta>> writableLookups = new ArrayList<>();
+        List<List<AccountMeta>> readonlyLookups = new ArrayList<>();
+        List<List<Byte>> writableIndexes = new ArrayList<>();
+        List<List<Byte>> readonlyIndexes = new ArrayList<>();
+        for (int i = 0; i < lookupTables.size(); i++) {
+            writableLookups.add(new ArrayList<>());
+            readonlyLookups.add(new ArrayList<>());
+            writableIndexes.add(new ArrayList<>());
+            readonlyIndexes.add(new ArrayList<>());
+        }
+
+        for (AccountMeta meta : metas.values()) {
+            if (meta.isSigner()) {
+                (meta.isWritable() ? writableSigners : readonlySigners).add(meta);
+                continue;
+            }
+            if (!programIds.contains(meta.getPublicKey())) {
+                int table = 0;
+                int index = -1;
+                for (; table < lookupTables.size(); table++) {
+                    index = lookupTables.get(table).indexOf(meta.getPublicKey());
+                    if (index >= 0) {
+                        break;
+                    }
+                }
+                if (index >= 0) {
+                    (meta.isWritable() ? writableLookups : readonlyLookups).get(table).add(meta);
+                    (meta.isWritable() ? writableIndexes : readonlyIndexes).get(table).add((byte) index);
+                    continue;
+                }
+            }
+            (meta.isWritable() ? writableNonSigners : readonlyNonSigners).add(meta);
+        }
+
+        List<AccountMeta> staticKeys = new ArrayList<>();
+        staticKeys.addAll(writableSigners);
+        staticKeys.addAll(readonlySigners);
+        staticKeys.addAll(writableNonSigners);
+        staticKeys.addAll(readonlyNonSigners);
+        this.staticAccountKeys = Collections.unmodifiableList(staticKeys);
+        this.numRequiredSignatures = writableSigners.size() + readonlySigners.size();
+        this.numReadonlySignedAccounts = readonlySigners.size();
+        this.numReadonlyUnsignedAccounts = readonlyNonSigners.size();
+
+        // looked up accounts are indexed after the static ones, all writable ones before all readonly ones
+        List<AccountMeta> keys = new ArrayList<>(staticKeys);
+        writableLookups.forEach(keys::addAll);
+        readonlyLookups.forEach(keys::addAll);
+        if (keys.size() > MAX_ACCOUNTS) {
+            throw new IllegalArgumentException("Message references " + keys.size() + " accounts, at most "
+                    + MAX_ACCOUNTS + " are allowed");
+        }
+        this.accountKeys = keys;
+
+        List<AddressTableLookup> lookups = new ArrayList<>();
+        for (int i = 0; i < lookupTables.size(); i++) {
+            if (!writableIndexes.get(i).isEmpty() || !readonlyIndexes.get(i).isEmpty()) {
+                lookups.add(new AddressTableLookup(lookupTables.get(i).getKey(), toBytes(writableIndexes.get(i)),
+                        toBytes(readonlyIndexes.get(i))));
+            }
+        }
+        this.addressTableLookups = Collections.unmodifiableList(lookups);
+    }
+
+    private static byte[] toBytes(List<Byte> values) {
+        byte[] bytes = new byte[values.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = values.get(i);
+        }
+        return bytes;
+    }
+
+    public void setRecentBlockHash(String recentBlockhash) {
+        byte[] decoded = Base58.decode(recentBlockhash);
+        if (decoded.length != MessageCompiler.RECENT_BLOCK_HASH_LENGTH) {
+            throw new IllegalArgumentException("Invalid recentBlockhash: " + recentBlockhash);
+        }
+        this.recentBlockhash = decoded;
+    }
+
+    /**
+     * Returns the accounts listed in the message, the signers first.
+     *
+     * @return the static account keys
+     */
+    public List<AccountMeta> getStaticAccountKeys() {
+        return staticAccountKeys;
+    }
+
+    /**
+     * Returns the accounts loaded from lookup tables, one entry per table used.
+     *
+     * @return the address table lookups
+     */
+    public List<AddressTableLookup> getAddressTableLookups() {
+        return addressTableLookups;
+    }
+
+    public int getNumRequiredSignatures() {
+        return numRequiredSignatures;
+    }
+
+    public byte[] serialize() {
+        if (recentBlockhash == null) {
+            throw new IllegalArgumentException("recentBlockhash required");
+        }
+
+        int size = 1 + MessageCompiler.HEADER_LENGTH + ShortvecEncoding.encodedLength(staticAccountKeys.size())
+                + staticAccountKeys.size() * PublicKey.PUBLIC_KEY_LENGTH + MessageCompiler.RECENT_BLOCK_HASH_LENGTH
+                + MessageCompiler.instructionsSize(instructions)
+                + ShortvecEncoding.encodedLength(addressTableLookups.size());
+        for (AddressTableLookup lookup : addressTableLookups) {
+            size += lookup.serializedSize();
+        }
+
+        byte[] out = new byte[size];
+        int position = 0;
+        out[position++] = (byte) VERSION_PREFIX;
+        out[position++] = (byte) numRequiredSignatures;
+        out[position++] = (byte) numReadonlySignedAccounts;
+        out[position++] = (byte) numReadonlyUnsignedAccounts;
+        position = ShortvecEncoding.writeLength(out, position, staticAccountKeys.size());
+        for (AccountMeta meta : staticAccountKeys) {
+            System.arraycopy(meta.getPublicKey().toByteArray(), 0, out, position, PublicKey.PUBLIC_KEY_LENGTH);
+            position += PublicKey.PUBLIC_KEY_LENGTH;
+        }
+        System.arraycopy(recentBlockhash, 0, out, position, MessageCompiler.RECENT_BLOCK_HASH_LENGTH);
+        position += MessageCompiler.RECENT_BLOCK_HASH_LENGTH;
+
+        MessageCompiler compiler = MessageCompiler.get();
+        compiler.index(accountKeys);
+        position = compiler.writeInstructions(instructions, out, position, null);
+
+        position = ShortvecEncoding.writeLength(out, position, addressTableLookups.size());
+        for (AddressTableLookup lookup : addressTableLookups) {
+            System.arraycopy(lookup.accountKey.toByteArray(), 0, out, position, PublicKey.PUBLIC_KEY_LENGTH);
+            position += PublicKey.PUBLIC_KEY_LENGTH;
+            position = ShortvecEncoding.writeLength(out, position, lookup.writableIndexes.length);
+            System.arraycopy(lookup.writableIndexes, 0, out, position, lookup.writableIndexes.length);
+            position += lookup.writableIndexes.length;
+            position = ShortvecEncoding.writeLength(out, position, lookup.readonlyIndexes.length);
+            System.arraycopy(lookup.readonlyIndexes, 0, out, position, lookup.readonlyIndexes.length);
+            position += lookup.readonlyIndexes.length;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,105 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.p2p.solanaj.utils.ShortvecEncoding;
+import org.p2p.solanaj.utils.TweetNaclFast;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A transaction carrying a {@link VersionedMessage}, whose accounts may be loaded from address lookup tables.
+ */
+public class VersionedTransaction {
+
+    private final VersionedMessage message;
+    private final byte[][] signatures;
+    private byte[] serializedMessage;
+
+    /**
+     * Constructs a transaction from instructions, compiled against the given lookup tables.
+     *
+     * @param feePayer     the account paying the fees
+     * @param instructions the instructions of the transaction
+     * @param lookupTables the lookup tables to load accounts from, may be empty
+     */
+    public VersionedTransaction(PublicKey feePayer, List<TransactionInstruction> instructions,
+                                List<AddressLookupTable> lookupTables) {
+        this(new VersionedMessage(feePayer, instructions, lookupTables));
+    }
+
+    public VersionedTransaction(VersionedMessage message) {
+        this.message = Objects.requireNonNull(message, "Message cannot be null");
+        this.signatures = new byte[message.getNumRequiredSignatures()][];
+    }
+
+    public VersionedMessage getMessage() {
+        return message;
+    }
+
+    public void setRecentBlockHash(String recentBlockhash) {
+        Objects.requireNonNull(recentBlockhash, "Recent blockhash cannot be null");
+        message.setRecentBlockHash(recentBlockhash);
+    }
+
+    /**
+     * Signs the transaction. Each signature is placed in the slot of its signer's account key.
+     *
+     * @param signers the accounts required to sign the transaction
+     * @throws IllegalArgumentException if a signer is not required to sign the transaction
+     */
+    public void sign(List<Account> signers) {
+        if (signers == null || signers.isEmpty()) {
+            throw new IllegalArgumentException("No signers provided");
+        }
+
+        serializedMessage = message.serialize();
+        Arrays.fill(signatures, null);
+        List<AccountMeta> keys = message.getStaticAccountKeys();
+        for (Account signer : signers) {
+            PublicKey publicKey = signer.getPublicKey();
+            int slot = 0;
+            while (slot < signatures.length && !keys.get(slot).getPublicKey().equals(publicKey)) {
+                slot++;
+            }
+            if (slot == signatures.length) {
+                throw new IllegalArgumentException("Account " + publicKey + " is not a signer of the transaction");
+            }
+            TweetNaclFast.Signature signatureProvider = new TweetNaclFast.Signature(new byte[0], signer.getSecretKey());
+            signatures[slot] = signatureProvider.detached(serializedMessage);
+        }
+    }
+
+    /**
+     * Returns the signature of the fee payer, which identifies the transaction.
+     *
+     * @return the base58 encoded signature, or null if not signed yet
+     */
+    public String getSignature() {
+        return signatures.length == 0 || signatures[0] == null ? null : Base58.encode(signatures[0]);
+    }
+
+    /**
+     * Serializes the transaction. Signatures not given yet are left zero.
+     *
+     * @return the serialized transaction
+     */
+    public byte[] serialize() {
+        if (serializedMessage == null) {
+            throw new IllegalStateException("Transaction is not signed");
+        }
+        int signaturesLength = ShortvecEncoding.encodedLength(signatures.length);
+        byte[] out = new byte[signaturesLength + signatures.length * Transaction.SIGNATURE_LENGTH
+                + serializedMessage.length];
+        int position = ShortvecEncoding.writeLength(out, 0, signatures.length);
+        for (byte[] signature : signatures) {
+            if (signature != null) {
+                System.arraycopy(signature, 0, out, position, Transaction.SIGNATURE_LENGTH);
+            }
+            position += Transaction.SIGNATURE_LENGTH;
+        }
+        System.arraycopy(serializedMessage, 0, out, position, serializedMessage.length);
+        return out;
+    }
+}
@@ -17,11 +17,29 @@ public class AddressLookupTableProgram extends Program {
     /** The program ID for the Address Lookup Table program */
     public static final PublicKey PROGRAM_ID = new PublicKey("AddressLookupTab1e1111111111111111111111111");
 
-    private static final byte CREATE_LOOKUP_TABLE = 0;
-    private static final byte FREEZE_LOOKUP_TABLE = 1;
-    private static final byte EXTEND_LOOKUP_TABLE = 2;
-    private static final byte DEACTIVATE_LOOKUP_TABLE = 3;
-    private static final byte CLOSE_LOOKUP_TABLE = 4;
+    /** Most addresses a lookup table can hold */
+    public static final int LOOKUP_TABLE_MAX_ADDRESSES = 256;
+
+    // instructions are identified by a little-endian u32
+    private static final int CREATE_LOOKUP_TABLE = 0;
+    private static final int FREEZE_LOOKUP_TABLE = 1;
+    private static final int EXTEND_LOOKUP_TABLE = 2;
+    private static final int DEACTIVATE_LOOKUP_TABLE = 3;
+    private static final int CLOSE_LOOKUP_TABLE = 4;
+
+    /**
+     * Derives the address of the lookup table an authority creates at a slot.
+     *
+     * @param authority The authority of the table
+     * @param recentSlot The slot passed to {@link #createLookupTable(PublicKey, PublicKey, long)}
+     * @return The table address and its bump seed
+     */
+    public static PublicKey.ProgramDerivedAddress deriveLookupTableAddress(PublicKey authority, long recentSlot) {
+        return PublicKey.findProgramAddress(
+            List.of(authority.toByteArray(), ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(recentSlot).array()),
+            PROGRAM_ID
+        );
+    }
 
     /**
      * Creates an instruction to create a new address lookup table.
@@ -32,21 +50,19 @@ public class AddressLookupTableProgram extends Program {
      * @return A TransactionInstruction to create a new address lookup table
      */
     public static TransactionInstruction createLookupTable(PublicKey authority, PublicKey payer, long recentSlot) {
-        PublicKey derivedAddress = PublicKey.findProgramAddress(
-            List.of(authority.toByteArray(), ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(recentSlot).array()),
-            PROGRAM_ID
-        ).getAddress();
+        PublicKey.ProgramDerivedAddress derivedAddress = deriveLookupTableAddress(authority, recentSlot);
 
         List<AccountMeta> keys = new ArrayList<>();
-        keys.add(new AccountMeta(derivedAddress, false, true));
+        keys.add(new AccountMeta(derivedAddress.getAddress(), false, true));
         keys.add(new AccountMeta(authority, true, false));
         keys.add(new AccountMeta(payer, true, true));
         keys.add(new AccountMeta(SystemProgram.PROGRAM_ID, false, false));
 
-        ByteBuffer data = ByteBuffer.allocate(9);
+        ByteBuffer data = ByteBuffer.allocate(13);
         data.order(ByteOrder.LITTLE_ENDIAN);
-        data.put(CREATE_LOOKUP_TABLE);
+        data.putInt(CREATE_LOOKUP_TABLE);
         data.putLong(recentSlot);
+        data.put((byte) derivedAddress.getNonce());
 
         return createTransactionInstruction(PROGRAM_ID, keys, data.array());
     }
@@ -63,8 +79,9 @@ public class AddressLookupTableProgram extends Program {
         keys.add(new AccountMeta(lookupTable, false, true));
         keys.add(new AccountMeta(authority, true, false));
 
-        ByteBuffer data = ByteBuffer.allocate(1);
-        data.put(FREEZE_LOOKUP_TABLE);
+        ByteBuffer data = ByteBuffer.allocate(4);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(FREEZE_LOOKUP_TABLE);
 
         return createTransactionInstruction(PROGRAM_ID, keys, data.array());
     }
@@ -85,10 +102,10 @@ public class AddressLookupTableProgram extends Program {
         keys.add(new AccountMeta(payer, true, true));
         keys.add(new AccountMeta(SystemProgram.PROGRAM_ID, false, false));
 
-        ByteBuffer data = ByteBuffer.allocate(1 + 4 + addresses.size() * 32);
+        ByteBuffer data = ByteBuffer.allocate(4 + 8 + addresses.size() * 32);
         data.order(ByteOrder.LITTLE_ENDIAN);
-        data.put(EXTEND_LOOKUP_TABLE);
-        data.putInt(addresses.size());
+        data.putInt(EXTEND_LOOKUP_TABLE);
+        data.putLong(addresses.size());
         for (PublicKey address : addresses) {
             data.put(address.toByteArray());
         }
@@ -108,8 +125,9 @@ public class AddressLookupTableProgram extends Program {
         keys.add(new AccountMeta(lookupTable, false, true));
         keys.add(new AccountMeta(authority, true, false));
 
-        ByteBuffer data = ByteBuffer.allocate(1);
-        data.put(DEACTIVATE_LOOKUP_TABLE);
+        ByteBuffer data = ByteBuffer.allocate(4);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(DEACTIVATE_LOOKUP_TABLE);
 
         return createTransactionInstruction(PROGRAM_ID, keys, data.array());
     }
@@ -128,8 +146,9 @@ public class AddressLookupTableProgram extends Program {
         keys.add(new AccountMeta(authority, true, false));
         keys.add(new AccountMeta(recipient, false, true));
 
-        ByteBuffer data = ByteBuffer.allocate(1);
-        data.put(CLOSE_LOOKUP_TABLE);
+        ByteBuffer data = ByteBuffer.allocate(4);
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(CLOSE_LOOKUP_TABLE);
 
         return createTransactionInstruction(PROGRAM_ID, keys, data.array());
     }
@@ -17,6 +17,9 @@ public class ComputeBudgetProgram extends Program {
     public static final PublicKey PROGRAM_ID =
             PublicKey.valueOf("ComputeBudget111111111111111111111111111111");
 
+    /** Most compute units a transaction may request. */
+    public static final int MAX_COMPUTE_UNIT_LIMIT = 1_400_000;
+
     private static final byte REQUEST_HEAP_FRAME = 0x01;
     private static final byte SET_COMPUTE_UNIT_LIMIT = 0x02;
     private static final byte SET_COMPUTE_UNIT_PRICE = 0x03;
@@ -29,6 +32,16 @@ public class ComputeBudgetProgram extends Program {
      * @return A TransactionInstruction to set the compute unit price.
      */
     public static TransactionInstruction setComputeUnitPrice(int microLamports) {
+        return setComputeUnitPrice((long) microLamports);
+    }
+
+    /**
+     * Creates an instruction to set the compute unit price.
+     *
+     * @param microLamports The desired price of a compute unit in micro-lamports, as an unsigned 64-bit value.
+     * @return A TransactionInstruction to set the compute unit price.
+     */
+    public static TransactionInstruction setComputeUnitPrice(long microLamports) {
         byte[] transactionData = encodeSetComputeUnitPriceTransaction(microLamports);
         return createTransactionInstruction(PROGRAM_ID, Collections.emptyList(), transactionData);
     }
@@ -66,7 +79,7 @@ public class ComputeBudgetProgram extends Program {
         return new TransactionInstruction(PROGRAM_ID, new ArrayList<>(), data);
     }
 
-    private static byte[] encodeSetComputeUnitPriceTransaction(int microLamports) {
+    private static byte[] encodeSetComputeUnitPriceTransaction(long microLamports) {
         ByteBuffer result = ByteBuffer.allocate(9);
         result.order(ByteOrder.LITTLE_ENDIAN);
 
@@ -0,0 +1,715 @@
+package org.p2p.solanaj.rpc;
+
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.core.VersionedTransaction;
+import org.p2p.solanaj.rpc.types.*;
+import org.p2p.solanaj.rpc.types.RpcResultTypes.ValueLong;
+import org.p2p.solanaj.rpc.types.TokenResultObjects.TokenAccount;
+import org.p2p.solanaj.rpc.types.TokenResultObjects.TokenAmountInfo;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.rpc.types.config.MultipleAccountsConfig;
+import org.p2p.solanaj.rpc.types.config.ProgramAccountConfig;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig.Encoding;
+import org.p2p.solanaj.ws.listeners.NotificationEventListener;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link RpcApi}.
+ * Every method returns immediately with a {@link CompletableFuture}; requests are dispatched through
+ * {@link RpcClient#callAsync(String, List, Class)}, so thousands of requests can be in flight from a handful
+ * of threads. Futures fail with an {@link RpcException} in the same cases the blocking methods throw one,
+ * and cancelling a future cancels its HTTP call.
+ * <p>
+ * The streaming methods {@link RpcApi#streamProgramAccounts(PublicKey, ProgramAccountConfig)},
+ * {@link RpcApi#scanProgramAccounts} and the consumer variant of {@link RpcApi#getProgramAccounts} hand out
+ * accounts while the response is being read and have no counterpart here. Any other method can be called through
+ * {@link RpcClient#callAsync(String, List, Class)} directly.
+ */
+public class AsyncRpcApi {
+    private final RpcClient client;
+
+    public AsyncRpcApi(RpcClient client) {
+        this.client = client;
+    }
+
+    public CompletableFuture<LatestBlockhash> getLatestBlockhash() {
+        return getLatestBlockhash(null);
+    }
+
+    public CompletableFuture<LatestBlockhash> getLatestBlockhash(Commitment commitment) {
+        return client.callAsync("getLatestBlockhash", RpcApi.commitmentParams(commitment), LatestBlockhash.class);
+    }
+
+    @Deprecated
+    public CompletableFuture<String> getRecentBlockhash() {
+        return getRecentBlockhash(null);
+    }
+
+    @Deprecated
+    public CompletableFuture<String> getRecentBlockhash(Commitment commitment) {
+        return client.callAsync("getRecentBlockhash", RpcApi.commitmentParams(commitment), RecentBlockhash.class)
+                .thenApply(recentBlockhash -> recentBlockhash.getValue().getBlockhash());
+    }
+
+    public CompletableFuture<String> sendTransaction(Transaction transaction, Account signer,
+                                                     String recentBlockHash) {
+        return sendTransaction(transaction, Collections.singletonList(signer), recentBlockHash);
+    }
+
+    public CompletableFuture<String> sendTransaction(Transaction transaction, Account signer) {
+        return sendTransaction(transaction, Collections.singletonList(signer), null);
+    }
+
+    public CompletableFuture<String> sendTransaction(Transaction transaction, List<Account> signers) {
+        return sendTransaction(transaction, signers, null, new RpcSendTransactionConfig());
+    }
+
+    public CompletableFuture<String> sendTransaction(Transaction transaction, List<Account> signers,
+                                                     String recentBlockHash) {
+        return sendTransaction(transaction, signers, recentBlockHash, new RpcSendTransactionConfig());
+    }
+
+    /**
+     * Signs and sends a transaction. If no recent blockhash is given, the one prefetched by the client's
+     * {@link BlockhashProvider} is used, or the latest one is fetched first, also without blocking.
+     *
+     * @param transaction              The transaction to send.
+     * @param signers                  The list of accounts signing the transaction.
+     * @param recentBlockHash          The recent block hash. If null, it will be obtained from the RPC server.
+     * @param rpcSendTransactionConfig The configuration object for sending transactions via RPC.
+     * @return a future completed with the transaction signature
+     */
+    public CompletableFuture<String> sendTransaction(Transaction transaction, List<Account> signers,
+                                                     String recentBlockHash,
+                                                     RpcSendTransactionConfig rpcSendTransactionConfig) {
+        return recentBlockHash(recentBlockHash).thenCompose(hash -> client.callAsync("sendTransaction",
+                RpcApi.sendTransactionParams(transaction, signers, hash, rpcSendTransactionConfig), String.class));
+    }
+
+    /**
+     * Signs and sends a versioned transaction, without blocking for the blockhash either.
+     *
+     * @param transaction              The transaction to send.
+     * @param signers                  The list of accounts signing the transaction.
+     * @param recentBlockHash          The recent block hash. If null, it will be obtained from the RPC server.
+     * @param rpcSendTransactionConfig The configuration object for sending transactions via RPC.
+     * @return a future completed with the transaction signature
+     */
+    public CompletableFuture<String> sendTransaction(VersionedTransaction transaction, List<Account> signers,
+                                                     String recentBlockHash,
+                                                     RpcSendTransactionConfig rpcSendTransactionConfig) {
+        return recentBlockHash(recentBlockHash).thenCompose(hash -> {
+            transaction.setRecentBlockHash(hash);
+            transaction.sign(signers);
+            return sendRawTransaction(transaction.serialize(), rpcSendTransactionConfig);
+        });
+    }
+
+    private CompletableFuture<String> recentBlockHash(String recentBlockHash) {
+        BlockhashProvider blockhashProvider = client.getBlockhashProvider();
+        if (recentBlockHash != null) {
+            return CompletableFuture.completedFuture(recentBlockHash);
+        } else if (blockhashProvider != null) {
+            return blockhashProvider.getLatestAsync().thenApply(BlockhashProvider.Blockhash::getBlockhash);
+        } else {
+            return getLatestBlockhash().thenApply(latest -> latest.getValue().getBlockhash());
+        }
+    }
+
+    /**
+     * Sends a transaction that is already signed and serialized.
+     *
+     * @param serializedTransaction    the signed transaction in the wire format
+     * @param rpcSendTransactionConfig the configuration object for sending transactions via RPC
+     * @return a future completed with the transaction signature
+     */
+    public CompletableFuture<String> sendRawTransaction(byte[] serializedTransaction,
+                                                        RpcSendTransactionConfig rpcSendTransactionConfig) {
+        return client.callAsync("sendTransaction",
+                RpcApi.sendRawTransactionParams(serializedTransaction, rpcSendTransactionConfig), String.class);
+    }
+
+    /**
+     * Sends a transaction and subscribes the listener to its signature once it has been sent.
+     *
+     * @return a future completed once the listener is subscribed
+     */
+    public CompletableFuture<Void> sendAndConfirmTransaction(Transaction transaction, List<Account> signers,
+                                                             NotificationEventListener listener) {
+        return sendTransaction(transaction, signers).thenAccept(signature -> client.getSubscriptionManager()
+                .signatureSubscribe(client.getEndpoint(), signature, listener));
+    }
+
+    public CompletableFuture<Long> getBalance(PublicKey account) {
+        return getBalance(account, null);
+    }
+
+    public CompletableFuture<Long> getBalance(PublicKey account, Commitment commitment) {
+        return client.callAsync("getBalance", RpcApi.balanceParams(account, commitment), ValueLong.class)
+                .thenApply(ValueLong::getValue);
+    }
+
+    public CompletableFuture<List<RpcBatchResult<Long>>> getBalances(List<PublicKey> accounts) {
+        return getBalances(accounts, null);
+    }
+
+    /**
+     * Non-blocking {@link RpcApi#getBalances(List, Commitment)}.
+     */
+    public CompletableFuture<List<RpcBatchResult<Long>>> getBalances(List<PublicKey> accounts,
+                                                                    Commitment commitment) {
+        return client.callBatchAsync(RpcApi.balanceRequests(accounts, commitment), ValueLong.class)
+                .thenApply(RpcApi::toBalances);
+    }
+
+    public CompletableFuture<ConfirmedTransaction> getTransaction(String signature) {
+        return getTransaction(signature, null);
+    }
+
+    public CompletableFuture<ConfirmedTransaction> getTransaction(String signature, Commitment commitment) {
+        return client.callAsync("getTransaction", RpcApi.transactionParams(signature, commitment),
+                ConfirmedTransaction.class);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<SignatureInformation>> getConfirmedSignaturesForAddress2(PublicKey account,
+                                                                                           int limit) {
+        return client.callAsync("getConfirmedSignaturesForAddress2",
+                        RpcApi.signaturesForAddressParams(account, limit, Commitment.CONFIRMED), List.class)
+                .thenApply(rawResult -> RpcApi.toSignatureInformation(rawResult));
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<SignatureInformation>> getSignaturesForAddress(PublicKey account, int limit,
+                                                                                 Commitment commitment) {
+        return client.callAsync("getSignaturesForAddress",
+                        RpcApi.signaturesForAddressParams(account, limit, commitment), List.class)
+                .thenApply(rawResult -> RpcApi.toSignatureInformation(rawResult));
+    }
+
+    public CompletableFuture<List<ProgramAccount>> getProgramAccounts(PublicKey account, long offset, String bytes) {
+        return getProgramAccounts(account, RpcApi.memcmpConfig(offset, bytes, null));
+    }
+
+    public CompletableFuture<List<ProgramAccount>> getProgramAccountsBase64(PublicKey account, long offset,
+                                                                            String bytes) {
+        return getProgramAccounts(account, RpcApi.memcmpConfig(offset, bytes, Encoding.base64));
+    }
+
+    public CompletableFuture<List<ProgramAccount>> getProgramAccounts(PublicKey account) {
+        return getProgramAccounts(account, new ProgramAccountConfig(Encoding.base64));
+    }
+
+    public CompletableFuture<List<ProgramAccount>> getProgramAccounts(PublicKey account,
+                                                                      ProgramAccountConfig programAccountConfig) {
+        return client.callAsync("getProgramAccounts", RpcApi.programAccountsParams(account, programAccountConfig),
+                RpcApi.PROGRAM_ACCOUNTS);
+    }
+
+    public CompletableFuture<List<ProgramAccount>> getProgramAccounts(PublicKey account, List<Memcmp> memcmpList,
+                                                                      int dataSize) {
+        return client.callAsync("getProgramAccounts", RpcApi.memcmpParams(account, memcmpList, dataSize),
+                RpcApi.PROGRAM_ACCOUNTS);
+    }
+
+    public CompletableFuture<List<ProgramAccount>> getProgramAccounts(PublicKey account, List<Memcmp> memcmpList) {
+        return client.callAsync("getProgramAccounts", RpcApi.memcmpParams(account, memcmpList, null),
+                RpcApi.PROGRAM_ACCOUNTS);
+    }
+
+    public CompletableFuture<AccountInfo> getAccountInfo(PublicKey account) {
+        return getAccountInfo(account, new HashMap<>());
+    }
+
+    public CompletableFuture<AccountInfo> getAccountInfo(PublicKey account, Map<String, Object> additionalParams) {
+        return client.callAsync("getAccountInfo", RpcApi.accountInfoParams(account, additionalParams),
+                AccountInfo.class);
+    }
+
+    /**
+     * Non-blocking {@link RpcApi#getAccountInfos(List, Map)}.
+     */
+    public CompletableFuture<List<RpcBatchResult<AccountInfo>>> getAccountInfos(List<PublicKey> accounts,
+                                                                               Map<String, Object> additionalParams) {
+        return client.callBatchAsync(RpcApi.accountInfoRequests(accounts, additionalParams), AccountInfo.class);
+    }
+
+    public CompletableFuture<SplTokenAccountInfo> getSplTokenAccountInfo(PublicKey account) {
+        return client.callAsync("getAccountInfo", RpcApi.splTokenAccountInfoParams(account),
+                SplTokenAccountInfo.class);
+    }
+
+    public CompletableFuture<Long> getMinimumBalanceForRentExemption(long dataLength) {
+        return getMinimumBalanceForRentExemption(dataLength, null);
+    }
+
+    public CompletableFuture<Long> getMinimumBalanceForRentExemption(long dataLength, Commitment commitment) {
+        return client.callAsync("getMinimumBalanceForRentExemption",
+                RpcApi.rentExemptionParams(dataLength, commitment), Long.class);
+    }
+
+    public CompletableFuture<Long> getBlockTime(long block) {
+        return client.callAsync("getBlockTime", RpcApi.slotParams(block), Long.class);
+    }
+
+    public CompletableFuture<Long> getBlockHeight() {
+        return getBlockHeight(null);
+    }
+
+    public CompletableFuture<Long> getBlockHeight(Commitment commitment) {
+        return client.callAsync("getBlockHeight", RpcApi.commitmentParams(commitment), Long.class);
+    }
+
+    public CompletableFuture<BlockProduction> getBlockProduction() {
+        return getBlockProduction(new HashMap<>());
+    }
+
+    public CompletableFuture<BlockProduction> getBlockProduction(Map<String, Object> optionalParams) {
+        return client.callAsync("getBlockProduction", RpcApi.blockProductionParams(optionalParams),
+                BlockProduction.class);
+    }
+
+    public CompletableFuture<Long> minimumLedgerSlot() {
+        return client.callAsync("minimumLedgerSlot", new ArrayList<>(), Long.class);
+    }
+
+    public CompletableFuture<SolanaVersion> getVersion() {
+        return client.callAsync("getVersion", new ArrayList<>(), SolanaVersion.class);
+    }
+
+    public CompletableFuture<String> requestAirdrop(PublicKey address, long lamports) {
+        return requestAirdrop(address, lamports, null);
+    }
+
+    public CompletableFuture<String> requestAirdrop(PublicKey address, long lamports, Commitment commitment) {
+        return client.callAsync("requestAirdrop", RpcApi.airdropParams(address, lamports, commitment), String.class);
+    }
+
+    public CompletableFuture<BlockCommitment> getBlockCommitment(long block) {
+        return client.callAsync("getBlockCommitment", RpcApi.slotParams(block), BlockCommitment.class);
+    }
+
+    @Deprecated
+    public CompletableFuture<FeeCalculatorInfo> getFeeCalculatorForBlockhash(String blockhash) {
+        return getFeeCalculatorForBlockhash(blockhash, null);
+    }
+
+    @Deprecated
+    public CompletableFuture<FeeCalculatorInfo> getFeeCalculatorForBlockhash(String blockhash,
+                                                                            Commitment commitment) {
+        return client.callAsync("getFeeCalculatorForBlockhash", RpcApi.blockhashParams(blockhash, commitment),
+                FeeCalculatorInfo.class);
+    }
+
+    @Deprecated
+    public CompletableFuture<FeeRateGovernorInfo> getFeeRateGovernor() {
+        return client.callAsync("getFeeRateGovernor", new ArrayList<>(), FeeRateGovernorInfo.class);
+    }
+
+    public CompletableFuture<Long> getFeeForMessage(String message) {
+        return getFeeForMessage(message, null);
+    }
+
+    public CompletableFuture<Long> getFeeForMessage(String message, Commitment commitment) {
+        return client.callAsync("getFeeForMessage", RpcApi.feeForMessageParams(message, commitment),
+                        ValueLong.class)
+                .thenApply(RpcApi::toFee);
+    }
+
+    public CompletableFuture<List<RecentPrioritizationFees>> getRecentPrioritizationFees() {
+        return getRecentPrioritizationFees(null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<RecentPrioritizationFees>> getRecentPrioritizationFees(List<PublicKey> addresses) {
+        return client.callAsync("getRecentPrioritizationFees", RpcApi.recentPrioritizationFeesParams(addresses),
+                        List.class)
+                .thenApply(rawResult -> RpcApi.toRecentPrioritizationFees(rawResult));
+    }
+
+    public CompletableFuture<Long> getStakeMinimumDelegation() {
+        return getStakeMinimumDelegation(null);
+    }
+
+    public CompletableFuture<Long> getStakeMinimumDelegation(Commitment commitment) {
+        return client.callAsync("getStakeMinimumDelegation", RpcApi.commitmentParams(commitment), ValueLong.class)
+                .thenApply(ValueLong::getValue);
+    }
+
+    @Deprecated
+    public CompletableFuture<FeesInfo> getFees() {
+        return getFees(null);
+    }
+
+    @Deprecated
+    public CompletableFuture<FeesInfo> getFees(Commitment commitment) {
+        return client.callAsync("getFees", RpcApi.commitmentParams(commitment), FeesInfo.class);
+    }
+
+    public CompletableFuture<Long> getTransactionCount() {
+        return getTransactionCount(null);
+    }
+
+    public CompletableFuture<Long> getTransactionCount(Commitment commitment) {
+        return client.callAsync("getTransactionCount", RpcApi.commitmentParams(commitment), Long.class);
+    }
+
+    public CompletableFuture<Long> getMaxRetransmitSlot() {
+        return client.callAsync("getMaxRetransmitSlot", new ArrayList<>(), Long.class);
+    }
+
+    public CompletableFuture<SimulatedTransaction> simulateTransaction(String transaction, List<PublicKey> addresses) {
+        return client.callAsync("simulateTransaction", RpcApi.simulateTransactionParams(transaction, addresses),
+                SimulatedTransaction.class);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<ClusterNode>> getClusterNodes() {
+        return client.callAsync("getClusterNodes", new ArrayList<>(), List.class)
+                .thenApply(rawResult -> RpcApi.toClusterNodes(rawResult));
+    }
+
+    @Deprecated
+    public CompletableFuture<ConfirmedBlock> getConfirmedBlock(int slot) {
+        return client.callAsync("getConfirmedBlock", RpcApi.confirmedBlockParams(slot), ConfirmedBlock.class);
+    }
+
+    public CompletableFuture<Block> getBlock(int slot) {
+        return getBlock(slot, null);
+    }
+
+    public CompletableFuture<Block> getBlock(int slot, Map<String, Object> optionalParams) {
+        return client.callAsync("getBlock", RpcApi.blockParams(slot, optionalParams), Block.class);
+    }
+
+    public CompletableFuture<SnapshotSlot> getHighestSnapshotSlot() {
+        return client.callAsync("getHighestSnapshotSlot", new ArrayList<>(), SnapshotSlot.class);
+    }
+
+    public CompletableFuture<EpochInfo> getEpochInfo() {
+        return getEpochInfo(null);
+    }
+
+    public CompletableFuture<EpochInfo> getEpochInfo(Commitment commitment) {
+        return client.callAsync("getEpochInfo", RpcApi.commitmentParams(commitment), EpochInfo.class);
+    }
+
+    public CompletableFuture<EpochSchedule> getEpochSchedule() {
+        return client.callAsync("getEpochSchedule", new ArrayList<>(), EpochSchedule.class);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<PublicKey> getTokenAccountsByOwner(PublicKey owner, PublicKey tokenMint) {
+        return client.callAsync("getTokenAccountsByOwner", RpcApi.tokenAccountKeyParams(owner, tokenMint), Map.class)
+                .thenApply(unchecked(rawResult -> RpcApi.toTokenAccountKey(rawResult)));
+    }
+
+    public CompletableFuture<InflationRate> getInflationRate() {
+        return client.callAsync("getInflationRate", new ArrayList<>(), InflationRate.class);
+    }
+
+    public CompletableFuture<InflationGovernor> getInflationGovernor() {
+        return getInflationGovernor(null);
+    }
+
+    public CompletableFuture<InflationGovernor> getInflationGovernor(Commitment commitment) {
+        return client.callAsync("getInflationGovernor", RpcApi.commitmentParams(commitment),
+                InflationGovernor.class);
+    }
+
+    public CompletableFuture<List<InflationReward>> getInflationReward(List<PublicKey> addresses) {
+        return getInflationReward(addresses, null, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<InflationReward>> getInflationReward(List<PublicKey> addresses, Long epoch,
+                                                                       Commitment commitment) {
+        return client.callAsync("getInflationReward", RpcApi.inflationRewardParams(addresses, epoch, commitment),
+                        List.class)
+                .thenApply(rawResult -> RpcApi.toInflationRewards(rawResult));
+    }
+
+    public CompletableFuture<Long> getSlot() {
+        return getSlot(null);
+    }
+
+    public CompletableFuture<Long> getSlot(Commitment commitment) {
+        return client.callAsync("getSlot", RpcApi.commitmentParams(commitment), Long.class);
+    }
+
+    public CompletableFuture<PublicKey> getSlotLeader() {
+        return getSlotLeader(null);
+    }
+
+    public CompletableFuture<PublicKey> getSlotLeader(Commitment commitment) {
+        return client.callAsync("getSlotLeader", RpcApi.commitmentParams(commitment), String.class)
+                .thenApply(PublicKey::new);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<PublicKey>> getSlotLeaders(long startSlot, long limit) {
+        return client.callAsync("getSlotLeaders", RpcApi.slotRangeParams(startSlot, limit, null), List.class)
+                .thenApply(rawResult -> RpcApi.toPublicKeys(rawResult));
+    }
+
+    @Deprecated
+    public CompletableFuture<Long> getSnapshotSlot() {
+        return client.callAsync("getSnapshotSlot", new ArrayList<>(), Long.class);
+    }
+
+    public CompletableFuture<Long> getMaxShredInsertSlot() {
+        return client.callAsync("getMaxShredInsertSlot", new ArrayList<>(), Long.class);
+    }
+
+    public CompletableFuture<PublicKey> getIdentity() {
+        return client.callAsync("getIdentity", new ArrayList<>(), Map.class)
+                .thenApply(unchecked(rawResult -> RpcApi.toIdentity(rawResult)));
+    }
+
+    public CompletableFuture<Supply> getSupply() {
+        return getSupply(null);
+    }
+
+    public CompletableFuture<Supply> getSupply(Commitment commitment) {
+        return client.callAsync("getSupply", RpcApi.commitmentParams(commitment), Supply.class);
+    }
+
+    public CompletableFuture<Long> getFirstAvailableBlock() {
+        return client.callAsync("getFirstAvailableBlock", new ArrayList<>(), Long.class);
+    }
+
+    public CompletableFuture<String> getGenesisHash() {
+        return client.callAsync("getGenesisHash", new ArrayList<>(), String.class);
+    }
+
+    @Deprecated
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<Double>> getConfirmedBlocks(Integer start, Integer end) {
+        return client.callAsync("getConfirmedBlocks", RpcApi.confirmedBlocksParams(start, end), List.class)
+                .thenApply(rawResult -> (List<Double>) rawResult);
+    }
+
+    @Deprecated
+    public CompletableFuture<List<Double>> getConfirmedBlocks(Integer start) {
+        return getConfirmedBlocks(start, null);
+    }
+
+    public CompletableFuture<TokenAmountInfo> getTokenAccountBalance(PublicKey tokenAccount) {
+        return getTokenAccountBalance(tokenAccount, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<TokenAmountInfo> getTokenAccountBalance(PublicKey tokenAccount, Commitment commitment) {
+        return client.callAsync("getTokenAccountBalance", RpcApi.tokenParams(tokenAccount, commitment), Map.class)
+                .thenApply(rawResult -> RpcApi.toTokenAmountInfo(rawResult));
+    }
+
+    /**
+     * Non-blocking {@link RpcApi#getTokenAccountBalances(List, Commitment)}.
+     */
+    public CompletableFuture<List<RpcBatchResult<TokenAmountInfo>>> getTokenAccountBalances(
+            List<PublicKey> tokenAccounts, Commitment commitment) {
+        return client.callBatchAsync(RpcApi.tokenAccountBalanceRequests(tokenAccounts, commitment), Map.class)
+                .thenApply(RpcApi::toTokenAmountInfos);
+    }
+
+    public CompletableFuture<TokenAmountInfo> getTokenSupply(PublicKey tokenMint) {
+        return getTokenSupply(tokenMint, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<TokenAmountInfo> getTokenSupply(PublicKey tokenMint, Commitment commitment) {
+        return client.callAsync("getTokenSupply", RpcApi.tokenParams(tokenMint, commitment), Map.class)
+                .thenApply(rawResult -> RpcApi.toTokenAmountInfo(rawResult));
+    }
+
+    public CompletableFuture<List<TokenAccount>> getTokenLargestAccounts(PublicKey tokenMint) {
+        return getTokenLargestAccounts(tokenMint, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<TokenAccount>> getTokenLargestAccounts(PublicKey tokenMint, Commitment commitment) {
+        return client.callAsync("getTokenLargestAccounts", RpcApi.tokenParams(tokenMint, commitment), Map.class)
+                .thenApply(rawResult -> RpcApi.toTokenAccounts(rawResult));
+    }
+
+    public CompletableFuture<TokenAccountInfo> getTokenAccountsByOwner(PublicKey accountOwner,
+                                                                       Map<String, Object> requiredParams,
+                                                                       Map<String, Object> optionalParams) {
+        return getTokenAccount(accountOwner, requiredParams, optionalParams, "getTokenAccountsByOwner");
+    }
+
+    public CompletableFuture<TokenAccountInfo> getTokenAccountsByDelegate(PublicKey accountDelegate,
+                                                                          Map<String, Object> requiredParams,
+                                                                          Map<String, Object> optionalParams) {
+        return getTokenAccount(accountDelegate, requiredParams, optionalParams, "getTokenAccountsByDelegate");
+    }
+
+    private CompletableFuture<TokenAccountInfo> getTokenAccount(PublicKey account, Map<String, Object> requiredParams,
+                                                                Map<String, Object> optionalParams, String method) {
+        List<Object> params;
+        try {
+            params = RpcApi.tokenAccountParams(account, requiredParams, optionalParams);
+        } catch (RpcException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return client.callAsync(method, params, TokenAccountInfo.class);
+    }
+
+    public CompletableFuture<VoteAccounts> getVoteAccounts() {
+        return getVoteAccounts(null, null);
+    }
+
+    public CompletableFuture<VoteAccounts> getVoteAccounts(PublicKey votePubkey, Commitment commitment) {
+        return client.callAsync("getVoteAccounts", RpcApi.voteAccountsParams(votePubkey, commitment),
+                VoteAccounts.class);
+    }
+
+    @Deprecated
+    public CompletableFuture<StakeActivation> getStakeActivation(PublicKey publicKey) {
+        return getStakeActivation(publicKey, null, null);
+    }
+
+    @Deprecated
+    public CompletableFuture<StakeActivation> getStakeActivation(PublicKey publicKey, Long epoch,
+                                                                 Commitment commitment) {
+        return client.callAsync("getStakeActivation", RpcApi.stakeActivationParams(publicKey, epoch, commitment),
+                StakeActivation.class);
+    }
+
+    public CompletableFuture<SignatureStatuses> getSignatureStatuses(List<String> signatures,
+                                                                     boolean searchTransactionHistory) {
+        return client.callAsync("getSignatureStatuses",
+                RpcApi.signatureStatusesParams(signatures, searchTransactionHistory), SignatureStatuses.class);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<PerformanceSample>> getRecentPerformanceSamples() {
+        return client.callAsync("getRecentPerformanceSamples", new ArrayList<>(), List.class)
+                .thenApply(rawResult -> RpcApi.toPerformanceSamples(rawResult));
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<PerformanceSample>> getRecentPerformanceSamples(int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(limit);
+
+        return client.callAsync("getRecentPerformanceSamples", params, List.class)
+                .thenApply(rawResult -> RpcApi.toPerformanceSamples(rawResult));
+    }
+
+    /**
+     * Completes with true if the node is healthy, or fails with an {@link RpcException} if it is not.
+     */
+    public CompletableFuture<Boolean> getHealth() {
+        return client.callAsync("getHealth", new ArrayList<>(), String.class)
+                .thenApply(result -> result.equals("ok"));
+    }
+
+    public CompletableFuture<List<LargeAccount>> getLargestAccounts() {
+        return getLargestAccounts(null, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<LargeAccount>> getLargestAccounts(String filter, Commitment commitment) {
+        return client.callAsync("getLargestAccounts", RpcApi.largestAccountsParams(filter, commitment), Map.class)
+                .thenApply(rawResult -> RpcApi.toLargeAccounts(rawResult));
+    }
+
+    public CompletableFuture<List<LeaderSchedule>> getLeaderSchedule() {
+        return getLeaderSchedule(null, null, null);
+    }
+
+    public CompletableFuture<List<LeaderSchedule>> getLeaderSchedule(Long epoch, String identity,
+                                                                     Commitment commitment) {
+        return client.callAsync("getLeaderSchedule", RpcApi.leaderScheduleParams(epoch, identity, commitment),
+                RpcApi.LEADER_SCHEDULES);
+    }
+
+    public CompletableFuture<List<AccountInfo.Value>> getMultipleAccounts(List<PublicKey> publicKeys) {
+        return getMultipleAccounts(publicKeys, new HashMap<>());
+    }
+
+    public CompletableFuture<List<AccountInfo.Value>> getMultipleAccounts(List<PublicKey> publicKeys,
+                                                                         Map<String, Object> additionalParams) {
+        return client.callAsync("getMultipleAccounts", RpcApi.multipleAccountsParams(publicKeys, additionalParams),
+                        MultipleAccountsInfo.class)
+                .thenApply(RpcApi::toAccountValues);
+    }
+
+    /**
+     * Non-blocking {@link RpcApi#getMultipleAccountsChunked(List, MultipleAccountsConfig)}; cancelling the future
+     * cancels the chunks in flight.
+     */
+    public CompletableFuture<MultipleAccountsInfo> getMultipleAccountsChunked(List<PublicKey> publicKeys,
+                                                                             MultipleAccountsConfig config) {
+        return new ChunkedAccountsCall(client, publicKeys, config).start();
+    }
+
+    public CompletableFuture<Map<PublicKey, Optional<AccountInfo.Value>>> getMultipleAccountsMap(
+            List<PublicKey> publicKeys) {
+        return getMultipleAccountsMap(publicKeys, new MultipleAccountsConfig());
+    }
+
+    public CompletableFuture<Map<PublicKey, Optional<AccountInfo.Value>>> getMultipleAccountsMap(
+            List<PublicKey> publicKeys, MultipleAccountsConfig config) {
+        return getMultipleAccountsChunked(publicKeys, config)
+                .thenApply(rawResult -> RpcApi.toAccountMap(publicKeys, rawResult));
+    }
+
+    public CompletableFuture<Boolean> isBlockhashValid(String blockHash) {
+        return isBlockhashValid(blockHash, null, null);
+    }
+
+    public CompletableFuture<Boolean> isBlockhashValid(String blockHash, Commitment commitment, Long minContextSlot) {
+        return client.callAsync("isBlockhashValid", RpcApi.blockhashValidParams(blockHash, commitment, minContextSlot),
+                        RpcResultTypes.ValueBoolean.class)
+                .thenApply(RpcResultTypes.ValueBoolean::isValue);
+    }
+
+    public CompletableFuture<List<Long>> getBlocks(long startSlot, long endSlot) {
+        return getBlocks(startSlot, endSlot, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<Long>> getBlocks(long startSlot, long endSlot, Commitment commitment) {
+        return client.callAsync("getBlocks", RpcApi.slotRangeParams(startSlot, endSlot, commitment), List.class)
+                .thenApply(rawResult -> RpcApi.toSlots(rawResult));
+    }
+
+    public CompletableFuture<List<Long>> getBlocksWithLimit(long startSlot, long limit) {
+        return getBlocksWithLimit(startSlot, limit, null);
+    }
+
+    @SuppressWarnings({ "unchecked" })
+    public CompletableFuture<List<Long>> getBlocksWithLimit(long startSlot, long limit, Commitment commitment) {
+        return client.callAsync("getBlocksWithLimit", RpcApi.slotRangeParams(startSlot, limit, commitment),
+                        List.class)
+                .thenApply(rawResult -> RpcApi.toSlots(rawResult));
+    }
+
+    /**
+     * Fails the future with the RpcException a conversion throws, as the blocking method would throw it.
+     */
+    private static <T, R> Function<T, R> unchecked(Conversion<T, R> conversion) {
+        return rawResult -> {
+            try {
+                return conversion.apply(rawResult);
+            } catch (RpcException e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+
+    private interface Conversion<T, R> {
+        R apply(T rawResult) throws RpcException;
+    }
+}
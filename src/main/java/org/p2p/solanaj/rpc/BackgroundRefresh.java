@@ -0,0 +1,71 @@
+package org.p2p.solanaj.rpc;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A task run at a fixed delay on its own daemon thread, started by the first read that needs it and stopped once
+ * reads stop. Used by the components that prefetch RPC data, such as {@link BlockhashProvider}, whose task decides
+ * when it has been idle long enough and calls {@link #stop()}.
+ */
+public final class BackgroundRefresh {
+
+    private final String threadName;
+    private final Runnable task;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    /**
+     * @param threadName name of the thread running the task
+     * @param task       the task, which is expected not to throw
+     */
+    public BackgroundRefresh(String threadName, Runnable task) {
+        this.threadName = threadName;
+        this.task = task;
+    }
+
+    /**
+     * Starts running the task every interval, unless it is running already.
+     *
+     * @param interval delay between the end of a run and the start of the next
+     */
+    public void ensureRunning(Duration interval) {
+        if (!running) {
+            start(interval);
+        }
+    }
+
+    private synchronized void start(Duration interval) {
+        if (running) {
+            return;
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        long nanos = interval.toNanos();
+        executor.scheduleWithFixedDelay(task, nanos, nanos, TimeUnit.NANOSECONDS);
+        scheduler = executor;
+        running = true;
+    }
+
+    /**
+     * Stops running the task; the next {@link #ensureRunning(Duration)} starts it again.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
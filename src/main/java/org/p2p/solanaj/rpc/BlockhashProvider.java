@@ -0,0 +1,270 @@
+package org.p2p.solanaj.rpc;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.p2p.solanaj.rpc.types.LatestBlockhash;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.ws.SubscriptionManager;
+import org.p2p.solanaj.ws.listeners.SlotAwareNotificationEventListener;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the latest blockhash at hand, so that sending a transaction needs no getLatestBlockhash round trip,
+ * see {@link RpcClient#setBlockhashProvider(BlockhashProvider)}.
+ * <p>
+ * The provider starts on first use: the first read fetches the blockhash, after which it is refreshed in the
+ * background every refresh interval, and additionally every few slots once slot notifications are attached with
+ * {@link #subscribeSlots()}. Reads return the last fetched blockhash without locking.
+ * Only if it is older than the maximum age, e.g. because background refreshes keep failing, a read fetches it
+ * synchronously. When the provider has not been read for the idle timeout, the background refresh stops until the
+ * next read.
+ * <p>
+ * The age of the blockhash served is reported by {@link #getStaleness()}.
+ */
+public class BlockhashProvider implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(BlockhashProvider.class.getName());
+
+    /** Interval of the background refresh. */
+    @Getter
+    @Setter
+    private Duration refreshInterval = Duration.ofSeconds(2);
+
+    /** Age beyond which a read fetches the blockhash synchronously instead of using the prefetched one. */
+    @Getter
+    @Setter
+    private Duration maxAge = Duration.ofSeconds(20);
+
+    /** Time without reads after which the background refresh stops. */
+    @Getter
+    @Setter
+    private Duration idleTimeout = Duration.ofSeconds(60);
+
+    /** Number of slots between refreshes triggered by slot notifications. */
+    @Getter
+    @Setter
+    private int refreshEverySlots = 4;
+
+    /** Commitment of the fetched blockhash, or null for the server default. */
+    @Getter
+    @Setter
+    private Commitment commitment;
+
+    private final RpcClient client;
+    private final AtomicReference<Blockhash> latest = new AtomicReference<>();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong lastReadNanos = new AtomicLong();
+    private final AtomicLong lastRefreshSlot = new AtomicLong(-1);
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+    private final AtomicLong synchronousFetches = new AtomicLong();
+    private final BackgroundRefresh backgroundRefresh = new BackgroundRefresh("solanaj-blockhash", this::tick);
+    private SubscriptionManager.Subscription slotSubscription;
+
+    /**
+     * A fetched blockhash.
+     */
+    public static final class Blockhash {
+        @Getter
+        private final String blockhash;
+        @Getter
+        private final long lastValidBlockHeight;
+        /** Context slot of the response, or -1 if unknown. */
+        @Getter
+        private final long slot;
+        private final long fetchedAtNanos;
+
+        Blockhash(String blockhash, long lastValidBlockHeight, long slot, long fetchedAtNanos) {
+            this.blockhash = blockhash;
+            this.lastValidBlockHeight = lastValidBlockHeight;
+            this.slot = slot;
+            this.fetchedAtNanos = fetchedAtNanos;
+        }
+
+        /**
+         * Returns the time since the blockhash was fetched.
+         *
+         * @return the age
+         */
+        public Duration getAge() {
+            return Duration.ofNanos(System.nanoTime() - fetchedAtNanos);
+        }
+    }
+
+    public BlockhashProvider(RpcClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns the latest blockhash, fetching it only if none was prefetched or the prefetched one is too old.
+     *
+     * @return the blockhash
+     * @throws RpcException if the blockhash had to be fetched and could not be
+     */
+    public Blockhash getLatest() throws RpcException {
+        Blockhash blockhash = read();
+        if (blockhash != null) {
+            return blockhash;
+        }
+        synchronousFetches.incrementAndGet();
+        return store(client.getApi().getLatestBlockhash(commitment));
+    }
+
+    /**
+     * Returns the latest blockhash without blocking; completes immediately unless none was prefetched or the
+     * prefetched one is too old.
+     *
+     * @return a future completed with the blockhash
+     */
+    public CompletableFuture<Blockhash> getLatestAsync() {
+        Blockhash blockhash = read();
+        if (blockhash != null) {
+            return CompletableFuture.completedFuture(blockhash);
+        }
+        synchronousFetches.incrementAndGet();
+        return client.getAsyncApi().getLatestBlockhash(commitment).thenApply(this::store);
+    }
+
+    private Blockhash read() {
+        lastReadNanos.set(System.nanoTime());
+        backgroundRefresh.ensureRunning(refreshInterval);
+        Blockhash blockhash = latest.get();
+        return blockhash != null && blockhash.getAge().compareTo(maxAge) <= 0 ? blockhash : null;
+    }
+
+    private void tick() {
+        if (System.nanoTime() - lastReadNanos.get() > idleTimeout.toNanos()) {
+            backgroundRefresh.stop();
+            return;
+        }
+        Blockhash blockhash = latest.get();
+        // slot notifications may have refreshed it recently
+        if (blockhash == null || blockhash.getAge().compareTo(refreshInterval) >= 0) {
+            refresh();
+        }
+    }
+
+    /**
+     * Starts a background refresh unless one is already in flight.
+     */
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            client.getAsyncApi().getLatestBlockhash(commitment).whenComplete((result, error) -> {
+                refreshing.set(false);
+                if (error != null) {
+                    failedRefreshes.incrementAndGet();
+                    LOGGER.log(Level.FINE, "Could not refresh the blockhash", error);
+                } else {
+                    store(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            failedRefreshes.incrementAndGet();
+            LOGGER.log(Level.FINE, "Could not refresh the blockhash", e);
+        }
+    }
+
+    private Blockhash store(LatestBlockhash result) {
+        long slot = result.getContext() != null ? result.getContext().getSlot() : -1;
+        Blockhash fetched = new Blockhash(result.getValue().getBlockhash(),
+                result.getValue().getLastValidBlockHeight(), slot, System.nanoTime());
+        refreshes.incrementAndGet();
+        // concurrent fetches may complete out of order; never go back to an older blockhash
+        return latest.accumulateAndGet(fetched, (previous, next) ->
+                previous == null || next.getLastValidBlockHeight() >= previous.getLastValidBlockHeight()
+                        ? next : previous);
+    }
+
+    /**
+     * Additionally refreshes the blockhash every {@link #getRefreshEverySlots()} slots, driven by slotSubscribe
+     * notifications shared through the {@link RpcClient#getSubscriptionManager() subscription manager} of the
+     * client. The interval-based refresh continues as a fallback.
+     */
+    public synchronized void subscribeSlots() {
+        if (slotSubscription != null) {
+            return;
+        }
+        slotSubscription = client.getSubscriptionManager().slotSubscribe(client.getEndpoint(),
+                new SlotAwareNotificationEventListener() {
+                    @Override
+                    public void onNotificationEvent(Object data, long slot) {
+                        onSlot(slot);
+                    }
+                });
+    }
+
+    void onSlot(long slot) {
+        if (!backgroundRefresh.isRunning() || slot < 0) {
+            return;
+        }
+        long last = lastRefreshSlot.get();
+        if ((last < 0 || slot - last >= refreshEverySlots) && lastRefreshSlot.compareAndSet(last, slot)) {
+            refresh();
+        }
+    }
+
+    /**
+     * Returns the age of the blockhash that a read would return now.
+     *
+     * @return the staleness, or null if no blockhash was fetched yet
+     */
+    public Duration getStaleness() {
+        Blockhash blockhash = latest.get();
+        return blockhash != null ? blockhash.getAge() : null;
+    }
+
+    /**
+     * Returns whether the background refresh is running, i.e. the provider was read within the idle timeout.
+     *
+     * @return whether the provider is running
+     */
+    public boolean isRunning() {
+        return backgroundRefresh.isRunning();
+    }
+
+    /**
+     * Returns how many blockhashes were fetched, in the background or not.
+     *
+     * @return the number of fetches
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getFailedRefreshes() {
+        return failedRefreshes.get();
+    }
+
+    /**
+     * Returns how many reads had to wait for a blockhash to be fetched.
+     *
+     * @return the number of synchronous fetches
+     */
+    public long getSynchronousFetches() {
+        return synchronousFetches.get();
+    }
+
+    /**
+     * Stops the background refresh and unsubscribes from slot notifications.
+     */
+    @Override
+    public synchronized void close() {
+        backgroundRefresh.stop();
+        if (slotSubscription != null) {
+            slotSubscription.close();
+            slotSubscription = null;
+        }
+    }
+}
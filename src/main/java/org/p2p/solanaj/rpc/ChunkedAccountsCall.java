@@ -0,0 +1,183 @@
+package org.p2p.solanaj.rpc;
+
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.MultipleAccountsInfo;
+import org.p2p.solanaj.rpc.types.config.MultipleAccountsConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A getMultipleAccounts call over any number of accounts, split into chunks that are requested with bounded
+ * parallelism and reassembled in input order. See {@link MultipleAccountsConfig} for the slot guarantees.
+ */
+class ChunkedAccountsCall {
+
+    private final RpcClient client;
+    private final List<PublicKey> publicKeys;
+    private final MultipleAccountsConfig config;
+    private final CompletableFuture<MultipleAccountsInfo> result = new CompletableFuture<>();
+    private final Queue<Integer> pending = new ArrayDeque<>();
+    private final List<CompletableFuture<MultipleAccountsInfo>> inFlight = new ArrayList<>();
+    private final List<List<AccountInfo.Value>> values;
+    private final long[] slots;
+    private final int[] staleRetries;
+
+    private long newestSlot;
+    private int running;
+
+    ChunkedAccountsCall(RpcClient client, List<PublicKey> publicKeys, MultipleAccountsConfig config) {
+        if (config.getChunkSize() < 1 || config.getMaxParallelism() < 1) {
+            throw new IllegalArgumentException("Chunk size and parallelism must be positive");
+        }
+        this.client = client;
+        this.publicKeys = publicKeys;
+        this.config = config;
+
+        int chunks = (publicKeys.size() + config.getChunkSize() - 1) / config.getChunkSize();
+        this.values = new ArrayList<>(Collections.nCopies(chunks, null));
+        this.slots = new long[chunks];
+        this.staleRetries = new int[chunks];
+        this.newestSlot = config.getMinContextSlot() != null ? config.getMinContextSlot() : 0;
+        for (int i = 0; i < chunks; i++) {
+            pending.add(i);
+        }
+    }
+
+    CompletableFuture<MultipleAccountsInfo> start() {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                cancelInFlight();
+            }
+        });
+        if (values.isEmpty()) {
+            result.complete(new MultipleAccountsInfo(newestSlot, Collections.emptyList()));
+        } else {
+            launch();
+        }
+        return result;
+    }
+
+    private void launch() {
+        List<Runnable> sends = new ArrayList<>();
+        synchronized (this) {
+            while (!result.isDone() && running < config.getMaxParallelism() && !pending.isEmpty()) {
+                int chunk = pending.remove();
+                long minContextSlot = newestSlot;
+                running++;
+                sends.add(() -> send(chunk, minContextSlot));
+            }
+        }
+        sends.forEach(Runnable::run);
+    }
+
+    private void send(int chunk, long minContextSlot) {
+        int from = chunk * config.getChunkSize();
+        int to = Math.min(from + config.getChunkSize(), publicKeys.size());
+
+        CompletableFuture<MultipleAccountsInfo> future;
+        try {
+            future = client.callAsync("getMultipleAccounts",
+                    RpcApi.multipleAccountsParams(publicKeys.subList(from, to), params(minContextSlot)),
+                    MultipleAccountsInfo.class);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        synchronized (this) {
+            inFlight.add(future);
+        }
+        CompletableFuture<MultipleAccountsInfo> sent = future;
+        future.whenComplete((info, error) -> onChunkComplete(chunk, to - from, sent, info, error));
+    }
+
+    private Map<String, Object> params(long minContextSlot) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("encoding", config.getEncoding());
+        if (config.getCommitment() != null) {
+            params.put("commitment", config.getCommitment());
+        }
+        if (config.getDataSlice() != null) {
+            params.put("dataSlice", config.getDataSlice());
+        }
+        if (minContextSlot > 0) {
+            params.put("minContextSlot", minContextSlot);
+        }
+        return params;
+    }
+
+    private void onChunkComplete(int chunk, int size, CompletableFuture<MultipleAccountsInfo> future,
+                                 MultipleAccountsInfo info, Throwable error) {
+        if (error == null && (info == null || info.getValue() == null || info.getValue().size() != size)) {
+            error = new RpcException("getMultipleAccounts returned an unexpected number of accounts");
+        }
+
+        synchronized (this) {
+            inFlight.remove(future);
+            running--;
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null) {
+                values.set(chunk, info.getValue());
+                slots[chunk] = info.getContext() != null ? info.getContext().getSlot() : 0;
+                newestSlot = Math.max(newestSlot, slots[chunk]);
+                if (running == 0 && pending.isEmpty() && !requeueStaleChunks()) {
+                    result.complete(assemble());
+                    return;
+                }
+            }
+        }
+
+        if (error != null) {
+            result.completeExceptionally(error);
+            cancelInFlight();
+            return;
+        }
+        launch();
+    }
+
+    /**
+     * Queues the chunks answered at an older slot than the newest chunk, if enabled and their retries allow it.
+     */
+    private boolean requeueStaleChunks() {
+        if (!config.isRetryStaleChunks()) {
+            return false;
+        }
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < newestSlot && staleRetries[i] < config.getMaxStaleRetries()) {
+                staleRetries[i]++;
+                pending.add(i);
+            }
+        }
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Joins the chunks in input order. The context slot is the oldest slot of any chunk, which every account is at
+     * least as recent as.
+     */
+    private MultipleAccountsInfo assemble() {
+        List<AccountInfo.Value> accounts = new ArrayList<>(publicKeys.size());
+        for (List<AccountInfo.Value> chunk : values) {
+            accounts.addAll(chunk);
+        }
+        return new MultipleAccountsInfo(Arrays.stream(slots).min().orElse(newestSlot), accounts);
+    }
+
+    private void cancelInFlight() {
+        List<CompletableFuture<MultipleAccountsInfo>> futures;
+        synchronized (this) {
+            futures = new ArrayList<>(inFlight);
+            inFlight.clear();
+        }
+        futures.forEach(future -> future.cancel(true));
+    }
+}
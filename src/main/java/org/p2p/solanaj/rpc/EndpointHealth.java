@@ -0,0 +1,139 @@
+package org.p2p.solanaj.rpc;
+
+import org.p2p.solanaj.rpc.types.WeightedEndpoint;
+
+/**
+ * Observed health of a single {@link WeightedEndpoint}, maintained by {@link EndpointRouter}.
+ * Tracks an exponentially weighted moving average (EWMA) of latency and error rate, the last slot the
+ * endpoint reported, and a circuit breaker that takes the endpoint out of rotation after repeated failures.
+ */
+public class EndpointHealth {
+
+    /**
+     * State of the circuit breaker of an endpoint.
+     */
+    public enum CircuitState {
+        /** The endpoint receives traffic according to its health. */
+        CLOSED,
+        /** The endpoint is out of rotation until its open period ends. */
+        OPEN,
+        /** A single probe request is allowed through to test whether the endpoint recovered. */
+        HALF_OPEN
+    }
+
+    private final WeightedEndpoint endpoint;
+
+    private double latencyNanos = Double.NaN;
+    private double errorRate;
+    private long lastSeenSlot;
+    private int consecutiveFailures;
+    private CircuitState state = CircuitState.CLOSED;
+    private long openUntilNanos;
+    private long openDurationNanos;
+    private long probeStartedNanos;
+
+    EndpointHealth(WeightedEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public WeightedEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Returns the EWMA latency of successful requests, or NaN if no request has succeeded yet.
+     *
+     * @return latency in milliseconds
+     */
+    public synchronized double getLatencyMillis() {
+        return latencyNanos / 1_000_000d;
+    }
+
+    /**
+     * Returns the EWMA fraction of failed requests, between 0 and 1.
+     *
+     * @return the error rate
+     */
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public synchronized long getLastSeenSlot() {
+        return lastSeenSlot;
+    }
+
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    synchronized double latencyNanos() {
+        return latencyNanos;
+    }
+
+    synchronized void recordSuccess(long latency, double alpha) {
+        latencyNanos = Double.isNaN(latencyNanos) ? latency : alpha * latency + (1 - alpha) * latencyNanos;
+        errorRate = (1 - alpha) * errorRate;
+        consecutiveFailures = 0;
+        if (state != CircuitState.CLOSED) {
+            state = CircuitState.CLOSED;
+            openDurationNanos = 0;
+        }
+    }
+
+    synchronized void recordFailure(double alpha, int failureThreshold, long initialOpenNanos, long maxOpenNanos,
+                                    long retryAfterNanos) {
+        errorRate = alpha + (1 - alpha) * errorRate;
+        consecutiveFailures++;
+
+        boolean probeFailed = state == CircuitState.HALF_OPEN;
+        if (probeFailed || consecutiveFailures >= failureThreshold || retryAfterNanos > 0) {
+            openDurationNanos = probeFailed
+                    ? Math.min(Math.max(openDurationNanos, initialOpenNanos) * 2, maxOpenNanos)
+                    : Math.max(openDurationNanos, initialOpenNanos);
+            state = CircuitState.OPEN;
+            openUntilNanos = System.nanoTime() + Math.max(openDurationNanos, retryAfterNanos);
+        }
+    }
+
+    synchronized void recordSlot(long slot) {
+        if (slot > lastSeenSlot) {
+            lastSeenSlot = slot;
+        }
+    }
+
+    /**
+     * Returns true if the endpoint may receive regular traffic.
+     */
+    synchronized boolean isAvailable() {
+        return state == CircuitState.CLOSED;
+    }
+
+    /**
+     * Moves an open endpoint whose open period ended into the half-open state and claims its single probe.
+     * A probe that never reports back is considered lost after another open period, so it can be retried.
+     *
+     * @return true if the caller should send the probe request to this endpoint
+     */
+    synchronized boolean tryAcquireProbe(long now) {
+        if (state == CircuitState.OPEN && now - openUntilNanos >= 0) {
+            state = CircuitState.HALF_OPEN;
+            probeStartedNanos = now;
+            return true;
+        }
+        if (state == CircuitState.HALF_OPEN && now - probeStartedNanos >= Math.max(openDurationNanos, 1)) {
+            probeStartedNanos = now;
+            return true;
+        }
+        return false;
+    }
+
+    synchronized long openUntilNanos() {
+        return openUntilNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EndpointHealth(url=" + endpoint.getUrl() + ", state=" + state + ", latencyMillis=" + getLatencyMillis()
+                + ", errorRate=" + errorRate + ", lastSeenSlot=" + lastSeenSlot + ")";
+    }
+}
@@ -0,0 +1,215 @@
+package org.p2p.solanaj.rpc;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.p2p.solanaj.rpc.types.WeightedEndpoint;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses endpoints of a {@link WeightedCluster} by combining their static weights with observed health.
+ * <p>
+ * Each endpoint's weight is scaled down by its EWMA latency relative to the fastest endpoint, by its EWMA
+ * error rate, and heavily when it reports slots far behind the most advanced endpoint. After
+ * {@link #getFailureThreshold()} consecutive failures, or a throttling response, the endpoint's circuit opens and
+ * it receives no traffic. Once the open period ends a single probe request is let through; success closes the
+ * circuit again, failure reopens it for twice as long, up to {@link #getMaxOpenDuration()}.
+ * <p>
+ * Until outcomes have been recorded, endpoints are chosen purely by their static weights.
+ */
+public class EndpointRouter {
+
+    /** Smoothing factor of the latency and error rate averages; higher values react faster. */
+    @Getter
+    @Setter
+    private double ewmaAlpha = 0.2;
+
+    /** Consecutive failures after which an endpoint's circuit opens. */
+    @Getter
+    @Setter
+    private int failureThreshold = 5;
+
+    /** How long a circuit stays open after it first trips. */
+    @Getter
+    @Setter
+    private Duration initialOpenDuration = Duration.ofSeconds(5);
+
+    /** Upper bound for the open period after repeated failed probes. */
+    @Getter
+    @Setter
+    private Duration maxOpenDuration = Duration.ofSeconds(60);
+
+    /** Endpoints more than this many slots behind the most advanced endpoint are considered stale. */
+    @Getter
+    @Setter
+    private long maxSlotLag = 10;
+
+    /** Weight multiplier applied to stale endpoints. */
+    @Getter
+    @Setter
+    private double staleWeightFactor = 0.05;
+
+    private final List<EndpointHealth> health;
+    private final Map<String, EndpointHealth> healthByUrl = new HashMap<>();
+
+    public EndpointRouter(WeightedCluster cluster) {
+        List<EndpointHealth> endpoints = new ArrayList<>();
+        for (WeightedEndpoint endpoint : cluster.getEndpoints()) {
+            EndpointHealth endpointHealth = healthByUrl.computeIfAbsent(endpoint.getUrl(),
+                    url -> new EndpointHealth(endpoint));
+            endpoints.add(endpointHealth);
+        }
+        this.health = Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * Chooses an endpoint for the next request.
+     *
+     * @return the URL of the chosen endpoint
+     */
+    public String select() {
+        return select(Collections.emptySet());
+    }
+
+    /**
+     * Chooses an endpoint for the next request, avoiding the given endpoints if any other is available.
+     *
+     * @param excludedUrls endpoints that should not be chosen, e.g. ones a request already failed on
+     * @return the URL of the chosen endpoint
+     */
+    public String select(Collection<String> excludedUrls) {
+        long now = System.nanoTime();
+
+        for (EndpointHealth endpointHealth : health) {
+            if (!excludedUrls.contains(endpointHealth.getEndpoint().getUrl()) && endpointHealth.tryAcquireProbe(now)) {
+                return endpointHealth.getEndpoint().getUrl();
+            }
+        }
+
+        double bestLatency = Double.NaN;
+        long maxSlot = 0;
+        for (EndpointHealth endpointHealth : health) {
+            double latency = endpointHealth.latencyNanos();
+            if (endpointHealth.isAvailable() && !Double.isNaN(latency)
+                    && (Double.isNaN(bestLatency) || latency < bestLatency)) {
+                bestLatency = latency;
+            }
+            maxSlot = Math.max(maxSlot, endpointHealth.getLastSeenSlot());
+        }
+
+        double[] weights = new double[health.size()];
+        double totalWeight = 0;
+        for (int i = 0; i < health.size(); i++) {
+            EndpointHealth endpointHealth = health.get(i);
+            if (!excludedUrls.contains(endpointHealth.getEndpoint().getUrl())) {
+                weights[i] = effectiveWeight(endpointHealth, bestLatency, maxSlot);
+                totalWeight += weights[i];
+            }
+        }
+
+        if (totalWeight <= 0) {
+            return fallback(excludedUrls);
+        }
+
+        double randomNumber = ThreadLocalRandom.current().nextDouble() * totalWeight;
+        double currentWeight = 0;
+        for (int i = 0; i < weights.length; i++) {
+            currentWeight += weights[i];
+            if (weights[i] > 0 && randomNumber < currentWeight) {
+                return health.get(i).getEndpoint().getUrl();
+            }
+        }
+
+        return fallback(excludedUrls);
+    }
+
+    /**
+     * Records a successful request.
+     *
+     * @param url          the endpoint the request was sent to
+     * @param latencyNanos how long the request took
+     */
+    public void recordSuccess(String url, long latencyNanos) {
+        EndpointHealth endpointHealth = healthByUrl.get(url);
+        if (endpointHealth != null) {
+            endpointHealth.recordSuccess(latencyNanos, ewmaAlpha);
+        }
+    }
+
+    /**
+     * Records a failed request, such as an I/O error, a server error or a throttling response.
+     *
+     * @param url        the endpoint the request was sent to
+     * @param retryAfter how long the endpoint asked clients to back off, or null if it did not
+     */
+    public void recordFailure(String url, Duration retryAfter) {
+        EndpointHealth endpointHealth = healthByUrl.get(url);
+        if (endpointHealth != null) {
+            endpointHealth.recordFailure(ewmaAlpha, failureThreshold, initialOpenDuration.toNanos(),
+                    maxOpenDuration.toNanos(), retryAfter != null ? retryAfter.toNanos() : 0);
+        }
+    }
+
+    /**
+     * Records the context slot an endpoint reported in a response.
+     *
+     * @param url  the endpoint the response came from
+     * @param slot the reported slot
+     */
+    public void recordSlot(String url, long slot) {
+        EndpointHealth endpointHealth = healthByUrl.get(url);
+        if (endpointHealth != null) {
+            endpointHealth.recordSlot(slot);
+        }
+    }
+
+    /**
+     * Returns the health of every endpoint, in cluster order.
+     *
+     * @return the endpoint health list
+     */
+    public List<EndpointHealth> getEndpointHealth() {
+        return health;
+    }
+
+    private double effectiveWeight(EndpointHealth endpointHealth, double bestLatency, long maxSlot) {
+        if (!endpointHealth.isAvailable()) {
+            return 0;
+        }
+
+        double weight = endpointHealth.getEndpoint().getWeight();
+
+        double latency = endpointHealth.latencyNanos();
+        if (!Double.isNaN(latency) && !Double.isNaN(bestLatency) && latency > 0) {
+            weight *= Math.max(bestLatency / latency, 0.05);
+        }
+
+        weight *= 1 - endpointHealth.getErrorRate();
+
+        long slot = endpointHealth.getLastSeenSlot();
+        if (slot > 0 && maxSlot - slot > maxSlotLag) {
+            weight *= staleWeightFactor;
+        }
+
+        return weight;
+    }
+
+    /**
+     * Used when no endpoint is available: picks the non-excluded endpoint whose circuit closes soonest,
+     * so requests keep flowing rather than failing locally.
+     */
+    private String fallback(Collection<String> excludedUrls) {
+        EndpointHealth best = null;
+        for (EndpointHealth endpointHealth : health) {
+            if (excludedUrls.contains(endpointHealth.getEndpoint().getUrl())) {
+                continue;
+            }
+            if (best == null || endpointHealth.openUntilNanos() - best.openUntilNanos() < 0) {
+                best = endpointHealth;
+            }
+        }
+        return best != null ? best.getEndpoint().getUrl() : health.get(0).getEndpoint().getUrl();
+    }
+}
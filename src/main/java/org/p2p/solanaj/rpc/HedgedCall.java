@@ -0,0 +1,131 @@
+package org.p2p.solanaj.rpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A single hedged request: the primary attempt plus at most one hedge to a different endpoint.
+ * The hedge is sent when the hedge delay passes, or right away if the primary attempt fails first.
+ * The first successful attempt completes the call and cancels the other one.
+ */
+class HedgedCall<T> {
+
+    private final String method;
+    private final HedgingPolicy policy;
+    private final EndpointRouter router;
+    private final Function<String, CompletableFuture<T>> attempt;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final List<CompletableFuture<T>> attempts = new ArrayList<>();
+
+    private String primaryUrl;
+    private boolean hedgeLaunched;
+    private int failures;
+    private volatile boolean primaryFailed;
+    private Throwable firstError;
+    private ScheduledFuture<?> timer;
+
+    HedgedCall(String method, HedgingPolicy policy, EndpointRouter router,
+               Function<String, CompletableFuture<T>> attempt) {
+        this.method = method;
+        this.policy = policy;
+        this.router = router;
+        this.attempt = attempt;
+    }
+
+    CompletableFuture<T> start() {
+        policy.recordRequest();
+        primaryUrl = router.select();
+
+        long start = System.nanoTime();
+        result.whenComplete((value, error) -> {
+            // the latency of the primary attempt if it won, a lower bound of it if the hedge won and cancelled it;
+            // recording only primary wins would leave out the slow requests the hedge delay is meant to catch
+            if (error == null && !primaryFailed) {
+                policy.recordLatency(method, System.nanoTime() - start);
+            }
+            cancelOutstanding();
+        });
+
+        launch(primaryUrl, false);
+
+        synchronized (this) {
+            if (!result.isDone() && !hedgeLaunched) {
+                timer = policy.scheduler().schedule(this::launchHedge,
+                        policy.hedgeDelay(method).toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        return result;
+    }
+
+    private synchronized CompletableFuture<T> launch(String url, boolean hedge) {
+        CompletableFuture<T> future;
+        try {
+            future = attempt.apply(url);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        attempts.add(future);
+        future.whenComplete((value, error) -> onAttemptComplete(value, error, hedge));
+        return future;
+    }
+
+    private void launchHedge() {
+        synchronized (this) {
+            if (result.isDone() || hedgeLaunched) {
+                return;
+            }
+            hedgeLaunched = true;
+            String hedgeUrl = router.select(Set.of(primaryUrl));
+            if (hedgeUrl.equals(primaryUrl)) {
+                // No other endpoint to hedge to: the outcome of the primary attempt is final
+                if (failures == attempts.size() && firstError != null) {
+                    result.completeExceptionally(firstError);
+                }
+                return;
+            }
+            policy.recordHedgeSent();
+            launch(hedgeUrl, true);
+        }
+    }
+
+    private void onAttemptComplete(T value, Throwable error, boolean hedge) {
+        if (error == null) {
+            if (result.complete(value) && hedge) {
+                policy.recordHedgeWin();
+            }
+            return;
+        }
+
+        boolean hedgeNow;
+        synchronized (this) {
+            primaryFailed |= !hedge;
+            failures++;
+            if (firstError == null) {
+                firstError = error;
+            }
+            hedgeNow = !hedgeLaunched;
+            if (!hedgeNow && failures == attempts.size()) {
+                result.completeExceptionally(firstError);
+                return;
+            }
+        }
+        if (hedgeNow) {
+            launchHedge();
+        }
+    }
+
+    private synchronized void cancelOutstanding() {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        for (CompletableFuture<T> future : attempts) {
+            future.cancel(true);
+        }
+    }
+}
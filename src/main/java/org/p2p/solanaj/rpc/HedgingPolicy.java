@@ -0,0 +1,182 @@
+package org.p2p.solanaj.rpc;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Configuration and statistics of hedged requests, see {@link RpcClient#setHedgingPolicy(HedgingPolicy)}.
+ * <p>
+ * A hedged request is sent to one endpoint; if it has not answered after the hedge delay, a second copy is sent
+ * to a different endpoint of the cluster. The first successful answer wins and the other request is cancelled.
+ * The hedge delay adapts to the observed latency of each method: it is the configured percentile of recent
+ * latencies, clamped between {@link #getMinDelay()} and {@link #getMaxDelay()}.
+ * <p>
+ * Only read-only methods are hedged by default. Write methods such as sendTransaction must be enabled explicitly
+ * with {@link #allowWriteMethod(String)}.
+ */
+public class HedgingPolicy {
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    /** Latency percentile used as hedge delay, between 0 and 1. */
+    @Getter
+    @Setter
+    private double percentile = 0.95;
+
+    /** Lower bound of the hedge delay. */
+    @Getter
+    @Setter
+    private Duration minDelay = Duration.ofMillis(5);
+
+    /** Upper bound of the hedge delay. */
+    @Getter
+    @Setter
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    /** Delay used until enough latency samples were collected for a method. */
+    @Getter
+    @Setter
+    private Duration initialDelay = Duration.ofMillis(200);
+
+    @Getter
+    private final Set<String> methods = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solanaj-hedging");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a policy hedging getAccountInfo, getMultipleAccounts, getLatestBlockhash and getSignatureStatuses.
+     */
+    public HedgingPolicy() {
+        this(Set.of("getAccountInfo", "getMultipleAccounts", "getLatestBlockhash", "getSignatureStatuses"));
+    }
+
+    /**
+     * Creates a policy hedging the given read-only methods.
+     *
+     * @param methods the methods to hedge
+     * @throws IllegalArgumentException if a method is not read-only
+     */
+    public HedgingPolicy(Set<String> methods) {
+        methods.forEach(this::addMethod);
+    }
+
+    /**
+     * Enables hedging for a read-only method.
+     *
+     * @param method the method to hedge
+     * @throws IllegalArgumentException if the method is not read-only
+     */
+    public void addMethod(String method) {
+        if (!RpcMethods.isReadOnly(method)) {
+            throw new IllegalArgumentException(method + " is not read-only; use allowWriteMethod to hedge it");
+        }
+        methods.add(method);
+    }
+
+    /**
+     * Explicitly enables hedging for a write method. Only do this if sending the request twice is harmless,
+     * e.g. sendTransaction of an already signed transaction, which lands at most once.
+     *
+     * @param method the method to hedge
+     */
+    public void allowWriteMethod(String method) {
+        methods.add(method);
+    }
+
+    public boolean appliesTo(String method) {
+        return methods.contains(method);
+    }
+
+    /**
+     * Returns how long to wait for the first request before hedging it.
+     *
+     * @param method the method being called
+     * @return the hedge delay
+     */
+    public Duration hedgeDelay(String method) {
+        LatencyWindow window = latencies.get(method);
+        long delayNanos = window == null ? -1 : window.percentile(percentile, MIN_SAMPLES);
+        if (delayNanos < 0) {
+            return initialDelay;
+        }
+        return Duration.ofNanos(Math.max(minDelay.toNanos(), Math.min(maxDelay.toNanos(), delayNanos)));
+    }
+
+    /** Number of requests sent through the hedging path. */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    /** Number of second copies actually sent. */
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    /** Number of requests answered by the second copy. */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    void recordLatency(String method, long latencyNanos) {
+        latencies.computeIfAbsent(method, m -> new LatencyWindow()).add(latencyNanos);
+    }
+
+    void recordRequest() {
+        hedgedRequests.incrementAndGet();
+    }
+
+    void recordHedgeSent() {
+        hedgesSent.incrementAndGet();
+    }
+
+    void recordHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Ring buffer of the most recent latencies of a method.
+     */
+    private static class LatencyWindow {
+        private final long[] samples = new long[LATENCY_WINDOW];
+        private int count;
+        private int next;
+
+        synchronized void add(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(count - 1, Math.ceil(percentile * count) - 1);
+            return sorted[Math.max(index, 0)];
+        }
+    }
+}
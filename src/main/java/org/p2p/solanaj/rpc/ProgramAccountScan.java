@@ -0,0 +1,260 @@
+package org.p2p.solanaj.rpc;
+
+import org.bitcoinj.core.Base58;
+import org.p2p.solanaj.rpc.types.Memcmp;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.rpc.types.config.ProgramAccountScanConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A getProgramAccounts scan split into shards, see {@link RpcApi#scanProgramAccounts}. Every shard is one
+ * getProgramAccounts request narrowed by an extra memcmp filter, for example on a discriminator or owner byte, so
+ * that together the shards cover the program's accounts. Shards are streamed concurrently, each through an endpoint
+ * chosen by the client's router, and their accounts are merged into this iterator in the order they arrive.
+ * <p>
+ * A shard that fails is requested again, skipping the accounts it already delivered, which are remembered by a
+ * 64-bit hash of their public key so that large shards stay cheap to track. A shard that keeps failing
+ * does not stop the others; it is reported by {@link #getFailedShards()} once the scan has finished. Close the scan
+ * when stopping early.
+ */
+public class ProgramAccountScan implements Iterator<ProgramAccount>, Closeable {
+
+    private static final Object END = new Object();
+
+    private final ShardOpener opener;
+    private final List<Memcmp> shards;
+    private final int maxShardAttempts;
+    private final BlockingQueue<Object> buffer;
+    private final ExecutorService workers;
+    private final AtomicInteger remainingShards;
+    private final Map<Memcmp, RpcException> failedShards = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Set<ProgramAccountStream> openStreams = ConcurrentHashMap.newKeySet();
+
+    private Object next;
+    private volatile boolean closed;
+
+    ProgramAccountScan(List<Memcmp> shards, ProgramAccountScanConfig config, ShardOpener opener) {
+        if (shards.isEmpty() || config.getMaxParallelism() < 1 || config.getMaxShardAttempts() < 1
+                || config.getBufferSize() < 1) {
+            throw new IllegalArgumentException("A scan needs shards and positive limits");
+        }
+        this.opener = opener;
+        this.shards = List.copyOf(shards);
+        this.maxShardAttempts = config.getMaxShardAttempts();
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferSize());
+        this.remainingShards = new AtomicInteger(shards.size());
+        this.workers = Executors.newFixedThreadPool(Math.min(config.getMaxParallelism(), shards.size()), runnable -> {
+            Thread thread = new Thread(runnable, "solanaj-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Memcmp shard : this.shards) {
+            workers.execute(() -> scanShard(shard));
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Returns one shard per value of the byte at the given offset: 256 filters that together match every account.
+     *
+     * @param offset offset of the byte within the account data
+     * @return the shard filters
+     */
+    public static List<Memcmp> byteShards(long offset) {
+        List<Memcmp> shards = new ArrayList<>(256);
+        for (int value = 0; value < 256; value++) {
+            shards.add(new Memcmp(offset, Base58.encode(new byte[]{(byte) value})));
+        }
+        return shards;
+    }
+
+    private void scanShard(Memcmp shard) {
+        try {
+            RpcException failure = null;
+            // a shard requested only once has nothing to skip
+            DeliveredKeys delivered = maxShardAttempts > 1 ? new DeliveredKeys() : null;
+            for (int attempt = 0; attempt < maxShardAttempts && !closed; attempt++) {
+                try {
+                    streamShard(shard, delivered);
+                    failure = null;
+                    break;
+                } catch (RpcException e) {
+                    failure = e;
+                } catch (IOException | RuntimeException e) {
+                    failure = new RpcException("Error while reading shard " + shard + ": " + e.getMessage());
+                }
+            }
+            if (failure != null && !closed) {
+                failedShards.put(shard, failure);
+            }
+        } catch (InterruptedException e) {
+            // the scan was closed
+        } finally {
+            if (remainingShards.decrementAndGet() == 0) {
+                try {
+                    buffer.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void streamShard(Memcmp shard, DeliveredKeys delivered)
+            throws RpcException, IOException, InterruptedException {
+        RpcResultStream result = opener.open(shard);
+        ProgramAccountStream accounts;
+        try {
+            accounts = new ProgramAccountStream(result);
+        } catch (IOException | RuntimeException e) {
+            result.close();
+            throw e;
+        }
+        openStreams.add(accounts);
+        try {
+            if (closed) {
+                return;
+            }
+            while (accounts.hasNext()) {
+                ProgramAccount account = accounts.next();
+                // after a retry, skip what the failed attempt already delivered
+                if (delivered == null || delivered.add(account.getPubkey())) {
+                    buffer.put(account);
+                }
+            }
+        } finally {
+            openStreams.remove(accounts);
+            accounts.close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = buffer.take();
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (next == END) {
+            close();
+        }
+        return !closed && next != null;
+    }
+
+    @Override
+    public ProgramAccount next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ProgramAccount account = (ProgramAccount) next;
+        next = null;
+        return account;
+    }
+
+    /**
+     * Returns the shards that failed on every attempt, with the error of their last attempt. Complete once
+     * {@link #hasNext()} has returned false.
+     *
+     * @return failed shards in the order they failed
+     */
+    public Map<Memcmp, RpcException> getFailedShards() {
+        synchronized (failedShards) {
+            return new LinkedHashMap<>(failedShards);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        workers.shutdownNow();
+        for (ProgramAccountStream accounts : openStreams) {
+            accounts.close();
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Set of 64-bit FNV-1a hashes of base58 public keys, in an open-addressing table. With a few million accounts
+     * per shard, the chance that two keys collide and one is skipped stays below one in a million.
+     */
+    static final class DeliveredKeys {
+
+        private long[] hashes = new long[64];
+        private boolean containsZero;
+        private int size;
+
+        boolean add(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+            }
+            if (hash == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                return added;
+            }
+            if (2 * (size + 1) > hashes.length) {
+                grow();
+            }
+            if (!insert(hashes, hash)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            long[] grown = new long[hashes.length * 2];
+            for (long hash : hashes) {
+                if (hash != 0) {
+                    insert(grown, hash);
+                }
+            }
+            hashes = grown;
+        }
+
+        private static boolean insert(long[] table, long hash) {
+            int mask = table.length - 1;
+            for (int i = (int) (hash ^ (hash >>> 32)) & mask; ; i = (i + 1) & mask) {
+                if (table[i] == hash) {
+                    return false;
+                }
+                if (table[i] == 0) {
+                    table[i] = hash;
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the getProgramAccounts response of a shard.
+     */
+    interface ShardOpener {
+        RpcResultStream open(Memcmp shard) throws RpcException;
+    }
+}
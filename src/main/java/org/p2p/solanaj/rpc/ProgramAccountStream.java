@@ -0,0 +1,116 @@
+package org.p2p.solanaj.rpc;
+
+import com.squareup.moshi.JsonReader;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.rpc.types.ProgramAccountJsonAdapter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the accounts of a getProgramAccounts response while it is being received, see
+ * {@link RpcApi#streamProgramAccounts}. Only the account being decoded is held in memory. The stream closes itself
+ * after the last account; close it explicitly when stopping early. I/O errors while reading are thrown as
+ * {@link UncheckedIOException}.
+ */
+public class ProgramAccountStream implements Iterator<ProgramAccount>, Closeable {
+
+    private static final ProgramAccountJsonAdapter ADAPTER = new ProgramAccountJsonAdapter();
+
+    private final RpcResultStream stream;
+    private final JsonReader reader;
+    private boolean withinArray;
+    private boolean finished;
+    private long contextSlot = -1;
+
+    ProgramAccountStream(RpcResultStream stream) throws IOException {
+        this.stream = stream;
+        this.reader = stream.getReader();
+
+        if (reader.peek() == JsonReader.Token.BEGIN_OBJECT) {
+            // Requested withContext: the accounts are in the value field
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("value")) {
+                    break;
+                } else if (name.equals("context")) {
+                    readContext();
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+
+        if (reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+            reader.beginArray();
+            withinArray = true;
+        } else {
+            close();
+        }
+    }
+
+    private void readContext() throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("slot")) {
+                contextSlot = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Returns the slot the accounts were read at, if requested withContext and sent by the server ahead of the
+     * accounts.
+     *
+     * @return the context slot, or -1 if unknown
+     */
+    public long getContextSlot() {
+        return contextSlot;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        try {
+            if (withinArray && reader.hasNext()) {
+                return true;
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public ProgramAccount next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return ADAPTER.fromJson(reader);
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        finished = true;
+        stream.close();
+    }
+}
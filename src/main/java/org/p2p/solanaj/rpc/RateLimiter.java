@@ -0,0 +1,212 @@
+package org.p2p.solanaj.rpc;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client-side rate limiting per endpoint, see {@link RpcClient#setRateLimiter(RateLimiter)}.
+ * <p>
+ * Each endpoint has a token bucket refilled at its current rate, in cost units per second. Methods have cost
+ * weights, so an expensive call such as getProgramAccounts uses up more of the budget than getBalance. When the
+ * budget is exhausted, requests wait for it to refill, up to {@link #getMaxWait()}; requests that would have to
+ * wait longer fail with an {@link RpcThrottledException} without being sent.
+ * <p>
+ * The rate adapts to the endpoint (AIMD): every successful response increases it by {@link #getAdditiveIncrease()},
+ * every 429 or 503 response multiplies it by {@link #getDecreaseFactor()}. A Retry-After header pauses the endpoint
+ * for the requested time.
+ */
+public class RateLimiter {
+
+    /** Rate every endpoint starts with, in cost units per second. */
+    @Getter
+    @Setter
+    private double initialRate = 40;
+
+    /** Lower bound of the rate. */
+    @Getter
+    @Setter
+    private double minRate = 1;
+
+    /** Upper bound of the rate. */
+    @Getter
+    @Setter
+    private double maxRate = 200;
+
+    /** Cost units that may be used at once after an idle period. */
+    @Getter
+    @Setter
+    private double burst = 20;
+
+    /** Rate increase per successful response. */
+    @Getter
+    @Setter
+    private double additiveIncrease = 0.5;
+
+    /** Rate multiplier applied on every throttling response. */
+    @Getter
+    @Setter
+    private double decreaseFactor = 0.5;
+
+    /** How long a request may wait for budget before it fails. */
+    @Getter
+    @Setter
+    private Duration maxWait = Duration.ofSeconds(10);
+
+    /** Cost of methods without an explicit cost. */
+    @Getter
+    @Setter
+    private double defaultCost = 1;
+
+    private final Map<String, Double> methodCosts = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter() {
+        methodCosts.put("getProgramAccounts", 10.0);
+        methodCosts.put("getBlock", 5.0);
+        methodCosts.put("getSignaturesForAddress", 2.0);
+        methodCosts.put("getTokenAccountsByOwner", 2.0);
+        methodCosts.put("getMultipleAccounts", 2.0);
+    }
+
+    /**
+     * Sets the cost weight of a method.
+     *
+     * @param method the JSON-RPC method name
+     * @param cost   the cost in units of the rate
+     */
+    public void setMethodCost(String method, double cost) {
+        methodCosts.put(method, cost);
+    }
+
+    /**
+     * Returns the cost weight of a method.
+     *
+     * @param method the JSON-RPC method name
+     * @return the cost in units of the rate
+     */
+    public double cost(String method) {
+        return methodCosts.getOrDefault(method, defaultCost);
+    }
+
+    /**
+     * Returns the current rate of an endpoint.
+     *
+     * @param url the endpoint
+     * @return the rate in cost units per second
+     */
+    public double getRate(String url) {
+        return bucket(url).rate();
+    }
+
+    /**
+     * Reserves budget for a request and returns how long the caller has to wait before sending it.
+     *
+     * @param url  the endpoint the request goes to
+     * @param cost the cost of the request
+     * @return the wait in nanoseconds, 0 if the request may be sent right away
+     * @throws RpcThrottledException if the wait would exceed {@link #getMaxWait()}
+     */
+    public long reserve(String url, double cost) throws RpcThrottledException {
+        long waitNanos = bucket(url).reserve(cost, burst, maxWait.toNanos(), System.nanoTime());
+        if (waitNanos < 0) {
+            throw new RpcThrottledException("Rate limit budget of " + url + " exhausted for more than " + maxWait,
+                    0, null);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Blocks until budget for a request is available.
+     *
+     * @param url  the endpoint the request goes to
+     * @param cost the cost of the request
+     * @throws RpcThrottledException if the wait would exceed {@link #getMaxWait()}
+     * @throws RpcException          if interrupted while waiting
+     */
+    public void acquire(String url, double cost) throws RpcException {
+        long waitNanos = reserve(url, cost);
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RpcException("Interrupted while waiting for rate limit budget");
+            }
+        }
+    }
+
+    /**
+     * Records a successful response, increasing the endpoint's rate.
+     *
+     * @param url the endpoint
+     */
+    public void onSuccess(String url) {
+        bucket(url).increase(additiveIncrease, maxRate);
+    }
+
+    /**
+     * Records a throttling response, decreasing the endpoint's rate and pausing it for the Retry-After duration.
+     *
+     * @param url        the endpoint
+     * @param retryAfter how long the endpoint asked clients to back off, or null if it did not say
+     */
+    public void onThrottled(String url, Duration retryAfter) {
+        bucket(url).decrease(decreaseFactor, minRate,
+                retryAfter != null ? System.nanoTime() + retryAfter.toNanos() : 0);
+    }
+
+    private Bucket bucket(String url) {
+        return buckets.computeIfAbsent(url, u -> new Bucket(initialRate));
+    }
+
+    /**
+     * Token bucket implemented as a generic cell rate algorithm: instead of counting tokens it tracks the time at
+     * which the bucket will be full again, so reservations never need a refill timer.
+     */
+    private static class Bucket {
+        private double rate;
+        private long theoreticalArrivalNanos;
+        private long pausedUntilNanos;
+        private boolean paused;
+
+        Bucket(double rate) {
+            this.rate = rate;
+            this.theoreticalArrivalNanos = System.nanoTime();
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        synchronized long reserve(double cost, double burst, long maxWaitNanos, long now) {
+            double intervalNanos = 1e9 / rate;
+            long toleranceNanos = (long) (burst * intervalNanos);
+
+            long earliest = paused && pausedUntilNanos - now > 0 ? pausedUntilNanos : now;
+            long next = Math.max(theoreticalArrivalNanos, earliest) + (long) (cost * intervalNanos);
+            long waitNanos = Math.max(earliest - now, next - toleranceNanos - now);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+
+            theoreticalArrivalNanos = next;
+            return Math.max(waitNanos, 0);
+        }
+
+        synchronized void increase(double increase, double maxRate) {
+            rate = Math.min(maxRate, rate + increase);
+        }
+
+        synchronized void decrease(double factor, double minRate, long pausedUntilNanos) {
+            rate = Math.max(minRate, rate * factor);
+            if (pausedUntilNanos != 0 && (!paused || pausedUntilNanos - this.pausedUntilNanos > 0)) {
+                this.pausedUntilNanos = pausedUntilNanos;
+                paused = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.p2p.solanaj.rpc;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing of identical in-flight requests, see {@link RpcClient#setRequestCoalescer}.
+ * <p>
+ * While a request is in flight, every identical request (same method, parameters including commitment, and
+ * result type) waits for it instead of sending its own. All callers receive the same decoded result object,
+ * so results should be treated as read-only. Once the request completes, the next identical request is sent
+ * again; nothing is cached.
+ */
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    /**
+     * Joins the in-flight request with the given key, or starts it if there is none.
+     * Cancelling the returned future does not cancel the shared request.
+     *
+     * @param key  identifies identical requests
+     * @param call starts the request
+     * @return a future completed with the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call) {
+        requests.incrementAndGet();
+
+        CompletableFuture<Object> shared = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalescedRequests.incrementAndGet();
+            return existing.thenApply(result -> (T) result);
+        }
+
+        CompletableFuture<T> request;
+        try {
+            request = call.get();
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        request.whenComplete((result, error) -> {
+            // Leave the map before completing, so callers arriving afterwards send a fresh request
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(result);
+            }
+        });
+
+        return shared.thenApply(result -> (T) result);
+    }
+
+    /** Number of requests passed through the coalescer. */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /** Number of requests that joined an identical in-flight request instead of being sent. */
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * Returns the fraction of requests that were served by an identical in-flight request.
+     *
+     * @return the dedup hit ratio, between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) coalescedRequests.get() / total;
+    }
+
+    /** Number of distinct requests currently in flight. */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,157 @@
+package org.p2p.solanaj.rpc;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Configuration and statistics of request retries, see {@link RpcClient#setRetryPolicy(RetryPolicy)}.
+ * <p>
+ * Failed requests are sent again after an exponentially growing backoff with full jitter, as long as the call's
+ * deadline allows it. Retries go to a different endpoint of the cluster when one is available. Whether a method
+ * may be retried follows {@link RpcMethods#idempotency(String)}: reads are always retried, sendTransaction is
+ * retried with the identical signed payload unless {@link #isRetrySameSignature()} is disabled, and methods such
+ * as requestAirdrop are never retried.
+ * <p>
+ * I/O errors, server errors and throttling responses are retried. Errors returned by the server in the JSON-RPC
+ * response are only retried if their code is one of {@link #getRetryableErrorCodes()}, which by default covers
+ * unhealthy or lagging nodes.
+ */
+public class RetryPolicy {
+
+    /** Maximum number of attempts per call, including the first one. */
+    @Getter
+    @Setter
+    private int maxAttempts = 4;
+
+    /** Backoff before the first retry, before jitter. */
+    @Getter
+    @Setter
+    private Duration initialBackoff = Duration.ofMillis(100);
+
+    /** Upper bound of the backoff, before jitter. */
+    @Getter
+    @Setter
+    private Duration maxBackoff = Duration.ofSeconds(2);
+
+    /** Growth factor of the backoff per retry. */
+    @Getter
+    @Setter
+    private double backoffMultiplier = 2;
+
+    /** Time budget of a call including all its retries; no retry is started that would end after it. */
+    @Getter
+    @Setter
+    private Duration deadline = Duration.ofSeconds(30);
+
+    /** Whether sendTransaction is retried with the same signed payload. */
+    @Getter
+    @Setter
+    private boolean retrySameSignature = true;
+
+    /**
+     * JSON-RPC error codes worth retrying: block not available (-32004), node unhealthy (-32005),
+     * block status not yet available (-32014) and minimum context slot not reached (-32016).
+     */
+    @Getter
+    @Setter
+    private Set<Long> retryableErrorCodes = Set.of(-32004L, -32005L, -32014L, -32016L);
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recoveredCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    /**
+     * Returns true if failed requests of the method may be sent again.
+     *
+     * @param method the JSON-RPC method name
+     * @return true if the method may be retried
+     */
+    public boolean allowsRetry(String method) {
+        switch (RpcMethods.idempotency(method)) {
+            case SAFE:
+                return true;
+            case SAME_SIGNATURE:
+                return retrySameSignature;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns true if a request that failed with the given error is worth sending again.
+     *
+     * @param error the error the request failed with
+     * @return true for transient errors
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof RpcThrottledException) {
+            // A status of 0 means the local rate limiter gave up waiting, retrying would only wait again
+            return ((RpcThrottledException) error).getStatusCode() != 0;
+        }
+        if (error instanceof RpcException) {
+            Long code = ((RpcException) error).getCode();
+            return code == null || retryableErrorCodes.contains(code);
+        }
+        return false;
+    }
+
+    /**
+     * Returns how long to wait before a retry: a random duration up to the exponential backoff,
+     * but at least as long as the server asked for with Retry-After.
+     *
+     * @param retry the number of the retry, starting at 1
+     * @param error the error the previous attempt failed with
+     * @return the backoff
+     */
+    public Duration backoff(int retry, Throwable error) {
+        double backoffNanos = Math.min(maxBackoff.toNanos(),
+                initialBackoff.toNanos() * Math.pow(backoffMultiplier, retry - 1));
+        long jittered = (long) (ThreadLocalRandom.current().nextDouble() * backoffNanos);
+
+        if (error instanceof RpcThrottledException && ((RpcThrottledException) error).getRetryAfter() != null) {
+            jittered = Math.max(jittered, ((RpcThrottledException) error).getRetryAfter().toNanos());
+        }
+        return Duration.ofNanos(jittered);
+    }
+
+    /** Number of attempts sent, including first attempts. */
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    /** Number of attempts that were retries of a failed attempt. */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /** Number of calls that succeeded after at least one retry. */
+    public long getRecoveredCalls() {
+        return recoveredCalls.get();
+    }
+
+    /** Number of calls that failed after their last attempt. */
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    void recordAttempt(boolean retry) {
+        attempts.incrementAndGet();
+        if (retry) {
+            retries.incrementAndGet();
+        }
+    }
+
+    void recordCall(boolean success, int attempts) {
+        if (!success) {
+            failedCalls.incrementAndGet();
+        } else if (attempts > 1) {
+            recoveredCalls.incrementAndGet();
+        }
+    }
+}
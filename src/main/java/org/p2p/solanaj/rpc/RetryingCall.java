@@ -0,0 +1,115 @@
+package org.p2p.solanaj.rpc;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A single call retried according to a {@link RetryPolicy}. Every attempt avoids the endpoints that earlier
+ * attempts failed on, as long as other endpoints are left.
+ */
+class RetryingCall<T> {
+
+    private final String method;
+    private final RetryPolicy policy;
+    private final Function<Set<String>, String> selector;
+    private final Function<String, CompletableFuture<T>> attempt;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final Set<String> failedUrls = new HashSet<>();
+    private final long deadlineNanos;
+
+    private int attempts;
+    private CompletableFuture<T> current;
+
+    /**
+     * @param selector chooses the endpoint of the next attempt, given the endpoints that already failed;
+     *                 may return null if the attempt chooses its endpoint itself
+     * @param attempt  sends the request to the given endpoint
+     */
+    RetryingCall(String method, RetryPolicy policy, Function<Set<String>, String> selector,
+                 Function<String, CompletableFuture<T>> attempt) {
+        this.method = method;
+        this.policy = policy;
+        this.selector = selector;
+        this.attempt = attempt;
+        this.deadlineNanos = System.nanoTime() + policy.getDeadline().toNanos();
+    }
+
+    CompletableFuture<T> start() {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                cancelCurrent();
+            }
+        });
+        launch();
+        return result;
+    }
+
+    private void launch() {
+        CompletableFuture<T> future;
+        String url;
+        synchronized (this) {
+            if (result.isDone()) {
+                return;
+            }
+            url = selector.apply(failedUrls);
+            policy.recordAttempt(attempts > 0);
+            attempts++;
+            try {
+                future = attempt.apply(url);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            current = future;
+        }
+        future.whenComplete((value, error) -> onAttemptComplete(url, value, error));
+    }
+
+    private void onAttemptComplete(String url, T value, Throwable error) {
+        if (error == null) {
+            finish(value, null);
+            return;
+        }
+        if (result.isDone()) {
+            return;
+        }
+
+        long delayNanos = policy.backoff(attempts, error).toNanos();
+        boolean retry = attempts < policy.getMaxAttempts() && policy.allowsRetry(method)
+                && policy.isRetryable(error) && System.nanoTime() + delayNanos - deadlineNanos < 0;
+        if (!retry) {
+            finish(null, error);
+            return;
+        }
+
+        synchronized (this) {
+            if (url != null) {
+                failedUrls.add(url);
+            }
+        }
+        CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(this::launch);
+    }
+
+    /**
+     * Completes the call, recording it first so that callers see the statistics once they have the result.
+     */
+    private synchronized void finish(T value, Throwable error) {
+        if (result.isDone()) {
+            return;
+        }
+        policy.recordCall(error == null, attempts);
+        if (error == null) {
+            result.complete(value);
+        } else {
+            result.completeExceptionally(error);
+        }
+    }
+
+    private synchronized void cancelCurrent() {
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+}
@@ -3,19 +3,28 @@ package org.p2p.solanaj.rpc;
 import org.p2p.solanaj.core.Account;
 import org.p2p.solanaj.core.PublicKey;
 import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.core.VersionedTransaction;
 import org.p2p.solanaj.rpc.types.*;
 import org.p2p.solanaj.rpc.types.RpcResultTypes.ValueLong;
 import org.p2p.solanaj.rpc.types.TokenResultObjects.TokenAccount;
 import org.p2p.solanaj.rpc.types.TokenResultObjects.TokenAmountInfo;
 import org.p2p.solanaj.rpc.types.config.*;
 import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig.Encoding;
-import org.p2p.solanaj.ws.SubscriptionWebSocketClient;
 import org.p2p.solanaj.ws.listeners.NotificationEventListener;
 
+import com.squareup.moshi.Types;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class RpcApi {
+    static final Type PROGRAM_ACCOUNTS = Types.newParameterizedType(List.class, ProgramAccount.class);
+    static final Type LEADER_SCHEDULES = Types.newParameterizedType(List.class, LeaderSchedule.class);
+
     private RpcClient client;
 
     public RpcApi(RpcClient client) {
@@ -27,13 +36,17 @@ public class RpcApi {
     }
 
     public LatestBlockhash getLatestBlockhash(Commitment commitment) throws RpcException {
+        return client.call("getLatestBlockhash", commitmentParams(commitment), LatestBlockhash.class);
+    }
+
+    static List<Object> commitmentParams(Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         if (commitment != null) {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        return client.call("getLatestBlockhash", params, LatestBlockhash.class);
+        return params;
     }
 
     @Deprecated
@@ -43,13 +56,8 @@ public class RpcApi {
 
     @Deprecated
     public String getRecentBlockhash(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getRecentBlockhash", params, RecentBlockhash.class).getValue().getBlockhash();
+        return client.call("getRecentBlockhash", commitmentParams(commitment), RecentBlockhash.class)
+                .getValue().getBlockhash();
     }
 
     public String sendTransaction(Transaction transaction, Account signer, String recentBlockHash) throws
@@ -66,7 +74,8 @@ public class RpcApi {
      *
      * @param transaction             The transaction to send.
      * @param signers                 The list of accounts signing the transaction.
-     * @param recentBlockHash         The recent block hash. If null, it will be obtained from the RPC server.
+     * @param recentBlockHash         The recent block hash. If null, the one prefetched by the client's
+     *                                {@link BlockhashProvider} is used, or it is obtained from the RPC server.
      * @param rpcSendTransactionConfig The configuration object for sending transactions via RPC.
      * @return The transaction ID as a string.
      * @throws RpcException If an error occurs during the RPC call.
@@ -74,13 +83,63 @@ public class RpcApi {
     public String sendTransaction(Transaction transaction, List<Account> signers, String recentBlockHash,
                                   RpcSendTransactionConfig rpcSendTransactionConfig)
             throws RpcException {
-        if (recentBlockHash == null) {
-            recentBlockHash = getLatestBlockhash().getValue().getBlockhash();
+        return client.call("sendTransaction", sendTransactionParams(transaction, signers,
+                recentBlockHash(recentBlockHash), rpcSendTransactionConfig), String.class);
+    }
+
+    /**
+     * Signs and sends a versioned transaction.
+     *
+     * @param transaction              The transaction to send.
+     * @param signers                  The list of accounts signing the transaction.
+     * @param recentBlockHash          The recent block hash. If null, the one prefetched by the client's
+     *                                 {@link BlockhashProvider} is used, or it is obtained from the RPC server.
+     * @param rpcSendTransactionConfig The configuration object for sending transactions via RPC.
+     * @return The transaction ID as a string.
+     * @throws RpcException If an error occurs during the RPC call.
+     */
+    public String sendTransaction(VersionedTransaction transaction, List<Account> signers, String recentBlockHash,
+                                  RpcSendTransactionConfig rpcSendTransactionConfig) throws RpcException {
+        transaction.setRecentBlockHash(recentBlockHash(recentBlockHash));
+        transaction.sign(signers);
+        return sendRawTransaction(transaction.serialize(), rpcSendTransactionConfig);
+    }
+
+    private String recentBlockHash(String recentBlockHash) throws RpcException {
+        if (recentBlockHash != null) {
+            return recentBlockHash;
         }
+        BlockhashProvider blockhashProvider = client.getBlockhashProvider();
+        return blockhashProvider != null
+                ? blockhashProvider.getLatest().getBlockhash()
+                : getLatestBlockhash().getValue().getBlockhash();
+    }
+
+    static List<Object> sendTransactionParams(Transaction transaction, List<Account> signers, String recentBlockHash,
+                                              RpcSendTransactionConfig rpcSendTransactionConfig) {
         transaction.setRecentBlockHash(recentBlockHash);
         transaction.sign(signers);
-        byte[] serializedTransaction = transaction.serialize();
 
+        return sendRawTransactionParams(transaction.serialize(), rpcSendTransactionConfig);
+    }
+
+    /**
+     * Sends a transaction that is already signed and serialized, e.g. by a
+     * {@link org.p2p.solanaj.core.TransactionTemplate}.
+     *
+     * @param serializedTransaction    the signed transaction in the wire format
+     * @param rpcSendTransactionConfig the configuration object for sending transactions via RPC
+     * @return the transaction signature
+     * @throws RpcException if an error occurs during the RPC call
+     */
+    public String sendRawTransaction(byte[] serializedTransaction, RpcSendTransactionConfig rpcSendTransactionConfig)
+            throws RpcException {
+        return client.call("sendTransaction", sendRawTransactionParams(serializedTransaction,
+                rpcSendTransactionConfig), String.class);
+    }
+
+    static List<Object> sendRawTransactionParams(byte[] serializedTransaction,
+                                                 RpcSendTransactionConfig rpcSendTransactionConfig) {
         String base64Trx = Base64.getEncoder().encodeToString(serializedTransaction);
 
         List<Object> params = new ArrayList<>();
@@ -88,7 +147,7 @@ public class RpcApi {
         params.add(base64Trx);
         params.add(rpcSendTransactionConfig);
 
-        return client.call("sendTransaction", params, String.class);
+        return params;
     }
 
     /**
@@ -110,8 +169,7 @@ public class RpcApi {
             NotificationEventListener listener) throws RpcException {
         String signature = sendTransaction(transaction, signers, null);
 
-        SubscriptionWebSocketClient subClient = SubscriptionWebSocketClient.getInstance(client.getEndpoint());
-        subClient.signatureSubscribe(signature, listener);
+        client.getSubscriptionManager().signatureSubscribe(client.getEndpoint(), signature, listener);
     }
 
     public long getBalance(PublicKey account) throws RpcException {
@@ -119,6 +177,49 @@ public class RpcApi {
     }
 
     public long getBalance(PublicKey account, Commitment commitment) throws RpcException {
+        return client.call("getBalance", balanceParams(account, commitment), ValueLong.class).getValue();
+    }
+
+    /**
+     * Gets the balances of several accounts in a single JSON-RPC batch.
+     *
+     * @param accounts the accounts to query
+     * @return one result per account, in the same order as the accounts
+     * @throws RpcException if the batch could not be sent
+     */
+    public List<RpcBatchResult<Long>> getBalances(List<PublicKey> accounts) throws RpcException {
+        return getBalances(accounts, null);
+    }
+
+    /**
+     * Gets the balances of several accounts in a single JSON-RPC batch.
+     *
+     * @param accounts   the accounts to query
+     * @param commitment optional commitment level
+     * @return one result per account, in the same order as the accounts
+     * @throws RpcException if the batch could not be sent
+     */
+    public List<RpcBatchResult<Long>> getBalances(List<PublicKey> accounts, Commitment commitment)
+            throws RpcException {
+        return toBalances(client.callBatch(balanceRequests(accounts, commitment), ValueLong.class));
+    }
+
+    static List<RpcRequest> balanceRequests(List<PublicKey> accounts, Commitment commitment) {
+        List<RpcRequest> requests = new ArrayList<>(accounts.size());
+        for (PublicKey account : accounts) {
+            requests.add(new RpcRequest("getBalance", balanceParams(account, commitment)));
+        }
+
+        return requests;
+    }
+
+    static List<RpcBatchResult<Long>> toBalances(List<RpcBatchResult<ValueLong>> results) {
+        return results.stream()
+                .map(result -> result.map(ValueLong::getValue))
+                .collect(Collectors.toList());
+    }
+
+    static List<Object> balanceParams(PublicKey account, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         params.add(account.toString());
@@ -126,7 +227,7 @@ public class RpcApi {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        return client.call("getBalance", params, ValueLong.class).getValue();
+        return params;
     }
 
     public ConfirmedTransaction getTransaction(String signature) throws RpcException {
@@ -134,6 +235,10 @@ public class RpcApi {
     }
 
     public ConfirmedTransaction getTransaction(String signature, Commitment commitment) throws RpcException {
+        return client.call("getTransaction", transactionParams(signature, commitment), ConfirmedTransaction.class);
+    }
+
+    static List<Object> transactionParams(String signature, Commitment commitment) {
         List<Object> params = new ArrayList<>();
         params.add(signature);
         Map<String, Object> parameterMap = new HashMap<>();
@@ -144,36 +249,37 @@ public class RpcApi {
 
         parameterMap.put("maxSupportedTransactionVersion", 0);
         params.add(parameterMap);
-        return client.call("getTransaction", params, ConfirmedTransaction.class);
+        return params;
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<SignatureInformation> getConfirmedSignaturesForAddress2(PublicKey account, int limit)
             throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        params.add(account.toString());
-        params.add(new ConfirmedSignFAddr2(limit, Commitment.CONFIRMED));
-
-        List<AbstractMap> rawResult = client.call("getConfirmedSignaturesForAddress2", params, List.class);
+        List<AbstractMap> rawResult = client.call("getConfirmedSignaturesForAddress2",
+                signaturesForAddressParams(account, limit, Commitment.CONFIRMED), List.class);
 
-        List<SignatureInformation> result = new ArrayList<>();
-        for (AbstractMap item : rawResult) {
-            result.add(new SignatureInformation(item));
-        }
-
-        return result;
+        return toSignatureInformation(rawResult);
     }
 
     public List<SignatureInformation> getSignaturesForAddress(PublicKey account, int limit, Commitment commitment)
             throws RpcException {
+        List<AbstractMap> rawResult = client.call("getSignaturesForAddress",
+                signaturesForAddressParams(account, limit, commitment), List.class);
+
+        return toSignatureInformation(rawResult);
+    }
+
+    static List<Object> signaturesForAddressParams(PublicKey account, int limit, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         params.add(account.toString());
         params.add(new ConfirmedSignFAddr2(limit, commitment));
 
-        List<AbstractMap> rawResult = client.call("getSignaturesForAddress", params, List.class);
+        return params;
+    }
 
+    @SuppressWarnings({ "rawtypes" })
+    static List<SignatureInformation> toSignatureInformation(List<AbstractMap> rawResult) {
         List<SignatureInformation> result = new ArrayList<>();
         for (AbstractMap item : rawResult) {
             result.add(new SignatureInformation(item));
@@ -183,79 +289,123 @@ public class RpcApi {
     }
 
     public List<ProgramAccount> getProgramAccounts(PublicKey account, long offset, String bytes) throws RpcException {
-        List<Object> filters = new ArrayList<>();
-        filters.add(new Filter(new Memcmp(offset, bytes)));
-
-        ProgramAccountConfig programAccountConfig = new ProgramAccountConfig(filters);
-        return getProgramAccounts(account, programAccountConfig);
+        return getProgramAccounts(account, memcmpConfig(offset, bytes, null));
     }
 
     public List<ProgramAccount> getProgramAccountsBase64(PublicKey account, long offset, String bytes) throws RpcException {
+        return getProgramAccounts(account, memcmpConfig(offset, bytes, Encoding.base64));
+    }
+
+    static ProgramAccountConfig memcmpConfig(long offset, String bytes, Encoding encoding) {
         List<Object> filters = new ArrayList<>();
-        Memcmp memcmp = new Memcmp(offset, bytes);
+        filters.add(new Filter(new Memcmp(offset, bytes)));
 
-        filters.add(new Filter(memcmp));
+        ProgramAccountConfig programAccountConfig = new ProgramAccountConfig(filters);
+        if (encoding != null) {
+            programAccountConfig.setEncoding(encoding);
+        }
 
-        ProgramAccountConfig programAccountConfig = new ProgramAccountConfig(Encoding.base64);
-        programAccountConfig.setFilters(filters);
-        return getProgramAccounts(account, programAccountConfig);
+        return programAccountConfig;
     }
 
     public List<ProgramAccount> getProgramAccounts(PublicKey account) throws RpcException {
         return getProgramAccounts(account, new ProgramAccountConfig(Encoding.base64));
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<ProgramAccount> getProgramAccounts(PublicKey account, ProgramAccountConfig programAccountConfig)
             throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        params.add(account.toString());
+        return client.call("getProgramAccounts", programAccountsParams(account, programAccountConfig),
+                PROGRAM_ACCOUNTS);
+    }
 
-        if (programAccountConfig != null) {
-            params.add(programAccountConfig);
+    /**
+     * Streams the accounts owned by a program while the response is being received, so that memory use is
+     * proportional to a single account rather than the whole program. The returned stream must be closed if it is
+     * not iterated to the end.
+     *
+     * @param account              the program
+     * @param programAccountConfig the request configuration
+     * @return an iterator over the program's accounts
+     * @throws RpcException if the request failed or the server returned an error
+     */
+    public ProgramAccountStream streamProgramAccounts(PublicKey account, ProgramAccountConfig programAccountConfig)
+            throws RpcException {
+        RpcResultStream stream = client.openStream("getProgramAccounts",
+                programAccountsParams(account, programAccountConfig));
+        try {
+            return new ProgramAccountStream(stream);
+        } catch (IOException e) {
+            stream.close();
+            throw new RpcException("IO error during RPC call: " + e.getMessage());
         }
+    }
 
-        List<AbstractMap> rawResult = client.call("getProgramAccounts", params, List.class);
-
-        List<ProgramAccount> result = new ArrayList<>();
-        for (AbstractMap item : rawResult) {
-            result.add(new ProgramAccount(item));
+    /**
+     * Passes each account owned by a program to the consumer as soon as it has been received and decoded.
+     *
+     * @param account              the program
+     * @param programAccountConfig the request configuration
+     * @param consumer             receives the accounts
+     * @throws RpcException if the request failed, the server returned an error or the response could not be read
+     */
+    public void getProgramAccounts(PublicKey account, ProgramAccountConfig programAccountConfig,
+                                   Consumer<ProgramAccount> consumer) throws RpcException {
+        try (ProgramAccountStream accounts = streamProgramAccounts(account, programAccountConfig)) {
+            while (accounts.hasNext()) {
+                consumer.accept(accounts.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw new RpcException("IO error during RPC call: " + e.getCause().getMessage());
         }
-
-        return result;
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    public List<ProgramAccount> getProgramAccounts(PublicKey account, List<Memcmp> memcmpList, int dataSize)
-            throws RpcException {
+    static List<Object> programAccountsParams(PublicKey account, ProgramAccountConfig programAccountConfig) {
         List<Object> params = new ArrayList<>();
 
         params.add(account.toString());
 
-        List<Object> filters = new ArrayList<>();
-        memcmpList.forEach(memcmp -> {
-            filters.add(new Filter(memcmp));
-        });
+        if (programAccountConfig != null) {
+            params.add(programAccountConfig);
+        }
 
-        filters.add(new DataSize(dataSize));
+        return params;
+    }
 
-        ProgramAccountConfig programAccountConfig = new ProgramAccountConfig(filters);
-        programAccountConfig.setEncoding(Encoding.base64);
-        params.add(programAccountConfig);
+    public List<ProgramAccount> getProgramAccounts(PublicKey account, List<Memcmp> memcmpList, int dataSize)
+            throws RpcException {
+        return client.call("getProgramAccounts", memcmpParams(account, memcmpList, dataSize), PROGRAM_ACCOUNTS);
+    }
 
-        List<AbstractMap> rawResult = client.call("getProgramAccounts", params, List.class);
+    public List<ProgramAccount> getProgramAccounts(PublicKey account, List<Memcmp> memcmpList) throws RpcException {
+        return client.call("getProgramAccounts", memcmpParams(account, memcmpList, null), PROGRAM_ACCOUNTS);
+    }
 
-        List<ProgramAccount> result = new ArrayList<>();
-        for (AbstractMap item : rawResult) {
-            result.add(new ProgramAccount(item));
-        }
+    /**
+     * Scans the accounts of a program in shards, see {@link ProgramAccountScan}. The filters of
+     * {@link #getProgramAccounts(PublicKey, List, int)} apply to every shard, which adds one filter of its own.
+     *
+     * @param account    the program
+     * @param memcmpList filters applied to every shard
+     * @param dataSize   data size of the accounts
+     * @param shards     one filter per shard; together they should match every account, e.g.
+     *                   {@link ProgramAccountScan#byteShards(long)}
+     * @return the accounts of all shards, in the order they arrive
+     */
+    public ProgramAccountScan scanProgramAccounts(PublicKey account, List<Memcmp> memcmpList, int dataSize,
+                                                  List<Memcmp> shards) {
+        return scanProgramAccounts(account, memcmpList, dataSize, shards, new ProgramAccountScanConfig());
+    }
 
-        return result;
+    public ProgramAccountScan scanProgramAccounts(PublicKey account, List<Memcmp> memcmpList, int dataSize,
+                                                  List<Memcmp> shards, ProgramAccountScanConfig config) {
+        return new ProgramAccountScan(shards, config, shard -> {
+            List<Memcmp> filters = new ArrayList<>(memcmpList);
+            filters.add(shard);
+            return client.openStream("getProgramAccounts", memcmpParams(account, filters, dataSize));
+        });
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    public List<ProgramAccount> getProgramAccounts(PublicKey account, List<Memcmp> memcmpList) throws RpcException {
+    static List<Object> memcmpParams(PublicKey account, List<Memcmp> memcmpList, Integer dataSize) {
         List<Object> params = new ArrayList<>();
 
         params.add(account.toString());
@@ -265,18 +415,15 @@ public class RpcApi {
             filters.add(new Filter(memcmp));
         });
 
+        if (dataSize != null) {
+            filters.add(new DataSize(dataSize));
+        }
+
         ProgramAccountConfig programAccountConfig = new ProgramAccountConfig(filters);
         programAccountConfig.setEncoding(Encoding.base64);
         params.add(programAccountConfig);
 
-        List<AbstractMap> rawResult = client.call("getProgramAccounts", params, List.class);
-
-        List<ProgramAccount> result = new ArrayList<>();
-        for (AbstractMap item : rawResult) {
-            result.add(new ProgramAccount(item));
-        }
-
-        return result;
+        return params;
     }
 
     public AccountInfo getAccountInfo(PublicKey account) throws RpcException {
@@ -284,6 +431,33 @@ public class RpcApi {
     }
 
     public AccountInfo getAccountInfo(PublicKey account, Map<String, Object> additionalParams) throws RpcException {
+        return client.call("getAccountInfo", accountInfoParams(account, additionalParams), AccountInfo.class);
+    }
+
+    /**
+     * Gets the account info of several accounts in a single JSON-RPC batch.
+     *
+     * @param accounts         the accounts to query
+     * @param additionalParams optional parameters applied to every account, as for {@link #getAccountInfo(PublicKey, Map)}
+     * @return one result per account, in the same order as the accounts
+     * @throws RpcException if the batch could not be sent
+     */
+    public List<RpcBatchResult<AccountInfo>> getAccountInfos(List<PublicKey> accounts,
+                                                             Map<String, Object> additionalParams)
+            throws RpcException {
+        return client.callBatch(accountInfoRequests(accounts, additionalParams), AccountInfo.class);
+    }
+
+    static List<RpcRequest> accountInfoRequests(List<PublicKey> accounts, Map<String, Object> additionalParams) {
+        List<RpcRequest> requests = new ArrayList<>(accounts.size());
+        for (PublicKey account : accounts) {
+            requests.add(new RpcRequest("getAccountInfo", accountInfoParams(account, additionalParams)));
+        }
+
+        return requests;
+    }
+
+    static List<Object> accountInfoParams(PublicKey account, Map<String, Object> additionalParams) {
         List<Object> params = new ArrayList<>();
 
         Map<String, Object> parameterMap = new HashMap<>();
@@ -305,10 +479,14 @@ public class RpcApi {
         params.add(account.toString());
         params.add(parameterMap);
 
-        return client.call("getAccountInfo", params, AccountInfo.class);
+        return params;
     }
 
     public SplTokenAccountInfo getSplTokenAccountInfo(PublicKey account) throws RpcException {
+        return client.call("getAccountInfo", splTokenAccountInfoParams(account), SplTokenAccountInfo.class);
+    }
+
+    static List<Object> splTokenAccountInfoParams(PublicKey account) {
         List<Object> params = new ArrayList<>();
         Map<String, Object> parameterMap = new HashMap<>();
         parameterMap.put("encoding", "jsonParsed");
@@ -316,7 +494,7 @@ public class RpcApi {
         params.add(account.toString());
         params.add(parameterMap);
 
-        return client.call("getAccountInfo", params, SplTokenAccountInfo.class);
+        return params;
     }
 
     public long getMinimumBalanceForRentExemption(long dataLength) throws RpcException {
@@ -324,6 +502,11 @@ public class RpcApi {
     }
 
     public long getMinimumBalanceForRentExemption(long dataLength, Commitment commitment) throws RpcException {
+        return client.call("getMinimumBalanceForRentExemption", rentExemptionParams(dataLength, commitment),
+                Long.class);
+    }
+
+    static List<Object> rentExemptionParams(long dataLength, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         params.add(dataLength);
@@ -331,15 +514,19 @@ public class RpcApi {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        return client.call("getMinimumBalanceForRentExemption", params, Long.class);
+        return params;
     }
 
     public long getBlockTime(long block) throws RpcException {
+        return client.call("getBlockTime", slotParams(block), Long.class);
+    }
+
+    static List<Object> slotParams(long slot) {
         List<Object> params = new ArrayList<>();
 
-        params.add(block);
+        params.add(slot);
 
-        return client.call("getBlockTime", params, Long.class);
+        return params;
     }
 
     /**
@@ -353,12 +540,7 @@ public class RpcApi {
     }
 
     public long getBlockHeight(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-        return client.call("getBlockHeight", params, Long.class);
+        return client.call("getBlockHeight", commitmentParams(commitment), Long.class);
     }
 
     public BlockProduction getBlockProduction() throws RpcException {
@@ -367,6 +549,10 @@ public class RpcApi {
 
     // TODO - implement the parameters - currently takes in none
     public BlockProduction getBlockProduction(Map<String, Object> optionalParams) throws RpcException {
+        return client.call("getBlockProduction", blockProductionParams(optionalParams), BlockProduction.class);
+    }
+
+    static List<Object> blockProductionParams(Map<String, Object> optionalParams) {
         List<Object> params = new ArrayList<>();
 
         Map<String, Object> parameterMap = new HashMap<>();
@@ -376,7 +562,7 @@ public class RpcApi {
         }
         params.add(parameterMap);
 
-        return client.call("getBlockProduction", params, BlockProduction.class);
+        return params;
     }
 
     public Long minimumLedgerSlot() throws RpcException {
@@ -392,6 +578,10 @@ public class RpcApi {
     }
 
     public String requestAirdrop(PublicKey address, long lamports, Commitment commitment) throws RpcException {
+        return client.call("requestAirdrop", airdropParams(address, lamports, commitment), String.class);
+    }
+
+    static List<Object> airdropParams(PublicKey address, long lamports, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         params.add(address.toString());
@@ -400,15 +590,11 @@ public class RpcApi {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        return client.call("requestAirdrop", params, String.class);
+        return params;
     }
 
     public BlockCommitment getBlockCommitment(long block) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        params.add(block);
-
-        return client.call("getBlockCommitment", params, BlockCommitment.class);
+        return client.call("getBlockCommitment", slotParams(block), BlockCommitment.class);
     }
 
     @Deprecated
@@ -418,6 +604,11 @@ public class RpcApi {
 
     @Deprecated
     public FeeCalculatorInfo getFeeCalculatorForBlockhash(String blockhash, Commitment commitment) throws RpcException {
+        return client.call("getFeeCalculatorForBlockhash", blockhashParams(blockhash, commitment),
+                FeeCalculatorInfo.class);
+    }
+
+    static List<Object> blockhashParams(String blockhash, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         params.add(blockhash);
@@ -425,7 +616,7 @@ public class RpcApi {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        return client.call("getFeeCalculatorForBlockhash", params, FeeCalculatorInfo.class);
+        return params;
     }
 
     @Deprecated
@@ -453,6 +644,10 @@ public class RpcApi {
      * @throws RpcException if the RPC call fails
      */
     public Long getFeeForMessage(String message, Commitment commitment) throws RpcException {
+        return toFee(client.call("getFeeForMessage", feeForMessageParams(message, commitment), ValueLong.class));
+    }
+
+    static List<Object> feeForMessageParams(String message, Commitment commitment) {
         List<Object> params = new ArrayList<>();
         params.add(message);
 
@@ -462,7 +657,11 @@ public class RpcApi {
         }
         params.add(configMap);
 
-        Long feeValue = client.call("getFeeForMessage", params, ValueLong.class).getValue();
+        return params;
+    }
+
+    static Long toFee(ValueLong rawResult) {
+        Long feeValue = rawResult.getValue();
 
         if (feeValue == null) {
             return 0L;
@@ -489,19 +688,29 @@ public class RpcApi {
      * @throws RpcException if the RPC call fails
      */
     public List<RecentPrioritizationFees> getRecentPrioritizationFees(List<PublicKey> addresses) throws RpcException {
+        List<Object> params = recentPrioritizationFeesParams(addresses);
+
+        List<Map<String, Object>> rawResult = client.call("getRecentPrioritizationFees", params, List.class);
+
+        return toRecentPrioritizationFees(rawResult);
+    }
+
+    static List<Object> recentPrioritizationFeesParams(List<PublicKey> addresses) {
         List<Object> params = new ArrayList<>();
 
         if (addresses != null) {
             params.add(addresses.stream().map(PublicKey::toBase58).toList());
         }
 
-        List<Map<String, Object>> rawResult = client.call("getRecentPrioritizationFees", params, List.class);
-        
+        return params;
+    }
+
+    static List<RecentPrioritizationFees> toRecentPrioritizationFees(List<Map<String, Object>> rawResult) {
         List<RecentPrioritizationFees> result = new ArrayList<>();
         for (Map<String, Object> item : rawResult) {
             result.add(new RecentPrioritizationFees(item));
         }
-        
+
         return result;
     }
 
@@ -523,15 +732,7 @@ public class RpcApi {
      * @throws RpcException if the RPC call fails
      */
     public Long getStakeMinimumDelegation(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-        
-        if (commitment != null) {
-            Map<String, Object> configMap = new HashMap<>();
-            configMap.put("commitment", commitment.getValue());
-            params.add(configMap);
-        }
-
-        return client.call("getStakeMinimumDelegation", params, ValueLong.class).getValue();
+        return client.call("getStakeMinimumDelegation", commitmentParams(commitment), ValueLong.class).getValue();
     }
 
     @Deprecated
@@ -541,13 +742,7 @@ public class RpcApi {
 
     @Deprecated
     public FeesInfo getFees(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getFees", params, FeesInfo.class);
+        return client.call("getFees", commitmentParams(commitment), FeesInfo.class);
     }
 
     public long getTransactionCount() throws RpcException {
@@ -555,13 +750,7 @@ public class RpcApi {
     }
 
     public long getTransactionCount(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getTransactionCount", params, Long.class);
+        return client.call("getTransactionCount", commitmentParams(commitment), Long.class);
     }
 
     public long getMaxRetransmitSlot() throws RpcException {
@@ -569,6 +758,11 @@ public class RpcApi {
     }
 
     public SimulatedTransaction simulateTransaction(String transaction, List<PublicKey> addresses) throws RpcException {
+        return client.call("simulateTransaction", simulateTransactionParams(transaction, addresses),
+                SimulatedTransaction.class);
+    }
+
+    static List<Object> simulateTransactionParams(String transaction, List<PublicKey> addresses) {
         SimulateTransactionConfig simulateTransactionConfig = new SimulateTransactionConfig(Encoding.base64);
         simulateTransactionConfig.setAccounts(
                 Map.of(
@@ -583,13 +777,7 @@ public class RpcApi {
         params.add(transaction);
         params.add(simulateTransactionConfig);
 
-        SimulatedTransaction simulatedTransaction = client.call(
-                "simulateTransaction",
-                params,
-                SimulatedTransaction.class
-        );
-
-        return simulatedTransaction;
+        return params;
     }
 
 
@@ -599,6 +787,11 @@ public class RpcApi {
         // TODO - fix uncasted type stuff
         List<AbstractMap> rawResult = client.call("getClusterNodes", params, List.class);
 
+        return toClusterNodes(rawResult);
+    }
+
+    @SuppressWarnings({ "rawtypes" })
+    static List<ClusterNode> toClusterNodes(List<AbstractMap> rawResult) {
         List<ClusterNode> result = new ArrayList<>();
         for (AbstractMap item : rawResult) {
             result.add(new ClusterNode(item));
@@ -613,12 +806,16 @@ public class RpcApi {
      */
     @Deprecated
     public ConfirmedBlock getConfirmedBlock(int slot) throws RpcException {
+        return client.call("getConfirmedBlock", confirmedBlockParams(slot), ConfirmedBlock.class);
+    }
+
+    static List<Object> confirmedBlockParams(int slot) {
         List<Object> params = new ArrayList<>();
 
         params.add(slot);
         params.add(new BlockConfig());
 
-        return client.call("getConfirmedBlock", params, ConfirmedBlock.class);
+        return params;
     }
 
     /**
@@ -629,6 +826,10 @@ public class RpcApi {
     }
 
     public Block getBlock(int slot, Map<String, Object> optionalParams) throws RpcException {
+        return client.call("getBlock", blockParams(slot, optionalParams), Block.class);
+    }
+
+    static List<Object> blockParams(int slot, Map<String, Object> optionalParams) {
         List<Object> params = new ArrayList<>();
 
         params.add(slot);
@@ -647,7 +848,7 @@ public class RpcApi {
             params.add(blockConfig);
         }
 
-        return client.call("getBlock", params, Block.class);
+        return params;
     }
 
     /**
@@ -670,13 +871,7 @@ public class RpcApi {
     }
 
     public EpochInfo getEpochInfo(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getEpochInfo", params, EpochInfo.class);
+        return client.call("getEpochInfo", commitmentParams(commitment), EpochInfo.class);
     }
 
     public EpochSchedule getEpochSchedule() throws RpcException {
@@ -686,6 +881,13 @@ public class RpcApi {
     }
 
     public PublicKey getTokenAccountsByOwner(PublicKey owner, PublicKey tokenMint) throws RpcException {
+        Map<String, Object> rawResult = client.call("getTokenAccountsByOwner", tokenAccountKeyParams(owner, tokenMint),
+                Map.class);
+
+        return toTokenAccountKey(rawResult);
+    }
+
+    static List<Object> tokenAccountKeyParams(PublicKey owner, PublicKey tokenMint) {
         List<Object> params = new ArrayList<>();
         params.add(owner.toBase58());
 
@@ -694,8 +896,11 @@ public class RpcApi {
         params.add(parameterMap);
         params.add(Map.of("encoding", "jsonParsed"));
 
-        Map<String, Object> rawResult = client.call("getTokenAccountsByOwner", params, Map.class);
+        return params;
+    }
 
+    @SuppressWarnings({ "rawtypes" })
+    static PublicKey toTokenAccountKey(Map<String, Object> rawResult) throws RpcException {
         PublicKey tokenAccountKey;
 
         try {
@@ -718,13 +923,7 @@ public class RpcApi {
     }
 
     public InflationGovernor getInflationGovernor(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getInflationGovernor", params, InflationGovernor.class);
+        return client.call("getInflationGovernor", commitmentParams(commitment), InflationGovernor.class);
     }
 
     public List<InflationReward> getInflationReward(List<PublicKey> addresses) throws RpcException {
@@ -733,6 +932,13 @@ public class RpcApi {
 
     public List<InflationReward> getInflationReward(List<PublicKey> addresses, Long epoch, Commitment commitment)
             throws RpcException {
+        List<AbstractMap> rawResult = client.call("getInflationReward",
+                inflationRewardParams(addresses, epoch, commitment), List.class);
+
+        return toInflationRewards(rawResult);
+    }
+
+    static List<Object> inflationRewardParams(List<PublicKey> addresses, Long epoch, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         params.add(addresses.stream().map(PublicKey::toString).collect(Collectors.toList()));
@@ -746,8 +952,11 @@ public class RpcApi {
         }
         params.add(rpcEpochConfig);
 
-        List<AbstractMap> rawResult = client.call("getInflationReward", params, List.class);
+        return params;
+    }
 
+    @SuppressWarnings({ "rawtypes" })
+    static List<InflationReward> toInflationRewards(List<AbstractMap> rawResult) {
         List<InflationReward> result = new ArrayList<>();
         for (AbstractMap item : rawResult) {
             if (item != null) {
@@ -763,13 +972,7 @@ public class RpcApi {
     }
 
     public long getSlot(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getSlot", params, Long.class);
+        return client.call("getSlot", commitmentParams(commitment), Long.class);
     }
 
     public PublicKey getSlotLeader() throws RpcException {
@@ -777,23 +980,16 @@ public class RpcApi {
     }
 
     public PublicKey getSlotLeader(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return new PublicKey(client.call("getSlotLeader", params, String.class));
+        return new PublicKey(client.call("getSlotLeader", commitmentParams(commitment), String.class));
     }
 
     public List<PublicKey> getSlotLeaders(long startSlot, long limit) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        params.add(startSlot);
-        params.add(limit);
+        List<String> rawResult = client.call("getSlotLeaders", slotRangeParams(startSlot, limit, null), List.class);
 
-        List<String> rawResult = client.call("getSlotLeaders", params, List.class);
+        return toPublicKeys(rawResult);
+    }
 
+    static List<PublicKey> toPublicKeys(List<String> rawResult) {
         List<PublicKey> result = new ArrayList<>();
         for (String item : rawResult) {
             result.add(new PublicKey(item));
@@ -812,8 +1008,10 @@ public class RpcApi {
     }
 
     public PublicKey getIdentity() throws RpcException {
-        Map<String, Object> rawResult = client.call("getIdentity", new ArrayList<>(), Map.class);
+        return toIdentity(client.call("getIdentity", new ArrayList<>(), Map.class));
+    }
 
+    static PublicKey toIdentity(Map<?, ?> rawResult) throws RpcException {
         PublicKey identity;
         try {
             String base58 = (String) rawResult.get("identity");
@@ -831,13 +1029,7 @@ public class RpcApi {
     }
 
     public Supply getSupply(Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        return client.call("getSupply", params, Supply.class);
+        return client.call("getSupply", commitmentParams(commitment), Supply.class);
     }
 
     public long getFirstAvailableBlock() throws RpcException {
@@ -854,10 +1046,13 @@ public class RpcApi {
      */
     @Deprecated
     public List<Double> getConfirmedBlocks(Integer start, Integer end) throws RpcException {
-        List<Object> params;
-        params = (end == null ? Arrays.asList(start) : Arrays.asList(start, end));
-        return this.client.call("getConfirmedBlocks", params, List.class);
+        return this.client.call("getConfirmedBlocks", confirmedBlocksParams(start, end), List.class);
     }
+
+    static List<Object> confirmedBlocksParams(Integer start, Integer end) {
+        return end == null ? Arrays.asList(start) : Arrays.asList(start, end);
+    }
+
     /**
      * Returns a list of confirmed blocks between two slots
      * DEPRECATED: use getBlocks instead
@@ -872,6 +1067,51 @@ public class RpcApi {
     }
 
     public TokenResultObjects.TokenAmountInfo getTokenAccountBalance(PublicKey tokenAccount, Commitment commitment) throws RpcException {
+        Map<String, Object> rawResult = client.call("getTokenAccountBalance", tokenParams(tokenAccount, commitment),
+                Map.class);
+
+        return toTokenAmountInfo(rawResult);
+    }
+
+    /**
+     * Gets the balances of several token accounts in a single JSON-RPC batch.
+     *
+     * @param tokenAccounts the token accounts to query
+     * @param commitment    optional commitment level
+     * @return one result per token account, in the same order as the token accounts
+     * @throws RpcException if the batch could not be sent
+     */
+    public List<RpcBatchResult<TokenAmountInfo>> getTokenAccountBalances(List<PublicKey> tokenAccounts,
+                                                                       Commitment commitment)
+            throws RpcException {
+        return toTokenAmountInfos(client.callBatch(tokenAccountBalanceRequests(tokenAccounts, commitment), Map.class));
+    }
+
+    static List<RpcRequest> tokenAccountBalanceRequests(List<PublicKey> tokenAccounts, Commitment commitment) {
+        List<RpcRequest> requests = new ArrayList<>(tokenAccounts.size());
+        for (PublicKey tokenAccount : tokenAccounts) {
+            requests.add(new RpcRequest("getTokenAccountBalance", tokenParams(tokenAccount, commitment)));
+        }
+
+        return requests;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static List<RpcBatchResult<TokenAmountInfo>> toTokenAmountInfos(List<RpcBatchResult<Map>> results) {
+        return results.stream()
+                .map(result -> result.map(rawResult -> toTokenAmountInfo(rawResult)))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings({ "rawtypes" })
+    static TokenAmountInfo toTokenAmountInfo(Map<String, Object> rawResult) {
+        return new TokenAmountInfo((AbstractMap) rawResult.get("value"));
+    }
+
+    /**
+     * Parameters of the token methods taking a token account or a mint.
+     */
+    static List<Object> tokenParams(PublicKey tokenAccount, Commitment commitment) {
         List<Object> params = new ArrayList<>();
         params.add(tokenAccount.toString());
 
@@ -879,9 +1119,7 @@ public class RpcApi {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        Map<String, Object> rawResult = client.call("getTokenAccountBalance", params, Map.class);
-
-        return new TokenAmountInfo((AbstractMap) rawResult.get("value"));
+        return params;
     }
 
     public TokenAmountInfo getTokenSupply(PublicKey tokenMint) throws RpcException {
@@ -889,16 +1127,9 @@ public class RpcApi {
     }
 
     public TokenAmountInfo getTokenSupply(PublicKey tokenMint, Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-        params.add(tokenMint.toString());
-
-        if (null != commitment) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        Map<String, Object> rawResult =  client.call("getTokenSupply", params, Map.class);
+        Map<String, Object> rawResult = client.call("getTokenSupply", tokenParams(tokenMint, commitment), Map.class);
 
-        return new TokenAmountInfo((AbstractMap) rawResult.get("value"));
+        return toTokenAmountInfo(rawResult);
     }
 
     public List<TokenAccount> getTokenLargestAccounts(PublicKey tokenMint) throws RpcException {
@@ -906,15 +1137,14 @@ public class RpcApi {
     }
 
     public List<TokenAccount> getTokenLargestAccounts(PublicKey tokenMint, Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-        params.add(tokenMint.toString());
-
-        if (null != commitment) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
+        Map<String, Object> rawResult = client.call("getTokenLargestAccounts", tokenParams(tokenMint, commitment),
+                Map.class);
 
-        Map<String, Object> rawResult = client.call("getTokenLargestAccounts", params, Map.class);
+        return toTokenAccounts(rawResult);
+    }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static List<TokenAccount> toTokenAccounts(Map<String, Object> rawResult) {
         List<TokenAccount> result = new ArrayList<>();
         for (AbstractMap item : (List<AbstractMap>) rawResult.get("value")) {
             result.add(new TokenAccount(item));
@@ -935,6 +1165,12 @@ public class RpcApi {
 
     private TokenAccountInfo getTokenAccount(PublicKey account, Map<String, Object> requiredParams,
             Map<String, Object> optionalParams, String method) throws RpcException {
+        return client.call(method, tokenAccountParams(account, requiredParams, optionalParams),
+                TokenAccountInfo.class);
+    }
+
+    static List<Object> tokenAccountParams(PublicKey account, Map<String, Object> requiredParams,
+                                           Map<String, Object> optionalParams) throws RpcException {
         List<Object> params = new ArrayList<>();
         params.add(account.toString());
 
@@ -962,7 +1198,7 @@ public class RpcApi {
             params.add(parameterMap);
         }
 
-        return client.call(method, params, TokenAccountInfo.class);
+        return params;
     }
 
     public VoteAccounts getVoteAccounts() throws RpcException {
@@ -970,6 +1206,10 @@ public class RpcApi {
     }
 
     public VoteAccounts getVoteAccounts(PublicKey votePubkey, Commitment commitment) throws RpcException {
+        return client.call("getVoteAccounts", voteAccountsParams(votePubkey, commitment), VoteAccounts.class);
+    }
+
+    static List<Object> voteAccountsParams(PublicKey votePubkey, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         VoteAccountConfig voteAccountConfig = new VoteAccountConfig();
@@ -981,7 +1221,7 @@ public class RpcApi {
         }
         params.add(voteAccountConfig);
 
-        return client.call("getVoteAccounts", params, VoteAccounts.class);
+        return params;
     }
 
     @Deprecated
@@ -991,6 +1231,11 @@ public class RpcApi {
 
     @Deprecated
     public StakeActivation getStakeActivation(PublicKey publicKey, Long epoch, Commitment commitment) throws RpcException {
+        return client.call("getStakeActivation", stakeActivationParams(publicKey, epoch, commitment),
+                StakeActivation.class);
+    }
+
+    static List<Object> stakeActivationParams(PublicKey publicKey, Long epoch, Commitment commitment) {
         List<Object> params = new ArrayList<>();
         params.add(publicKey.toBase58());
 
@@ -1003,16 +1248,21 @@ public class RpcApi {
         }
         params.add(rpcEpochConfig);
 
-        return client.call("getStakeActivation", params, StakeActivation.class);
+        return params;
     }
 
     public SignatureStatuses getSignatureStatuses(List<String> signatures, boolean searchTransactionHistory)
             throws RpcException {
+        return client.call("getSignatureStatuses", signatureStatusesParams(signatures, searchTransactionHistory),
+                SignatureStatuses.class);
+    }
+
+    static List<Object> signatureStatusesParams(List<String> signatures, boolean searchTransactionHistory) {
         List<Object> params = new ArrayList<>();
         params.add(signatures);
         params.add(new SignatureStatusConfig(searchTransactionHistory));
 
-        return client.call("getSignatureStatuses", params, SignatureStatuses.class);
+        return params;
     }
 
     public List<PerformanceSample> getRecentPerformanceSamples() throws RpcException {
@@ -1020,12 +1270,7 @@ public class RpcApi {
 
         List<AbstractMap> rawResult = client.call("getRecentPerformanceSamples", params, List.class);
 
-        List<PerformanceSample> result = new ArrayList<>();
-        for (AbstractMap item : rawResult) {
-            result.add(new PerformanceSample(item));
-        }
-
-        return result;
+        return toPerformanceSamples(rawResult);
     }
 
     public List<PerformanceSample> getRecentPerformanceSamples(int limit) throws RpcException {
@@ -1034,6 +1279,11 @@ public class RpcApi {
 
         List<AbstractMap> rawResult = client.call("getRecentPerformanceSamples", params, List.class);
 
+        return toPerformanceSamples(rawResult);
+    }
+
+    @SuppressWarnings({ "rawtypes" })
+    static List<PerformanceSample> toPerformanceSamples(List<AbstractMap> rawResult) {
         List<PerformanceSample> result = new ArrayList<>();
         for (AbstractMap item : rawResult) {
             result.add(new PerformanceSample(item));
@@ -1054,6 +1304,13 @@ public class RpcApi {
     }
 
     public List<LargeAccount> getLargestAccounts(String filter, Commitment commitment) throws RpcException {
+        Map<String, Object> rawResult = client.call("getLargestAccounts", largestAccountsParams(filter, commitment),
+                Map.class);
+
+        return toLargeAccounts(rawResult);
+    }
+
+    static List<Object> largestAccountsParams(String filter, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         LargestAccountConfig largestAccountConfig = new LargestAccountConfig();
@@ -1065,8 +1322,11 @@ public class RpcApi {
         }
         params.add(largestAccountConfig);
 
-        Map<String, Object> rawResult = client.call("getLargestAccounts", params, Map.class);
+        return params;
+    }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static List<LargeAccount> toLargeAccounts(Map<String, Object> rawResult) {
         List<LargeAccount> result = new ArrayList<>();
         for (AbstractMap item : (List<AbstractMap>) rawResult.get("value")) {
             result.add(new LargeAccount(item));
@@ -1080,6 +1340,10 @@ public class RpcApi {
     }
 
     public List<LeaderSchedule> getLeaderSchedule(Long epoch, String identity, Commitment commitment) throws RpcException {
+        return client.call("getLeaderSchedule", leaderScheduleParams(epoch, identity, commitment), LEADER_SCHEDULES);
+    }
+
+    static List<Object> leaderScheduleParams(Long epoch, String identity, Commitment commitment) {
         List<Object> params = new ArrayList<>();
 
         if (null != epoch) {
@@ -1095,14 +1359,7 @@ public class RpcApi {
         }
         params.add(leaderScheduleConfig);
 
-        Map<String, Object> rawResult = client.call("getLeaderSchedule", params, Map.class);
-
-        List<LeaderSchedule> result = new ArrayList<>();
-        rawResult.forEach((key, value) -> {
-            result.add(new LeaderSchedule(key, (List<Double>) value));
-        });
-
-        return result;
+        return params;
     }
 
     public List<AccountInfo.Value> getMultipleAccounts(List<PublicKey> publicKeys) throws RpcException {
@@ -1110,6 +1367,13 @@ public class RpcApi {
     }
 
     public List<AccountInfo.Value> getMultipleAccounts(List<PublicKey> publicKeys, Map<String, Object> additionalParams) throws RpcException {
+        MultipleAccountsInfo rawResult = client.call("getMultipleAccounts",
+                multipleAccountsParams(publicKeys, additionalParams), MultipleAccountsInfo.class);
+
+        return toAccountValues(rawResult);
+    }
+
+    static List<Object> multipleAccountsParams(List<PublicKey> publicKeys, Map<String, Object> additionalParams) {
         List<Object> params = new ArrayList<>();
         params.add(publicKeys.stream().map(PublicKey::toBase58).collect(Collectors.toList()));
 
@@ -1124,15 +1388,36 @@ public class RpcApi {
         if (additionalParams.containsKey("dataSlice")) {
             parameterMap.put("dataSlice", additionalParams.get("dataSlice"));
         }
+        if (additionalParams.containsKey("minContextSlot")) {
+            parameterMap.put("minContextSlot", additionalParams.get("minContextSlot"));
+        }
 
         params.add(parameterMap);
 
-        Map<String, Object> rawResult = client.call("getMultipleAccounts", params, Map.class);
+        return params;
+    }
+
+    /**
+     * Returns any number of accounts, requested in chunks of {@link MultipleAccountsConfig#getChunkSize()} keys that
+     * are sent concurrently.
+     *
+     * @param publicKeys accounts to fetch
+     * @param config     chunking, slot consistency and request options
+     * @return one entry per key in input order, null for accounts that do not exist; the context slot is the oldest
+     * slot any chunk was answered at
+     * @throws RpcException if any chunk fails
+     */
+    public MultipleAccountsInfo getMultipleAccountsChunked(List<PublicKey> publicKeys, MultipleAccountsConfig config)
+            throws RpcException {
+        return RpcClient.await(new ChunkedAccountsCall(client, publicKeys, config).start());
+    }
+
+    static List<AccountInfo.Value> toAccountValues(MultipleAccountsInfo rawResult) {
         List<AccountInfo.Value> result = new ArrayList<>();
 
-        for (AbstractMap item : (List<AbstractMap>) rawResult.get("value")) {
+        for (AccountInfo.Value item : rawResult.getValue()) {
             if (item != null) {
-                result.add(new AccountInfo.Value(item));
+                result.add(item);
             }
         }
 
@@ -1140,23 +1425,24 @@ public class RpcApi {
     }
 
     public Map<PublicKey, Optional<AccountInfo.Value>> getMultipleAccountsMap(List<PublicKey> publicKeys) throws RpcException {
-        List<Object> params = new ArrayList<>();
-        Map<PublicKey, Optional<AccountInfo.Value>> result = new HashMap<>();
-        params.add(publicKeys.stream().map(PublicKey::toBase58).collect(Collectors.toList()));
+        return getMultipleAccountsMap(publicKeys, new MultipleAccountsConfig());
+    }
 
-        Map<String, Object> parameterMap = new HashMap<>();
-        parameterMap.put("encoding", "base64");
-        params.add(parameterMap);
+    /**
+     * Like {@link #getMultipleAccountsChunked(List, MultipleAccountsConfig)}, keyed by account.
+     */
+    public Map<PublicKey, Optional<AccountInfo.Value>> getMultipleAccountsMap(List<PublicKey> publicKeys,
+                                                                              MultipleAccountsConfig config) throws RpcException {
+        return toAccountMap(publicKeys, getMultipleAccountsChunked(publicKeys, config));
+    }
 
-        Map<String, Object> rawResult = client.call("getMultipleAccounts", params, Map.class);
+    static Map<PublicKey, Optional<AccountInfo.Value>> toAccountMap(List<PublicKey> publicKeys,
+                                                                    MultipleAccountsInfo rawResult) {
+        Map<PublicKey, Optional<AccountInfo.Value>> result = new HashMap<>();
 
-        List<AbstractMap<String, Object>> resultList = (List<AbstractMap<String, Object>>) rawResult.get("value");
+        List<AccountInfo.Value> resultList = rawResult.getValue();
         for (int i = 0; i < resultList.size(); i++) {
-            if (resultList.get(i) == null) {
-                result.put(publicKeys.get(i), Optional.empty());
-            } else {
-                result.put(publicKeys.get(i), Optional.of(new AccountInfo.Value(resultList.get(i))));
-            }
+            result.put(publicKeys.get(i), Optional.ofNullable(resultList.get(i)));
         }
 
         return result;
@@ -1168,6 +1454,11 @@ public class RpcApi {
 
     @SuppressWarnings("unchecked")
     public boolean isBlockhashValid(String blockHash, Commitment commitment, Long minContextSlot) throws RpcException {
+        return client.call("isBlockhashValid", blockhashValidParams(blockHash, commitment, minContextSlot),
+                RpcResultTypes.ValueBoolean.class).isValue();
+    }
+
+    static List<Object> blockhashValidParams(String blockHash, Commitment commitment, Long minContextSlot) {
         Map<String, Object> parameterMap = new HashMap<>();
         if (commitment != null) {
             parameterMap.put("commitment", commitment);
@@ -1180,10 +1471,7 @@ public class RpcApi {
         params.add(blockHash);
         params.add(parameterMap);
 
-        Map<Object, Object> call = client.call("isBlockhashValid", params, Map.class);
-        Boolean result = (Boolean) call.get("value");
-
-        return result;
+        return params;
     }
 
     /**
@@ -1208,16 +1496,8 @@ public class RpcApi {
      * @throws RpcException if the RPC call fails
      */
     public List<Long> getBlocks(long startSlot, long endSlot, Commitment commitment) throws RpcException {
-        List<Object> params = new ArrayList<>();
-        params.add(startSlot);
-        params.add(endSlot);
-
-        if (commitment != null) {
-            params.add(Map.of("commitment", commitment.getValue()));
-        }
-
-        List<Double> result = client.call("getBlocks", params, List.class);
-        return result.stream().map(Double::longValue).collect(Collectors.toList());
+        List<Double> result = client.call("getBlocks", slotRangeParams(startSlot, endSlot, commitment), List.class);
+        return toSlots(result);
     }
 
     /**
@@ -1242,16 +1522,28 @@ public class RpcApi {
      * @throws RpcException if the RPC call fails
      */
     public List<Long> getBlocksWithLimit(long startSlot, long limit, Commitment commitment) throws RpcException {
+        List<Double> result = client.call("getBlocksWithLimit", slotRangeParams(startSlot, limit, commitment),
+                List.class);
+        return toSlots(result);
+    }
+
+    /**
+     * Parameters of the methods taking a start slot and an end slot or a limit.
+     */
+    static List<Object> slotRangeParams(long startSlot, long endSlotOrLimit, Commitment commitment) {
         List<Object> params = new ArrayList<>();
         params.add(startSlot);
-        params.add(limit);
+        params.add(endSlotOrLimit);
 
         if (commitment != null) {
             params.add(Map.of("commitment", commitment.getValue()));
         }
 
-        List<Double> result = client.call("getBlocksWithLimit", params, List.class);
-        return result.stream().map(Double::longValue).collect(Collectors.toList());
+        return params;
+    }
+
+    static List<Long> toSlots(List<Double> rawResult) {
+        return rawResult.stream().map(Double::longValue).collect(Collectors.toList());
     }
 
 }
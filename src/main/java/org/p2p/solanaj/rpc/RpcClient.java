@@ -1,22 +1,52 @@
 package org.p2p.solanaj.rpc;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.Types;
 
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.AccountInfoValueJsonAdapter;
+import org.p2p.solanaj.rpc.types.LeaderSchedule;
+import org.p2p.solanaj.rpc.types.LeaderScheduleJsonAdapter;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.rpc.types.ProgramAccountJsonAdapter;
+import org.p2p.solanaj.rpc.types.RpcBatchResult;
 import org.p2p.solanaj.rpc.types.RpcRequest;
 import org.p2p.solanaj.rpc.types.RpcResponse;
-import org.p2p.solanaj.rpc.types.WeightedEndpoint;
+import org.p2p.solanaj.rpc.types.RpcResultObject;
+
+import org.p2p.solanaj.ws.SubscriptionManager;
 
 import javax.net.ssl.*;
 
@@ -28,11 +58,25 @@ import java.net.Proxy;
  */
 public class RpcClient {
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
     private String endpoint;
     private OkHttpClient httpClient;
     private RpcApi rpcApi;
+    private final AsyncRpcApi asyncRpcApi = new AsyncRpcApi(this);
     private WeightedCluster cluster;
+    private EndpointRouter router;
+    private HedgingPolicy hedgingPolicy;
+    private RequestCoalescer requestCoalescer;
+    private RpcResponseCache responseCache;
+    private RateLimiter rateLimiter;
+    private RetryPolicy retryPolicy;
+    private BlockhashProvider blockhashProvider = new BlockhashProvider(this);
+    private SubscriptionManager subscriptionManager = SubscriptionManager.getShared();
     private final Moshi moshi; // Reuse Moshi instance
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long maxResponseBytes = Long.MAX_VALUE;
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong largestResponseBytes = new AtomicLong();
 
     /**
      * Constructs an RpcClient with a specified weighted cluster.
@@ -40,11 +84,23 @@ public class RpcClient {
      * @param cluster the weighted cluster to use for RPC calls
      */
     public RpcClient(WeightedCluster cluster) {
+        this(cluster, new OkHttpClient.Builder().readTimeout(20, TimeUnit.SECONDS).build());
+    }
+
+    /**
+     * Constructs an RpcClient with a specified weighted cluster and OkHttpClient.
+     * Requests are routed across the cluster's endpoints by an {@link EndpointRouter}.
+     *
+     * @param cluster    the weighted cluster to use for RPC calls
+     * @param httpClient the OkHttpClient to use for requests
+     */
+    public RpcClient(WeightedCluster cluster, OkHttpClient httpClient) {
         this.cluster = cluster;
+        this.router = new EndpointRouter(cluster);
         this.endpoint = cluster.getEndpoints().get(0).getUrl(); // Initialize endpoint from the cluster
-        this.httpClient = new OkHttpClient.Builder().readTimeout(20, TimeUnit.SECONDS).build();
+        this.httpClient = httpClient;
         this.rpcApi = new RpcApi(this);
-        this.moshi = new Moshi.Builder().build(); // Initialize Moshi
+        this.moshi = newMoshi();
     }
 
     /**
@@ -105,7 +161,7 @@ public class RpcClient {
                 .writeTimeout(writeTimeoutMs, TimeUnit.MILLISECONDS)
                 .build();
         this.rpcApi = new RpcApi(this);
-        this.moshi = new Moshi.Builder().build(); // Initialize Moshi
+        this.moshi = newMoshi();
     }
 
     /**
@@ -118,7 +174,7 @@ public class RpcClient {
         this.endpoint = endpoint;
         this.httpClient = httpClient;
         this.rpcApi = new RpcApi(this);
-        this.moshi = new Moshi.Builder().build(); // Initialize Moshi
+        this.moshi = newMoshi();
     }
 
     /**
@@ -135,7 +191,19 @@ public class RpcClient {
                 .readTimeout(20, TimeUnit.SECONDS)
                 .build();
         this.rpcApi = new RpcApi(this);
-        this.moshi = new Moshi.Builder().build(); // Initialize Moshi
+        this.moshi = newMoshi();
+    }
+
+    /**
+     * Creates the Moshi instance used for requests and responses. Frequently decoded, large result types are read by
+     * hand-written adapters that decode primitives straight from the token stream.
+     */
+    private static Moshi newMoshi() {
+        return new Moshi.Builder()
+                .add(AccountInfo.Value.class, new AccountInfoValueJsonAdapter())
+                .add(ProgramAccount.class, new ProgramAccountJsonAdapter())
+                .add(Types.newParameterizedType(List.class, LeaderSchedule.class), new LeaderScheduleJsonAdapter())
+                .build();
     }
 
     /**
@@ -148,30 +216,743 @@ public class RpcClient {
      * @throws RpcException if an error occurs during the RPC call
      */
     public <T> T call(String method, List<Object> params, Class<T> clazz) throws RpcException {
+        return call(method, params, (Type) clazz);
+    }
+
+    /**
+     * Calls the specified RPC method with the given parameters, decoding the result as the given type.
+     * This allows generic result types such as {@code List<ProgramAccount>}, see {@link Types#newParameterizedType}.
+     *
+     * @param method the RPC method to call
+     * @param params the parameters for the RPC method
+     * @param type   the type of the expected result
+     * @return the result of the RPC call
+     * @throws RpcException if an error occurs during the RPC call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(String method, List<Object> params, Type type) throws RpcException {
+        RpcRequest rpcRequest = new RpcRequest(method, params);
+
+        JsonAdapter<RpcRequest> rpcRequestJsonAdapter = moshi.adapter(RpcRequest.class);
+
+        String json = rpcRequestJsonAdapter.toJson(rpcRequest);
+
+        if (!isCached(method)) {
+            return fetch(method, params, json, type, size -> { });
+        }
+
+        String paramsJson = paramsJson(params);
+        String key = requestKey(method, paramsJson, type);
+        Object cached = responseCache.get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        AtomicInteger bodySize = new AtomicInteger();
+        T result = fetch(method, params, json, type, bodySize::set);
+        cacheResult(key, method, paramsJson, result, bodySize.get());
+
+        return result;
+    }
+
+    /**
+     * Calls the specified RPC method without blocking the calling thread.
+     * The request is dispatched on OkHttp's dispatcher, so the configured timeouts apply as for
+     * {@link #call(String, List, Class)}. Failures complete the future exceptionally with an {@link RpcException},
+     * and cancelling the future cancels the underlying HTTP call.
+     *
+     * @param method the RPC method to call
+     * @param params the parameters for the RPC method
+     * @param clazz  the class type of the expected result
+     * @return a future completed with the result of the RPC call
+     */
+    public <T> CompletableFuture<T> callAsync(String method, List<Object> params, Class<T> clazz) {
+        return callAsync(method, params, (Type) clazz);
+    }
+
+    /**
+     * Calls the specified RPC method without blocking the calling thread, decoding the result as the given type.
+     *
+     * @param method the RPC method to call
+     * @param params the parameters for the RPC method
+     * @param type   the type of the expected result
+     * @return a future completed with the result of the RPC call
+     * @see #callAsync(String, List, Class)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> callAsync(String method, List<Object> params, Type type) {
         RpcRequest rpcRequest = new RpcRequest(method, params);
 
         JsonAdapter<RpcRequest> rpcRequestJsonAdapter = moshi.adapter(RpcRequest.class);
-        JsonAdapter<RpcResponse<T>> resultAdapter = moshi.adapter(Types.newParameterizedType(RpcResponse.class, clazz));
 
-        Request request = new Request.Builder().url(getEndpoint())
-                .post(RequestBody.create(rpcRequestJsonAdapter.toJson(rpcRequest), JSON)).build();
+        String json = rpcRequestJsonAdapter.toJson(rpcRequest);
 
+        if (!isCached(method)) {
+            return fetchAsync(method, params, json, type, size -> { });
+        }
+
+        String paramsJson = paramsJson(params);
+        String key = requestKey(method, paramsJson, type);
+        Object cached = responseCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture((T) cached);
+        }
+
+        AtomicInteger bodySize = new AtomicInteger();
+        CompletableFuture<T> future = fetchAsync(method, params, json, type, bodySize::set);
+        future.thenAccept(result -> cacheResult(key, method, paramsJson, result, bodySize.get()));
+
+        return future;
+    }
+
+    /**
+     * Sends a request through the coalescing and hedging layers, below the response cache.
+     * The size of the response body is reported to {@code bodySize} if this call actually sent the request.
+     */
+    private <T> T fetch(String method, List<Object> params, String json, Type type, IntConsumer bodySize)
+            throws RpcException {
+        if (isCoalesced(method)) {
+            return await(requestCoalescer.execute(requestKey(method, paramsJson(params), type),
+                    () -> dispatchAsync(method, json, type, bodySize)));
+        }
+
+        if (isHedged(method) || isRetried(method)) {
+            return await(dispatchAsync(method, json, type, bodySize));
+        }
+
+        String url = getEndpoint();
+        T result = post(url, json, requestCost(method), bodySize, source -> decode(source, type));
+        observeSlot(url, result);
+
+        return result;
+    }
+
+    private <T> CompletableFuture<T> fetchAsync(String method, List<Object> params, String json, Type type,
+                                                IntConsumer bodySize) {
+        if (isCoalesced(method)) {
+            return requestCoalescer.execute(requestKey(method, paramsJson(params), type),
+                    () -> dispatchAsync(method, json, type, bodySize));
+        }
+
+        return dispatchAsync(method, json, type, bodySize);
+    }
+
+    private <T> CompletableFuture<T> dispatchAsync(String method, String json, Type type, IntConsumer bodySize) {
+        if (isRetried(method)) {
+            // Hedged attempts choose their endpoints themselves
+            Function<Set<String>, String> selector = isHedged(method) ? failedUrls -> null : this::selectEndpoint;
+            return new RetryingCall<T>(method, retryPolicy, selector,
+                    url -> attemptAsync(url, method, json, type, bodySize)).start();
+        }
+
+        return attemptAsync(null, method, json, type, bodySize);
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(String url, String method, String json, Type type,
+                                                  IntConsumer bodySize) {
+        if (isHedged(method)) {
+            return callHedged(method, json, type, bodySize);
+        }
+
+        return sendAsync(url != null ? url : getEndpoint(), method, json, type, bodySize);
+    }
+
+    private boolean isRetried(String method) {
+        return retryPolicy != null && retryPolicy.allowsRetry(method) && retryPolicy.getMaxAttempts() > 1;
+    }
+
+    /**
+     * Chooses an endpoint avoiding the ones a call already failed on, unless all of them failed.
+     */
+    private String selectEndpoint(Set<String> failedUrls) {
+        if (router == null) {
+            return getEndpoint();
+        }
+        return failedUrls.size() < router.getEndpointHealth().size() ? router.select(failedUrls) : router.select();
+    }
+
+    private boolean isCached(String method) {
+        return responseCache != null && responseCache.isCacheable(method);
+    }
+
+    private boolean isCoalesced(String method) {
+        return requestCoalescer != null && RpcMethods.isReadOnly(method);
+    }
+
+    private void cacheResult(String key, String method, String paramsJson, Object result, int bodySize) {
+        // A zero size means the result was shared by an identical request, which caches it itself
+        if (bodySize > 0) {
+            responseCache.put(key, method, RpcResponseCache.commitmentOf(paramsJson), result,
+                    contextSlot(result), bodySize);
+        }
+    }
+
+    private String paramsJson(List<Object> params) {
+        return moshi.adapter(Object.class).toJson(params);
+    }
+
+    /**
+     * Identifies identical requests: the request id differs per call, so the key is built from the method,
+     * the serialized parameters (which include the commitment) and the expected result type.
+     */
+    private static String requestKey(String method, String paramsJson, Type type) {
+        return method + '\n' + paramsJson + '\n' + type.getTypeName();
+    }
+
+    private <T> CompletableFuture<T> sendAsync(String url, String method, String json, Type type,
+                                               IntConsumer bodySize) {
+        return postAsync(url, json, requestCost(method), bodySize, source -> {
+            T result = decode(source, type);
+            observeSlot(url, result);
+            return result;
+        });
+    }
+
+    private boolean isHedged(String method) {
+        return hedgingPolicy != null && router != null && router.getEndpointHealth().size() > 1
+                && hedgingPolicy.appliesTo(method);
+    }
+
+    private <T> CompletableFuture<T> callHedged(String method, String json, Type type, IntConsumer bodySize) {
+        return new HedgedCall<T>(method, hedgingPolicy, router,
+                url -> sendAsync(url, method, json, type, bodySize)).start();
+    }
+
+    /**
+     * Blocks until an asynchronous call completes, unwrapping the RpcException it failed with.
+     */
+    static <T> T await(CompletableFuture<T> future) throws RpcException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RpcException("Interrupted during RPC call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RpcException) {
+                throw (RpcException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RpcException("Error during RPC call: " + cause);
+        }
+    }
+
+    private <T> T decode(BufferedSource source, Type type) throws IOException, RpcException {
+        JsonAdapter<RpcResponse<T>> resultAdapter = moshi.adapter(Types.newParameterizedType(RpcResponse.class, type));
+
+        RpcResponse<T> rpcResult = resultAdapter.fromJson(source);
+
+        if (rpcResult == null) {
+            throw new RpcException("RPC response is null");
+        }
+        if (rpcResult.getError() != null) {
+            throw new RpcException(rpcResult.getError().getMessage(), rpcResult.getError().getCode());
+        }
+
+        return rpcResult.getResult();
+    }
+
+    /**
+     * Sends a request and returns its response before the result has been read, so that large results can be
+     * consumed incrementally with bounded memory. The request bypasses the response cache, coalescing, hedging and
+     * retries, but is rate limited and bounded by {@link #getMaxResponseBytes()}.
+     *
+     * @param method the RPC method to call
+     * @param params the parameters for the RPC method
+     * @return the open result stream, which the caller must close
+     * @throws RpcException if the request failed or the server returned an error
+     */
+    public RpcResultStream openStream(String method, List<Object> params) throws RpcException {
+        String json = moshi.adapter(RpcRequest.class).toJson(new RpcRequest(method, params));
+        String url = getEndpoint();
+
+        Request request = new Request.Builder().url(url)
+                .post(RequestBody.create(json, JSON)).build();
+
+        if (rateLimiter != null) {
+            rateLimiter.acquire(url, requestCost(method));
+        }
+
+        long start = System.nanoTime();
+        Response response;
         try {
-            Response response = httpClient.newCall(request).execute();
-            final String result = response.body().string();
-            RpcResponse<T> rpcResult = resultAdapter.fromJson(result);
+            response = httpClient.newCall(request).execute();
+        } catch (IOException e) {
+            recordFailure(url, null);
+            throw toRpcException(e);
+        }
+
+        CountingSource counting = new CountingSource(response.body().source(), maxResponseBytes);
+        JsonReader reader = JsonReader.of(Okio.buffer(counting));
+        RpcResultStream stream = new RpcResultStream(response, reader, () -> {
+            responseBytes.addAndGet(counting.getBytesRead());
+            largestResponseBytes.accumulateAndGet(counting.getBytesRead(), Math::max);
+        });
 
-            if (rpcResult == null || rpcResult.getError() != null) {
-                throw new RpcException(rpcResult != null ? rpcResult.getError().getMessage() : "RPC response is null");
+        try {
+            recordOutcome(url, response, start);
+            checkThrottled(url, response);
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("result")) {
+                    return stream;
+                } else if (name.equals("error")) {
+                    RpcResponse.Error error = moshi.adapter(RpcResponse.Error.class).fromJson(reader);
+                    throw new RpcException(error != null ? error.getMessage() : "RPC error",
+                            error != null ? error.getCode() : null);
+                } else {
+                    reader.skipValue();
+                }
             }
+            throw new RpcException("RPC response has no result");
+        } catch (IOException e) {
+            stream.close();
+            throw toRpcException(e);
+        } catch (RpcException | RuntimeException e) {
+            stream.close();
+            throw e;
+        }
+    }
 
-            return rpcResult.getResult();
-        } catch (SSLHandshakeException e) {
-            this.httpClient = new OkHttpClient.Builder().build();
-            throw new RpcException("SSL Handshake failed: " + e.getMessage());
+    /**
+     * Sends the given requests as JSON-RPC 2.0 batches and matches the responses back to the requests by id.
+     * Requests are split into batches of at most {@link #getMaxBatchSize()} entries. Errors returned for a
+     * single entry are reported on that entry only; the call fails as a whole only if a batch cannot be sent
+     * or the server rejects the batch itself.
+     *
+     * @param requests the requests to send, all expected to produce a result of the same type
+     * @param clazz    the class type of the expected results
+     * @return one result per request, in the same order as the requests
+     * @throws RpcException if a batch could not be sent or was rejected as a whole
+     */
+    public <T> List<RpcBatchResult<T>> callBatch(List<RpcRequest> requests, Class<T> clazz) throws RpcException {
+        List<RpcBatchResult<T>> results = new ArrayList<>(requests.size());
+
+        for (int from = 0; from < requests.size(); from += maxBatchSize) {
+            List<RpcRequest> batch = requests.subList(from, Math.min(from + maxBatchSize, requests.size()));
+            results.addAll(sendBatch(batch, clazz));
+        }
+
+        return results;
+    }
+
+    /**
+     * Sends the given requests like {@link #callBatch(List, Class)} without blocking the calling thread. The batches
+     * are sent concurrently, and cancelling the future cancels the batches in flight.
+     *
+     * @param requests the requests to send, all expected to produce a result of the same type
+     * @param clazz    the class type of the expected results
+     * @return a future completed with one result per request, in the same order as the requests
+     */
+    public <T> CompletableFuture<List<RpcBatchResult<T>>> callBatchAsync(List<RpcRequest> requests, Class<T> clazz) {
+        List<CompletableFuture<List<RpcResponse<T>>>> inFlight = new ArrayList<>();
+        List<CompletableFuture<List<RpcBatchResult<T>>>> batches = new ArrayList<>();
+
+        for (int from = 0; from < requests.size(); from += maxBatchSize) {
+            List<RpcRequest> batch = requests.subList(from, Math.min(from + maxBatchSize, requests.size()));
+            CompletableFuture<List<RpcResponse<T>>> responses = postAsync(getEndpoint(), batchJson(batch),
+                    batchCost(batch), size -> { }, batchDecoder(clazz));
+            inFlight.add(responses);
+            batches.add(responses.thenApply(response -> toBatchResults(batch, response)));
+        }
+
+        CompletableFuture<List<RpcBatchResult<T>>> future = CompletableFuture
+                .allOf(batches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<RpcBatchResult<T>> results = new ArrayList<>(requests.size());
+                    batches.forEach(batch -> results.addAll(batch.join()));
+                    return results;
+                });
+        future.whenComplete((results, error) -> {
+            if (future.isCancelled()) {
+                inFlight.forEach(batch -> batch.cancel(true));
+            }
+        });
+
+        return future;
+    }
+
+    private <T> List<RpcBatchResult<T>> sendBatch(List<RpcRequest> batch, Class<T> clazz) throws RpcException {
+        return toBatchResults(batch, post(getEndpoint(), batchJson(batch), batchCost(batch), size -> { },
+                batchDecoder(clazz)));
+    }
+
+    private String batchJson(List<RpcRequest> batch) {
+        JsonAdapter<List<RpcRequest>> requestsAdapter = moshi.adapter(
+                Types.newParameterizedType(List.class, RpcRequest.class));
+        return requestsAdapter.toJson(batch);
+    }
+
+    private double batchCost(List<RpcRequest> batch) {
+        double cost = 0;
+        for (RpcRequest request : batch) {
+            cost += requestCost(request.getMethod());
+        }
+        return cost;
+    }
+
+    private <T> ResponseDecoder<List<RpcResponse<T>>> batchDecoder(Class<T> clazz) {
+        Type responseType = Types.newParameterizedType(RpcResponse.class, clazz);
+        JsonAdapter<List<RpcResponse<T>>> responsesAdapter = moshi.adapter(
+                Types.newParameterizedType(List.class, responseType));
+
+        return source -> {
+            JsonReader reader = JsonReader.of(source);
+            if (reader.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                // The server rejected the batch as a whole, e.g. batching is disabled or the batch is too large
+                JsonAdapter<RpcResponse<T>> resultAdapter = moshi.adapter(responseType);
+                RpcResponse<T> rpcResult = resultAdapter.fromJson(reader);
+                throw new RpcException(rpcResult != null && rpcResult.getError() != null
+                        ? rpcResult.getError().getMessage() : "Invalid batch response");
+            }
+            return responsesAdapter.fromJson(reader);
+        };
+    }
+
+    private static <T> List<RpcBatchResult<T>> toBatchResults(List<RpcRequest> batch,
+                                                             List<RpcResponse<T>> responses) {
+        Map<String, RpcResponse<T>> responsesById = new HashMap<>();
+        if (responses != null) {
+            for (RpcResponse<T> response : responses) {
+                if (response != null && response.getId() != null) {
+                    responsesById.put(response.getId(), response);
+                }
+            }
+        }
+
+        List<RpcBatchResult<T>> results = new ArrayList<>(batch.size());
+        for (RpcRequest request : batch) {
+            RpcResponse<T> response = responsesById.get(request.getId());
+            if (response == null) {
+                results.add(new RpcBatchResult<>(request.getId(), null,
+                        new RpcResponse.Error(0, "No response for request id " + request.getId())));
+            } else {
+                results.add(new RpcBatchResult<>(request.getId(), response.getResult(), response.getError()));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Posts a JSON-RPC payload to an endpoint and decodes the response body while it is being received.
+     *
+     * @param url      the endpoint to post to
+     * @param json     the serialized request
+     * @param cost     the rate limit cost of the request
+     * @param bodySize receives the number of bytes read from the response body
+     * @param decoder  converts the response body into the result
+     * @return the decoded result
+     * @throws RpcThrottledException if the request was throttled locally or by the endpoint
+     * @throws RpcException          if the request could not be completed
+     */
+    private <T> T post(String url, String json, double cost, IntConsumer bodySize, ResponseDecoder<T> decoder)
+            throws RpcException {
+        Request request = new Request.Builder().url(url)
+                .post(RequestBody.create(json, JSON)).build();
+
+        if (rateLimiter != null) {
+            rateLimiter.acquire(url, cost);
+        }
+
+        long start = System.nanoTime();
+        try (Response response = httpClient.newCall(request).execute()) {
+            recordOutcome(url, response, start);
+            checkThrottled(url, response);
+            return readBody(response.body(), bodySize, decoder);
+        } catch (IOException e) {
+            recordFailure(url, null);
+            throw toRpcException(e);
+        }
+    }
+
+    /**
+     * Posts a JSON-RPC payload to an endpoint without blocking and decodes the response body.
+     *
+     * @param url     the endpoint to post to
+     * @param json    the serialized request
+     * @param cost     the rate limit cost of the request
+     * @param bodySize receives the number of bytes read from the response body
+     * @param decoder  converts the response body into the result
+     * @return a future completed with the decoded result, whose cancellation cancels the HTTP call
+     */
+    private <T> CompletableFuture<T> postAsync(String url, String json, double cost, IntConsumer bodySize,
+                                               ResponseDecoder<T> decoder) {
+        Request request = new Request.Builder().url(url)
+                .post(RequestBody.create(json, JSON)).build();
+
+        Call httpCall = httpClient.newCall(request);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                httpCall.cancel();
+            }
+        });
+
+        long waitNanos = 0;
+        if (rateLimiter != null) {
+            try {
+                waitNanos = rateLimiter.reserve(url, cost);
+            } catch (RpcThrottledException e) {
+                future.completeExceptionally(e);
+                return future;
+            }
+        }
+
+        Runnable send = () -> {
+            long start = System.nanoTime();
+            httpCall.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    if (!call.isCanceled()) {
+                        recordFailure(url, null);
+                    }
+                    future.completeExceptionally(toRpcException(e));
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    recordOutcome(url, response, start);
+                    try (ResponseBody body = response.body()) {
+                        checkThrottled(url, response);
+                        future.complete(readBody(body, bodySize, decoder));
+                    } catch (RpcException | RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            });
+        };
+
+        if (waitNanos > 0) {
+            // Wait for rate limit budget without holding a thread; a cancelled call fails as soon as it is enqueued
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(send);
+        } else {
+            send.run();
+        }
+
+        return future;
+    }
+
+    /**
+     * Decodes a response body straight from the network, without buffering it into a String first.
+     * Reading fails once more than {@link #getMaxResponseBytes()} bytes were received.
+     */
+    private <T> T readBody(ResponseBody body, IntConsumer bodySize, ResponseDecoder<T> decoder) throws RpcException {
+        CountingSource counting = new CountingSource(body.source(), maxResponseBytes);
+        try (BufferedSource source = Okio.buffer(counting)) {
+            return decoder.decode(source);
         } catch (IOException e) {
-            throw new RpcException("IO error during RPC call: " + e.getMessage());
+            throw toRpcException(e);
+        } finally {
+            long bytesRead = counting.getBytesRead();
+            responseBytes.addAndGet(bytesRead);
+            largestResponseBytes.accumulateAndGet(bytesRead, Math::max);
+            bodySize.accept((int) Math.min(bytesRead, Integer.MAX_VALUE));
+        }
+    }
+
+    private RpcException toRpcException(IOException e) {
+        if (e instanceof SSLHandshakeException) {
+            this.httpClient = new OkHttpClient.Builder().build();
+            return new RpcException("SSL Handshake failed: " + e.getMessage());
+        }
+        return new RpcException("IO error during RPC call: " + e.getMessage());
+    }
+
+    /**
+     * Reports the outcome of an HTTP exchange to the router and the rate limiter. Throttling (429) and server
+     * errors (5xx) count as failures; anything else means the endpoint answered.
+     */
+    private void recordOutcome(String url, Response response, long startNanos) {
+        int code = response.code();
+        if (rateLimiter != null) {
+            if (isThrottled(code)) {
+                rateLimiter.onThrottled(url, parseRetryAfter(response.header("Retry-After")));
+            } else if (response.isSuccessful()) {
+                rateLimiter.onSuccess(url);
+            }
+        }
+        if (router == null) {
+            return;
+        }
+        if (code == 429 || code >= 500) {
+            recordFailure(url, parseRetryAfter(response.header("Retry-After")));
+        } else {
+            router.recordSuccess(url, System.nanoTime() - startNanos);
+        }
+    }
+
+    private static boolean isThrottled(int code) {
+        return code == 429 || code == 503;
+    }
+
+    private static void checkThrottled(String url, Response response) throws RpcThrottledException {
+        if (isThrottled(response.code())) {
+            Duration retryAfter = parseRetryAfter(response.header("Retry-After"));
+            throw new RpcThrottledException("HTTP " + response.code() + " from " + url
+                    + (retryAfter != null ? ", retry after " + retryAfter : ""), response.code(), retryAfter);
+        }
+    }
+
+    private double requestCost(String method) {
+        return rateLimiter != null ? rateLimiter.cost(method) : 0;
+    }
+
+    private void recordFailure(String url, Duration retryAfter) {
+        if (router != null) {
+            router.recordFailure(url, retryAfter);
+        }
+    }
+
+    private void observeSlot(String url, Object result) {
+        long slot = contextSlot(result);
+        if (router != null && slot >= 0) {
+            router.recordSlot(url, slot);
+        }
+    }
+
+    /**
+     * Returns the context slot of a result, or -1 if the result has no context.
+     */
+    private static long contextSlot(Object result) {
+        if (result instanceof RpcResultObject) {
+            RpcResultObject.Context context = ((RpcResultObject) result).getContext();
+            if (context != null) {
+                return context.getSlot();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses a Retry-After header given in seconds; HTTP-date values are ignored.
+     */
+    static Duration parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts a response body into a result while it is being read.
+     */
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(BufferedSource source) throws IOException, RpcException;
+    }
+
+    /**
+     * Counts the bytes read from a response body and fails once they exceed a limit.
+     */
+    private static class CountingSource extends ForwardingSource {
+        private final long maxBytes;
+        private long bytesRead;
+
+        CountingSource(Source delegate, long maxBytes) {
+            super(delegate);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                bytesRead += read;
+                if (bytesRead > maxBytes) {
+                    throw new IOException("Response exceeds the maximum size of " + maxBytes + " bytes");
+                }
+            }
+            return read;
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+    }
+
+    /**
+     * Sets how many HTTP requests may be in flight at once, in total and per endpoint host.
+     * OkHttp defaults to 64 in total and 5 per host, which limits the fan-out of {@link #callAsync}
+     * and {@link AsyncRpcApi}; requests above the limit are queued by the dispatcher, not rejected.
+     *
+     * @param maxConcurrentRequests the maximum number of in-flight requests
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        httpClient.dispatcher().setMaxRequests(maxConcurrentRequests);
+        httpClient.dispatcher().setMaxRequestsPerHost(maxConcurrentRequests);
+    }
+
+    /**
+     * Returns the maximum number of requests sent in a single JSON-RPC batch.
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of requests sent in a single JSON-RPC batch.
+     * Larger batches passed to {@link #callBatch(List, Class)} are split automatically.
+     *
+     * @param maxBatchSize the maximum batch size, at least 1
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be at least 1");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the maximum size of a response body.
+     *
+     * @return the maximum response size in bytes
+     */
+    public long getMaxResponseBytes() {
+        return maxResponseBytes;
+    }
+
+    /**
+     * Sets the maximum size of a response body. Responses are decoded while they are received, so this bounds
+     * the memory a single response can take up; larger responses fail with an {@link RpcException}.
+     * Unlimited by default.
+     *
+     * @param maxResponseBytes the maximum response size in bytes
+     */
+    public void setMaxResponseBytes(long maxResponseBytes) {
+        if (maxResponseBytes < 1) {
+            throw new IllegalArgumentException("Max response bytes must be positive");
         }
+        this.maxResponseBytes = maxResponseBytes;
+    }
+
+    /**
+     * Returns the total number of response body bytes received.
+     *
+     * @return the total response size in bytes
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * Returns the size of the largest response body received.
+     *
+     * @return the largest response size in bytes
+     */
+    public long getLargestResponseBytes() {
+        return largestResponseBytes.get();
     }
 
     /**
@@ -183,6 +964,15 @@ public class RpcClient {
         return rpcApi;
     }
 
+    /**
+     * Returns the non-blocking AsyncRpcApi instance associated with this client.
+     *
+     * @return the AsyncRpcApi instance
+     */
+    public AsyncRpcApi getAsyncApi() {
+        return asyncRpcApi;
+    }
+
     /**
      * Returns the current RPC endpoint.
      *
@@ -192,24 +982,160 @@ public class RpcClient {
         return (cluster != null) ? getWeightedEndpoint() : endpoint;
     }
 
+    /**
+     * Returns the router that spreads requests over the endpoints of the weighted cluster, or null if this
+     * client talks to a single endpoint.
+     *
+     * @return the endpoint router
+     */
+    public EndpointRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Returns the hedging policy, or null if requests are not hedged.
+     *
+     * @return the hedging policy
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Enables hedged requests for the methods of the given policy, or disables hedging if null.
+     * Hedging only takes effect for clients of a {@link WeightedCluster} with at least two endpoints.
+     *
+     * @param hedgingPolicy the hedging policy
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Returns the request coalescer, or null if identical requests are not coalesced.
+     *
+     * @return the request coalescer
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Enables single-flight coalescing of identical concurrent read requests, or disables it if null.
+     * Write methods are never coalesced.
+     *
+     * @param requestCoalescer the request coalescer
+     */
+    public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * Returns the response cache, or null if responses are not cached.
+     *
+     * @return the response cache
+     */
+    public RpcResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Enables caching of read responses, or disables it if null. The cache sits in front of request
+     * coalescing and hedging, so cached results never reach the network.
+     *
+     * @param responseCache the response cache
+     */
+    public void setResponseCache(RpcResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Returns the client-side rate limiter, or null if requests are not rate limited.
+     *
+     * @return the rate limiter
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Enables client-side rate limiting per endpoint, or disables it if null.
+     *
+     * @param rateLimiter the rate limiter
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Returns the retry policy, or null if failed requests are not retried.
+     *
+     * @return the retry policy
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Enables retries of failed requests, or disables them if null. Retries happen below the response cache and
+     * request coalescing, so a coalesced request is retried once for all of its callers.
+     *
+     * @param retryPolicy the retry policy
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Returns the provider of the blockhash used when a transaction is sent without one, or null if the blockhash
+     * is fetched for every such transaction.
+     *
+     * @return the blockhash provider
+     */
+    public BlockhashProvider getBlockhashProvider() {
+        return blockhashProvider;
+    }
+
+    /**
+     * Sets the provider of the blockhash used when a transaction is sent without one. By default a provider
+     * refreshing the blockhash in the background is used once the first such transaction is sent; if null, the
+     * blockhash is fetched for every such transaction.
+     *
+     * @param blockhashProvider the blockhash provider
+     */
+    public void setBlockhashProvider(BlockhashProvider blockhashProvider) {
+        this.blockhashProvider = blockhashProvider;
+    }
+
+    /**
+     * Returns the manager of the WebSocket connections used by methods such as sendAndConfirmTransaction.
+     *
+     * @return the subscription manager
+     */
+    public SubscriptionManager getSubscriptionManager() {
+        return subscriptionManager;
+    }
+
+    /**
+     * Sets the manager of the WebSocket connections used by methods such as sendAndConfirmTransaction. By default
+     * the {@link SubscriptionManager#getShared() shared} manager is used, so that all clients of an endpoint share
+     * its connection.
+     *
+     * @param subscriptionManager the subscription manager
+     */
+    public void setSubscriptionManager(SubscriptionManager subscriptionManager) {
+        this.subscriptionManager = subscriptionManager;
+    }
+
     /**
      * Returns RPC Endpoint based on a list of weighted endpoints.
      * Weighted endpoints can be given an integer weight, with higher weights used more than lower weights.
      * Total weights across all endpoints do not need to sum up to any specific number.
+     * The weights are adjusted by the observed health of each endpoint, see {@link EndpointRouter}.
      *
      * @return String RPCEndpoint
      */
     private String getWeightedEndpoint() {
-        int totalWeight = cluster.endpoints.stream().mapToInt(WeightedEndpoint::getWeight).sum();
-        double randomNumber = Math.random() * totalWeight;
-        int currentWeight = 0;
-
-        for (WeightedEndpoint endpoint : cluster.endpoints) {
-            currentWeight += endpoint.getWeight();
-            if (randomNumber < currentWeight) {
-                return endpoint.getUrl();
-            }
-        }
-        return ""; // Return empty string if no endpoint is found
+        return router.select();
     }
 }
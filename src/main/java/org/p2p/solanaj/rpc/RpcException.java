@@ -3,7 +3,30 @@ package org.p2p.solanaj.rpc;
 public class RpcException extends Exception {
     private final static long serialVersionUID = 8315999767009642193L;
 
+    private final Long code;
+
     public RpcException(String message) {
+        this(message, null);
+    }
+
+    /**
+     * Creates an exception for an error object returned by the server.
+     *
+     * @param message the error message
+     * @param code    the JSON-RPC error code, or null if the error did not come from the server
+     */
+    public RpcException(String message, Long code) {
         super(message);
+        this.code = code;
+    }
+
+    /**
+     * Returns the JSON-RPC error code, or null if the request failed before the server answered it,
+     * e.g. because of an I/O error.
+     *
+     * @return the JSON-RPC error code
+     */
+    public Long getCode() {
+        return code;
     }
 }
@@ -0,0 +1,120 @@
+package org.p2p.solanaj.rpc;
+
+import java.util.Set;
+
+/**
+ * Classification of JSON-RPC methods used by the client-side request handling layers.
+ */
+public final class RpcMethods {
+
+    /**
+     * Methods that only read cluster state. Any other method, including provider extensions such as bundles, is
+     * treated as a write: it is not coalesced, cached or retried, and only hedged through
+     * {@link HedgingPolicy#allowWriteMethod(String)}.
+     */
+    public static final Set<String> READ_METHODS = Set.of(
+            "getAccountInfo",
+            "getBalance",
+            "getBlock",
+            "getBlockCommitment",
+            "getBlockHeight",
+            "getBlockProduction",
+            "getBlockTime",
+            "getBlocks",
+            "getBlocksWithLimit",
+            "getClusterNodes",
+            "getConfirmedBlock",
+            "getConfirmedBlocks",
+            "getConfirmedBlocksWithLimit",
+            "getConfirmedSignaturesForAddress2",
+            "getConfirmedTransaction",
+            "getEpochInfo",
+            "getEpochSchedule",
+            "getFeeCalculatorForBlockhash",
+            "getFeeForMessage",
+            "getFeeRateGovernor",
+            "getFees",
+            "getFirstAvailableBlock",
+            "getGenesisHash",
+            "getHealth",
+            "getHighestSnapshotSlot",
+            "getIdentity",
+            "getInflationGovernor",
+            "getInflationRate",
+            "getInflationReward",
+            "getLargestAccounts",
+            "getLatestBlockhash",
+            "getLeaderSchedule",
+            "getMaxRetransmitSlot",
+            "getMaxShredInsertSlot",
+            "getMinimumBalanceForRentExemption",
+            "getMultipleAccounts",
+            "getProgramAccounts",
+            "getRecentBlockhash",
+            "getRecentPerformanceSamples",
+            "getRecentPrioritizationFees",
+            "getSignatureStatuses",
+            "getSignaturesForAddress",
+            "getSlot",
+            "getSlotLeader",
+            "getSlotLeaders",
+            "getSnapshotSlot",
+            "getStakeActivation",
+            "getStakeMinimumDelegation",
+            "getSupply",
+            "getTokenAccountBalance",
+            "getTokenAccountsByDelegate",
+            "getTokenAccountsByOwner",
+            "getTokenLargestAccounts",
+            "getTokenSupply",
+            "getTransaction",
+            "getTransactionCount",
+            "getVersion",
+            "getVoteAccounts",
+            "isBlockhashValid",
+            "minimumLedgerSlot"
+    );
+
+    /**
+     * Whether a failed request may be sent again.
+     */
+    public enum Idempotency {
+        /** Reads: sending the request again has no side effects. */
+        SAFE,
+        /**
+         * Submitting an already signed transaction: resending the identical payload is safe, because a
+         * transaction with the same signature lands at most once.
+         */
+        SAME_SIGNATURE,
+        /** Requests that may take effect more than once, such as airdrops, and methods the client does not know. */
+        NEVER
+    }
+
+    private RpcMethods() {
+    }
+
+    /**
+     * Returns true if calling the method only reads state, so sending it twice has no side effects and its result
+     * may be shared or cached.
+     *
+     * @param method the JSON-RPC method name
+     * @return true for known read-only methods, false for writes and unknown methods
+     */
+    public static boolean isReadOnly(String method) {
+        return READ_METHODS.contains(method);
+    }
+
+    /**
+     * Returns whether a failed request of the method may be sent again. simulateTransaction changes no state and may
+     * be resent, but its result is not cached as that of a read.
+     *
+     * @param method the JSON-RPC method name
+     * @return the idempotency class of the method
+     */
+    public static Idempotency idempotency(String method) {
+        if (isReadOnly(method) || "simulateTransaction".equals(method)) {
+            return Idempotency.SAFE;
+        }
+        return "sendTransaction".equals(method) ? Idempotency.SAME_SIGNATURE : Idempotency.NEVER;
+    }
+}
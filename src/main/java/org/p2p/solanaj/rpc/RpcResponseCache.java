@@ -0,0 +1,270 @@
+package org.p2p.solanaj.rpc;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of decoded read responses, see {@link RpcClient#setResponseCache(RpcResponseCache)}.
+ * <p>
+ * How long a response stays valid depends on the commitment it was requested with: processed results are
+ * only reused for a few hundred milliseconds, confirmed and finalized ones somewhat longer. Finalized blocks and
+ * transactions can no longer change, so they are kept until evicted. Requests without an explicit commitment use
+ * the server default, finalized. Per-method TTLs override the commitment-based ones; a zero TTL disables caching
+ * for a method.
+ * <p>
+ * Entries remember the context slot of their response, so {@link #invalidateOlderThan(long)} drops everything
+ * observed before a slot the application knows to be newer. The cache is bounded by the total size of the
+ * cached response bodies and evicts the least recently used entries first.
+ * <p>
+ * Cached results are shared between callers and must be treated as read-only.
+ */
+public class RpcResponseCache {
+
+    /** Methods whose finalized results never change. */
+    public static final Set<String> IMMUTABLE_WHEN_FINALIZED = Set.of("getBlock", "getTransaction", "getBlockTime");
+
+    private static final Pattern COMMITMENT = Pattern.compile("\"commitment\":\"(\\w+)\"");
+
+    /** TTL of results requested with processed commitment. */
+    @Getter
+    @Setter
+    private Duration processedTtl = Duration.ofMillis(400);
+
+    /** TTL of results requested with confirmed commitment. */
+    @Getter
+    @Setter
+    private Duration confirmedTtl = Duration.ofSeconds(1);
+
+    /** TTL of finalized results of methods not listed in {@link #IMMUTABLE_WHEN_FINALIZED}. */
+    @Getter
+    @Setter
+    private Duration finalizedTtl = Duration.ofSeconds(2);
+
+    @Getter
+    private final long maxBytes;
+
+    private final Map<String, Duration> methodTtls = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache holding up to 64 MiB of responses.
+     */
+    public RpcResponseCache() {
+        this(64L * 1024 * 1024);
+    }
+
+    /**
+     * Creates a cache bounded by the total size of the cached response bodies.
+     *
+     * @param maxBytes the maximum size in bytes
+     */
+    public RpcResponseCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Max bytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+        // Statuses are polled to detect changes, serving them from the cache would only delay confirmations
+        methodTtls.put("getSignatureStatuses", Duration.ZERO);
+    }
+
+    /**
+     * Overrides the TTL of a method regardless of commitment. Duration.ZERO disables caching for the method.
+     *
+     * @param method the JSON-RPC method name
+     * @param ttl    how long results stay valid
+     */
+    public void setMethodTtl(String method, Duration ttl) {
+        methodTtls.put(method, ttl);
+    }
+
+    /**
+     * Returns how long a result stays valid.
+     *
+     * @param method     the JSON-RPC method name
+     * @param commitment the commitment the result was requested with, or null for the server default
+     * @return the TTL, or null if the result never expires
+     */
+    public Duration ttl(String method, String commitment) {
+        Duration methodTtl = methodTtls.get(method);
+        if (methodTtl != null) {
+            return methodTtl;
+        }
+        if (commitment == null) {
+            commitment = "finalized";
+        }
+        switch (commitment) {
+            case "processed":
+                return processedTtl;
+            case "confirmed":
+                return confirmedTtl;
+            default:
+                return IMMUTABLE_WHEN_FINALIZED.contains(method) ? null : finalizedTtl;
+        }
+    }
+
+    /**
+     * Drops all entries that may change and were observed before the given slot.
+     * Entries without a known slot are dropped as well; immutable entries are kept.
+     *
+     * @param slot the slot the application has already seen
+     */
+    public synchronized void invalidateOlderThan(long slot) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (!entry.isImmutable() && entry.slot < slot) {
+                sizeBytes -= entry.sizeBytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops all cached results of a method.
+     *
+     * @param method the JSON-RPC method name
+     */
+    public synchronized void invalidate(String method) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.method.equals(method)) {
+                sizeBytes -= entry.sizeBytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /** Drops all cached results. */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    /** Number of requests answered from the cache. */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /** Number of cacheable requests that had to be sent. */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /** Number of entries evicted to stay within {@link #getMaxBytes()}. */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the fraction of cacheable requests answered from the cache.
+     *
+     * @return the hit ratio, between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    /** Total size of the cached response bodies. */
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /** Number of cached results. */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    boolean isCacheable(String method) {
+        Duration methodTtl = methodTtls.get(method);
+        return RpcMethods.isReadOnly(method) && (methodTtl == null || !methodTtl.isZero());
+    }
+
+    synchronized Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            sizeBytes -= entry.sizeBytes;
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    synchronized void put(String key, String method, String commitment, Object value, long slot, int sizeBytes) {
+        Duration ttl = ttl(method, commitment);
+        if (value == null || sizeBytes > maxBytes || (ttl != null && (ttl.isZero() || ttl.isNegative()))) {
+            return;
+        }
+
+        long expiresAt = ttl != null ? System.nanoTime() + ttl.toNanos() : 0;
+        Entry previous = entries.put(key, new Entry(method, value, slot, sizeBytes, ttl != null, expiresAt));
+        if (previous != null) {
+            this.sizeBytes -= previous.sizeBytes;
+        }
+        this.sizeBytes += sizeBytes;
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (this.sizeBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            this.sizeBytes -= eldest.sizeBytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Extracts the commitment from serialized request parameters.
+     *
+     * @return the commitment, or null if the request does not specify one
+     */
+    static String commitmentOf(String paramsJson) {
+        Matcher matcher = COMMITMENT.matcher(paramsJson);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static class Entry {
+        private final String method;
+        private final Object value;
+        private final long slot;
+        private final int sizeBytes;
+        private final boolean expires;
+        private final long expiresAtNanos;
+
+        Entry(String method, Object value, long slot, int sizeBytes, boolean expires, long expiresAtNanos) {
+            this.method = method;
+            this.value = value;
+            this.slot = slot;
+            this.sizeBytes = sizeBytes;
+            this.expires = expires;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isImmutable() {
+            return !expires;
+        }
+
+        boolean isExpired(long now) {
+            return expires && now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.p2p.solanaj.rpc;
+
+import com.squareup.moshi.JsonReader;
+import okhttp3.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An open RPC response whose result has not been read yet, see {@link RpcClient#openStream(String, java.util.List)}.
+ * The response body is read from the network as the result is consumed, so the stream must be closed once done.
+ */
+public class RpcResultStream implements Closeable {
+
+    private final Response response;
+    private final JsonReader reader;
+    private final Runnable onClose;
+    private boolean closed;
+
+    RpcResultStream(Response response, JsonReader reader, Runnable onClose) {
+        this.response = response;
+        this.reader = reader;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Returns the reader positioned at the start of the JSON-RPC result value.
+     *
+     * @return the JSON reader
+     */
+    public JsonReader getReader() {
+        return reader;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // The connection is released by closing the response
+        } finally {
+            response.close();
+            onClose.run();
+        }
+    }
+}
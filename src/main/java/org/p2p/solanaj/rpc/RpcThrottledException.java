@@ -0,0 +1,38 @@
+package org.p2p.solanaj.rpc;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is throttled, either by the endpoint (HTTP 429 or 503) or locally by the
+ * {@link RateLimiter} because the endpoint's budget would not allow it before the caller's deadline.
+ */
+public class RpcThrottledException extends RpcException {
+    private final static long serialVersionUID = -2613207741032541183L;
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public RpcThrottledException(String message, int statusCode, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the HTTP status code, or 0 if the request was throttled locally and never sent.
+     *
+     * @return the HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns how long the endpoint asked clients to back off, or null if it did not say.
+     *
+     * @return the Retry-After duration
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
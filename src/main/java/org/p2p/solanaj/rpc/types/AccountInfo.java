@@ -6,10 +6,12 @@ import java.util.List;
 
 import com.squareup.moshi.Json;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Getter
 @ToString
+@NoArgsConstructor
 public class AccountInfo extends RpcResultObject {
 
     @Getter
@@ -19,9 +21,17 @@ public class AccountInfo extends RpcResultObject {
         public Value(AbstractMap am) {
             this.data = (List) am.get("data");
             this.executable = (boolean) am.get("executable");
-            this.lamports = (double) am.get("lamports");
+            this.lamports = ((Number) am.get("lamports")).longValue();
             this.owner = (String) am.get("owner");
-            this.rentEpoch = (double) am.get("rentEpoch");
+            this.rentEpoch = ((Number) am.get("rentEpoch")).doubleValue();
+        }
+
+        public Value(List<String> data, boolean executable, long lamports, String owner, double rentEpoch) {
+            this.data = data;
+            this.executable = executable;
+            this.lamports = lamports;
+            this.owner = owner;
+            this.rentEpoch = rentEpoch;
         }
 
         @Json(name = "data")
@@ -31,7 +41,7 @@ public class AccountInfo extends RpcResultObject {
         private boolean executable;
 
         @Json(name = "lamports")
-        private double lamports;
+        private long lamports;
 
         @Json(name = "owner")
         private String owner;
@@ -43,6 +53,11 @@ public class AccountInfo extends RpcResultObject {
     @Json(name = "value")
     private Value value;
 
+    public AccountInfo(long slot, Value value) {
+        this.context = new Context(slot);
+        this.value = value;
+    }
+
     public byte[] getDecodedData() {
         return Base64.getDecoder().decode(getValue().getData().get(0).getBytes());
     }
@@ -0,0 +1,96 @@
+package org.p2p.solanaj.rpc.types;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an {@link AccountInfo.Value} directly from a JSON stream, decoding lamports as a primitive long instead of
+ * going through a map of boxed doubles.
+ */
+public class AccountInfoValueJsonAdapter extends JsonAdapter<AccountInfo.Value> {
+
+    private static final JsonReader.Options FIELDS = JsonReader.Options.of(
+            "data", "executable", "lamports", "owner", "rentEpoch");
+
+    @Override
+    public AccountInfo.Value fromJson(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+
+        List<String> data = null;
+        boolean executable = false;
+        long lamports = 0;
+        String owner = null;
+        double rentEpoch = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(FIELDS)) {
+                case 0:
+                    if (reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                        // [data, encoding]
+                        data = new ArrayList<>(2);
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            data.add(reader.nextString());
+                        }
+                        reader.endArray();
+                    } else {
+                        // jsonParsed data cannot be represented as encoded strings
+                        reader.skipValue();
+                    }
+                    break;
+                case 1:
+                    executable = reader.nextBoolean();
+                    break;
+                case 2:
+                    lamports = reader.nextLong();
+                    break;
+                case 3:
+                    owner = reader.nextString();
+                    break;
+                case 4:
+                    // Accounts exempt from rent report u64::MAX, which does not fit a long
+                    rentEpoch = reader.nextDouble();
+                    break;
+                default:
+                    reader.skipName();
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new AccountInfo.Value(data, executable, lamports, owner, rentEpoch);
+    }
+
+    @Override
+    public void toJson(JsonWriter writer, AccountInfo.Value value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("data");
+        if (value.getData() == null) {
+            writer.nullValue();
+        } else {
+            writer.beginArray();
+            for (String item : value.getData()) {
+                writer.value(item);
+            }
+            writer.endArray();
+        }
+        writer.name("executable").value(value.isExecutable());
+        writer.name("lamports").value(value.getLamports());
+        writer.name("owner").value(value.getOwner());
+        writer.name("rentEpoch").value(value.getRentEpoch());
+        writer.endObject();
+    }
+}
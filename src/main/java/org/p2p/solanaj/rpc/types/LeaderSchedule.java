@@ -1,13 +1,35 @@
 package org.p2p.solanaj.rpc.types;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
-@AllArgsConstructor
 public class LeaderSchedule {
     private final String identity;
-    private final List<Double> slotIndexes;
+
+    /** Slot indexes relative to the first slot of the epoch. */
+    private final long[] slots;
+
+    public LeaderSchedule(String identity, long[] slots) {
+        this.identity = identity;
+        this.slots = slots;
+    }
+
+    public LeaderSchedule(String identity, List<Double> slotIndexes) {
+        this(identity, slotIndexes.stream().mapToLong(Double::longValue).toArray());
+    }
+
+    /**
+     * @deprecated use {@link #getSlots()}, which does not box every slot index
+     */
+    @Deprecated
+    public List<Double> getSlotIndexes() {
+        List<Double> slotIndexes = new ArrayList<>(slots.length);
+        for (long slot : slots) {
+            slotIndexes.add((double) slot);
+        }
+        return slotIndexes;
+    }
 }
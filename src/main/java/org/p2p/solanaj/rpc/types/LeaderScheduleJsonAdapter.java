@@ -0,0 +1,64 @@
+package org.p2p.solanaj.rpc.types;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a getLeaderSchedule result, an object mapping validator identities to slot indexes, into
+ * {@link LeaderSchedule} entries with primitive slot arrays. A null result yields an empty list.
+ */
+public class LeaderScheduleJsonAdapter extends JsonAdapter<List<LeaderSchedule>> {
+
+    @Override
+    public List<LeaderSchedule> fromJson(JsonReader reader) throws IOException {
+        List<LeaderSchedule> schedules = new ArrayList<>();
+        if (reader.peek() == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return schedules;
+        }
+
+        long[] slots = new long[64];
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String identity = reader.nextName();
+            int count = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (count == slots.length) {
+                    slots = Arrays.copyOf(slots, count * 2);
+                }
+                slots[count++] = reader.nextLong();
+            }
+            reader.endArray();
+            schedules.add(new LeaderSchedule(identity, Arrays.copyOf(slots, count)));
+        }
+        reader.endObject();
+
+        return schedules;
+    }
+
+    @Override
+    public void toJson(JsonWriter writer, List<LeaderSchedule> value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        for (LeaderSchedule schedule : value) {
+            writer.name(schedule.getIdentity());
+            writer.beginArray();
+            for (long slot : schedule.getSlots()) {
+                writer.value(slot);
+            }
+            writer.endArray();
+        }
+        writer.endObject();
+    }
+}
@@ -2,7 +2,11 @@ package org.p2p.solanaj.rpc.types;
 
 import com.squareup.moshi.Json;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
 
+@Getter
+@ToString
 @AllArgsConstructor
 public class Memcmp {
 
@@ -11,4 +15,4 @@ public class Memcmp {
 
     @Json(name = "bytes")
     private String bytes;
-}
\ No newline at end of file
+}
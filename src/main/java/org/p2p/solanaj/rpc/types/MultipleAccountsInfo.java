@@ -0,0 +1,25 @@
+package org.p2p.solanaj.rpc.types;
+
+import com.squareup.moshi.Json;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Result of getMultipleAccounts: one entry per requested account, null for accounts that do not exist.
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+public class MultipleAccountsInfo extends RpcResultObject {
+
+    @Json(name = "value")
+    private List<AccountInfo.Value> value;
+
+    public MultipleAccountsInfo(long slot, List<AccountInfo.Value> value) {
+        this.context = new Context(slot);
+        this.value = value;
+    }
+}
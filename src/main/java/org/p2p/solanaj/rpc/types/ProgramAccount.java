@@ -27,7 +27,7 @@ public class ProgramAccount {
         private boolean executable;
 
         @Json(name = "lamports")
-        private double lamports;
+        private long lamports;
 
         @Json(name = "owner")
         private String owner;
@@ -37,6 +37,16 @@ public class ProgramAccount {
 
         private String encoding;
 
+        public Account(String data, String encoding, boolean executable, long lamports, String owner,
+                       double rentEpoch) {
+            this.data = data;
+            this.encoding = encoding;
+            this.executable = executable;
+            this.lamports = lamports;
+            this.owner = owner;
+            this.rentEpoch = rentEpoch;
+        }
+
         @SuppressWarnings({ "rawtypes", "unchecked" })
         public Account(Object acc) {
             AbstractMap account = (AbstractMap) acc;
@@ -52,9 +62,9 @@ public class ProgramAccount {
             }
 
             this.executable = (boolean) account.get("executable");
-            this.lamports = (double) account.get("lamports");
+            this.lamports = ((Number) account.get("lamports")).longValue();
             this.owner = (String) account.get("owner");
-            this.rentEpoch = (double) account.get("rentEpoch");
+            this.rentEpoch = ((Number) account.get("rentEpoch")).doubleValue();
         }
 
         public byte[] getDecodedData() {
@@ -76,6 +86,11 @@ public class ProgramAccount {
         return new PublicKey(pubkey);
     }
 
+    public ProgramAccount(String pubkey, Account account) {
+        this.pubkey = pubkey;
+        this.account = account;
+    }
+
     @SuppressWarnings({ "rawtypes" })
     public ProgramAccount(AbstractMap pa) {
         this.account = new Account(pa.get("account"));
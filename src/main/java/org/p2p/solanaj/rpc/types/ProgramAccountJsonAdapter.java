@@ -0,0 +1,132 @@
+package org.p2p.solanaj.rpc.types;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads a {@link ProgramAccount} directly from a JSON stream, without building an intermediate map.
+ * Account data is kept in its encoded form and only decoded by {@link ProgramAccount.Account#getDecodedData()}.
+ */
+public class ProgramAccountJsonAdapter extends JsonAdapter<ProgramAccount> {
+
+    private static final JsonReader.Options PROGRAM_ACCOUNT_FIELDS = JsonReader.Options.of("pubkey", "account");
+    private static final JsonReader.Options ACCOUNT_FIELDS = JsonReader.Options.of(
+            "data", "executable", "lamports", "owner", "rentEpoch");
+
+    @Override
+    public ProgramAccount fromJson(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+
+        String pubkey = null;
+        ProgramAccount.Account account = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(PROGRAM_ACCOUNT_FIELDS)) {
+                case 0:
+                    pubkey = reader.nextString();
+                    break;
+                case 1:
+                    account = readAccount(reader);
+                    break;
+                default:
+                    reader.skipName();
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new ProgramAccount(pubkey, account);
+    }
+
+    static ProgramAccount.Account readAccount(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) {
+            return reader.nextNull();
+        }
+
+        String data = null;
+        String encoding = null;
+        boolean executable = false;
+        long lamports = 0;
+        String owner = null;
+        double rentEpoch = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(ACCOUNT_FIELDS)) {
+                case 0:
+                    if (reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                        // [data, encoding]
+                        reader.beginArray();
+                        data = reader.nextString();
+                        if (reader.hasNext()) {
+                            encoding = reader.nextString();
+                        }
+                        while (reader.hasNext()) {
+                            reader.skipValue();
+                        }
+                        reader.endArray();
+                    } else if (reader.peek() == JsonReader.Token.STRING) {
+                        data = reader.nextString();
+                    } else {
+                        // jsonParsed data is not needed in encoded form
+                        reader.skipValue();
+                    }
+                    break;
+                case 1:
+                    executable = reader.nextBoolean();
+                    break;
+                case 2:
+                    lamports = reader.nextLong();
+                    break;
+                case 3:
+                    owner = reader.nextString();
+                    break;
+                case 4:
+                    rentEpoch = reader.nextDouble();
+                    break;
+                default:
+                    reader.skipName();
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new ProgramAccount.Account(data, encoding, executable, lamports, owner, rentEpoch);
+    }
+
+    @Override
+    public void toJson(JsonWriter writer, ProgramAccount value) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("pubkey").value(value.getPubkey());
+        writer.name("account");
+        ProgramAccount.Account account = value.getAccount();
+        if (account == null) {
+            writer.nullValue();
+        } else {
+            writer.beginObject();
+            writer.name("data");
+            if (account.getEncoding() != null) {
+                writer.beginArray().value(account.getData()).value(account.getEncoding()).endArray();
+            } else {
+                writer.value(account.getData());
+            }
+            writer.name("executable").value(account.isExecutable());
+            writer.name("lamports").value(account.getLamports());
+            writer.name("owner").value(account.getOwner());
+            writer.name("rentEpoch").value(account.getRentEpoch());
+            writer.endObject();
+        }
+        writer.endObject();
+    }
+}
@@ -0,0 +1,61 @@
+package org.p2p.solanaj.rpc.types;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.p2p.solanaj.rpc.RpcException;
+
+import java.util.function.Function;
+
+/**
+ * Outcome of a single entry of a JSON-RPC batch request.
+ * Each entry carries either a result or the error the server returned for that entry alone,
+ * so one failing call does not fail the rest of the batch.
+ *
+ * @param <T> the result type of the entry
+ */
+@Getter
+@ToString
+public class RpcBatchResult<T> {
+
+    private final String id;
+
+    private final T result;
+
+    private final RpcResponse.Error error;
+
+    public RpcBatchResult(String id, T result, RpcResponse.Error error) {
+        this.id = id;
+        this.result = result;
+        this.error = error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Returns the result of this entry, or throws if the server returned an error for it.
+     *
+     * @return the result of this entry
+     * @throws RpcException if this entry failed
+     */
+    public T getResultOrThrow() throws RpcException {
+        if (error != null) {
+            throw new RpcException(error.getMessage(), error.getCode());
+        }
+        return result;
+    }
+
+    /**
+     * Converts the result of a successful entry, passing errors through unchanged.
+     *
+     * @param mapper the conversion to apply to a successful result
+     * @return a new RpcBatchResult holding the converted result or the original error
+     */
+    public <R> RpcBatchResult<R> map(Function<T, R> mapper) {
+        if (error != null || result == null) {
+            return new RpcBatchResult<>(id, null, error);
+        }
+        return new RpcBatchResult<>(id, mapper.apply(result), null);
+    }
+}
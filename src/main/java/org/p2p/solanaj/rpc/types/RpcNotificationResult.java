@@ -14,6 +14,16 @@ public class RpcNotificationResult {
 
         @Json(name = "value")
         private Object value;
+
+        /** Slot of a slotNotification, which has no context and value. */
+        @Json(name = "slot")
+        private Long slot;
+
+        @Json(name = "parent")
+        private Long parent;
+
+        @Json(name = "root")
+        private Long root;
     }
 
     @Getter
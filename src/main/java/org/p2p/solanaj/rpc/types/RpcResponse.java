@@ -1,7 +1,9 @@
 package org.p2p.solanaj.rpc.types;
 
 import com.squareup.moshi.Json;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Getter
@@ -10,6 +12,8 @@ public class RpcResponse<T> {
 
     @Getter
     @ToString
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Error {
         @Json(name = "code")
         private long code;
@@ -1,7 +1,9 @@
 package org.p2p.solanaj.rpc.types;
 
 import com.squareup.moshi.Json;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 @Getter
@@ -10,6 +12,8 @@ public class RpcResultObject {
 
     @Getter
     @ToString
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class Context {
         @Json(name = "slot")
         private long slot;
@@ -13,4 +13,11 @@ public class RpcResultTypes {
         private Long value;
     }
 
+    @Getter
+    @ToString
+    public static class ValueBoolean extends RpcResultObject {
+        @Json(name = "value")
+        private boolean value;
+    }
+
 }
@@ -18,6 +18,12 @@ public class SimulatedTransaction extends RpcResultObject {
 
         @Json(name = "logs")
         private List<String> logs;
+
+        @Json(name = "unitsConsumed")
+        private Long unitsConsumed;
+
+        @Json(name = "err")
+        private Object err;
     }
 
     @Json(name = "value")
@@ -0,0 +1,42 @@
+package org.p2p.solanaj.rpc.types.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Options of a getMultipleAccounts call over any number of accounts, which is split into chunks that are requested
+ * concurrently.
+ * <p>
+ * Each chunk is answered at its own slot. Chunks are sent with a minContextSlot of the newest slot seen so far, so no
+ * chunk is older than {@link #getMinContextSlot()} or than the chunks that completed before it was sent. With
+ * {@link #isRetryStaleChunks()} enabled, chunks that still come back older than the newest one are requested again
+ * at that slot.
+ */
+@Getter
+@Setter
+public class MultipleAccountsConfig {
+
+    /** Accounts per request; the RPC server rejects more than 100. */
+    private int chunkSize = 100;
+
+    /** Maximum number of chunks in flight at once. */
+    private int maxParallelism = 8;
+
+    /** Slot every chunk must reflect at least, or null. */
+    private Long minContextSlot;
+
+    /** Whether chunks older than the newest chunk are requested again at the newest slot. */
+    private boolean retryStaleChunks;
+
+    /** How many times a single chunk is requested again for being stale. */
+    private int maxStaleRetries = 2;
+
+    private Commitment commitment;
+
+    private String encoding = "base64";
+
+    /** Optional dataSlice parameter, with "offset" and "length" entries. */
+    private Map<String, Object> dataSlice;
+}
@@ -12,6 +12,8 @@ public class ProgramAccountConfig {
 
     private String commitment = "processed";
 
+    private Boolean withContext = null;
+
     public ProgramAccountConfig(List<Object> filters) {
         this.filters = filters;
     }
@@ -27,4 +29,12 @@ public class ProgramAccountConfig {
     public void setFilters(List<Object> filters) {
         this.filters = filters;
     }
+
+    public void setCommitment(String commitment) {
+        this.commitment = commitment;
+    }
+
+    public void setWithContext(Boolean withContext) {
+        this.withContext = withContext;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package org.p2p.solanaj.rpc.types.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of a sharded getProgramAccounts scan, see {@link org.p2p.solanaj.rpc.ProgramAccountScan}.
+ */
+@Getter
+@Setter
+public class ProgramAccountScanConfig {
+
+    /** Maximum number of shards streamed at once. */
+    private int maxParallelism = 8;
+
+    /** Attempts per shard, including the first one, before the shard is reported as failed. */
+    private int maxShardAttempts = 3;
+
+    /** Accounts received but not yet consumed; shards pause while the buffer is full. */
+    private int bufferSize = 1024;
+}
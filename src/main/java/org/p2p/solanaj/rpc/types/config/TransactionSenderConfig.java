@@ -0,0 +1,44 @@
+package org.p2p.solanaj.rpc.types.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Options of a {@link org.p2p.solanaj.transactions.TransactionSender}.
+ */
+@Getter
+@Setter
+public class TransactionSenderConfig {
+
+    /** Transactions accepted but not yet signed; submitting blocks while the queue is full. */
+    private int queueCapacity = 10_000;
+
+    /** Threads signing and serializing transactions. */
+    private int signerThreads = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of sendTransaction requests in flight at once. */
+    private int maxConcurrentSends = 64;
+
+    /** Signatures per getSignatureStatuses request, at most 256. */
+    private int statusBatchSize = 256;
+
+    /** Interval between two rounds of status polling. */
+    private Duration pollInterval = Duration.ofMillis(400);
+
+    /** Commitment a transaction must reach to be reported as confirmed. */
+    private Commitment commitment = Commitment.CONFIRMED;
+
+    /** Time after which a transaction that has not landed is reported as expired, if its blockhash is not. */
+    private Duration confirmationTimeout = Duration.ofSeconds(90);
+
+    /**
+     * Whether transactions submitted as instructions get a compute unit limit sized by simulation, instead of the
+     * default 200k units per instruction.
+     */
+    private boolean sizeComputeUnits = false;
+
+    /** Options of the sendTransaction requests. */
+    private RpcSendTransactionConfig sendConfig = new RpcSendTransactionConfig();
+}
@@ -0,0 +1,221 @@
+package org.p2p.solanaj.transactions;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.AccountMeta;
+import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.SimulatedTransaction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes the compute unit limit of transactions by simulating them.
+ * <p>
+ * Without a limit, a transaction reserves 200k compute units per instruction, far more than most use, which makes
+ * it harder to schedule under congestion. {@link #withComputeUnitLimit(List, List)} simulates the transaction with
+ * simulateTransaction, reads the units it consumed, and prepends a setComputeUnitLimit instruction with that many
+ * units plus a margin.
+ * <p>
+ * Results are cached by the shape of the message: the program, the signer and writable flags of the accounts, the
+ * data length and the first data byte of every instruction. Transactions built from the same template, differing
+ * only in addresses or amounts, are simulated once per cache TTL.
+ */
+public class ComputeUnitEstimator {
+
+    /** Any valid blockhash; simulateTransaction replaces it with a recent one. */
+    private static final String PLACEHOLDER_BLOCKHASH = "11111111111111111111111111111111";
+
+    /** Factor applied to the consumed units. */
+    @Getter
+    @Setter
+    private double margin = 1.1;
+
+    /** Units added to the consumed units after applying the margin. */
+    @Getter
+    @Setter
+    private int extraUnits = 1_000;
+
+    /** Time after which a message shape is simulated again. */
+    @Getter
+    @Setter
+    private Duration cacheTtl = Duration.ofMinutes(5);
+
+    /** Maximum number of message shapes cached; the oldest is dropped beyond it. */
+    @Getter
+    @Setter
+    private int maxCachedShapes = 1024;
+
+    private final RpcClient client;
+    private final Map<List<Object>, Estimate> cache = new ConcurrentHashMap<>();
+    private final AtomicLong simulations = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * Consumed units of a simulated message shape.
+     */
+    private static class Estimate {
+        final long unitsConsumed;
+        final long simulatedAtNanos = System.nanoTime();
+
+        Estimate(long unitsConsumed) {
+            this.unitsConsumed = unitsConsumed;
+        }
+    }
+
+    public ComputeUnitEstimator(RpcClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns the instructions preceded by a setComputeUnitLimit instruction sized by simulation. A compute unit
+     * limit already among the instructions is replaced.
+     *
+     * @param instructions the instructions of the transaction
+     * @param signers      the accounts signing the transaction, the fee payer first
+     * @return the instructions with the compute unit limit
+     * @throws RpcException if the simulation failed
+     */
+    public List<TransactionInstruction> withComputeUnitLimit(List<TransactionInstruction> instructions,
+                                                             List<Account> signers) throws RpcException {
+        List<TransactionInstruction> withoutLimit = new ArrayList<>(instructions.size() + 1);
+        for (TransactionInstruction instruction : instructions) {
+            if (!isComputeUnitLimit(instruction)) {
+                withoutLimit.add(instruction);
+            }
+        }
+        int units = getComputeUnitLimit(withoutLimit, signers);
+
+        List<TransactionInstruction> sized = new ArrayList<>(withoutLimit.size() + 1);
+        sized.add(ComputeBudgetProgram.setComputeUnitLimit(units));
+        sized.addAll(withoutLimit);
+        return sized;
+    }
+
+    /**
+     * Returns the compute unit limit for a transaction made of the given instructions: the units consumed in its
+     * simulation, with the margin applied.
+     *
+     * @param instructions the instructions of the transaction, without compute unit limit
+     * @param signers      the accounts signing the transaction, the fee payer first
+     * @return the compute unit limit
+     * @throws RpcException if the simulation failed
+     */
+    public int getComputeUnitLimit(List<TransactionInstruction> instructions, List<Account> signers)
+            throws RpcException {
+        long units = getUnitsConsumed(instructions, signers);
+        long limit = (long) Math.ceil(units * margin) + extraUnits;
+        return (int) Math.min(ComputeBudgetProgram.MAX_COMPUTE_UNIT_LIMIT, Math.max(0, limit));
+    }
+
+    /**
+     * Returns the compute units consumed by a transaction made of the given instructions, simulating it unless
+     * its message shape is cached.
+     *
+     * @param instructions the instructions of the transaction, without compute unit limit
+     * @param signers      the accounts signing the transaction, the fee payer first
+     * @return the consumed compute units
+     * @throws RpcException if the simulation failed
+     */
+    public long getUnitsConsumed(List<TransactionInstruction> instructions, List<Account> signers)
+            throws RpcException {
+        List<Object> shape = shape(instructions);
+        Estimate estimate = cache.get(shape);
+        if (estimate != null && System.nanoTime() - estimate.simulatedAtNanos <= cacheTtl.toNanos()) {
+            cacheHits.incrementAndGet();
+            return estimate.unitsConsumed;
+        }
+
+        long unitsConsumed = simulate(instructions, signers);
+        if (cache.size() >= maxCachedShapes) {
+            cache.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().simulatedAtNanos))
+                    .ifPresent(eldest -> cache.remove(eldest.getKey(), eldest.getValue()));
+        }
+        cache.put(shape, new Estimate(unitsConsumed));
+        return unitsConsumed;
+    }
+
+    private long simulate(List<TransactionInstruction> instructions, List<Account> signers) throws RpcException {
+        // simulated with the highest limit, so the default limit does not fail transactions needing more
+        Transaction transaction = new Transaction();
+        transaction.addInstruction(ComputeBudgetProgram.setComputeUnitLimit(
+                ComputeBudgetProgram.MAX_COMPUTE_UNIT_LIMIT));
+        instructions.forEach(transaction::addInstruction);
+        transaction.setRecentBlockHash(PLACEHOLDER_BLOCKHASH);
+        transaction.sign(signers);
+
+        simulations.incrementAndGet();
+        SimulatedTransaction simulated = client.getApi().simulateTransaction(
+                Base64.getEncoder().encodeToString(transaction.serialize()), List.of());
+        SimulatedTransaction.Value value = simulated.getValue();
+        if (value.getErr() != null) {
+            throw new RpcException("Simulation failed: " + value.getErr());
+        }
+        if (value.getUnitsConsumed() == null) {
+            throw new RpcException("Simulation did not report the consumed compute units");
+        }
+        return value.getUnitsConsumed();
+    }
+
+    private static List<Object> shape(List<TransactionInstruction> instructions) {
+        List<Object> shape = new ArrayList<>(instructions.size() * 4);
+        for (TransactionInstruction instruction : instructions) {
+            shape.add(instruction.getProgramId().toBase58());
+            StringBuilder flags = new StringBuilder(instruction.getKeys().size());
+            for (AccountMeta meta : instruction.getKeys()) {
+                flags.append((char) ('0' + (meta.isSigner() ? 2 : 0) + (meta.isWritable() ? 1 : 0)));
+            }
+            shape.add(flags.toString());
+            byte[] data = instruction.getData();
+            shape.add(data.length);
+            shape.add(data.length == 0 ? -1 : data[0] & 0xff);
+        }
+        return shape;
+    }
+
+    private static boolean isComputeUnitLimit(TransactionInstruction instruction) {
+        return instruction.getProgramId().equals(ComputeBudgetProgram.PROGRAM_ID)
+                && instruction.getData().length > 0 && instruction.getData()[0] == 0x02;
+    }
+
+    /**
+     * Returns how many transactions were simulated.
+     *
+     * @return the number of simulations
+     */
+    public long getSimulations() {
+        return simulations.get();
+    }
+
+    /**
+     * Returns how many estimates were served from the cache without simulation.
+     *
+     * @return the number of cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public int getCachedShapes() {
+        return cache.size();
+    }
+
+    /**
+     * Forgets all cached estimates.
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,318 @@
+package org.p2p.solanaj.transactions;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.p2p.solanaj.core.AccountMeta;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.rpc.BackgroundRefresh;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.RecentPrioritizationFees;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Estimates compute unit prices from getRecentPrioritizationFees.
+ * <p>
+ * Fees are tracked per set of writable accounts, since transactions only compete for the accounts they lock. The
+ * per-slot samples of every set are kept over a rolling window of slots, from which the percentiles are computed.
+ * The first estimate for a set fetches its samples; after that the set is refreshed in the background and reads
+ * return the cached estimate without a round trip. Sets not read for the idle timeout are no longer refreshed, and
+ * the background refresh stops when no set is left.
+ * <p>
+ * {@link #computeUnitPrice(List)} turns an estimate into the ComputeBudget instruction of a transaction.
+ */
+public class PriorityFeeEstimator implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(PriorityFeeEstimator.class.getName());
+
+    /** Number of most recent slots the percentiles are computed over; the RPC node keeps at most 150. */
+    @Getter
+    @Setter
+    private int slotWindow = 150;
+
+    /** Percentile of the samples used as compute unit price, between 0 and 100. */
+    @Getter
+    @Setter
+    private double percentile = 75;
+
+    /** Lower bound of the suggested compute unit price, in micro-lamports. */
+    @Getter
+    @Setter
+    private long minComputeUnitPrice = 0;
+
+    /** Upper bound of the suggested compute unit price, in micro-lamports. */
+    @Getter
+    @Setter
+    private long maxComputeUnitPrice = Long.MAX_VALUE;
+
+    /** Interval of the background refresh. */
+    @Getter
+    @Setter
+    private Duration refreshInterval = Duration.ofSeconds(2);
+
+    /** Time without reads after which an account set is no longer refreshed. */
+    @Getter
+    @Setter
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    /** Maximum number of account sets tracked; the least recently read set is dropped beyond it. */
+    @Getter
+    @Setter
+    private int maxTrackedSets = 1024;
+
+    private final RpcClient client;
+    private final Map<List<String>, Tracked> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+    private final BackgroundRefresh backgroundRefresh = new BackgroundRefresh("solanaj-fees", this::tick);
+
+    /**
+     * Fee percentiles of one account set.
+     */
+    public static final class FeeEstimate {
+        private final long[] sortedFees;
+        /** Newest slot of the samples, or -1 if there were none. */
+        @Getter
+        private final long newestSlot;
+
+        FeeEstimate(long[] sortedFees, long newestSlot) {
+            this.sortedFees = sortedFees;
+            this.newestSlot = newestSlot;
+        }
+
+        /**
+         * Returns the fee at the given percentile of the samples, by nearest rank.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the compute unit price in micro-lamports, 0 if there were no samples
+         */
+        public long getPercentile(double percentile) {
+            if (sortedFees.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedFees.length);
+            return sortedFees[Math.min(sortedFees.length - 1, Math.max(0, rank - 1))];
+        }
+
+        public long getP50() {
+            return getPercentile(50);
+        }
+
+        public long getP75() {
+            return getPercentile(75);
+        }
+
+        public long getP90() {
+            return getPercentile(90);
+        }
+
+        public long getP99() {
+            return getPercentile(99);
+        }
+
+        public int getSampleCount() {
+            return sortedFees.length;
+        }
+    }
+
+    /**
+     * The samples and latest estimate of one account set.
+     */
+    private static class Tracked {
+        final List<PublicKey> accounts;
+        final TreeMap<Long, Long> samples = new TreeMap<>();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile FeeEstimate estimate;
+        volatile long lastReadNanos = System.nanoTime();
+
+        Tracked(List<PublicKey> accounts) {
+            this.accounts = accounts;
+        }
+    }
+
+    public PriorityFeeEstimator(RpcClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Returns the fee estimate for transactions writing the given accounts. Only the first estimate of an
+     * account set waits for the RPC node.
+     *
+     * @param writableAccounts the accounts written by the transaction; empty for the fees of all transactions
+     * @return the estimate
+     * @throws RpcException if the set was not tracked yet and its fees could not be fetched
+     */
+    public FeeEstimate getEstimate(Collection<PublicKey> writableAccounts) throws RpcException {
+        List<String> key = key(writableAccounts);
+        Tracked set = tracked.get(key);
+        if (set == null) {
+            set = track(key, writableAccounts);
+        }
+        set.lastReadNanos = System.nanoTime();
+        backgroundRefresh.ensureRunning(refreshInterval);
+        FeeEstimate estimate = set.estimate;
+        if (estimate != null) {
+            return estimate;
+        }
+        List<RecentPrioritizationFees> fees = client.getApi().getRecentPrioritizationFees(addresses(set));
+        refreshes.incrementAndGet();
+        return merge(set, fees);
+    }
+
+    /**
+     * Returns the suggested compute unit price for transactions writing the given accounts: the configured
+     * percentile of the estimate, within the configured bounds.
+     *
+     * @param writableAccounts the accounts written by the transaction
+     * @return the compute unit price in micro-lamports
+     * @throws RpcException if the set was not tracked yet and its fees could not be fetched
+     */
+    public long getComputeUnitPrice(Collection<PublicKey> writableAccounts) throws RpcException {
+        long price = getEstimate(writableAccounts).getPercentile(percentile);
+        return Math.min(maxComputeUnitPrice, Math.max(minComputeUnitPrice, price));
+    }
+
+    /**
+     * Creates the ComputeBudget instruction setting the suggested compute unit price for a transaction made of
+     * the given instructions.
+     *
+     * @param instructions the instructions of the transaction
+     * @return the setComputeUnitPrice instruction
+     * @throws RpcException if the account set was not tracked yet and its fees could not be fetched
+     */
+    public TransactionInstruction computeUnitPrice(List<TransactionInstruction> instructions) throws RpcException {
+        return ComputeBudgetProgram.setComputeUnitPrice(getComputeUnitPrice(writableAccounts(instructions)));
+    }
+
+    /**
+     * Collects the accounts written by the given instructions.
+     *
+     * @param instructions the instructions
+     * @return the writable accounts
+     */
+    public static Set<PublicKey> writableAccounts(List<TransactionInstruction> instructions) {
+        Set<PublicKey> accounts = new TreeSet<>(Comparator.comparing(PublicKey::toBase58));
+        for (TransactionInstruction instruction : instructions) {
+            for (AccountMeta meta : instruction.getKeys()) {
+                if (meta.isWritable()) {
+                    accounts.add(meta.getPublicKey());
+                }
+            }
+        }
+        return accounts;
+    }
+
+    private static List<String> key(Collection<PublicKey> accounts) {
+        return accounts.stream().map(PublicKey::toBase58).distinct().sorted().collect(Collectors.toList());
+    }
+
+    private static List<PublicKey> addresses(Tracked set) {
+        return set.accounts.isEmpty() ? null : set.accounts;
+    }
+
+    private Tracked track(List<String> key, Collection<PublicKey> accounts) {
+        if (tracked.size() >= maxTrackedSets) {
+            tracked.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastReadNanos))
+                    .ifPresent(eldest -> tracked.remove(eldest.getKey(), eldest.getValue()));
+        }
+        return tracked.computeIfAbsent(key, ignored -> new Tracked(new ArrayList<>(accounts)));
+    }
+
+    private FeeEstimate merge(Tracked set, List<RecentPrioritizationFees> fees) {
+        synchronized (set) {
+            for (RecentPrioritizationFees fee : fees) {
+                set.samples.put(fee.getSlot(), fee.getPrioritizationFee());
+            }
+            long newestSlot = set.samples.isEmpty() ? -1 : set.samples.lastKey();
+            set.samples.headMap(newestSlot - slotWindow, true).clear();
+
+            long[] sortedFees = set.samples.values().stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sortedFees);
+            FeeEstimate estimate = new FeeEstimate(sortedFees, newestSlot);
+            set.estimate = estimate;
+            return estimate;
+        }
+    }
+
+    private void tick() {
+        long idleNanos = idleTimeout.toNanos();
+        long now = System.nanoTime();
+        tracked.entrySet().removeIf(entry -> now - entry.getValue().lastReadNanos > idleNanos);
+        if (tracked.isEmpty()) {
+            backgroundRefresh.stop();
+            return;
+        }
+        tracked.values().forEach(this::refresh);
+    }
+
+    private void refresh(Tracked set) {
+        if (!set.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        client.getAsyncApi().getRecentPrioritizationFees(addresses(set)).whenComplete((fees, error) -> {
+            set.refreshing.set(false);
+            if (error != null) {
+                failedRefreshes.incrementAndGet();
+                LOGGER.log(Level.FINE, "Could not refresh prioritization fees", error);
+            } else {
+                refreshes.incrementAndGet();
+                merge(set, fees);
+            }
+        });
+    }
+
+    /**
+     * Returns whether the background refresh is running, i.e. an account set was read within the idle timeout.
+     *
+     * @return whether the estimator is running
+     */
+    public boolean isRunning() {
+        return backgroundRefresh.isRunning();
+    }
+
+    public int getTrackedSets() {
+        return tracked.size();
+    }
+
+    /**
+     * Returns how many times the fees of an account set were fetched, in the background or not.
+     *
+     * @return the number of fetches
+     */
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getFailedRefreshes() {
+        return failedRefreshes.get();
+    }
+
+    /**
+     * Stops the background refresh and forgets all account sets.
+     */
+    @Override
+    public void close() {
+        backgroundRefresh.stop();
+        tracked.clear();
+    }
+}
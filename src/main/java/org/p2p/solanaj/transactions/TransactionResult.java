@@ -0,0 +1,34 @@
+package org.p2p.solanaj.transactions;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of a transaction that landed, as reported by getSignatureStatuses.
+ */
+@Getter
+@ToString
+public class TransactionResult {
+
+    private final String signature;
+
+    /** Slot the transaction was processed in. */
+    private final long slot;
+
+    /** Commitment the transaction reached when it was reported: processed, confirmed or finalized. */
+    private final String confirmationStatus;
+
+    /** Error of a failed transaction, or null if it succeeded. */
+    private final Object err;
+
+    public TransactionResult(String signature, long slot, String confirmationStatus, Object err) {
+        this.signature = signature;
+        this.slot = slot;
+        this.confirmationStatus = confirmationStatus;
+        this.err = err;
+    }
+
+    public boolean isSuccess() {
+        return err == null;
+    }
+}
@@ -0,0 +1,437 @@
+package org.p2p.solanaj.transactions;
+
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.rpc.BlockhashProvider;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.LatestBlockhash;
+import org.p2p.solanaj.rpc.types.SignatureStatuses;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.rpc.types.config.TransactionSenderConfig;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends transactions at high rates and tracks their confirmation in bulk.
+ * <p>
+ * Submitted transactions wait in a bounded queue. A pool of signer threads gives each one the latest blockhash,
+ * signs and serializes it, and sends it with a bounded number of sendTransaction requests in flight. Instead of a
+ * signature subscription per transaction, a single poller asks for the statuses of all sent transactions with
+ * getSignatureStatuses, up to 256 signatures per request.
+ * <p>
+ * The future returned by {@link #submit(Transaction, List)} completes with a {@link TransactionResult} once the
+ * transaction reaches the configured commitment, also if it failed on chain. It completes exceptionally with an
+ * {@link RpcException} if the transaction could not be sent, or if it did not land before its blockhash expired
+ * or the confirmation timeout passed.
+ * <p>
+ * Transactions submitted as instructions with {@link #submit(List, List)} are built on the signer threads. With
+ * {@link TransactionSenderConfig#isSizeComputeUnits()} set, their compute unit limit is sized by the
+ * {@link ComputeUnitEstimator} of the sender first.
+ */
+public class TransactionSender implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(TransactionSender.class.getName());
+
+    /** Most signatures getSignatureStatuses accepts per request. */
+    private static final int MAX_STATUS_BATCH_SIZE = 256;
+
+    private final RpcClient client;
+    private final TransactionSenderConfig config;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore sends;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final ExecutorService signers;
+    private final ScheduledExecutorService poller;
+    private final ComputeUnitEstimator computeUnitEstimator;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong statusRequests = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * A transaction on its way from submission to confirmation.
+     */
+    private static class Pending {
+        final List<TransactionInstruction> instructions;
+        final List<Account> signers;
+        Transaction transaction;
+        final CompletableFuture<TransactionResult> future = new CompletableFuture<>();
+        long lastValidBlockHeight = -1;
+        long sentAtNanos;
+        volatile boolean landed;
+
+        Pending(Transaction transaction, List<Account> signers) {
+            this.instructions = null;
+            this.transaction = transaction;
+            this.signers = signers;
+        }
+
+        Pending(List<TransactionInstruction> instructions, List<Account> signers) {
+            this.instructions = instructions;
+            this.signers = signers;
+        }
+    }
+
+    public TransactionSender(RpcClient client) {
+        this(client, new TransactionSenderConfig());
+    }
+
+    public TransactionSender(RpcClient client, TransactionSenderConfig config) {
+        this.client = client;
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.sends = new Semaphore(config.getMaxConcurrentSends());
+        this.computeUnitEstimator = new ComputeUnitEstimator(client);
+
+        int signerThreads = Math.max(1, config.getSignerThreads());
+        this.signers = Executors.newFixedThreadPool(signerThreads, daemonThreads("solanaj-signer"));
+        for (int i = 0; i < signerThreads; i++) {
+            signers.execute(this::signAndSend);
+        }
+        this.poller = Executors.newSingleThreadScheduledExecutor(daemonThreads("solanaj-status"));
+        long interval = config.getPollInterval().toNanos();
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Queues a transaction for sending, waiting while the queue is full. The transaction is given the latest
+     * blockhash and signed when it leaves the queue, and must not be modified afterwards.
+     *
+     * @param transaction the transaction, without blockhash or signatures
+     * @param signers     the accounts signing the transaction
+     * @return a future completed once the transaction is confirmed
+     * @throws InterruptedException if interrupted while waiting for room in the queue
+     */
+    public CompletableFuture<TransactionResult> submit(Transaction transaction, List<Account> signers)
+            throws InterruptedException {
+        return enqueue(new Pending(transaction, signers));
+    }
+
+    /**
+     * Queues a transaction made of the given instructions for sending, waiting while the queue is full. The
+     * transaction is built when it leaves the queue, after sizing its compute unit limit if configured.
+     *
+     * @param instructions the instructions of the transaction
+     * @param signers      the accounts signing the transaction, the fee payer first
+     * @return a future completed once the transaction is confirmed
+     * @throws InterruptedException if interrupted while waiting for room in the queue
+     */
+    public CompletableFuture<TransactionResult> submit(List<TransactionInstruction> instructions,
+                                                       List<Account> signers) throws InterruptedException {
+        return enqueue(new Pending(new ArrayList<>(instructions), signers));
+    }
+
+    private CompletableFuture<TransactionResult> enqueue(Pending transactionToSend) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("TransactionSender is closed");
+        }
+        queue.put(transactionToSend);
+        submitted.incrementAndGet();
+        return transactionToSend.future;
+    }
+
+    private void signAndSend() {
+        while (!closed) {
+            Pending transaction;
+            try {
+                transaction = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                sends.acquire();
+            } catch (InterruptedException e) {
+                fail(transaction, new RpcException("TransactionSender is closed"));
+                return;
+            }
+            try {
+                send(transaction);
+            } catch (RpcException | RuntimeException e) {
+                sends.release();
+                fail(transaction, e);
+            }
+        }
+    }
+
+    private void send(Pending transaction) throws RpcException {
+        if (transaction.instructions != null) {
+            build(transaction);
+        }
+
+        String blockhash;
+        BlockhashProvider blockhashProvider = client.getBlockhashProvider();
+        if (blockhashProvider != null) {
+            BlockhashProvider.Blockhash latest = blockhashProvider.getLatest();
+            blockhash = latest.getBlockhash();
+            transaction.lastValidBlockHeight = latest.getLastValidBlockHeight();
+        } else {
+            LatestBlockhash latest = client.getApi().getLatestBlockhash();
+            blockhash = latest.getValue().getBlockhash();
+            transaction.lastValidBlockHeight = latest.getValue().getLastValidBlockHeight();
+        }
+
+        transaction.sentAtNanos = System.nanoTime();
+        // signs and serializes on this thread, only the request itself is asynchronous
+        client.getAsyncApi().sendTransaction(transaction.transaction, transaction.signers, blockhash,
+                config.getSendConfig()).whenComplete((signature, error) -> {
+            sends.release();
+            if (error != null) {
+                fail(transaction, unwrap(error));
+            } else if (closed) {
+                fail(transaction, new RpcException("TransactionSender is closed"));
+            } else {
+                sent.incrementAndGet();
+                track(signature, transaction);
+            }
+        });
+    }
+
+    /**
+     * Awaits the confirmation of a sent transaction. An identical transaction signed with the same blockhash has the
+     * same signature; it is not tracked again but completes with the one already pending.
+     */
+    private void track(String signature, Pending transaction) {
+        Pending existing = pending.putIfAbsent(signature, transaction);
+        if (existing != null) {
+            existing.future.whenComplete((result, error) -> {
+                if (error != null) {
+                    transaction.future.completeExceptionally(unwrap(error));
+                } else {
+                    transaction.future.complete(result);
+                }
+            });
+        }
+    }
+
+    private void build(Pending transaction) throws RpcException {
+        List<TransactionInstruction> instructions = config.isSizeComputeUnits()
+                ? computeUnitEstimator.withComputeUnitLimit(transaction.instructions, transaction.signers)
+                : transaction.instructions;
+        Transaction built = new Transaction();
+        instructions.forEach(built::addInstruction);
+        transaction.transaction = built;
+    }
+
+    private void poll() {
+        try {
+            pollStatuses();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not poll signature statuses", e);
+        }
+    }
+
+    private void pollStatuses() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // the block height is read before the statuses: a transaction not seen after it can no longer land
+        // once the height passed its blockhash
+        long blockHeight;
+        try {
+            blockHeight = client.getApi().getBlockHeight(config.getCommitment());
+        } catch (RpcException e) {
+            LOGGER.log(Level.FINE, "Could not get the block height", e);
+            blockHeight = -1;
+        }
+
+        List<String> signatures = new ArrayList<>(pending.keySet());
+        int batchSize = Math.max(1, Math.min(MAX_STATUS_BATCH_SIZE, config.getStatusBatchSize()));
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < signatures.size(); from += batchSize) {
+            List<String> batch = signatures.subList(from, Math.min(signatures.size(), from + batchSize));
+            statusRequests.incrementAndGet();
+            batches.add(client.getAsyncApi().getSignatureStatuses(batch, false)
+                    .thenAccept(statuses -> applyStatuses(batch, statuses))
+                    .exceptionally(error -> {
+                        LOGGER.log(Level.FINE, "Could not get signature statuses", error);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+
+        long now = System.nanoTime();
+        long timeout = config.getConfirmationTimeout().toNanos();
+        for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+            Pending transaction = entry.getValue();
+            if (transaction.landed) {
+                continue;
+            }
+            boolean blockhashExpired = blockHeight >= 0 && transaction.lastValidBlockHeight >= 0
+                    && blockHeight > transaction.lastValidBlockHeight;
+            if ((blockhashExpired || now - transaction.sentAtNanos > timeout)
+                    && pending.remove(entry.getKey(), transaction)) {
+                expired.incrementAndGet();
+                transaction.future.completeExceptionally(new RpcException("Transaction " + entry.getKey()
+                        + (blockhashExpired ? " expired before it landed" : " not confirmed in time")));
+            }
+        }
+    }
+
+    private void applyStatuses(List<String> signatures, SignatureStatuses statuses) {
+        int target = rank(config.getCommitment().getValue());
+        for (int i = 0; i < signatures.size() && i < statuses.getValue().size(); i++) {
+            String signature = signatures.get(i);
+            Pending transaction = pending.get(signature);
+            if (transaction == null) {
+                continue;
+            }
+            SignatureStatuses.Value status = statuses.getValue().get(i);
+            // dropped again if its fork was abandoned
+            transaction.landed = status != null;
+            if (status == null || rank(confirmationStatus(status)) < target) {
+                continue;
+            }
+            if (pending.remove(signature, transaction)) {
+                confirmed.incrementAndGet();
+                transaction.future.complete(new TransactionResult(signature, status.getSlot(),
+                        confirmationStatus(status), status.getErr()));
+            }
+        }
+    }
+
+    private static String confirmationStatus(SignatureStatuses.Value status) {
+        if (status.getConfirmationStatus() != null) {
+            return status.getConfirmationStatus();
+        }
+        // older nodes only report confirmations, which are null once the transaction is rooted
+        return status.getConfirmations() == null ? Commitment.FINALIZED.getValue() : Commitment.CONFIRMED.getValue();
+    }
+
+    private static int rank(String commitment) {
+        if (Commitment.FINALIZED.getValue().equals(commitment)) {
+            return 2;
+        }
+        if (Commitment.CONFIRMED.getValue().equals(commitment)) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private void fail(Pending transaction, Throwable error) {
+        failed.incrementAndGet();
+        transaction.future.completeExceptionally(error);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Returns the estimator sizing the compute unit limit of transactions submitted as instructions.
+     *
+     * @return the compute unit estimator
+     */
+    public ComputeUnitEstimator getComputeUnitEstimator() {
+        return computeUnitEstimator;
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /**
+     * Returns how many transactions were accepted by sendTransaction.
+     *
+     * @return the number of sent transactions
+     */
+    public long getSent() {
+        return sent.get();
+    }
+
+    /**
+     * Returns how many transactions reached the configured commitment, including ones that failed on chain.
+     *
+     * @return the number of confirmed transactions
+     */
+    public long getConfirmed() {
+        return confirmed.get();
+    }
+
+    /**
+     * Returns how many transactions could not be signed or sent.
+     *
+     * @return the number of failed transactions
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns how many sent transactions did not land in time.
+     *
+     * @return the number of expired transactions
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    /**
+     * Returns how many getSignatureStatuses requests were made.
+     *
+     * @return the number of status requests
+     */
+    public long getStatusRequests() {
+        return statusRequests.get();
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * Returns how many sent transactions are awaiting confirmation.
+     *
+     * @return the number of pending transactions
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Stops sending and polling. Futures of transactions not yet confirmed complete exceptionally.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        signers.shutdownNow();
+        poller.shutdownNow();
+        RpcException error = new RpcException("TransactionSender is closed");
+        List<Pending> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        queued.forEach(transaction -> fail(transaction, error));
+        pending.values().forEach(transaction -> transaction.future.completeExceptionally(error));
+        pending.clear();
+    }
+}
@@ -1,5 +1,7 @@
 package org.p2p.solanaj.utils;
 
+import java.nio.ByteBuffer;
+
 import static org.bitcoinj.core.Utils.*;
 
 public class ShortvecEncoding {
@@ -27,4 +29,56 @@ public class ShortvecEncoding {
 
         return bytes;
     }
+
+    /**
+     * Returns the number of bytes {@link #encodeLength(int)} produces for a length.
+     *
+     * @param len the length to encode
+     * @return the size of the encoded length
+     */
+    public static int encodedLength(int len) {
+        int size = 1;
+        for (int remLen = len >>> 7; remLen != 0; remLen >>>= 7) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the encoding of a length into a buffer.
+     *
+     * @param out    the buffer
+     * @param offset the position to write at
+     * @param len    the length to encode
+     * @return the position after the encoded length
+     */
+    public static int writeLength(byte[] out, int offset, int len) {
+        int remLen = len;
+        while ((remLen & ~0x7f) != 0) {
+            out[offset++] = (byte) ((remLen & 0x7f) | 0x80);
+            remLen >>>= 7;
+        }
+        out[offset++] = (byte) remLen;
+        return offset;
+    }
+
+    /**
+     * Reads an encoded length at the position of a buffer and advances the position past it.
+     *
+     * @param buffer the buffer
+     * @return the decoded length
+     * @throws IllegalArgumentException if the encoding is longer than the three bytes of a u16
+     * @throws java.nio.BufferUnderflowException if the buffer ends within the encoding
+     */
+    public static int decodeLength(ByteBuffer buffer) {
+        int len = 0;
+        for (int shift = 0; shift < 21; shift += 7) {
+            int elem = buffer.get() & 0xff;
+            len |= (elem & 0x7f) << shift;
+            if ((elem & 0x80) == 0) {
+                return len;
+            }
+        }
+        throw new IllegalArgumentException("Invalid shortvec length");
+    }
 }
@@ -0,0 +1,337 @@
+package org.p2p.solanaj.ws;
+
+import org.p2p.solanaj.rpc.types.RpcRequest;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.ws.listeners.NotificationEventListener;
+import org.p2p.solanaj.ws.listeners.SlotAwareNotificationEventListener;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shares WebSocket connections and subscriptions between all users of an endpoint.
+ * <p>
+ * Each endpoint gets a small pool of {@link SubscriptionWebSocketClient} connections, one by default, opened on
+ * first use and multiplexing all subscriptions to the endpoint. New subscriptions go to the connection with the
+ * fewest subscriptions. Identical subscriptions, i.e. the same method with the same parameters, are made only once
+ * and reference counted: every listener receives the notifications, and the subscription is cancelled on the
+ * server when the last {@link Subscription} of it is closed.
+ * <p>
+ * {@link #getShared()} is the manager used by {@link org.p2p.solanaj.rpc.RpcClient} unless configured otherwise.
+ */
+public class SubscriptionManager implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(SubscriptionManager.class.getName());
+
+    private static final SubscriptionManager SHARED = new SubscriptionManager();
+
+    private final int connectionsPerEndpoint;
+    private final Function<URI, SubscriptionWebSocketClient> connector;
+    private final Map<URI, List<Connection>> connections = new HashMap<>();
+
+    /**
+     * A pooled connection and the subscriptions made on it.
+     */
+    private static class Connection {
+        final SubscriptionWebSocketClient client;
+        final Map<List<Object>, SharedSubscription> subscriptions = new HashMap<>();
+
+        Connection(SubscriptionWebSocketClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * A subscription on the server, which forwards its notifications to all of its listeners.
+     */
+    private class SharedSubscription implements SlotAwareNotificationEventListener {
+        final Connection connection;
+        final List<Object> key;
+        final boolean cancelledByServer;
+        final List<NotificationEventListener> listeners = new CopyOnWriteArrayList<>();
+        volatile long subscriptionId = -1;
+        boolean cancelled;
+
+        SharedSubscription(Connection connection, List<Object> key) {
+            this.connection = connection;
+            this.key = key;
+            // the server cancels a signature subscription after its notification
+            this.cancelledByServer = "signatureSubscribe".equals(key.get(0));
+        }
+
+        @Override
+        public void onNotificationEvent(Object data, long slot) {
+            if (cancelledByServer) {
+                synchronized (SubscriptionManager.this) {
+                    connection.subscriptions.remove(key, this);
+                    cancelled = true;
+                }
+            }
+            for (NotificationEventListener listener : listeners) {
+                try {
+                    if (listener instanceof SlotAwareNotificationEventListener) {
+                        ((SlotAwareNotificationEventListener) listener).onNotificationEvent(data, slot);
+                    } else {
+                        listener.onNotificationEvent(data);
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Listener of " + key.get(0) + " failed", e);
+                }
+            }
+        }
+
+        @Override
+        public void onSubscribed(long subscriptionId) {
+            boolean unsubscribe;
+            synchronized (SubscriptionManager.this) {
+                this.subscriptionId = subscriptionId;
+                unsubscribe = cancelled && !cancelledByServer;
+            }
+            if (unsubscribe) {
+                unsubscribe(connection, subscriptionId);
+                return;
+            }
+            for (NotificationEventListener listener : listeners) {
+                if (listener instanceof SlotAwareNotificationEventListener) {
+                    ((SlotAwareNotificationEventListener) listener).onSubscribed(subscriptionId);
+                }
+            }
+        }
+    }
+
+    /**
+     * A listener's share of a subscription; closing it cancels the subscription once no listener is left.
+     */
+    public class Subscription implements Closeable {
+        private final SharedSubscription shared;
+        private final NotificationEventListener listener;
+        private boolean closed;
+
+        private Subscription(SharedSubscription shared, NotificationEventListener listener) {
+            this.shared = shared;
+            this.listener = listener;
+        }
+
+        /**
+         * Returns the id of the subscription on the server.
+         *
+         * @return the subscription id, or -1 until the server confirmed the subscription
+         */
+        public long getSubscriptionId() {
+            return shared.subscriptionId;
+        }
+
+        @Override
+        public void close() {
+            long subscriptionId;
+            synchronized (SubscriptionManager.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                shared.listeners.remove(listener);
+                if (!shared.listeners.isEmpty() || shared.cancelled) {
+                    return;
+                }
+                shared.cancelled = true;
+                shared.connection.subscriptions.remove(shared.key, shared);
+                subscriptionId = shared.subscriptionId;
+            }
+            // otherwise cancelled once confirmed
+            if (subscriptionId >= 0) {
+                unsubscribe(shared.connection, subscriptionId);
+            }
+        }
+    }
+
+    public SubscriptionManager() {
+        this(1);
+    }
+
+    /**
+     * @param connectionsPerEndpoint maximum number of connections opened to an endpoint
+     */
+    public SubscriptionManager(int connectionsPerEndpoint) {
+        this(connectionsPerEndpoint, uri -> {
+            SubscriptionWebSocketClient client = new SubscriptionWebSocketClient(uri);
+            client.connect();
+            return client;
+        });
+    }
+
+    /**
+     * @param connectionsPerEndpoint maximum number of connections opened to an endpoint
+     * @param connector              opens a connection to a WebSocket URI
+     */
+    public SubscriptionManager(int connectionsPerEndpoint, Function<URI, SubscriptionWebSocketClient> connector) {
+        this.connectionsPerEndpoint = Math.max(1, connectionsPerEndpoint);
+        this.connector = connector;
+    }
+
+    /**
+     * Returns the manager shared by the whole application.
+     *
+     * @return the shared manager
+     */
+    public static SubscriptionManager getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Subscribes to notifications, sharing an identical subscription if one exists.
+     *
+     * @param endpoint the RPC endpoint, see {@link SubscriptionWebSocketClient#webSocketUri(String)}
+     * @param method   the subscribe method, e.g. accountSubscribe
+     * @param params   the parameters of the subscribe request
+     * @param listener the listener to notify
+     * @return the subscription, to be closed when no longer needed
+     */
+    public Subscription subscribe(String endpoint, String method, List<Object> params,
+                                  NotificationEventListener listener) {
+        List<Object> key = Arrays.asList(method, new ArrayList<>(params));
+        URI uri = SubscriptionWebSocketClient.webSocketUri(endpoint);
+        SharedSubscription shared;
+        boolean created = false;
+        long subscriptionId;
+        synchronized (this) {
+            List<Connection> pool = connections.computeIfAbsent(uri, ignored -> new ArrayList<>());
+            shared = null;
+            for (Connection connection : pool) {
+                shared = connection.subscriptions.get(key);
+                if (shared != null) {
+                    break;
+                }
+            }
+            if (shared == null) {
+                Connection connection = leastLoaded(uri, pool);
+                shared = new SharedSubscription(connection, key);
+                connection.subscriptions.put(key, shared);
+                created = true;
+            }
+            shared.listeners.add(listener);
+            subscriptionId = shared.subscriptionId;
+        }
+
+        if (created) {
+            shared.connection.client.addSubscription(new RpcRequest(method, params), shared);
+        } else if (subscriptionId >= 0 && listener instanceof SlotAwareNotificationEventListener) {
+            ((SlotAwareNotificationEventListener) listener).onSubscribed(subscriptionId);
+        }
+        return new Subscription(shared, listener);
+    }
+
+    public Subscription signatureSubscribe(String endpoint, String signature, NotificationEventListener listener) {
+        List<Object> params = new ArrayList<>();
+        params.add(signature);
+        return subscribe(endpoint, "signatureSubscribe", params, listener);
+    }
+
+    public Subscription accountSubscribe(String endpoint, String account, Commitment commitment, String encoding,
+                                         NotificationEventListener listener) {
+        List<Object> params = new ArrayList<>();
+        params.add(account);
+        params.add(Map.of("encoding", encoding, "commitment", commitment.getValue()));
+        return subscribe(endpoint, "accountSubscribe", params, listener);
+    }
+
+    /**
+     * Subscribes to updates of the program accounts matching the given filters.
+     *
+     * @param filters memcmp and dataSize filters, as in getProgramAccounts, or null
+     */
+    public Subscription programSubscribe(String endpoint, String programId, Commitment commitment, String encoding,
+                                         List<Object> filters, NotificationEventListener listener) {
+        List<Object> params = new ArrayList<>();
+        params.add(programId);
+        Map<String, Object> config = new HashMap<>();
+        config.put("encoding", encoding);
+        config.put("commitment", commitment.getValue());
+        if (filters != null && !filters.isEmpty()) {
+            config.put("filters", filters);
+        }
+        params.add(config);
+        return subscribe(endpoint, "programSubscribe", params, listener);
+    }
+
+    public Subscription slotSubscribe(String endpoint, NotificationEventListener listener) {
+        return subscribe(endpoint, "slotSubscribe", new ArrayList<>(), listener);
+    }
+
+    /**
+     * Returns a connection to the endpoint, for subscriptions the manager does not track itself.
+     *
+     * @param endpoint the RPC endpoint
+     * @return the connection with the fewest subscriptions
+     */
+    public synchronized SubscriptionWebSocketClient getClient(String endpoint) {
+        URI uri = SubscriptionWebSocketClient.webSocketUri(endpoint);
+        return leastLoaded(uri, connections.computeIfAbsent(uri, ignored -> new ArrayList<>())).client;
+    }
+
+    private Connection leastLoaded(URI uri, List<Connection> pool) {
+        Connection leastLoaded = null;
+        for (Connection connection : pool) {
+            if (leastLoaded == null || connection.subscriptions.size() < leastLoaded.subscriptions.size()) {
+                leastLoaded = connection;
+            }
+        }
+        if (leastLoaded == null || (!leastLoaded.subscriptions.isEmpty() && pool.size() < connectionsPerEndpoint)) {
+            leastLoaded = new Connection(connector.apply(uri));
+            pool.add(leastLoaded);
+        }
+        return leastLoaded;
+    }
+
+    private static void unsubscribe(Connection connection, long subscriptionId) {
+        try {
+            connection.client.unsubscribe(String.valueOf(subscriptionId));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not unsubscribe " + subscriptionId, e);
+        }
+    }
+
+    /**
+     * Returns the number of open connections over all endpoints.
+     *
+     * @return the number of connections
+     */
+    public synchronized int getConnectionCount() {
+        return connections.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Returns the number of subscriptions on the servers, each shared by one or more listeners.
+     *
+     * @return the number of subscriptions
+     */
+    public synchronized int getSubscriptionCount() {
+        return connections.values().stream()
+                .flatMap(List::stream)
+                .mapToInt(connection -> connection.subscriptions.size())
+                .sum();
+    }
+
+    /**
+     * Closes all connections.
+     */
+    @Override
+    public void close() {
+        List<Connection> closing = new ArrayList<>();
+        synchronized (this) {
+            connections.values().forEach(closing::addAll);
+            connections.clear();
+        }
+        for (Connection connection : closing) {
+            connection.client.close();
+        }
+    }
+}
@@ -23,7 +23,9 @@ import org.java_websocket.handshake.ServerHandshake;
 import org.p2p.solanaj.rpc.types.RpcNotificationResult;
 import org.p2p.solanaj.rpc.types.RpcRequest;
 import org.p2p.solanaj.rpc.types.RpcResponse;
+import org.p2p.solanaj.rpc.types.RpcResultObject;
 import org.p2p.solanaj.ws.listeners.NotificationEventListener;
+import org.p2p.solanaj.ws.listeners.SlotAwareNotificationEventListener;
 
 /**
  * SubscriptionWebSocketClient is a WebSocket client for managing subscriptions to various Solana events.
@@ -53,11 +55,23 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
     private final Map<String, SubscriptionParams> subscriptions = new ConcurrentHashMap<>();
     private final Map<String, Long> subscriptionIds = new ConcurrentHashMap<>();
     private final Map<Long, NotificationEventListener> subscriptionListeners = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private final CountDownLatch connectLatch = new CountDownLatch(1);
 
     private int reconnectDelay = INITIAL_RECONNECT_DELAY;
-    private final Moshi moshi = new Moshi.Builder().build();
+    private volatile ScheduledFuture<?> heartbeat;
+
+    /** Heartbeats and reconnects of all clients share one scheduler, and parsing one Moshi instance. */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "solanaj-ws");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Moshi MOSHI = new Moshi.Builder().build();
+    private static final JsonAdapter<RpcRequest> REQUEST_ADAPTER = MOSHI.adapter(RpcRequest.class);
+    private static final JsonAdapter<RpcResponse<Long>> RESULT_ADAPTER = MOSHI.adapter(
+            Types.newParameterizedType(RpcResponse.class, Long.class));
+    private static final JsonAdapter<RpcNotificationResult> NOTIFICATION_ADAPTER =
+            MOSHI.adapter(RpcNotificationResult.class);
 
     private final Map<String, SubscriptionParams> activeSubscriptions = new ConcurrentHashMap<>();
     private final Lock subscriptionLock = new ReentrantLock();
@@ -108,13 +122,24 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
      * @return A new SubscriptionWebSocketClient instance
      */
     public static SubscriptionWebSocketClient getInstance(String endpoint) {
+        SubscriptionWebSocketClient instance = new SubscriptionWebSocketClient(webSocketUri(endpoint));
+        instance.connect();
+        return instance;
+    }
+
+    /**
+     * Derives the WebSocket URI of an RPC endpoint: wss for https and wss endpoints, ws otherwise, on the same
+     * host.
+     *
+     * @param endpoint The endpoint URL
+     * @return the WebSocket URI
+     */
+    public static URI webSocketUri(String endpoint) {
         try {
             URI endpointURI = new URI(endpoint);
-            String scheme = "https".equals(endpointURI.getScheme()) ? "wss" : "ws";
-            URI serverURI = new URI(scheme + "://" + endpointURI.getHost());
-            SubscriptionWebSocketClient instance = new SubscriptionWebSocketClient(serverURI);
-            instance.connect();
-            return instance;
+            String scheme = "https".equals(endpointURI.getScheme()) || "wss".equals(endpointURI.getScheme())
+                    ? "wss" : "ws";
+            return new URI(scheme + "://" + endpointURI.getHost());
         } catch (URISyntaxException e) {
             throw new IllegalArgumentException("Invalid endpoint URI", e);
         }
@@ -235,9 +260,29 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
      * @param encoding The encoding format for program data
      */
     public void programSubscribe(String programId, NotificationEventListener listener, Commitment commitment, String encoding) {
+        programSubscribe(programId, listener, commitment, encoding, null);
+    }
+
+    /**
+     * Subscribes to updates of the program accounts matching the given filters.
+     *
+     * @param programId The program ID to subscribe to
+     * @param listener The listener to handle notifications
+     * @param commitment The commitment level for the subscription
+     * @param encoding The encoding format for program data
+     * @param filters memcmp and dataSize filters, as in getProgramAccounts, or null
+     */
+    public void programSubscribe(String programId, NotificationEventListener listener, Commitment commitment,
+                                 String encoding, List<Object> filters) {
         List<Object> params = new ArrayList<>();
         params.add(programId);
-        params.add(Map.of("encoding", encoding, "commitment", commitment.getValue()));
+        Map<String, Object> config = new HashMap<>();
+        config.put("encoding", encoding);
+        config.put("commitment", commitment.getValue());
+        if (filters != null && !filters.isEmpty()) {
+            config.put("filters", filters);
+        }
+        params.add(config);
 
         RpcRequest rpcRequest = new RpcRequest("programSubscribe", params);
         addSubscription(rpcRequest, listener);
@@ -346,8 +391,7 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
         List<Object> params = new ArrayList<>();
         params.add(Long.parseLong(subscriptionId));
         RpcRequest unsubRequest = new RpcRequest(method, params);
-        JsonAdapter<RpcRequest> rpcRequestJsonAdapter = moshi.adapter(RpcRequest.class);
-        send(rpcRequestJsonAdapter.toJson(unsubRequest));
+        send(REQUEST_ADAPTER.toJson(unsubRequest));
 
         subscriptionLock.lock();
         try {
@@ -375,7 +419,10 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
         } finally {
             subscriptionLock.unlock();
         }
-        updateSubscriptions();
+        // only the new request: resending the pending ones would subscribe them twice
+        if (isOpen()) {
+            send(REQUEST_ADAPTER.toJson(rpcRequest));
+        }
     }
 
     /**
@@ -388,7 +435,11 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
         LOGGER.info("WebSocket connection opened");
         reconnectDelay = INITIAL_RECONNECT_DELAY;
         startHeartbeat();
-        connectLatch.countDown();
+        if (connectLatch.getCount() > 0) {
+            connectLatch.countDown();
+            // subscriptions added while connecting; after a reconnect resubscribeAll sends them
+            updateSubscriptions();
+        }
     }
 
     /**
@@ -399,9 +450,7 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
     @Override
     public void onMessage(String message) {
         try {
-            JsonAdapter<RpcResponse<Long>> resultAdapter = moshi.adapter(
-                    Types.newParameterizedType(RpcResponse.class, Long.class));
-            RpcResponse<Long> rpcResult = resultAdapter.fromJson(message);
+            RpcResponse<Long> rpcResult = RESULT_ADAPTER.fromJson(message);
             if(rpcResult!=null && rpcResult.getError()!=null){
                 throw new IllegalStateException(rpcResult.getError().toString());
             }
@@ -431,6 +480,9 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
                 // Update the activeSubscriptions map with the new subscription ID
                 activeSubscriptions.put(String.valueOf(rpcResult.getResult()), params);
                 activeSubscriptions.remove(rpcResultId);
+                if (params.listener instanceof SlotAwareNotificationEventListener) {
+                    ((SlotAwareNotificationEventListener) params.listener).onSubscribed(rpcResult.getResult());
+                }
             }
         }
     }
@@ -442,8 +494,7 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
      * @throws Exception If an error occurs while processing the notification
      */
     private void handleNotification(String message) throws Exception {
-        JsonAdapter<RpcNotificationResult> notificationResultAdapter = moshi.adapter(RpcNotificationResult.class);
-        RpcNotificationResult result = notificationResultAdapter.fromJson(message);
+        RpcNotificationResult result = NOTIFICATION_ADAPTER.fromJson(message);
         if (result != null) {
             Long subscriptionId = result.getParams().getSubscription();
             listenerLock.lock();
@@ -454,13 +505,32 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
                     switch (result.getMethod()) {
                         case "signatureNotification":
                             listener.onNotificationEvent(new SignatureNotification(value.get("err")));
+                            // the server cancels a signature subscription after its notification
+                            subscriptionListeners.remove(subscriptionId);
+                            activeSubscriptions.remove(String.valueOf(subscriptionId));
                             break;
                         case "accountNotification":
+                        case "programNotification":
+                            if (listener instanceof SlotAwareNotificationEventListener) {
+                                RpcResultObject.Context context = result.getParams().getResult().getContext();
+                                ((SlotAwareNotificationEventListener) listener).onNotificationEvent(value,
+                                        context != null ? context.getSlot() : -1);
+                            } else {
+                                listener.onNotificationEvent(value);
+                            }
+                            break;
+                        case "slotNotification":
+                            RpcNotificationResult.Result slot = result.getParams().getResult();
+                            if (listener instanceof SlotAwareNotificationEventListener) {
+                                ((SlotAwareNotificationEventListener) listener).onNotificationEvent(slotValue(slot),
+                                        slot.getSlot() != null ? slot.getSlot() : -1);
+                            } else {
+                                listener.onNotificationEvent(slotValue(slot));
+                            }
+                            break;
                         case "logsNotification":
                         case "blockNotification":
-                        case "programNotification":
                         case "rootNotification":
-                        case "slotNotification":
                         case "slotsUpdatesNotification":
                         case "voteNotification":
                             listener.onNotificationEvent(value);
@@ -479,6 +549,14 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
         }
     }
 
+    private static Map<String, Object> slotValue(RpcNotificationResult.Result result) {
+        Map<String, Object> value = new HashMap<>();
+        value.put("slot", result.getSlot());
+        value.put("parent", result.getParent());
+        value.put("root", result.getRoot());
+        return value;
+    }
+
     /**
      * Handles WebSocket connection closure.
      *
@@ -535,21 +613,20 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
      * Starts the heartbeat mechanism to keep the connection alive.
      */
     private void startHeartbeat() {
-        executor.scheduleAtFixedRate(this::sendPing, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.SECONDS);
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        heartbeat = SCHEDULER.scheduleAtFixedRate(this::sendPing, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL,
+                TimeUnit.SECONDS);
     }
 
     /**
      * Stops the heartbeat mechanism.
      */
     private void stopHeartbeat() {
-        executor.shutdown();
-        try {
-            if (!executor.awaitTermination(800, TimeUnit.MILLISECONDS)) {
-                executor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
         }
     }
 
@@ -558,15 +635,14 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
      */
     private void updateSubscriptions() {
         if (isOpen()) {
-            JsonAdapter<RpcRequest> rpcRequestJsonAdapter = moshi.adapter(RpcRequest.class);
             for (SubscriptionParams sub : subscriptions.values()) {
-                send(rpcRequestJsonAdapter.toJson(sub.request));
+                send(REQUEST_ADAPTER.toJson(sub.request));
             }
             for (Map.Entry<String, Long> entry : subscriptionIds.entrySet()) {
                 if (entry.getValue() != 0L) {
                     SubscriptionParams params = subscriptions.get(entry.getKey());
                     if (params != null) {
-                        send(rpcRequestJsonAdapter.toJson(params.request));
+                        send(REQUEST_ADAPTER.toJson(params.request));
                     }
                 }
             }
@@ -577,7 +653,7 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
      * Schedules a reconnection attempt with exponential backoff.
      */
     private void scheduleReconnect() {
-        executor.schedule(() -> {
+        SCHEDULER.schedule(() -> {
             reconnect();
             reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY);
         }, reconnectDelay, TimeUnit.MILLISECONDS);
@@ -630,8 +706,7 @@ public class SubscriptionWebSocketClient extends WebSocketClient {
             List<Object> unsubParams = new ArrayList<>();
             unsubParams.add(Long.parseLong(subscriptionId));
             RpcRequest unsubRequest = new RpcRequest(getUnsubscribeMethod(params.request.getMethod()), unsubParams);
-            JsonAdapter<RpcRequest> rpcRequestJsonAdapter = moshi.adapter(RpcRequest.class);
-            send(rpcRequestJsonAdapter.toJson(unsubRequest));
+            send(REQUEST_ADAPTER.toJson(unsubRequest));
 
             // Remove the subscription from subscriptionListeners
             subscriptionListeners.remove(Long.parseLong(subscriptionId));
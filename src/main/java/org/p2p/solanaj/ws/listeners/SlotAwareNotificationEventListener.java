@@ -0,0 +1,30 @@
+package org.p2p.solanaj.ws.listeners;
+
+/**
+ * A listener that also receives the slot at which a notification was produced, and learns when its subscription
+ * is (re-)established, for example after the connection was lost and restored.
+ */
+public interface SlotAwareNotificationEventListener extends NotificationEventListener {
+
+    /**
+     * Handles a notification.
+     *
+     * @param data The notification value
+     * @param slot The slot of the notification context, or -1 if the notification has none
+     */
+    void onNotificationEvent(Object data, long slot);
+
+    @Override
+    default void onNotificationEvent(Object data) {
+        onNotificationEvent(data, -1);
+    }
+
+    /**
+     * Called when the server confirms the subscription. Notifications sent while the subscription was down are
+     * lost, so listeners keeping state should resynchronize on every confirmation after the first.
+     *
+     * @param subscriptionId The ID assigned by the server
+     */
+    default void onSubscribed(long subscriptionId) {
+    }
+}
@@ -0,0 +1,104 @@
+package org.p2p.solanaj.accounts;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.MultipleAccountsInfo;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.utils.FakeRpc;
+import org.p2p.solanaj.utils.FakeWebSocket;
+import org.p2p.solanaj.ws.SubscriptionManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountCacheTest {
+
+    private static final String VALUE = "{\"data\":[\"\",\"base64\"],\"executable\":false,\"lamports\":%d,"
+            + "\"owner\":\"11111111111111111111111111111111\",\"rentEpoch\":0,\"space\":0}";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final FakeWebSocket webSocket = new FakeWebSocket();
+    private String lastRequest;
+
+    @Test
+    public void accountsAreServedFromTheCacheAndKeptFreshBySubscriptions() throws Exception {
+        RpcClient client = fakeClient();
+        client.setSubscriptionManager(new SubscriptionManager(1, uri -> webSocket));
+        // room for two accounts
+        AccountCache cache = new AccountCache(client, 300, Commitment.CONFIRMED);
+        PublicKey pool = new Account().getPublicKey();
+        PublicKey mint = new Account().getPublicKey();
+        PublicKey oneOff = new Account().getPublicKey();
+
+        AccountInfo first = cache.getAccountInfo(pool);
+        assertEquals(100, first.getContext().getSlot());
+        assertEquals(1, first.getValue().getLamports());
+        assertEquals(1, requests.get());
+        webSocket.confirmAccount(pool, 7);
+
+        webSocket.onMessage("{\"jsonrpc\":\"2.0\",\"method\":\"accountNotification\",\"params\":{\"result\":"
+                + "{\"context\":{\"slot\":120},\"value\":" + String.format(VALUE, 5) + "},\"subscription\":7}}");
+        AccountInfo updated = cache.getAccountInfo(pool);
+        assertEquals(5, updated.getValue().getLamports());
+        assertEquals(120, updated.getContext().getSlot());
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getHits());
+
+        // only the mint is fetched, the pool comes from the cache
+        MultipleAccountsInfo accounts = cache.getMultipleAccounts(List.of(pool, mint));
+        assertEquals(2, requests.get());
+        assertFalse(lastRequest.contains(pool.toBase58()));
+        assertEquals(5, accounts.getValue().get(0).getLamports());
+        assertEquals(1, accounts.getValue().get(1).getLamports());
+        assertEquals(110, accounts.getContext().getSlot());
+        webSocket.confirmAccount(mint, 8);
+        assertEquals(2, cache.getEntryCount());
+
+        // a one-off read does not displace the accounts read more often
+        cache.getAccountInfo(pool);
+        assertEquals(1, cache.getAccountInfo(oneOff).getValue().getLamports());
+        assertEquals(1, cache.getRejections());
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(0, cache.getEvictions());
+
+        // read again, it replaces the least recently used account, which is unsubscribed
+        cache.getAccountInfo(oneOff);
+        assertEquals(4, requests.get());
+        assertEquals(1, cache.getEvictions());
+        assertTrue(webSocket.getSent().stream().anyMatch(message -> message.contains("accountUnsubscribe")
+                && message.contains("\"params\":[8]")));
+        cache.getAccountInfo(oneOff);
+        cache.getAccountInfo(pool);
+        assertEquals(4, requests.get());
+        assertTrue(cache.getSizeBytes() <= cache.getMaxBytes());
+
+        // another cache of the same client shares the subscription of the pool
+        AccountCache other = new AccountCache(client);
+        other.getAccountInfo(pool);
+        assertEquals(1, webSocket.getSent().stream().filter(message -> message.contains("accountSubscribe")
+                && message.contains(pool.toBase58())).count());
+        other.close();
+        assertFalse(webSocket.getSent().stream().anyMatch(message -> message.contains("\"params\":[7]")));
+
+        cache.close();
+        assertEquals(0, cache.getEntryCount());
+        assertTrue(webSocket.getSent().stream().anyMatch(message -> message.contains("accountUnsubscribe")
+                && message.contains("\"params\":[7]")));
+    }
+
+    private RpcClient fakeClient() {
+        return FakeRpc.client(body -> {
+            requests.incrementAndGet();
+            lastRequest = body;
+            if (body.contains("getMultipleAccounts")) {
+                return "{\"context\":{\"slot\":110},\"value\":[" + String.format(VALUE, 1) + "]}";
+            }
+            return "{\"context\":{\"slot\":100},\"value\":" + String.format(VALUE, 1) + "}";
+        });
+    }
+}
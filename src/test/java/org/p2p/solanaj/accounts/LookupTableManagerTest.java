@@ -0,0 +1,264 @@
+package org.p2p.solanaj.accounts;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.AccountMeta;
+import org.p2p.solanaj.core.AddressLookupTable;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.core.VersionedTransaction;
+import org.p2p.solanaj.programs.AddressLookupTableProgram;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.utils.FakeRpc;
+import org.p2p.solanaj.utils.FakeWebSocket;
+import org.p2p.solanaj.ws.SubscriptionManager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LookupTableManagerTest {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final List<String> requests = new ArrayList<>();
+    private final FakeWebSocket webSocket = new FakeWebSocket();
+
+    private final PublicKey payer = new Account().getPublicKey();
+    private final PublicKey program = new Account().getPublicKey();
+    private final PublicKey poolA = new Account().getPublicKey();
+    private final PublicKey poolB = new Account().getPublicKey();
+    private final PublicKey mint = new Account().getPublicKey();
+    private final PublicKey oracle = new Account().getPublicKey();
+    private final PublicKey vault = new Account().getPublicKey();
+
+    @Test
+    public void tablesAreChosenByCoverageAndKeptUpToDate() throws Exception {
+        LookupTableManager manager = new LookupTableManager(fakeClient());
+        PublicKey first = new Account().getPublicKey();
+        PublicKey second = new Account().getPublicKey();
+        results.put("getMultipleAccounts", "{\"context\":{\"slot\":100},\"value\":["
+                + account(table(-1, null, poolA, poolB, mint)) + "," + account(table(-1, null, poolB, oracle)) + "]}");
+
+        manager.addTables(List.of(first, second));
+        AddressLookupTable decoded = manager.getTable(second);
+        assertEquals(List.of(poolB, oracle), decoded.getAddresses());
+        assertTrue(decoded.isActive());
+        assertNull(decoded.getAuthority());
+        assertEquals(90, decoded.getLastExtendedSlot());
+
+        // the second table would only add the oracle, which does not pay for the table
+        assertEquals(List.of(manager.getTable(first)), manager.selectTables(payer, swap()));
+        assertEquals(4, manager.getLookups());
+        assertEquals(3, manager.getHits());
+        assertEquals(1, manager.compile(payer, swap()).getAddressTableLookups().size());
+
+        webSocket.confirmAccount(second, 9);
+        notify(9, 120, table(-1, null, poolB, oracle, vault));
+        List<TransactionInstruction> withVault = new ArrayList<>(swap());
+        withVault.add(new TransactionInstruction(program, List.of(new AccountMeta(vault, false, true)),
+                new byte[0]));
+        // both tables now add three accounts, the one added first wins
+        assertEquals(List.of(manager.getTable(first), manager.getTable(second)),
+                manager.selectTables(payer, withVault));
+
+        // deactivated tables are no longer used
+        webSocket.confirmAccount(first, 8);
+        notify(8, 130, table(125, null, poolA, poolB, mint));
+        assertFalse(manager.getTable(first).isActive());
+        assertEquals(List.of(manager.getTable(second)), manager.selectTables(List.of(poolA, poolB, oracle)));
+
+        manager.close();
+        assertNull(manager.getTable(first));
+        assertTrue(webSocket.getSent().stream().anyMatch(message -> message.contains("accountUnsubscribe")));
+    }
+
+    @Test
+    public void accountsMissedRepeatedlyAreAddedToANewTable() throws Exception {
+        LookupTableManager manager = new LookupTableManager(fakeClient());
+        Account authority = new Account();
+        results.put("getSlot", "500");
+        results.put("getLatestBlockhash", "{\"context\":{\"slot\":500},\"value\":{\"blockhash\":\"" + BLOCKHASH
+                + "\",\"lastValidBlockHeight\":600}}");
+        results.put("sendTransaction", "\"sig\"");
+        List<PublicKey> accounts = List.of(poolA, poolB, mint);
+
+        manager.selectTables(accounts);
+        manager.selectTables(accounts);
+        assertEquals(List.of(), manager.maintain(authority));
+        manager.selectTables(accounts);
+        assertEquals(List.of("sig"), manager.maintain(authority));
+
+        PublicKey table = AddressLookupTableProgram.deriveLookupTableAddress(authority.getPublicKey(), 500)
+                .getAddress();
+        VersionedTransaction expected = new VersionedTransaction(authority.getPublicKey(), List.of(
+                AddressLookupTableProgram.createLookupTable(authority.getPublicKey(), authority.getPublicKey(), 500),
+                AddressLookupTableProgram.extendLookupTable(table, authority.getPublicKey(),
+                        authority.getPublicKey(), accounts)), List.of());
+        expected.setRecentBlockHash(BLOCKHASH);
+        expected.sign(List.of(authority));
+        assertTrue(requests.get(requests.size() - 1)
+                .contains(Base64.getEncoder().encodeToString(expected.serialize())));
+
+        // addresses already sent are not sent again while the table is not updated yet
+        int sentTransactions = count("sendTransaction");
+        for (int i = 0; i < 3; i++) {
+            manager.selectTables(accounts);
+        }
+        assertEquals(List.of(), manager.maintain(authority));
+        assertEquals(sentTransactions, count("sendTransaction"));
+
+        webSocket.confirmAccount(table, 11);
+        notify(11, 520, table(-1, authority.getPublicKey(), poolA, poolB, mint));
+        assertEquals(List.of(manager.getTable(table)), manager.selectTables(accounts));
+        assertEquals(authority.getPublicKey(), manager.getTable(table).getAuthority());
+    }
+
+    @Test
+    public void addressesBeyondOneTransactionWaitForTheNewTable() throws Exception {
+        LookupTableManager manager = new LookupTableManager(fakeClient());
+        Account authority = new Account();
+        results.put("getSlot", "500");
+        results.put("getLatestBlockhash", "{\"context\":{\"slot\":500},\"value\":{\"blockhash\":\"" + BLOCKHASH
+                + "\",\"lastValidBlockHeight\":600}}");
+        results.put("sendTransaction", "\"sig\"");
+        List<PublicKey> accounts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            accounts.add(new Account().getPublicKey());
+        }
+        for (int i = 0; i < 3; i++) {
+            manager.selectTables(accounts);
+        }
+
+        // the table is created with the first addresses only
+        assertEquals(List.of("sig"), manager.maintain(authority));
+        assertEquals(1, count("sendTransaction"));
+        PublicKey table = AddressLookupTableProgram.deriveLookupTableAddress(authority.getPublicKey(), 500)
+                .getAddress();
+        VersionedTransaction created = new VersionedTransaction(authority.getPublicKey(), List.of(
+                AddressLookupTableProgram.createLookupTable(authority.getPublicKey(), authority.getPublicKey(), 500),
+                AddressLookupTableProgram.extendLookupTable(table, authority.getPublicKey(),
+                        authority.getPublicKey(), accounts.subList(0, 20))), List.of());
+        created.setRecentBlockHash(BLOCKHASH);
+        created.sign(List.of(authority));
+        assertTrue(requests.get(requests.size() - 1)
+                .contains(Base64.getEncoder().encodeToString(created.serialize())));
+
+        // the rest is not sent to a table that is not created yet
+        manager.selectTables(accounts);
+        assertEquals(List.of(), manager.maintain(authority));
+        assertEquals(1, count("sendTransaction"));
+
+        webSocket.confirmAccount(table, 11);
+        notify(11, 520, table(-1, authority.getPublicKey(), accounts.subList(0, 20).toArray(new PublicKey[0])));
+        manager.selectTables(accounts);
+        assertEquals(List.of("sig"), manager.maintain(authority));
+        VersionedTransaction extended = new VersionedTransaction(authority.getPublicKey(), List.of(
+                AddressLookupTableProgram.extendLookupTable(table, authority.getPublicKey(),
+                        authority.getPublicKey(), accounts.subList(20, 25))), List.of());
+        extended.setRecentBlockHash(BLOCKHASH);
+        extended.sign(List.of(authority));
+        assertTrue(requests.get(requests.size() - 1)
+                .contains(Base64.getEncoder().encodeToString(extended.serialize())));
+    }
+
+    @Test
+    public void tablesNeverCreatedAreDroppedAfterTheExtensionTimeout() throws Exception {
+        LookupTableManager manager = new LookupTableManager(fakeClient());
+        manager.setExtensionTimeout(Duration.ofMillis(1));
+        Account authority = new Account();
+        results.put("getSlot", "500");
+        results.put("getLatestBlockhash", "{\"context\":{\"slot\":500},\"value\":{\"blockhash\":\"" + BLOCKHASH
+                + "\",\"lastValidBlockHeight\":600}}");
+        results.put("sendTransaction", "\"sig\"");
+        List<PublicKey> accounts = List.of(poolA, poolB, mint);
+        for (int i = 0; i < 3; i++) {
+            manager.selectTables(accounts);
+        }
+        assertEquals(List.of("sig"), manager.maintain(authority));
+        PublicKey lost = AddressLookupTableProgram.deriveLookupTableAddress(authority.getPublicKey(), 500)
+                .getAddress();
+
+        // the creation never lands, so a new table is created instead of waiting for it forever
+        Thread.sleep(10);
+        results.put("getSlot", "600");
+        manager.selectTables(accounts);
+        assertEquals(List.of("sig"), manager.maintain(authority));
+        assertEquals(2, count("sendTransaction"));
+        assertNull(manager.getTable(lost));
+        PublicKey table = AddressLookupTableProgram.deriveLookupTableAddress(authority.getPublicKey(), 600)
+                .getAddress();
+        VersionedTransaction expected = new VersionedTransaction(authority.getPublicKey(), List.of(
+                AddressLookupTableProgram.createLookupTable(authority.getPublicKey(), authority.getPublicKey(), 600),
+                AddressLookupTableProgram.extendLookupTable(table, authority.getPublicKey(),
+                        authority.getPublicKey(), accounts)), List.of());
+        expected.setRecentBlockHash(BLOCKHASH);
+        expected.sign(List.of(authority));
+        assertTrue(requests.get(requests.size() - 1)
+                .contains(Base64.getEncoder().encodeToString(expected.serialize())));
+    }
+
+    private List<TransactionInstruction> swap() {
+        return List.of(new TransactionInstruction(program, List.of(
+                new AccountMeta(payer, true, true),
+                new AccountMeta(poolA, false, true),
+                new AccountMeta(poolB, false, true),
+                new AccountMeta(mint, false, false),
+                new AccountMeta(oracle, false, false)), new byte[] {1}));
+    }
+
+    /**
+     * Encodes lookup table account data.
+     */
+    private static byte[] table(long deactivationSlot, PublicKey authority, PublicKey... addresses) {
+        ByteBuffer data = ByteBuffer.allocate(AddressLookupTable.META_LENGTH + 32 * addresses.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(1).putLong(deactivationSlot).putLong(90).put((byte) 0);
+        if (authority != null) {
+            data.put((byte) 1).put(authority.toByteArray());
+        }
+        data.position(AddressLookupTable.META_LENGTH);
+        for (PublicKey address : addresses) {
+            data.put(address.toByteArray());
+        }
+        return data.array();
+    }
+
+    private static String account(byte[] data) {
+        return "{\"data\":[\"" + Base64.getEncoder().encodeToString(data) + "\",\"base64\"],\"executable\":false,"
+                + "\"lamports\":1000,\"owner\":\"" + AddressLookupTableProgram.PROGRAM_ID + "\",\"rentEpoch\":0}";
+    }
+
+    private void notify(long subscriptionId, long slot, byte[] data) {
+        webSocket.onMessage("{\"jsonrpc\":\"2.0\",\"method\":\"accountNotification\",\"params\":{\"result\":"
+                + "{\"context\":{\"slot\":" + slot + "},\"value\":" + account(data) + "},\"subscription\":"
+                + subscriptionId + "}}");
+    }
+
+    private int count(String method) {
+        return (int) requests.stream().filter(request -> request.contains("\"" + method + "\"")).count();
+    }
+
+    private RpcClient fakeClient() {
+        RpcClient client = FakeRpc.client(body -> {
+            requests.add(body);
+            Matcher method = Pattern.compile("\"method\":\"(\\w+)\"").matcher(body);
+            assertTrue(method.find());
+            String result = results.get(method.group(1));
+            assertNotNull(result, method.group(1));
+            return result;
+        });
+        client.setSubscriptionManager(new SubscriptionManager(1, uri -> webSocket));
+        return client;
+    }
+}
@@ -0,0 +1,157 @@
+package org.p2p.solanaj.accounts;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.utils.FakeRpc;
+import org.p2p.solanaj.utils.FakeWebSocket;
+import org.p2p.solanaj.ws.SubscriptionManager;
+import org.p2p.solanaj.ws.SubscriptionWebSocketClient;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgramAccountIndexTest {
+
+    private final PublicKey program = new Account().getPublicKey();
+    private final PublicKey mintA = new Account().getPublicKey();
+    private final PublicKey mintB = new Account().getPublicKey();
+    private final PublicKey first = new Account().getPublicKey();
+    private final PublicKey second = new Account().getPublicKey();
+    private final PublicKey third = new Account().getPublicKey();
+
+    @Test
+    public void snapshotAndNotificationsAreMergedBySlot() throws Exception {
+        AtomicReference<String> snapshot = new AtomicReference<>(snapshot(100,
+                account(first, mintA, 10), account(second, mintA, 20)));
+        FakeWebSocket webSocket = new FakeWebSocket();
+
+        ProgramAccountIndex index = new ProgramAccountIndex(fakeClient(snapshot, webSocket), program);
+        index.start();
+        SecondaryIndex<PublicKey> byMint = index.addIndex(SecondaryIndex.publicKeyAt(0));
+
+        assertEquals(2, index.size());
+        assertEquals(100, index.getSnapshotSlot());
+        assertEquals(Set.of(first, second), byMint.get(mintA));
+        assertTrue(webSocket.getSent().get(0).contains("\"programSubscribe\""));
+
+        webSocket.confirm(webSocket.getSent().get(0), 42);
+
+        // a newer notification moves the first account to another mint, an older one is ignored
+        webSocket.onMessage(notification(105, account(first, mintB, 11)));
+        webSocket.onMessage(notification(99, account(second, mintB, 19)));
+        assertEquals(11, index.get(first).getAccount().getLamports());
+        assertEquals(105, index.getSlot(first));
+        assertEquals(20, index.get(second).getAccount().getLamports());
+        assertEquals(Set.of(second), byMint.get(mintA));
+        assertEquals(Set.of(first), byMint.get(mintB));
+
+        // a notification for a closed account leaves a tombstone
+        webSocket.onMessage(notification(106, closedAccount(third)));
+        assertNull(index.get(third));
+        assertEquals(106, index.getSlot(third));
+
+        // after a reconnect the snapshot drops what it no longer holds, but keeps newer notifications
+        snapshot.set(snapshot(103, account(first, mintA, 10), account(third, mintA, 30)));
+        index.onSubscribed(43);
+        for (int i = 0; i < 100 && index.getReconciliations() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, index.getReconciliations());
+        assertEquals(11, index.get(first).getAccount().getLamports());
+        assertNull(index.get(second));
+        assertNull(index.get(third));
+        assertEquals(1, index.size());
+        assertEquals(List.of(first), index.getAll(byMint.get(mintB)).stream()
+                .map(ProgramAccount::getPublicKey).collect(Collectors.toList()));
+        assertTrue(byMint.get(mintA).isEmpty());
+        assertEquals(106, index.getLatestSlot());
+
+        index.close();
+        assertTrue(webSocket.getLastSent().contains("\"programUnsubscribe\""));
+    }
+
+    @Test
+    public void tombstonesOfClosedAccountsExpire() throws Exception {
+        FakeWebSocket webSocket = new FakeWebSocket();
+        ProgramAccountIndex index = new ProgramAccountIndex(fakeClient(new AtomicReference<>(snapshot(100)),
+                webSocket), program);
+        index.start();
+        webSocket.confirm(webSocket.getSent().get(0), 42);
+        List<PublicKey> closed = new ArrayList<>();
+        long slot = 100;
+        for (int i = 0; i < 1000; i++) {
+            PublicKey address = new Account().getPublicKey();
+            closed.add(address);
+            webSocket.onMessage(notification(++slot, account(address, mintA, 10)));
+            webSocket.onMessage(notification(++slot, closedAccount(address)));
+            assertTrue(index.entryCount() <= ProgramAccountIndex.TOMBSTONE_SLOTS / 2 + 1, "at " + i);
+        }
+
+        assertEquals(0, index.size());
+        assertEquals(-1, index.getSlot(closed.get(0)));
+        // recent closings are still remembered
+        assertEquals(slot, index.getSlot(closed.get(closed.size() - 1)));
+        // an account closed and opened again is not dropped with its tombstone
+        webSocket.onMessage(notification(++slot, account(closed.get(999), mintA, 5)));
+        for (int i = 0; i < ProgramAccountIndex.TOMBSTONE_SLOTS; i++) {
+            webSocket.onMessage(notification(++slot, account(first, mintA, i)));
+        }
+        assertEquals(5, index.get(closed.get(999)).getAccount().getLamports());
+        assertEquals(2, index.entryCount());
+    }
+
+    @Test
+    public void snapshotsWithoutContextAreRejected() {
+        RpcClient client = fakeClient(new AtomicReference<>("[]"));
+        ProgramAccountIndex index = new ProgramAccountIndex(client, program);
+        assertThrows(RpcException.class, index::reconcile);
+    }
+
+    private String account(PublicKey address, PublicKey mint, long lamports) {
+        byte[] data = new byte[64];
+        System.arraycopy(mint.toByteArray(), 0, data, 0, 32);
+        return "{\"pubkey\":\"" + address + "\",\"account\":{\"data\":[\"" + Base64.getEncoder().encodeToString(data)
+                + "\",\"base64\"],\"executable\":false,\"lamports\":" + lamports + ",\"owner\":\"" + program
+                + "\",\"rentEpoch\":0,\"space\":64}}";
+    }
+
+    private String closedAccount(PublicKey address) {
+        return "{\"pubkey\":\"" + address + "\",\"account\":{\"data\":[\"\",\"base64\"],\"executable\":false,"
+                + "\"lamports\":0,\"owner\":\"11111111111111111111111111111111\",\"rentEpoch\":0,\"space\":0}}";
+    }
+
+    private static String snapshot(long slot, String... accounts) {
+        return "{\"context\":{\"slot\":" + slot + "},\"value\":[" + String.join(",", accounts) + "]}";
+    }
+
+    private static String notification(long slot, String value) {
+        return "{\"jsonrpc\":\"2.0\",\"method\":\"programNotification\",\"params\":{\"result\":{\"context\":"
+                + "{\"slot\":" + slot + "},\"value\":" + value + "},\"subscription\":42}}";
+    }
+
+    /**
+     * Returns a client subscribing over the given WebSocket client.
+     */
+    private static RpcClient fakeClient(AtomicReference<String> result, SubscriptionWebSocketClient webSocket) {
+        RpcClient client = fakeClient(result);
+        client.setSubscriptionManager(new SubscriptionManager(1, uri -> webSocket));
+        return client;
+    }
+
+    private static RpcClient fakeClient(AtomicReference<String> result) {
+        return FakeRpc.client(body -> {
+            assertTrue(body.contains("\"withContext\":true"));
+            return result.get();
+        });
+    }
+}
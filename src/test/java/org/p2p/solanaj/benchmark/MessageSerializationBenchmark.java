@@ -0,0 +1,89 @@
+package org.p2p.solanaj.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.Message;
+import org.p2p.solanaj.core.PreviousMessage;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.programs.SystemProgram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of Message.serialize for messages of 5, 20 and 64 accounts, against the previous compiler,
+ * {@link PreviousMessage}, which scanned the account keys for every index and keyed them by their base58 encoding.
+ * Run with {@code main} to get the gc.alloc.rate.norm (bytes per call) column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageSerializationBenchmark {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    @Param({"5", "20", "64"})
+    private int accounts;
+
+    private List<TransactionInstruction> instructions;
+    private Account payer;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() {
+        payer = new Account();
+        instructions = new ArrayList<>();
+        // the payer, the system program and one recipient per transfer
+        for (int i = 0; i < accounts - 2; i++) {
+            instructions.add(SystemProgram.transfer(payer.getPublicKey(), new Account().getPublicKey(), i + 1));
+        }
+        buffer = new byte[4096];
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return message().serialize();
+    }
+
+    @Benchmark
+    public int serializeIntoBuffer() {
+        return message().serialize(buffer, 0);
+    }
+
+    @Benchmark
+    public byte[] serializePrevious() {
+        PreviousMessage message = new PreviousMessage();
+        instructions.forEach(message::addInstruction);
+        message.setRecentBlockHash(BLOCKHASH);
+        message.setFeePayer(payer);
+        return message.serialize();
+    }
+
+    private Message message() {
+        PayerMessage message = new PayerMessage(payer);
+        instructions.forEach(message::addInstruction);
+        message.setRecentBlockHash(BLOCKHASH);
+        return message;
+    }
+
+    private static class PayerMessage extends Message {
+        PayerMessage(Account payer) {
+            setFeePayer(payer);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package org.p2p.solanaj.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.LeaderSchedule;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.rpc.types.config.ProgramAccountConfig;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig.Encoding;
+import org.p2p.solanaj.utils.FakeRpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per call of the RpcApi methods decoded by typed adapters, against decoding the same responses into maps.
+ * The responses are served from memory, so the numbers reflect decoding rather than the network.
+ * Run with {@code main} to get the gc.alloc.rate.norm (bytes per call) column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RpcDecodingBenchmark {
+
+    private static final String OWNER = "TokenkegQfeZyiNwAJbNbGKPFXCWuBvf9Ss623VQ5DA";
+    private static final String DATA = "AQIDBAUGBwgJCgsMDQ4PEBESExQVFhcYGRobHB0eHyAhIiMkJSYnKCkqKywtLi8wMTIzNDU2Nzg5Ojs8PT4/";
+
+    @Param({"100"})
+    private int accounts;
+
+    private RpcClient client;
+    private List<PublicKey> keys;
+    private PublicKey program;
+    private String multipleAccounts;
+    private String programAccounts;
+    private String leaderSchedule;
+
+    @Setup
+    public void setUp() {
+        keys = new ArrayList<>();
+        StringBuilder values = new StringBuilder();
+        StringBuilder programValues = new StringBuilder();
+        for (int i = 0; i < accounts; i++) {
+            PublicKey key = new Account().getPublicKey();
+            keys.add(key);
+            String account = "{\"data\":[\"" + DATA + "\",\"base64\"],\"executable\":false,\"lamports\":" + (2039280 + i)
+                    + ",\"owner\":\"" + OWNER + "\",\"rentEpoch\":18446744073709551615,\"space\":165}";
+            values.append(i == 0 ? "" : ",").append(account);
+            programValues.append(i == 0 ? "" : ",").append("{\"pubkey\":\"").append(key).append("\",\"account\":")
+                    .append(account).append('}');
+        }
+        multipleAccounts = "{\"context\":{\"slot\":1},\"value\":[" + values + "]}";
+        programAccounts = "[" + programValues + "]";
+
+        StringBuilder schedule = new StringBuilder("{");
+        for (int validator = 0; validator < accounts; validator++) {
+            schedule.append(validator == 0 ? "" : ",").append('"').append(keys.get(validator)).append("\":[");
+            for (int slot = 0; slot < 40; slot++) {
+                schedule.append(slot == 0 ? "" : ",").append(validator * 40 + slot);
+            }
+            schedule.append(']');
+        }
+        leaderSchedule = schedule.append('}').toString();
+        program = new Account().getPublicKey();
+
+        client = FakeRpc.client(request -> {
+            if (request.contains("getMultipleAccounts")) {
+                return multipleAccounts;
+            } else if (request.contains("getProgramAccounts")) {
+                return programAccounts;
+            } else if (request.contains("getLeaderSchedule")) {
+                return leaderSchedule;
+            }
+            return "{\"context\":{\"slot\":1},\"value\":true}";
+        });
+    }
+
+    @Benchmark
+    public List<AccountInfo.Value> getMultipleAccounts() throws RpcException {
+        return client.getApi().getMultipleAccounts(keys);
+    }
+
+    @Benchmark
+    public Object getMultipleAccountsAsMap() throws RpcException {
+        return client.call("getMultipleAccounts", List.of(keys.get(0).toBase58()), Map.class);
+    }
+
+    @Benchmark
+    public List<ProgramAccount> getProgramAccounts() throws RpcException {
+        return client.getApi().getProgramAccounts(program, new ProgramAccountConfig(Encoding.base64));
+    }
+
+    @Benchmark
+    public Object getProgramAccountsAsMaps() throws RpcException {
+        return client.call("getProgramAccounts", List.of(program.toBase58()), List.class);
+    }
+
+    @Benchmark
+    public List<LeaderSchedule> getLeaderSchedule() throws RpcException {
+        return client.getApi().getLeaderSchedule();
+    }
+
+    @Benchmark
+    public Object getLeaderScheduleAsMap() throws RpcException {
+        return client.call("getLeaderSchedule", new ArrayList<>(), Map.class);
+    }
+
+    @Benchmark
+    public boolean isBlockhashValid() throws RpcException {
+        return client.getApi().isBlockhashValid("EkSnNWid2cvwEVnVx9aBqawnmiCNiDgp3gUdkDPTKN1N");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RpcDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package org.p2p.solanaj.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.AccountMeta;
+import org.p2p.solanaj.core.AddressLookupTable;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.SerializedMessage;
+import org.p2p.solanaj.core.SerializedTransaction;
+import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.core.VersionedTransaction;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.programs.SystemProgram;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing every transaction of a block as returned by getBlock with base64 encoding: half legacy transfers, half
+ * v0 swaps using a lookup table. Base64 decoding alone is the baseline; on top of it the transactions are parsed
+ * and either only their signatures or also their account keys and invoked programs are read. Scores are per block.
+ * Run with {@code main} to get the gc.alloc.rate.norm (bytes per call) column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionDeserializationBenchmark {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    @Param({"1000"})
+    private int transactions;
+
+    private List<String> block;
+
+    @Setup
+    public void setUp() {
+        Account payer = new Account();
+        PublicKey program = new Account().getPublicKey();
+        List<PublicKey> pools = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            pools.add(new Account().getPublicKey());
+        }
+        AddressLookupTable table = new AddressLookupTable(new Account().getPublicKey(), pools);
+
+        Transaction transfer = new Transaction();
+        transfer.addInstruction(ComputeBudgetProgram.setComputeUnitPrice(1_000));
+        transfer.addInstruction(SystemProgram.transfer(payer.getPublicKey(), new Account().getPublicKey(), 1));
+        transfer.setRecentBlockHash(BLOCKHASH);
+        transfer.sign(payer);
+
+        List<AccountMeta> keys = new ArrayList<>();
+        keys.add(new AccountMeta(payer.getPublicKey(), true, true));
+        pools.forEach(pool -> keys.add(new AccountMeta(pool, false, true)));
+        VersionedTransaction swap = new VersionedTransaction(payer.getPublicKey(), List.of(
+                ComputeBudgetProgram.setComputeUnitLimit(200_000),
+                new TransactionInstruction(program, keys, new byte[24])), List.of(table));
+        swap.setRecentBlockHash(BLOCKHASH);
+        swap.sign(List.of(payer));
+
+        String[] encoded = {
+                Base64.getEncoder().encodeToString(transfer.serialize()),
+                Base64.getEncoder().encodeToString(swap.serialize())};
+        block = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            block.add(encoded[i % 2]);
+        }
+    }
+
+    @Benchmark
+    public int decodeBase64() {
+        int length = 0;
+        for (String transaction : block) {
+            length += Base64.getDecoder().decode(transaction).length;
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int readSignatures() {
+        int hash = 0;
+        for (String transaction : block) {
+            hash += SerializedTransaction.deserialize(Base64.getDecoder().decode(transaction)).getSignature()
+                    .hashCode();
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int readAccountsAndPrograms() {
+        int hash = 0;
+        for (String transaction : block) {
+            SerializedMessage message = SerializedTransaction.deserialize(Base64.getDecoder().decode(transaction))
+                    .getMessage();
+            hash += message.getAccountKeys().hashCode();
+            for (int i = 0; i < message.getInstructionCount(); i++) {
+                hash += message.getInstruction(i).getProgramIdIndex();
+            }
+        }
+        return hash;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionDeserializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package org.p2p.solanaj.benchmark;
+
+import org.bitcoinj.core.Base58;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.Message;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.core.TransactionTemplate;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.programs.SystemProgram;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparing a transaction of a fixed shape for sending, with a new amount, price and blockhash: patching a
+ * {@link TransactionTemplate} against building and serializing the message again, without and with signing.
+ * Run with {@code main} to get the gc.alloc.rate.norm (bytes per call) column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionTemplateBenchmark {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    private Account payer;
+    private PublicKey recipient;
+    private byte[] blockhash;
+    private TransactionTemplate template;
+    private TransactionTemplate.Field price;
+    private TransactionTemplate.Field lamports;
+    private byte[] buffer;
+    private long amount;
+
+    @Setup
+    public void setUp() {
+        payer = new Account();
+        recipient = new Account().getPublicKey();
+        blockhash = Base58.decode(BLOCKHASH);
+        template = new TransactionTemplate(List.of(ComputeBudgetProgram.setComputeUnitPrice(1),
+                SystemProgram.transfer(payer.getPublicKey(), recipient, 1)), List.of(payer));
+        price = template.field(0, 1, 8);
+        lamports = template.field(1, 4, 8);
+        buffer = new byte[1232];
+    }
+
+    @Benchmark
+    public int patchTemplate() {
+        amount++;
+        price.setLong(amount);
+        lamports.setLong(amount);
+        template.setRecentBlockhash(blockhash);
+        return template.serialize(buffer, 0);
+    }
+
+    @Benchmark
+    public byte[] buildMessage() {
+        amount++;
+        Message message = new PayerMessage(payer);
+        message.addInstruction(ComputeBudgetProgram.setComputeUnitPrice(amount));
+        message.addInstruction(SystemProgram.transfer(payer.getPublicKey(), recipient, amount));
+        message.setRecentBlockHash(BLOCKHASH);
+        return message.serialize();
+    }
+
+    @Benchmark
+    public int patchAndSignTemplate() {
+        patchTemplate();
+        return template.sign().serialize(buffer, 0);
+    }
+
+    @Benchmark
+    public byte[] buildAndSignTransaction() {
+        amount++;
+        Transaction transaction = new Transaction();
+        transaction.addInstruction(ComputeBudgetProgram.setComputeUnitPrice(amount));
+        transaction.addInstruction(SystemProgram.transfer(payer.getPublicKey(), recipient, amount));
+        transaction.setRecentBlockHash(BLOCKHASH);
+        transaction.sign(payer);
+        return transaction.serialize();
+    }
+
+    private static class PayerMessage extends Message {
+        PayerMessage(Account payer) {
+            setFeePayer(payer);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransactionTemplateBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
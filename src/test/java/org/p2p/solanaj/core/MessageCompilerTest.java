@@ -0,0 +1,183 @@
+package org.p2p.solanaj.core;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.programs.SystemProgram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageCompilerTest {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    private final Account payer = new Account();
+    private final PublicKey recipient = new Account().getPublicKey();
+    private final PublicKey program = new Account().getPublicKey();
+
+    @Test
+    public void instructionsSharingAccountsMatchPreviousCompiler() {
+        SerializedMessage message = Message.deserialize(assertSameAsPrevious(List.of(
+                SystemProgram.transfer(payer.getPublicKey(), recipient, 1),
+                SystemProgram.transfer(payer.getPublicKey(), recipient, 2),
+                SystemProgram.transfer(payer.getPublicKey(), recipient, 3))));
+
+        assertEquals(List.of(payer.getPublicKey(), recipient, SystemProgram.PROGRAM_ID), message.getAccountKeys());
+        assertEquals(3, message.getInstructionCount());
+        for (SerializedMessage.CompiledInstruction instruction : message.getInstructions()) {
+            assertEquals(2, instruction.getProgramIdIndex());
+            assertArrayEquals(new int[] {0, 1}, instruction.getAccountIndexes());
+        }
+    }
+
+    @Test
+    public void repeatedKeysShareOneIndex() {
+        // the recipient is passed readonly and writable, the payer twice
+        SerializedMessage message = Message.deserialize(assertSameAsPrevious(List.of(
+                new TransactionInstruction(program, List.of(
+                        new AccountMeta(payer.getPublicKey(), true, true),
+                        new AccountMeta(recipient, false, false),
+                        new AccountMeta(recipient, false, true),
+                        new AccountMeta(payer.getPublicKey(), true, true)), new byte[] {1, 2}))));
+
+        assertEquals(List.of(payer.getPublicKey(), recipient, program), message.getAccountKeys());
+        assertTrue(message.isWritable(1));
+        assertArrayEquals(new int[] {0, 1, 1, 0}, message.getInstruction(0).getAccountIndexes());
+    }
+
+    @Test
+    public void programIdMayAlsoBeAnAccount() {
+        SerializedMessage message = Message.deserialize(assertSameAsPrevious(List.of(
+                SystemProgram.transfer(payer.getPublicKey(), program, 5),
+                new TransactionInstruction(program, List.of(new AccountMeta(payer.getPublicKey(), true, true)),
+                        new byte[] {7}))));
+
+        // the program keeps the writable flag it was given as an account
+        assertEquals(List.of(payer.getPublicKey(), program, SystemProgram.PROGRAM_ID), message.getAccountKeys());
+        assertTrue(message.isWritable(1));
+        assertEquals(1, message.getNumReadonlyUnsignedAccounts());
+        assertArrayEquals(new int[] {0, 1}, message.getInstruction(0).getAccountIndexes());
+        assertEquals(1, message.getInstruction(1).getProgramIdIndex());
+    }
+
+    @Test
+    public void dataLengthsUseMultiByteShortvec() {
+        for (int length : new int[] {0, 127, 128, 300, 16383, 16384}) {
+            byte[] data = new byte[length];
+            Arrays.fill(data, (byte) length);
+            byte[] serialized = assertSameAsPrevious(List.of(new TransactionInstruction(program,
+                    List.of(new AccountMeta(payer.getPublicKey(), true, true),
+                            new AccountMeta(recipient, false, true)), data)));
+
+            // header, 3 keys, blockhash, 1 instruction with 2 accounts
+            int expected = 3 + 1 + 3 * 32 + 32 + 1 + 1 + 1 + 2 + (length < 128 ? 1 : length < 16384 ? 2 : 3) + length;
+            assertEquals(expected, serialized.length);
+            assertArrayEquals(data, Message.deserialize(serialized).getInstruction(0).getData());
+        }
+    }
+
+    @Test
+    public void accountsBeyondTheInitialIndexTableResolveToTheirKeys() {
+        List<TransactionInstruction> instructions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            instructions.add(SystemProgram.transfer(payer.getPublicKey(), new Account().getPublicKey(), i));
+        }
+        Message message = message(instructions);
+        PreviousMessage previous = previous(instructions);
+
+        // recipients of the same flags are in a different order, the decoded message is the same
+        byte[] serialized = message.serialize();
+        byte[] reference = previous.serialize();
+        assertEquals(reference.length, serialized.length);
+        assertArrayEquals(Arrays.copyOf(reference, 3), Arrays.copyOf(serialized, 3));
+        assertEquals(new HashSet<>(Message.deserialize(reference).getAccountKeys()),
+                new HashSet<>(Message.deserialize(serialized).getAccountKeys()));
+        assertEquals(decode(reference), decode(serialized));
+
+        // the table left behind by the large message does not leak into the next one
+        assertSameAsPrevious(List.of(SystemProgram.transfer(payer.getPublicKey(), recipient, 1)));
+    }
+
+    @Test
+    public void indexKeepsTheFirstIndexOfARepeatedKey() {
+        PublicKey other = new Account().getPublicKey();
+        MessageCompiler compiler = MessageCompiler.get();
+        compiler.index(List.of(new AccountMeta(recipient, false, true), new AccountMeta(program, false, false),
+                new AccountMeta(recipient, true, true)));
+
+        assertEquals(0, compiler.indexOf(recipient));
+        assertEquals(1, compiler.indexOf(program));
+        assertThrows(RuntimeException.class, () -> compiler.indexOf(other));
+    }
+
+    @Test
+    public void serializeWritesAtTheOffset() {
+        Message message = message(List.of(SystemProgram.transfer(payer.getPublicKey(), recipient, 42)));
+        byte[] expected = message.serialize();
+        byte[] buffer = new byte[expected.length + 20];
+        Arrays.fill(buffer, (byte) 0x55);
+
+        assertEquals(expected.length, message.serialize(buffer, 9));
+        assertArrayEquals(expected, Arrays.copyOfRange(buffer, 9, 9 + expected.length));
+        for (int i = 0; i < buffer.length; i++) {
+            if (i < 9 || i >= 9 + expected.length) {
+                assertEquals((byte) 0x55, buffer[i], "byte " + i);
+            }
+        }
+    }
+
+    @Test
+    public void tooSmallBufferIsRejected() {
+        Message message = message(List.of(SystemProgram.transfer(payer.getPublicKey(), recipient, 42)));
+        int size = message.serialize().length;
+        byte[] buffer = new byte[size + 8];
+
+        assertThrows(IllegalArgumentException.class, () -> message.serialize(new byte[size - 1], 0));
+        assertThrows(IllegalArgumentException.class, () -> message.serialize(buffer, 9));
+        assertThrows(IllegalArgumentException.class, () -> message.serialize(buffer, -1));
+        assertArrayEquals(new byte[size + 8], buffer);
+        assertEquals(size, message.serialize(buffer, 8));
+    }
+
+    /**
+     * Serializes a message with both compilers, which must agree when each group of accounts of the same signer
+     * and writable flags holds at most one account besides the fee payer.
+     */
+    private byte[] assertSameAsPrevious(List<TransactionInstruction> instructions) {
+        byte[] serialized = message(instructions).serialize();
+        assertArrayEquals(previous(instructions).serialize(), serialized);
+        return serialized;
+    }
+
+    private Message message(List<TransactionInstruction> instructions) {
+        Message message = new Message();
+        instructions.forEach(message::addInstruction);
+        message.setRecentBlockHash(BLOCKHASH);
+        message.setFeePayer(payer);
+        return message;
+    }
+
+    private PreviousMessage previous(List<TransactionInstruction> instructions) {
+        PreviousMessage message = new PreviousMessage();
+        instructions.forEach(message::addInstruction);
+        message.setRecentBlockHash(BLOCKHASH);
+        message.setFeePayer(payer);
+        return message;
+    }
+
+    /**
+     * Describes every instruction by its program, accounts and data, independent of the order of the account keys.
+     */
+    private static List<String> decode(byte[] serialized) {
+        SerializedMessage message = Message.deserialize(serialized);
+        return message.getInstructions().stream()
+                .map(instruction -> instruction.getProgramId() + " " + Arrays.stream(instruction.getAccountIndexes())
+                        .mapToObj(message::getAccountKey).collect(Collectors.toList())
+                        + " " + Arrays.toString(instruction.getData()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.p2p.solanaj.utils.ShortvecEncoding;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The legacy message compiler used before {@link MessageCompiler}, which scanned the account keys for every index
+ * and keyed the account keys by their base58 encoding. Kept as the reference for {@link MessageCompilerTest} and the
+ * baseline of MessageSerializationBenchmark.
+ * <p>
+ * Accounts of the same signer and writable flags are in hash order of their base58 encoding here and in insertion
+ * order in {@link Message}, so both only produce the same bytes when that order does not matter.
+ */
+public class PreviousMessage {
+    private static final Comparator<AccountMeta> META_COMPARATOR = Comparator
+            .comparing(AccountMeta::isSigner).reversed()
+            .thenComparing(AccountMeta::isWritable).reversed();
+
+    private final Map<String, AccountMeta> accountKeys = new HashMap<>();
+    private final List<TransactionInstruction> instructions = new ArrayList<>();
+    private String recentBlockhash;
+    private Account feePayer;
+
+    public PreviousMessage addInstruction(TransactionInstruction instruction) {
+        for (AccountMeta meta : instruction.getKeys()) {
+            add(meta);
+        }
+        add(new AccountMeta(instruction.getProgramId(), false, false));
+        instructions.add(instruction);
+        return this;
+    }
+
+    private void add(AccountMeta accountMeta) {
+        accountKeys.merge(accountMeta.getPublicKey().toString(), accountMeta, (existing, newMeta) ->
+                !existing.isWritable() && newMeta.isWritable() ? newMeta : existing);
+    }
+
+    public void setRecentBlockHash(String recentBlockhash) {
+        this.recentBlockhash = recentBlockhash;
+    }
+
+    public void setFeePayer(Account feePayer) {
+        this.feePayer = feePayer;
+    }
+
+    public byte[] serialize() {
+        List<AccountMeta> keysList = new ArrayList<>(accountKeys.values());
+        keysList.sort(META_COMPARATOR);
+        int feePayerIndex = findAccountIndex(keysList, feePayer.getPublicKey());
+        List<AccountMeta> newList = new ArrayList<>();
+        newList.add(new AccountMeta(keysList.get(feePayerIndex).getPublicKey(), true, true));
+        keysList.remove(feePayerIndex);
+        newList.addAll(keysList);
+        keysList = newList;
+
+        byte[] accountAddressesLength = ShortvecEncoding.encodeLength(keysList.size());
+        int compiledInstructionsLength = 0;
+        List<byte[][]> compiledInstructions = new ArrayList<>();
+        for (TransactionInstruction instruction : instructions) {
+            int keysSize = instruction.getKeys().size();
+            byte[] keyIndices = new byte[keysSize];
+            for (int i = 0; i < keysSize; i++) {
+                keyIndices[i] = (byte) findAccountIndex(keysList, instruction.getKeys().get(i).getPublicKey());
+            }
+            byte[][] compiled = {
+                    {(byte) findAccountIndex(keysList, instruction.getProgramId())},
+                    ShortvecEncoding.encodeLength(keysSize),
+                    keyIndices,
+                    ShortvecEncoding.encodeLength(instruction.getData().length),
+                    instruction.getData()};
+            compiledInstructions.add(compiled);
+            for (byte[] part : compiled) {
+                compiledInstructionsLength += part.length;
+            }
+        }
+        byte[] instructionsLength = ShortvecEncoding.encodeLength(compiledInstructions.size());
+
+        ByteBuffer out = ByteBuffer.allocate(3 + 32 + accountAddressesLength.length
+                + keysList.size() * PublicKey.PUBLIC_KEY_LENGTH + instructionsLength.length
+                + compiledInstructionsLength);
+        ByteBuffer accountKeysBuff = ByteBuffer.allocate(keysList.size() * PublicKey.PUBLIC_KEY_LENGTH);
+        byte[] header = new byte[3];
+        for (AccountMeta accountMeta : keysList) {
+            accountKeysBuff.put(accountMeta.getPublicKey().toByteArray());
+            if (accountMeta.isSigner()) {
+                header[0]++;
+                if (!accountMeta.isWritable()) {
+                    header[1]++;
+                }
+            } else if (!accountMeta.isWritable()) {
+                header[2]++;
+            }
+        }
+        out.put(header);
+        out.put(accountAddressesLength);
+        out.put(accountKeysBuff.array());
+        out.put(Base58.decode(recentBlockhash));
+        out.put(instructionsLength);
+        for (byte[][] compiled : compiledInstructions) {
+            for (byte[] part : compiled) {
+                out.put(part);
+            }
+        }
+        return out.array();
+    }
+
+    private static int findAccountIndex(List<AccountMeta> accountMetaList, PublicKey key) {
+        for (int i = 0; i < accountMetaList.size(); i++) {
+            if (accountMetaList.get(i).getPublicKey().equals(key)) {
+                return i;
+            }
+        }
+        throw new RuntimeException("unable to find account index");
+    }
+}
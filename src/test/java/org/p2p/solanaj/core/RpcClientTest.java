@@ -1,12 +1,62 @@
 package org.p2p.solanaj.core;
 
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import org.p2p.solanaj.programs.SystemProgram;
+import org.p2p.solanaj.rpc.AsyncRpcApi;
+import org.p2p.solanaj.rpc.BlockhashProvider;
+import org.p2p.solanaj.rpc.EndpointHealth;
+import org.p2p.solanaj.rpc.EndpointRouter;
+import org.p2p.solanaj.rpc.HedgingPolicy;
+import org.p2p.solanaj.rpc.ProgramAccountScan;
+import org.p2p.solanaj.rpc.ProgramAccountStream;
+import org.p2p.solanaj.rpc.RateLimiter;
+import org.p2p.solanaj.rpc.RequestCoalescer;
 import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RetryPolicy;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.RpcMethods;
+import org.p2p.solanaj.rpc.RpcResponseCache;
+import org.p2p.solanaj.rpc.RpcThrottledException;
 import org.p2p.solanaj.rpc.WeightedCluster;
+import org.p2p.solanaj.rpc.types.AccountInfo;
+import org.p2p.solanaj.rpc.types.LeaderSchedule;
+import org.p2p.solanaj.rpc.types.Memcmp;
+import org.p2p.solanaj.rpc.types.MultipleAccountsInfo;
+import org.p2p.solanaj.rpc.types.ProgramAccount;
+import org.p2p.solanaj.rpc.types.RpcBatchResult;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.rpc.types.config.MultipleAccountsConfig;
+import org.p2p.solanaj.rpc.types.config.ProgramAccountConfig;
+import org.p2p.solanaj.rpc.types.config.ProgramAccountScanConfig;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig.Encoding;
 import org.p2p.solanaj.rpc.types.WeightedEndpoint;
+import org.p2p.solanaj.utils.FakeRpc;
+import org.p2p.solanaj.utils.FakeWebSocket;
+import org.p2p.solanaj.ws.SubscriptionManager;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class RpcClientTest {
 
@@ -50,4 +100,869 @@ public class RpcClientTest {
         assertEquals(0.4f, endpoint3Percentage, 0.03);
     }
 
+    @Test
+    public void routerShiftsTrafficAwayFromFailingEndpointAndProbesForRecovery() throws InterruptedException {
+        WeightedCluster cluster = new WeightedCluster(Arrays.asList(
+                new WeightedEndpoint(ZERO_ENDPOINT, 50),
+                new WeightedEndpoint(ONE_ENDPOINT, 50)));
+        EndpointRouter router = new EndpointRouter(cluster);
+        router.setInitialOpenDuration(Duration.ofMillis(50));
+
+        for (int i = 0; i < router.getFailureThreshold(); i++) {
+            router.recordFailure(ZERO_ENDPOINT, null);
+        }
+        assertEquals(EndpointHealth.CircuitState.OPEN, router.getEndpointHealth().get(0).getState());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ONE_ENDPOINT, router.select());
+        }
+
+        Thread.sleep(60);
+        // The open period is over: exactly one probe goes to the failing endpoint
+        assertEquals(ZERO_ENDPOINT, router.select());
+        assertEquals(EndpointHealth.CircuitState.HALF_OPEN, router.getEndpointHealth().get(0).getState());
+        assertEquals(ONE_ENDPOINT, router.select());
+
+        router.recordSuccess(ZERO_ENDPOINT, 1_000_000);
+        assertEquals(EndpointHealth.CircuitState.CLOSED, router.getEndpointHealth().get(0).getState());
+    }
+
+    @Test
+    public void routerPrefersFastAndUpToDateEndpoints() {
+        WeightedCluster cluster = new WeightedCluster(Arrays.asList(
+                new WeightedEndpoint(ZERO_ENDPOINT, 50),
+                new WeightedEndpoint(ONE_ENDPOINT, 50),
+                new WeightedEndpoint(TWO_ENDPOINT, 50)));
+        EndpointRouter router = new EndpointRouter(cluster);
+
+        router.recordSuccess(ZERO_ENDPOINT, 10_000_000);
+        router.recordSuccess(ONE_ENDPOINT, 100_000_000);
+        router.recordSuccess(TWO_ENDPOINT, 10_000_000);
+        router.recordSlot(ZERO_ENDPOINT, 1000);
+        router.recordSlot(ONE_ENDPOINT, 1000);
+        router.recordSlot(TWO_ENDPOINT, 900);
+
+        int[] occurrences = new int[3];
+        for (int i = 0; i < 100000; i++) {
+            occurrences[Integer.parseInt(router.select())]++;
+        }
+
+        // Endpoint 1 is ten times slower, endpoint 2 is a hundred slots behind
+        assertTrue(occurrences[0] > 80000);
+        assertTrue(occurrences[1] > occurrences[2]);
+        assertTrue(occurrences[2] < 6000);
+    }
+
+    @Test
+    public void hedgedReadTakesFirstAnswerFromSecondEndpoint() throws RpcException {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    if (chain.request().url().host().equals("slow")) {
+                        for (int i = 0; i < 100 && !chain.call().isCanceled(); i++) {
+                            try {
+                                Thread.sleep(50);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
+                        throw new IOException("Canceled");
+                    }
+                    return FakeRpc.response(chain.request(), body ->
+                            "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":{\"blockhash\":\"abc\",\"lastValidBlockHeight\":5}},\"id\":\"1\"}");
+                })
+                .build();
+        WeightedCluster cluster = new WeightedCluster(Arrays.asList(
+                new WeightedEndpoint("http://slow", 1000),
+                new WeightedEndpoint("http://fast", 1)));
+        RpcClient client = new RpcClient(cluster, httpClient);
+        HedgingPolicy hedgingPolicy = new HedgingPolicy();
+        hedgingPolicy.setInitialDelay(Duration.ofMillis(20));
+        client.setHedgingPolicy(hedgingPolicy);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("abc", client.getApi().getLatestBlockhash().getValue().getBlockhash());
+        }
+
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(2).toNanos());
+        assertEquals(5, hedgingPolicy.getHedgedRequests());
+        assertTrue(hedgingPolicy.getHedgeWins() > 0);
+    }
+
+    @Test
+    public void hedgeWinsFeedTheHedgeDelay() throws RpcException {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    if (chain.request().url().host().equals("slow")) {
+                        for (int i = 0; i < 100 && !chain.call().isCanceled(); i++) {
+                            try {
+                                Thread.sleep(10);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
+                        throw new IOException("Canceled");
+                    }
+                    return FakeRpc.response(chain.request(), body ->
+                            "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":{\"blockhash\":\"abc\",\"lastValidBlockHeight\":5}},\"id\":\"1\"}");
+                })
+                .build();
+        WeightedCluster cluster = new WeightedCluster(Arrays.asList(
+                new WeightedEndpoint("http://slow", 1000),
+                new WeightedEndpoint("http://fast", 1)));
+        RpcClient client = new RpcClient(cluster, httpClient);
+        HedgingPolicy hedgingPolicy = new HedgingPolicy();
+        hedgingPolicy.setInitialDelay(Duration.ofMillis(10));
+        client.setHedgingPolicy(hedgingPolicy);
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals("abc", client.getApi().getLatestBlockhash().getValue().getBlockhash());
+        }
+
+        // every call was won by the hedge; the primary ran at least until then
+        assertTrue(hedgingPolicy.getHedgeWins() > 20);
+        Duration delay = hedgingPolicy.hedgeDelay("getLatestBlockhash");
+        assertNotEquals(hedgingPolicy.getInitialDelay(), delay);
+        assertTrue(delay.compareTo(hedgingPolicy.getInitialDelay()) > 0);
+    }
+
+    @Test
+    public void hedgingExcludesWriteMethodsUnlessExplicitlyAllowed() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy();
+
+        assertFalse(hedgingPolicy.appliesTo("sendTransaction"));
+        assertThrows(IllegalArgumentException.class, () -> hedgingPolicy.addMethod("sendTransaction"));
+
+        hedgingPolicy.allowWriteMethod("sendTransaction");
+        assertTrue(hedgingPolicy.appliesTo("sendTransaction"));
+
+        // Methods the client does not know may be writes
+        assertThrows(IllegalArgumentException.class, () -> hedgingPolicy.addMethod("sendBundle"));
+        assertFalse(RpcMethods.isReadOnly("sendBundle"));
+        assertEquals(RpcMethods.Idempotency.NEVER, RpcMethods.idempotency("sendBundle"));
+        assertFalse(RpcMethods.isReadOnly("simulateTransaction"));
+        assertEquals(RpcMethods.Idempotency.SAFE, RpcMethods.idempotency("simulateTransaction"));
+    }
+
+    @Test
+    public void batchMatchesResponsesByIdAndKeepsEntryErrors() throws RpcException {
+        AtomicInteger httpCalls = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            httpCalls.incrementAndGet();
+            // Answer in reverse order; the third account gets an error of its own
+            List<String> ids = requestIds(body);
+            StringBuilder response = new StringBuilder("[");
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                String id = ids.get(i);
+                if (i == 2) {
+                    response.append("{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32602,\"message\":\"Invalid param\"},\"id\":\"").append(id).append("\"}");
+                } else {
+                    response.append("{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":").append(i * 10).append("},\"id\":\"").append(id).append("\"}");
+                }
+                response.append(i > 0 ? "," : "]");
+            }
+            return response.toString();
+        });
+
+        List<PublicKey> accounts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            accounts.add(new Account().getPublicKey());
+        }
+
+        List<RpcBatchResult<Long>> balances = client.getApi().getBalances(accounts);
+
+        assertEquals(1, httpCalls.get());
+        assertEquals(4, balances.size());
+        assertEquals(0L, balances.get(0).getResult());
+        assertEquals(10L, balances.get(1).getResult());
+        assertFalse(balances.get(2).isSuccess());
+        assertEquals("Invalid param", balances.get(2).getError().getMessage());
+        assertThrows(RpcException.class, () -> balances.get(2).getResultOrThrow());
+        assertEquals(30L, balances.get(3).getResult());
+    }
+
+    @Test
+    public void batchSplitsAboveMaxBatchSize() throws RpcException {
+        AtomicInteger httpCalls = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            httpCalls.incrementAndGet();
+            List<String> ids = requestIds(body);
+            assertTrue(ids.size() <= 2);
+            StringBuilder response = new StringBuilder("[");
+            for (int i = 0; i < ids.size(); i++) {
+                response.append(i > 0 ? "," : "")
+                        .append("{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":7},\"id\":\"")
+                        .append(ids.get(i)).append("\"}");
+            }
+            return response.append("]").toString();
+        });
+        client.setMaxBatchSize(2);
+
+        List<PublicKey> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(new Account().getPublicKey());
+        }
+
+        List<RpcBatchResult<Long>> balances = client.getApi().getBalances(accounts);
+
+        assertEquals(3, httpCalls.get());
+        assertEquals(5, balances.size());
+        balances.forEach(balance -> assertEquals(7L, balance.getResult()));
+    }
+
+    @Test
+    public void batchRejectedAsWholeThrows() {
+        RpcClient client = FakeRpc.rawClient(body ->
+                "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32600,\"message\":\"Batch requests are disabled\"},\"id\":null}");
+
+        RpcException exception = assertThrows(RpcException.class,
+                () -> client.getApi().getBalances(List.of(new Account().getPublicKey())));
+        assertEquals("Batch requests are disabled", exception.getMessage());
+    }
+
+    @Test
+    public void asyncBatchesAreSplitAndKeepTheOrder() throws Exception {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(new Account().getPublicKey().toBase58());
+        }
+        AtomicInteger httpCalls = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            httpCalls.incrementAndGet();
+            // Answer in reverse order, with the position of the account as its balance
+            List<String> ids = requestIds(body);
+            Matcher account = Pattern.compile("\"params\":\\[\"(\\w+)\"").matcher(body);
+            List<String> entries = new ArrayList<>();
+            for (String id : ids) {
+                assertTrue(account.find());
+                entries.add(0, "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":"
+                        + accounts.indexOf(account.group(1)) + "},\"id\":\"" + id + "\"}");
+            }
+            assertTrue(ids.size() <= 2);
+            return "[" + String.join(",", entries) + "]";
+        });
+        client.setMaxBatchSize(2);
+
+        List<RpcBatchResult<Long>> balances = client.getAsyncApi()
+                .getBalances(accounts.stream().map(PublicKey::new).collect(Collectors.toList()))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, httpCalls.get());
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L),
+                balances.stream().map(RpcBatchResult::getResult).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void asyncApiConvertsResultsLikeTheBlockingApi() throws Exception {
+        RpcClient client = FakeRpc.client(body -> {
+            if (body.contains("\"getBlocks\"")) {
+                return "[5,6,8]";
+            } else if (body.contains("\"getFeeForMessage\"")) {
+                return "{\"context\":{\"slot\":1},\"value\":null}";
+            } else if (body.contains("\"getHealth\"")) {
+                return "\"ok\"";
+            } else if (body.contains("\"getIdentity\"")) {
+                return "{}";
+            }
+            throw new AssertionError(body);
+        });
+        AsyncRpcApi api = client.getAsyncApi();
+
+        assertEquals(client.getApi().getBlocks(5, 8), api.getBlocks(5, 8).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(5L, 6L, 8L), api.getBlocks(5, 8).get(5, TimeUnit.SECONDS));
+        assertEquals(0L, api.getFeeForMessage("message").get(5, TimeUnit.SECONDS));
+        assertTrue(api.getHealth().get(5, TimeUnit.SECONDS));
+
+        ExecutionException identity = assertThrows(ExecutionException.class,
+                () -> api.getIdentity().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RpcException.class, identity.getCause());
+        assertEquals("unable to get identity", identity.getCause().getMessage());
+
+        ExecutionException tokenAccounts = assertThrows(ExecutionException.class,
+                () -> api.getTokenAccountsByOwner(new Account().getPublicKey(), Map.of(), null).get());
+        assertInstanceOf(RpcException.class, tokenAccounts.getCause());
+        assertEquals("mint or programId are mandatory parameters", tokenAccounts.getCause().getMessage());
+    }
+
+    @Test
+    public void asyncCallsCompleteWithResultOrRpcException() throws Exception {
+        RpcClient client = FakeRpc.rawClient(body -> body.contains("getBalance")
+                ? "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":42},\"id\":\"1\"}"
+                : "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32601,\"message\":\"Method not found\"},\"id\":\"1\"}");
+
+        assertEquals(42L, client.getAsyncApi().getBalance(new Account().getPublicKey()).get(5, TimeUnit.SECONDS));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> client.getAsyncApi().getSlot().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RpcException.class, exception.getCause());
+        assertEquals("Method not found", exception.getCause().getMessage());
+    }
+
+    @Test
+    public void cancellingAsyncCallCancelsHttpCall() throws Exception {
+        java.util.concurrent.CountDownLatch started = new java.util.concurrent.CountDownLatch(1);
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (chain.call().isCanceled()) {
+                        throw new IOException("Canceled");
+                    }
+                    return FakeRpc.response(chain.request(), body -> "{}");
+                })
+                .build();
+        RpcClient client = new RpcClient("http://localhost", httpClient);
+
+        CompletableFuture<Long> slot = client.getAsyncApi().getSlot();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(slot.cancel(true));
+        assertTrue(slot.isCancelled());
+        assertEquals(1, httpClient.dispatcher().runningCallsCount());
+        assertTrue(httpClient.dispatcher().runningCalls().get(0).isCanceled());
+    }
+
+    @Test
+    public void identicalConcurrentReadsAreCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sent = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            sent.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long value = body.contains("finalized") ? 7 : 42;
+            return "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":" + value
+                    + "},\"id\":\"" + requestIds(body).get(0) + "\"}";
+        });
+        RequestCoalescer coalescer = new RequestCoalescer();
+        client.setRequestCoalescer(coalescer);
+
+        PublicKey account = new PublicKey("QqCCvshxtqMAL2CVALqiJB7uEeE5mjSPsseQdDzsRUo");
+        List<CompletableFuture<Long>> balances = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            balances.add(client.getAsyncApi().getBalance(account));
+        }
+        CompletableFuture<Long> finalized = client.getAsyncApi().getBalance(account, Commitment.FINALIZED);
+        balances.get(0).cancel(true);
+        release.countDown();
+
+        for (int i = 1; i < balances.size(); i++) {
+            assertEquals(42L, balances.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(7L, finalized.get(5, TimeUnit.SECONDS));
+        assertEquals(2, sent.get());
+        assertEquals(11, coalescer.getRequests());
+        assertEquals(9, coalescer.getCoalescedRequests());
+        assertEquals(0, coalescer.getInFlight());
+
+        // Completed requests are not reused
+        assertEquals(42L, client.getApi().getBalance(account));
+        assertEquals(3, sent.get());
+    }
+
+    @Test
+    public void responseCacheHonoursCommitmentSlotsAndSize() throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            sent.incrementAndGet();
+            return "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":100},\"value\":42},\"id\":\""
+                    + requestIds(body).get(0) + "\"}";
+        });
+        RpcResponseCache cache = new RpcResponseCache(1024);
+        client.setResponseCache(cache);
+        PublicKey account = new PublicKey("QqCCvshxtqMAL2CVALqiJB7uEeE5mjSPsseQdDzsRUo");
+
+        assertEquals(42L, client.getApi().getBalance(account, Commitment.PROCESSED));
+        assertEquals(42L, client.getApi().getBalance(account, Commitment.PROCESSED));
+        assertEquals(42L, client.getAsyncApi().getBalance(account, Commitment.PROCESSED).get());
+        assertEquals(1, sent.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // Other commitments are cached separately
+        assertEquals(42L, client.getApi().getBalance(account, Commitment.CONFIRMED));
+        assertEquals(2, sent.get());
+
+        // Entries observed before a newer slot are dropped
+        cache.invalidateOlderThan(101);
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(42L, client.getApi().getBalance(account, Commitment.PROCESSED));
+        assertEquals(3, sent.get());
+
+        // Expired entries are fetched again
+        cache.setProcessedTtl(Duration.ofMillis(1));
+        cache.invalidateAll();
+        client.getApi().getBalance(account, Commitment.PROCESSED);
+        Thread.sleep(5);
+        client.getApi().getBalance(account, Commitment.PROCESSED);
+        assertEquals(5, sent.get());
+
+        // The size bound evicts the least recently used entries
+        cache.invalidateAll();
+        for (int i = 0; i < 20; i++) {
+            client.getApi().getBalance(new Account().getPublicKey(), Commitment.CONFIRMED);
+        }
+        assertTrue(cache.getSizeBytes() <= 1024);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    public void finalizedBlocksAndTransactionsNeverExpire() {
+        RpcResponseCache cache = new RpcResponseCache();
+
+        assertNull(cache.ttl("getTransaction", "finalized"));
+        assertNull(cache.ttl("getBlock", null));
+        assertEquals(cache.getConfirmedTtl(), cache.ttl("getTransaction", "confirmed"));
+        assertEquals(cache.getProcessedTtl(), cache.ttl("getAccountInfo", "processed"));
+        assertEquals(cache.getFinalizedTtl(), cache.ttl("getAccountInfo", null));
+        assertEquals(Duration.ZERO, cache.ttl("getSignatureStatuses", "processed"));
+    }
+
+    @Test
+    public void rateLimiterQueuesByCostAndRejectsPastDeadline() throws RpcException {
+        RateLimiter limiter = new RateLimiter();
+        limiter.setInitialRate(100);
+        limiter.setBurst(10);
+        limiter.setMaxWait(Duration.ofMillis(200));
+
+        // The burst is available right away, after that requests wait for the refill
+        assertEquals(0, limiter.reserve("http://a", 10));
+        long wait = limiter.reserve("http://a", limiter.cost("getBalance"));
+        assertTrue(wait > 0 && wait <= Duration.ofMillis(20).toNanos());
+        // getProgramAccounts is ten times as expensive, so budget runs out sooner
+        assertEquals(10, limiter.cost("getProgramAccounts"));
+        assertTrue(limiter.reserve("http://a", limiter.cost("getProgramAccounts")) > wait);
+        RpcThrottledException rejected = assertThrows(RpcThrottledException.class,
+                () -> limiter.reserve("http://a", limiter.cost("getProgramAccounts")));
+        assertEquals(0, rejected.getStatusCode());
+
+        // Other endpoints have their own budget
+        assertEquals(0, limiter.reserve("http://b", 1));
+
+        limiter.onThrottled("http://b", null);
+        assertEquals(50, limiter.getRate("http://b"));
+        limiter.onSuccess("http://b");
+        assertEquals(50.5, limiter.getRate("http://b"));
+    }
+
+    @Test
+    public void throttlingResponsesSurfaceDistinctlyAndSlowDown() {
+        AtomicInteger sent = new AtomicInteger();
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    sent.incrementAndGet();
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(429)
+                            .message("Too Many Requests")
+                            .header("Retry-After", "1")
+                            .body(ResponseBody.create("{\"jsonrpc\":\"2.0\",\"error\":{\"code\":429,"
+                                    + "\"message\":\"Too many requests\"},\"id\":\"1\"}",
+                                    MediaType.parse("application/json")))
+                            .build();
+                })
+                .build();
+        RpcClient client = new RpcClient("http://localhost", httpClient);
+        RateLimiter limiter = new RateLimiter();
+        limiter.setMaxWait(Duration.ofMillis(100));
+        client.setRateLimiter(limiter);
+
+        RpcThrottledException throttled = assertThrows(RpcThrottledException.class, () -> client.getApi().getSlot());
+        assertEquals(429, throttled.getStatusCode());
+        assertEquals(Duration.ofSeconds(1), throttled.getRetryAfter());
+        assertEquals(limiter.getInitialRate() / 2, limiter.getRate("http://localhost"));
+
+        // The endpoint asked for a one second pause, which exceeds the deadline: fail locally without sending
+        RpcThrottledException local = assertThrows(RpcThrottledException.class, () -> client.getApi().getSlot());
+        assertEquals(0, local.getStatusCode());
+        ExecutionException async = assertThrows(ExecutionException.class,
+                () -> client.getAsyncApi().getSlot().get());
+        assertInstanceOf(RpcThrottledException.class, async.getCause());
+        assertEquals(1, sent.get());
+    }
+
+    @Test
+    public void retriesFailOverToAnotherEndpoint() throws RpcException {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    if (chain.request().url().host().equals("broken")) {
+                        throw new IOException("Connection reset");
+                    }
+                    return FakeRpc.response(chain.request(), body ->
+                            "{\"jsonrpc\":\"2.0\",\"result\":7,\"id\":\"" + requestIds(body).get(0) + "\"}");
+                })
+                .build();
+        WeightedCluster cluster = new WeightedCluster(Arrays.asList(
+                new WeightedEndpoint("http://broken", 1),
+                new WeightedEndpoint("http://working", 1)));
+        RpcClient client = new RpcClient(cluster, httpClient);
+        RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setInitialBackoff(Duration.ofMillis(1));
+        retryPolicy.setMaxAttempts(2);
+        client.setRetryPolicy(retryPolicy);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(7, client.getApi().getSlot());
+        }
+
+        assertTrue(retryPolicy.getRetries() > 0);
+        assertEquals(20 + retryPolicy.getRetries(), retryPolicy.getAttempts());
+        assertEquals(retryPolicy.getRetries(), retryPolicy.getRecoveredCalls());
+        assertEquals(0, retryPolicy.getFailedCalls());
+    }
+
+    @Test
+    public void retriesFollowMethodIdempotencyAndErrorCodes() {
+        AtomicInteger sent = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            sent.incrementAndGet();
+            long code = body.contains("getSlot") ? -32005 : -32002;
+            return "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":" + code + ",\"message\":\"failed\"},\"id\":\""
+                    + requestIds(body).get(0) + "\"}";
+        });
+        RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setInitialBackoff(Duration.ofMillis(1));
+        client.setRetryPolicy(retryPolicy);
+
+        assertEquals(RpcMethods.Idempotency.SAFE, RpcMethods.idempotency("getSlot"));
+        assertEquals(RpcMethods.Idempotency.SAME_SIGNATURE, RpcMethods.idempotency("sendTransaction"));
+        assertEquals(RpcMethods.Idempotency.NEVER, RpcMethods.idempotency("requestAirdrop"));
+
+        // Node unhealthy is transient and retried up to the attempt limit
+        RpcException unhealthy = assertThrows(RpcException.class, () -> client.getApi().getSlot());
+        assertEquals(-32005L, unhealthy.getCode());
+        assertEquals(4, sent.get());
+
+        // Airdrops are never retried
+        assertThrows(RpcException.class, () -> client.getApi().requestAirdrop(new Account().getPublicKey(), 1));
+        assertEquals(5, sent.get());
+
+        // Other server errors are final
+        assertThrows(RpcException.class, () -> client.getApi().getBalance(new Account().getPublicKey()));
+        assertEquals(6, sent.get());
+        assertEquals(2, retryPolicy.getFailedCalls());
+    }
+
+    @Test
+    public void responsesAreMeasuredAndBounded() throws RpcException {
+        String padding = "A".repeat(1024 * 1024);
+        RpcClient client = FakeRpc.rawClient(body -> body.contains("getSlot")
+                ? "{\"jsonrpc\":\"2.0\",\"result\":7,\"id\":\"" + requestIds(body).get(0) + "\"}"
+                : "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":1},\"value\":{\"data\":[\""
+                        + padding + "\",\"base64\"],\"executable\":false,\"lamports\":1,\"owner\":\"11111111111111111111111111111111\","
+                        + "\"rentEpoch\":0}},\"id\":\"" + requestIds(body).get(0) + "\"}");
+
+        assertEquals(7, client.getApi().getSlot());
+        long slotResponseBytes = client.getResponseBytes();
+        assertTrue(slotResponseBytes > 0);
+        assertEquals(slotResponseBytes, client.getLargestResponseBytes());
+
+        client.getApi().getAccountInfo(new Account().getPublicKey());
+        assertTrue(client.getLargestResponseBytes() > padding.length());
+
+        client.setMaxResponseBytes(64 * 1024);
+        RpcException tooLarge = assertThrows(RpcException.class,
+                () -> client.getApi().getAccountInfo(new Account().getPublicKey()));
+        assertTrue(tooLarge.getMessage().contains("maximum size"));
+        assertEquals(7, client.getApi().getSlot());
+    }
+
+    @Test
+    public void programAccountsAreStreamedOneByOne() throws Exception {
+        StringBuilder accounts = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            accounts.append(i == 0 ? "" : ",")
+                    .append("{\"pubkey\":\"").append(new Account().getPublicKey())
+                    .append("\",\"account\":{\"data\":[\"AQID\",\"base64\"],\"executable\":false,")
+                    .append("\"lamports\":").append(1000 + i)
+                    .append(",\"owner\":\"11111111111111111111111111111111\",\"rentEpoch\":18446744073709551615,\"space\":3}}");
+        }
+        RpcClient client = FakeRpc.rawClient(body -> body.contains("\"withContext\"")
+                ? "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":5},\"value\":[" + accounts + "]},\"id\":\"1\"}"
+                : "{\"jsonrpc\":\"2.0\",\"result\":[" + accounts + "],\"id\":\"1\"}");
+        PublicKey program = new Account().getPublicKey();
+
+        List<ProgramAccount> received = new ArrayList<>();
+        client.getApi().getProgramAccounts(program, new ProgramAccountConfig(Encoding.base64), received::add);
+        assertEquals(3, received.size());
+        assertEquals(1002, received.get(2).getAccount().getLamports());
+        assertArrayEquals(new byte[]{1, 2, 3}, received.get(0).getAccount().getDecodedData());
+
+        // Stopping early closes the response
+        try (ProgramAccountStream stream = client.getApi().streamProgramAccounts(program, null)) {
+            assertTrue(stream.hasNext());
+            assertEquals(1000, stream.next().getAccount().getLamports());
+        }
+
+        RpcClient errorClient = FakeRpc.rawClient(body ->
+                "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32010,\"message\":\"excluded from secondary indexes\"},\"id\":\"1\"}");
+        RpcException error = assertThrows(RpcException.class,
+                () -> errorClient.getApi().getProgramAccounts(program, null, account -> { }));
+        assertEquals(-32010L, error.getCode());
+    }
+
+    @Test
+    public void typedAdaptersDecodeResultsWithoutMaps() throws RpcException {
+        String account = "{\"data\":[\"AQID\",\"base64\"],\"executable\":true,\"lamports\":9007199254740993,"
+                + "\"owner\":\"11111111111111111111111111111111\",\"rentEpoch\":18446744073709551615,\"space\":3}";
+        RpcClient client = FakeRpc.rawClient(body -> {
+            String result;
+            if (body.contains("getMultipleAccounts")) {
+                result = "{\"context\":{\"slot\":9},\"value\":[" + account + ",null]}";
+            } else if (body.contains("getLeaderSchedule")) {
+                result = "{\"4Qkev8aNZcqFNSRhQzwyLMFSsi94jHqE8WNVTJzTP99F\":[0,1,2,3],\"Ef1kPpr2e8cRxyRvWfk7d8mxQ3M2aYTpWb3uFGz7qmRK\":[4]}";
+            } else {
+                result = "{\"context\":{\"slot\":9},\"value\":true}";
+            }
+            return "{\"jsonrpc\":\"2.0\",\"result\":" + result + ",\"id\":\"1\"}";
+        });
+        List<PublicKey> keys = List.of(new Account().getPublicKey(), new Account().getPublicKey());
+
+        List<AccountInfo.Value> accounts = client.getApi().getMultipleAccounts(keys);
+        assertEquals(1, accounts.size());
+        assertEquals(9007199254740993L, accounts.get(0).getLamports());
+        assertEquals(List.of("AQID", "base64"), accounts.get(0).getData());
+        assertTrue(accounts.get(0).isExecutable());
+
+        Map<PublicKey, Optional<AccountInfo.Value>> accountsByKey = client.getApi().getMultipleAccountsMap(keys);
+        assertTrue(accountsByKey.get(keys.get(0)).isPresent());
+        assertFalse(accountsByKey.get(keys.get(1)).isPresent());
+
+        List<LeaderSchedule> schedules = client.getApi().getLeaderSchedule();
+        assertEquals(2, schedules.size());
+        assertArrayEquals(new long[]{0, 1, 2, 3}, schedules.get(0).getSlots());
+        assertEquals("Ef1kPpr2e8cRxyRvWfk7d8mxQ3M2aYTpWb3uFGz7qmRK", schedules.get(1).getIdentity());
+
+        assertTrue(client.getApi().isBlockhashValid("abc"));
+    }
+
+    @Test
+    public void multipleAccountsAreChunkedInOrderAndSlotConsistent() throws RpcException {
+        List<PublicKey> keys = new ArrayList<>();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < 250; i++) {
+            keys.add(new Account().getPublicKey());
+            indexes.put(keys.get(i).toBase58(), i);
+        }
+        List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger staleAnswers = new AtomicInteger(1);
+        RpcClient client = FakeRpc.rawClient(body -> {
+            requests.add(body);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder values = new StringBuilder();
+            Matcher matcher = Pattern.compile("\"([1-9A-HJ-NP-Za-km-z]{32,44})\"").matcher(body);
+            int count = 0;
+            boolean last = false;
+            while (matcher.find()) {
+                int index = indexes.get(matcher.group(1));
+                last |= index == 249;
+                values.append(count++ == 0 ? "" : ",").append(index % 7 == 0 ? "null"
+                        : "{\"data\":[\"\",\"base64\"],\"executable\":false,\"lamports\":" + index
+                        + ",\"owner\":\"11111111111111111111111111111111\",\"rentEpoch\":0}");
+            }
+            // the node answering the last chunk lags behind once
+            long slot = last && staleAnswers.getAndDecrement() > 0 ? 8 : 10;
+            running.decrementAndGet();
+            return "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":" + slot + "},\"value\":["
+                    + values + "]},\"id\":\"" + requestIds(body).get(0) + "\"}";
+        });
+
+        MultipleAccountsConfig config = new MultipleAccountsConfig();
+        config.setMaxParallelism(1);
+        MultipleAccountsInfo accounts = client.getApi().getMultipleAccountsChunked(keys, config);
+        assertEquals(3, requests.size());
+        assertEquals(250, accounts.getValue().size());
+        for (int i = 0; i < 250; i++) {
+            AccountInfo.Value account = accounts.getValue().get(i);
+            if (i % 7 == 0) {
+                assertNull(account);
+            } else {
+                assertEquals(i, account.getLamports());
+            }
+        }
+        // later chunks are asked for the slot of the earlier ones, the oldest answer is reported
+        assertFalse(requests.get(0).contains("minContextSlot"));
+        assertTrue(requests.get(2).contains("\"minContextSlot\":10"));
+        assertEquals(8, accounts.getContext().getSlot());
+
+        requests.clear();
+        staleAnswers.set(1);
+        config.setRetryStaleChunks(true);
+        config.setMaxParallelism(2);
+        Map<PublicKey, Optional<AccountInfo.Value>> accountsByKey = client.getApi().getMultipleAccountsMap(keys, config);
+        assertEquals(4, requests.size());
+        assertEquals(249, accountsByKey.get(keys.get(249)).orElseThrow().getLamports());
+        assertFalse(accountsByKey.get(keys.get(245)).isPresent());
+        assertTrue(maxRunning.get() <= 2);
+
+        config.setChunkSize(0);
+        assertThrows(IllegalArgumentException.class, () -> client.getApi().getMultipleAccountsChunked(keys, config));
+    }
+
+    @Test
+    public void programAccountScansMergeShardsAndIsolateFailures() {
+        List<Memcmp> shards = ProgramAccountScan.byteShards(8).subList(0, 4);
+        assertEquals(256, ProgramAccountScan.byteShards(8).stream().map(Memcmp::getBytes).distinct().count());
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger flakyAttempts = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            assertTrue(body.contains("{\"memcmp\":{\"bytes\":\"x\",\"offset\":0}}"));
+            assertTrue(body.contains("{\"dataSize\":165}"));
+            Matcher shard = Pattern.compile("\"bytes\":\"(\\w)\",\"offset\":8").matcher(body);
+            assertTrue(shard.find());
+            String bytes = shard.group(1);
+            if (bytes.equals("4")) {
+                return "{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32005,\"message\":\"Node is behind\"},\"id\":\"1\"}";
+            }
+            StringBuilder accounts = new StringBuilder();
+            for (int i = 0; i < 3; i++) {
+                accounts.append(i == 0 ? "" : ",").append("{\"pubkey\":\"").append(bytes).append('-').append(i)
+                        .append("\",\"account\":{\"data\":[\"\",\"base64\"],\"executable\":false,"
+                                + "\"lamports\":1,\"owner\":\"x\",\"rentEpoch\":0}}");
+            }
+            if (bytes.equals("3") && flakyAttempts.getAndIncrement() == 0) {
+                // the first attempt breaks off after two accounts, which the retry must not deliver again
+                return "{\"jsonrpc\":\"2.0\",\"result\":[" + accounts.substring(0, accounts.lastIndexOf(",{"));
+            }
+            return "{\"jsonrpc\":\"2.0\",\"result\":[" + accounts + "],\"id\":\"1\"}";
+        });
+
+        List<String> pubkeys = new ArrayList<>();
+        ProgramAccountScanConfig config = new ProgramAccountScanConfig();
+        config.setMaxParallelism(4);
+        config.setBufferSize(2);
+        try (ProgramAccountScan scan = client.getApi().scanProgramAccounts(new Account().getPublicKey(),
+                List.of(new Memcmp(0, "x")), 165, shards, config)) {
+            scan.forEachRemaining(account -> pubkeys.add(account.getPubkey()));
+
+            assertEquals(9, pubkeys.size());
+            assertEquals(List.of("1-0", "1-1", "1-2", "2-0", "2-1", "2-2", "3-0", "3-1", "3-2"),
+                    pubkeys.stream().sorted().collect(Collectors.toList()));
+            assertEquals(List.of(shards.get(3)), new ArrayList<>(scan.getFailedShards().keySet()));
+            assertEquals(-32005L, scan.getFailedShards().get(shards.get(3)).getCode());
+        }
+        assertTrue(maxRunning.get() > 1);
+        assertEquals(2, flakyAttempts.get());
+    }
+
+    @Test
+    public void sendTransactionUsesThePrefetchedBlockhash() throws Exception {
+        AtomicInteger blockhashRequests = new AtomicInteger();
+        List<String> blockhashes = Collections.synchronizedList(new ArrayList<>());
+        RpcClient client = FakeRpc.rawClient(body -> {
+            if (body.contains("getLatestBlockhash")) {
+                int height = blockhashRequests.incrementAndGet();
+                String blockhash = new Account().getPublicKey().toBase58();
+                blockhashes.add(blockhash);
+                return "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":" + height + "},\"value\":"
+                        + "{\"blockhash\":\"" + blockhash + "\",\"lastValidBlockHeight\":" + height + "}},\"id\":\"1\"}";
+            }
+            assertTrue(body.contains("sendTransaction"));
+            return "{\"jsonrpc\":\"2.0\",\"result\":\"signature\",\"id\":\"1\"}";
+        });
+        BlockhashProvider provider = client.getBlockhashProvider();
+        provider.setRefreshInterval(Duration.ofMillis(20));
+        provider.setIdleTimeout(Duration.ofMillis(300));
+        Account signer = new Account();
+        Transaction transaction = new Transaction();
+        transaction.addInstruction(SystemProgram.transfer(signer.getPublicKey(), new Account().getPublicKey(), 1));
+
+        // the first send waits for the blockhash, later ones use the one refreshed in the background
+        assertEquals("signature", client.getApi().sendTransaction(transaction, signer));
+        assertEquals(1, provider.getSynchronousFetches());
+        assertTrue(provider.isRunning());
+        for (int i = 0; i < 100 && blockhashRequests.get() < 3; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("signature", client.getAsyncApi().sendTransaction(transaction, List.of(signer)).get());
+        assertEquals(1, provider.getSynchronousFetches());
+        assertTrue(provider.getRefreshes() >= 3);
+        assertTrue(provider.getStaleness().compareTo(Duration.ofSeconds(1)) < 0);
+        BlockhashProvider.Blockhash latest = provider.getLatest();
+        assertEquals(blockhashes.get((int) latest.getLastValidBlockHeight() - 1), latest.getBlockhash());
+        assertEquals(latest.getLastValidBlockHeight(), latest.getSlot());
+
+        // without reads the background refresh stops, the next read starts it again
+        for (int i = 0; i < 100 && provider.isRunning(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(provider.isRunning());
+        int requests = blockhashRequests.get();
+        Thread.sleep(60);
+        assertEquals(requests, blockhashRequests.get());
+        provider.getLatest();
+        assertTrue(provider.isRunning());
+        provider.close();
+        assertFalse(provider.isRunning());
+    }
+
+    @Test
+    public void blockhashIsRefreshedOnSlotNotifications() throws Exception {
+        AtomicInteger blockhashRequests = new AtomicInteger();
+        RpcClient client = FakeRpc.rawClient(body -> {
+            int height = blockhashRequests.incrementAndGet();
+            return "{\"jsonrpc\":\"2.0\",\"result\":{\"context\":{\"slot\":" + height + "},\"value\":"
+                    + "{\"blockhash\":\"" + new Account().getPublicKey() + "\",\"lastValidBlockHeight\":" + height
+                    + "}},\"id\":\"1\"}";
+        });
+        FakeWebSocket webSocket = new FakeWebSocket();
+        BlockhashProvider provider = new BlockhashProvider(client);
+        provider.setRefreshInterval(Duration.ofHours(1));
+        provider.setRefreshEverySlots(4);
+        client.setSubscriptionManager(new SubscriptionManager(1, uri -> webSocket));
+        provider.subscribeSlots();
+        provider.getLatest();
+        assertEquals(1, blockhashRequests.get());
+
+        assertTrue(webSocket.getSent().get(0).contains("slotSubscribe"));
+        webSocket.confirm(webSocket.getSent().get(0), 9);
+        for (long slot = 100; slot < 110; slot++) {
+            webSocket.onMessage("{\"jsonrpc\":\"2.0\",\"method\":\"slotNotification\",\"params\":{\"result\":"
+                    + "{\"parent\":" + (slot - 1) + ",\"root\":" + (slot - 32) + ",\"slot\":" + slot
+                    + "},\"subscription\":9}}");
+            for (int i = 0; i < 100 && provider.getRefreshes() < 2 + (slot - 100) / 4; i++) {
+                Thread.sleep(10);
+            }
+        }
+        // slots 100, 104 and 108
+        assertEquals(4, blockhashRequests.get());
+        assertEquals(4, provider.getLatest().getLastValidBlockHeight());
+
+        provider.close();
+        assertTrue(webSocket.getLastSent().contains("\"slotUnsubscribe\",\"params\":[9]"));
+    }
+
+    static List<String> requestIds(String body) {
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"id\":\"([^\"]+)\"").matcher(body);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids;
+    }
+
 }
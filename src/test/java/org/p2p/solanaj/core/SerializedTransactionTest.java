@@ -0,0 +1,119 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.programs.SystemProgram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerializedTransactionTest {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    private final Account payer = new Account();
+    private final PublicKey recipient = new Account().getPublicKey();
+    private final PublicKey program = new Account().getPublicKey();
+    private final PublicKey pool = new Account().getPublicKey();
+    private final PublicKey mint = new Account().getPublicKey();
+
+    @Test
+    public void legacyTransactionIsReadFromItsBytes() {
+        Transaction transaction = new Transaction();
+        transaction.addInstruction(SystemProgram.transfer(payer.getPublicKey(), recipient, 42));
+        transaction.addInstruction(new TransactionInstruction(program,
+                List.of(new AccountMeta(recipient, false, false)), new byte[] {5, 6, 7}));
+        transaction.setRecentBlockHash(BLOCKHASH);
+        transaction.sign(payer);
+        byte[] serialized = transaction.serialize();
+
+        SerializedTransaction parsed = Transaction.deserialize(serialized);
+        assertEquals(SerializedMessage.LEGACY, parsed.getVersion());
+        assertEquals(List.of(Base58.encode(Arrays.copyOfRange(serialized, 1, 65))), parsed.getSignatures());
+        assertTrue(parsed.verifySignatures());
+
+        SerializedMessage message = parsed.getMessage();
+        assertArrayEquals(Arrays.copyOfRange(serialized, 65, serialized.length), message.serialize());
+        assertEquals(BLOCKHASH, message.getRecentBlockhash());
+        assertEquals(payer.getPublicKey(), message.getAccountKey(0));
+        assertTrue(message.isSigner(0) && message.isWritable(0));
+        int recipientIndex = message.getAccountKeys().indexOf(recipient);
+        assertFalse(message.isSigner(recipientIndex));
+        assertTrue(message.isWritable(recipientIndex));
+        assertFalse(message.isWritable(message.getAccountKeys().indexOf(program)));
+
+        assertEquals(2, message.getInstructionCount());
+        SerializedMessage.CompiledInstruction transfer = message.getInstruction(0);
+        assertEquals(SystemProgram.PROGRAM_ID, transfer.getProgramId());
+        assertEquals(List.of(payer.getPublicKey(), recipient), Arrays.stream(transfer.getAccountIndexes())
+                .mapToObj(message::getAccountKey).collect(Collectors.toList()));
+        assertArrayEquals(SystemProgram.transfer(payer.getPublicKey(), recipient, 42).getData(), transfer.getData());
+        assertArrayEquals(new byte[] {5, 6, 7}, message.getInstructions().get(1).getData());
+
+        // read in place from a larger array and from a direct buffer
+        byte[] block = new byte[serialized.length + 10];
+        System.arraycopy(serialized, 0, block, 7, serialized.length);
+        assertEquals(parsed.getSignature(), SerializedTransaction.deserialize(block, 7, serialized.length)
+                .getSignature());
+        ByteBuffer direct = ByteBuffer.allocateDirect(block.length).put(block);
+        direct.position(7).limit(7 + serialized.length);
+        assertEquals(message.getAccountKeys(), SerializedTransaction.deserialize(direct).getMessage().getAccountKeys());
+        assertEquals(7, direct.position());
+
+        // a changed message no longer matches its signature
+        block[block.length - 4]++;
+        assertFalse(SerializedTransaction.deserialize(block, 7, serialized.length).verifySignatures());
+    }
+
+    @Test
+    public void versionedTransactionIsReadFromItsBytes() {
+        AddressLookupTable table = new AddressLookupTable(new Account().getPublicKey(), List.of(mint, pool));
+        VersionedTransaction transaction = new VersionedTransaction(payer.getPublicKey(), List.of(
+                new TransactionInstruction(program, List.of(
+                        new AccountMeta(payer.getPublicKey(), true, true),
+                        new AccountMeta(pool, false, true),
+                        new AccountMeta(mint, false, false)), new byte[] {1})), List.of(table));
+        transaction.setRecentBlockHash(BLOCKHASH);
+        transaction.sign(List.of(payer));
+        byte[] serialized = transaction.serialize();
+
+        SerializedTransaction parsed = SerializedTransaction.deserialize(serialized);
+        assertEquals(0, parsed.getVersion());
+        assertEquals(transaction.getSignature(), parsed.getSignature());
+        assertTrue(parsed.verifySignatures());
+
+        SerializedMessage message = Message.deserialize(transaction.getMessage().serialize());
+        assertEquals(List.of(payer.getPublicKey(), program), message.getAccountKeys());
+        assertEquals(1, message.getNumRequiredSignatures());
+        assertEquals(1, message.getNumReadonlyUnsignedAccounts());
+        // the pool and mint are loaded from the table, after the two listed accounts
+        assertArrayEquals(new int[] {0, 2, 3}, message.getInstruction(0).getAccountIndexes());
+        assertEquals(program, message.getInstruction(0).getProgramId());
+        VersionedMessage.AddressTableLookup lookup = message.getAddressTableLookups().get(0);
+        assertEquals(table.getKey(), lookup.getAccountKey());
+        assertArrayEquals(new byte[] {1}, lookup.getWritableIndexes());
+        assertArrayEquals(new byte[] {0}, lookup.getReadonlyIndexes());
+    }
+
+    @Test
+    public void malformedBytesAreRejected() {
+        VersionedTransaction transaction = new VersionedTransaction(payer.getPublicKey(),
+                List.of(SystemProgram.transfer(payer.getPublicKey(), recipient, 1)), List.of());
+        transaction.setRecentBlockHash(BLOCKHASH);
+        transaction.sign(List.of(payer));
+        byte[] serialized = transaction.serialize();
+
+        for (int length = 0; length < serialized.length; length++) {
+            byte[] truncated = Arrays.copyOf(serialized, length);
+            assertThrows(IllegalArgumentException.class, () -> SerializedTransaction.deserialize(truncated));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> SerializedTransaction.deserialize(Arrays.copyOf(serialized, serialized.length + 1)));
+        serialized[65] = (byte) 0x81;
+        assertThrows(IllegalArgumentException.class, () -> SerializedTransaction.deserialize(serialized));
+    }
+}
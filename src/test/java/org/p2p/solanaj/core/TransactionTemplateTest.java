@@ -0,0 +1,79 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.programs.SystemProgram;
+import org.p2p.solanaj.utils.TweetNaclFast;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionTemplateTest {
+
+    private final static Account signer = new Account(Base58
+            .decode("4Z7cXSyeFR8wNGMVXUE1TwtKn5D5Vu7FzEv69dokLv7KrQk7h6pu4LF8ZRR9yQBhc7uSM6RTTZtU1fmaxiNrxXrs"));
+
+    private static final PublicKey recipient = new PublicKey("GrDMoeqMLFjeXQ24H56S1RLgT4R76jsuWCd6SvXyGPQ5");
+
+    @Test
+    public void patchedTemplateMatchesTransaction() {
+        TransactionTemplate template = new TransactionTemplate(List.of(
+                ComputeBudgetProgram.setComputeUnitPrice(1),
+                SystemProgram.transfer(signer.getPublicKey(), recipient, 1)), List.of(signer));
+        TransactionTemplate.Field price = template.field(0, 1, 8);
+        // the transfer data is the instruction index followed by the lamports
+        TransactionTemplate.Field lamports = template.field(1, 4, 8);
+
+        String[] blockhashes = {"Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn",
+                "EkSnNWid2cvwEVnVx9aBqawnmiCNiDgp3gUdkDPTKN1N"};
+        for (int i = 0; i < blockhashes.length; i++) {
+            price.setLong(1000 + i);
+            lamports.setLong(3000 + i);
+            template.setRecentBlockhash(blockhashes[i]).sign();
+
+            Transaction transaction = new Transaction();
+            transaction.addInstruction(ComputeBudgetProgram.setComputeUnitPrice(1000 + i));
+            transaction.addInstruction(SystemProgram.transfer(signer.getPublicKey(), recipient, 3000 + i));
+            transaction.setRecentBlockHash(blockhashes[i]);
+            transaction.sign(signer);
+
+            byte[] expected = transaction.serialize();
+            assertArrayEquals(expected, template.serialize());
+            assertEquals(expected.length, template.getLength());
+            assertEquals(Base58.encode(Arrays.copyOfRange(expected, 1, 65)), template.getSignature());
+        }
+    }
+
+    @Test
+    public void fieldsAndSignersAreChecked() {
+        Account other = new Account();
+        // several signers are only placed first when the account order is given explicitly
+        List<TransactionInstruction> instructions = List.of(new TransactionInstruction(SystemProgram.PROGRAM_ID,
+                List.of(new AccountMeta(signer.getPublicKey(), true, true, 0),
+                        new AccountMeta(other.getPublicKey(), true, true, 1),
+                        new AccountMeta(recipient, false, true, 2)),
+                new byte[12]));
+
+        assertThrows(IllegalArgumentException.class, () -> new TransactionTemplate(instructions, List.of(signer)));
+
+        TransactionTemplate template = new TransactionTemplate(instructions, List.of(signer, other));
+        assertThrows(IndexOutOfBoundsException.class, () -> template.field(0, 8, 8));
+        assertThrows(IllegalArgumentException.class, () -> template.field(0, 4, 8).setInt(1));
+        assertThrows(IllegalArgumentException.class, () -> template.setRecentBlockhash(new byte[31]));
+
+        template.setRecentBlockhash(new byte[32]).sign();
+        byte[] serialized = template.serialize();
+        assertEquals(2, serialized[0]);
+        int messageOffset = 1 + 2 * Transaction.SIGNATURE_LENGTH;
+        byte[] message = Arrays.copyOfRange(serialized, messageOffset, serialized.length);
+        // the signature of each signer is in the slot of its key
+        for (int slot = 0; slot < 2; slot++) {
+            byte[] key = Arrays.copyOfRange(message, 4 + slot * 32, 4 + (slot + 1) * 32);
+            byte[] signature = Arrays.copyOfRange(serialized, 1 + slot * 64, 1 + (slot + 1) * 64);
+            assertTrue(new TweetNaclFast.Signature(key, new byte[0]).detached_verify(message, signature));
+        }
+    }
+}
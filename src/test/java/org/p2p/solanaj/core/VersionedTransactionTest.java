@@ -0,0 +1,102 @@
+package org.p2p.solanaj.core;
+
+import org.bitcoinj.core.Base58;
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.types.config.RpcSendTransactionConfig;
+import org.p2p.solanaj.utils.FakeRpc;
+import org.p2p.solanaj.utils.TweetNaclFast;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedTransactionTest {
+
+    private static final String BLOCKHASH = "Eit7RCyhUixAe2hGBS8oqnw59QK3kgMMjfLME5bm9wRn";
+
+    private final Account payer = new Account();
+    private final PublicKey program = new Account().getPublicKey();
+    private final PublicKey invokedProgram = new Account().getPublicKey();
+    private final PublicKey poolA = new Account().getPublicKey();
+    private final PublicKey poolB = new Account().getPublicKey();
+    private final PublicKey mint = new Account().getPublicKey();
+
+    private List<TransactionInstruction> swap() {
+        return List.of(
+                new TransactionInstruction(program, List.of(
+                        new AccountMeta(payer.getPublicKey(), true, true),
+                        new AccountMeta(poolA, false, true),
+                        new AccountMeta(poolB, false, true),
+                        new AccountMeta(mint, false, false),
+                        new AccountMeta(invokedProgram, false, false)), new byte[] {7, 8}),
+                new TransactionInstruction(invokedProgram, List.of(new AccountMeta(poolB, false, false)),
+                        new byte[] {9}));
+    }
+
+    @Test
+    public void accountsAreLoadedFromLookupTables() {
+        AddressLookupTable first = new AddressLookupTable(new Account().getPublicKey(),
+                List.of(mint, poolB, invokedProgram));
+        AddressLookupTable second = new AddressLookupTable(new Account().getPublicKey(), List.of(poolA, poolB));
+        AddressLookupTable unused = new AddressLookupTable(new Account().getPublicKey(), List.of(payer.getPublicKey()));
+
+        VersionedMessage message = new VersionedMessage(payer.getPublicKey(), swap(), List.of(first, second, unused));
+        message.setRecentBlockHash(BLOCKHASH);
+
+        // signers and invoked programs stay in the message
+        ByteBuffer expected = ByteBuffer.allocate(221);
+        expected.put(new byte[] {(byte) 0x80, 1, 0, 2, 3});
+        expected.put(payer.getPublicKey().toByteArray()).put(invokedProgram.toByteArray()).put(program.toByteArray());
+        expected.put(Base58.decode(BLOCKHASH));
+        // static 0..2, then the writable poolB (first table) and poolA (second table), then the readonly mint
+        expected.put(new byte[] {2, 2, 5, 0, 4, 3, 5, 1, 2, 7, 8});
+        expected.put(new byte[] {1, 1, 3, 1, 9});
+        expected.put((byte) 2);
+        expected.put(first.getKey().toByteArray()).put(new byte[] {1, 1, 1, 0});
+        expected.put(second.getKey().toByteArray()).put(new byte[] {1, 0, 0});
+        assertArrayEquals(expected.array(), message.serialize());
+        assertEquals(2, message.getAddressTableLookups().size());
+
+        // without tables every account is listed
+        VersionedMessage uncompressed = new VersionedMessage(payer.getPublicKey(), swap(), List.of());
+        uncompressed.setRecentBlockHash(BLOCKHASH);
+        assertEquals(6, uncompressed.getStaticAccountKeys().size());
+        assertEquals(221, message.serialize().length);
+        assertEquals(246, uncompressed.serialize().length);
+    }
+
+    @Test
+    public void signedTransactionIsSentThroughRpcApi() throws Exception {
+        AtomicReference<String> request = new AtomicReference<>();
+        RpcClient client = fakeClient(request);
+        AddressLookupTable table = new AddressLookupTable(new Account().getPublicKey(), List.of(poolA, poolB, mint));
+        VersionedTransaction transaction = new VersionedTransaction(payer.getPublicKey(), swap(), List.of(table));
+
+        assertEquals("sig", client.getApi().sendTransaction(transaction, List.of(payer), BLOCKHASH,
+                new RpcSendTransactionConfig()));
+        byte[] serialized = transaction.serialize();
+        assertTrue(request.get().contains(Base64.getEncoder().encodeToString(serialized)));
+
+        assertEquals(1, serialized[0]);
+        byte[] message = Arrays.copyOfRange(serialized, 65, serialized.length);
+        assertArrayEquals(transaction.getMessage().serialize(), message);
+        byte[] signature = Arrays.copyOfRange(serialized, 1, 65);
+        assertTrue(new TweetNaclFast.Signature(payer.getPublicKey().toByteArray(), new byte[0])
+                .detached_verify(message, signature));
+        assertEquals(Base58.encode(signature), transaction.getSignature());
+
+        assertThrows(IllegalArgumentException.class, () -> transaction.sign(List.of(new Account())));
+    }
+
+    private static RpcClient fakeClient(AtomicReference<String> request) {
+        return FakeRpc.client(body -> {
+            request.set(body);
+            return "\"sig\"";
+        });
+    }
+}
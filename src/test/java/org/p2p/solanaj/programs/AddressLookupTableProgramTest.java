@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.p2p.solanaj.core.PublicKey;
 import org.p2p.solanaj.core.TransactionInstruction;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 public class AddressLookupTableProgramTest {
@@ -24,6 +25,10 @@ public class AddressLookupTableProgramTest {
         assertNotNull(instruction);
         assertEquals(AddressLookupTableProgram.PROGRAM_ID, instruction.getProgramId());
         assertEquals(4, instruction.getKeys().size()); // Check number of keys
+        // u32 instruction, u64 slot and the bump seed of the table address
+        assertEquals(13, instruction.getData().length);
+        assertEquals(AddressLookupTableProgram.deriveLookupTableAddress(AUTHORITY, RECENT_SLOT).getAddress(),
+                instruction.getKeys().get(0).getPublicKey());
     }
 
     /**
@@ -47,6 +52,10 @@ public class AddressLookupTableProgramTest {
         assertNotNull(instruction);
         assertEquals(AddressLookupTableProgram.PROGRAM_ID, instruction.getProgramId());
         assertEquals(4, instruction.getKeys().size()); // Check number of keys
+        // u32 instruction, u64 address count and the addresses
+        assertArrayEquals(new byte[] {2, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0},
+                Arrays.copyOf(instruction.getData(), 12));
+        assertEquals(12 + 32, instruction.getData().length);
     }
 
     /**
@@ -0,0 +1,126 @@
+package org.p2p.solanaj.transactions;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.programs.MemoProgram;
+import org.p2p.solanaj.programs.SystemProgram;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.config.TransactionSenderConfig;
+import org.p2p.solanaj.utils.FakeRpc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComputeUnitEstimatorTest {
+
+    @Test
+    public void limitIsSizedBySimulationAndCachedByMessageShape() throws Exception {
+        AtomicInteger simulations = new AtomicInteger();
+        AtomicReference<String> unitsConsumed = new AtomicReference<>("1000");
+        AtomicReference<String> err = new AtomicReference<>("null");
+        RpcClient client = FakeRpc.client(body -> {
+            assertTrue(body.contains("simulateTransaction"));
+            assertTrue(body.contains("\"replaceRecentBlockhash\":true"));
+            simulations.incrementAndGet();
+            return simulated(unitsConsumed.get(), err.get());
+        });
+        ComputeUnitEstimator estimator = new ComputeUnitEstimator(client);
+        estimator.setMargin(1.5);
+        estimator.setExtraUnits(100);
+        Account payer = new Account();
+
+        // an existing limit is replaced, other instructions are kept in order
+        List<TransactionInstruction> sized = estimator.withComputeUnitLimit(List.of(
+                ComputeBudgetProgram.setComputeUnitLimit(200_000),
+                ComputeBudgetProgram.setComputeUnitPrice(5),
+                transfer(payer, 1)), List.of(payer));
+        assertEquals(3, sized.size());
+        assertEquals(1600, limit(sized.get(0)));
+        assertEquals(ComputeBudgetProgram.setComputeUnitPrice(5).getData().length, sized.get(1).getData().length);
+        assertEquals(SystemProgram.PROGRAM_ID, sized.get(2).getProgramId());
+
+        // another recipient and amount have the same shape
+        unitsConsumed.set("5000");
+        List<TransactionInstruction> template = List.of(ComputeBudgetProgram.setComputeUnitPrice(5), transfer(payer, 7));
+        assertEquals(1600, limit(estimator.withComputeUnitLimit(template, List.of(payer)).get(0)));
+        assertEquals(1, simulations.get());
+        assertEquals(1, estimator.getCacheHits());
+
+        // another instruction has not
+        List<TransactionInstruction> withMemo = List.of(transfer(payer, 1),
+                MemoProgram.writeUtf8(payer.getPublicKey(), "memo"));
+        assertEquals(7600, estimator.getComputeUnitLimit(withMemo, List.of(payer)));
+        assertEquals(2, estimator.getSimulations());
+        assertEquals(2, estimator.getCachedShapes());
+
+        // capped at the highest limit
+        unitsConsumed.set("1399000");
+        estimator.clear();
+        assertEquals(ComputeBudgetProgram.MAX_COMPUTE_UNIT_LIMIT, estimator.getComputeUnitLimit(withMemo,
+                List.of(payer)));
+
+        // failed simulations are not cached
+        estimator.clear();
+        err.set("{\"InstructionError\":[0,\"Custom\"]}");
+        assertThrows(RpcException.class, () -> estimator.getComputeUnitLimit(withMemo, List.of(payer)));
+        assertEquals(0, estimator.getCachedShapes());
+    }
+
+    @Test
+    public void senderSizesTransactionsSubmittedAsInstructions() throws Exception {
+        AtomicReference<String> sentTransaction = new AtomicReference<>();
+        RpcClient client = FakeRpc.client(body -> {
+            if (body.contains("simulateTransaction")) {
+                return simulated("2000", "null");
+            }
+            if (body.contains("getLatestBlockhash")) {
+                return "{\"context\":{\"slot\":1},\"value\":{\"blockhash\":\"" + new Account().getPublicKey()
+                        + "\",\"lastValidBlockHeight\":1000}}";
+            }
+            if (body.contains("sendTransaction")) {
+                sentTransaction.set(body);
+                return "\"sig-1\"";
+            }
+            if (body.contains("getBlockHeight")) {
+                return "500";
+            }
+            return "{\"context\":{\"slot\":8},\"value\":[{\"slot\":7,\"confirmations\":null,"
+                    + "\"confirmationStatus\":\"finalized\",\"err\":null}]}";
+        });
+        TransactionSenderConfig config = new TransactionSenderConfig();
+        config.setSizeComputeUnits(true);
+        TransactionSender sender = new TransactionSender(client, config);
+        Account payer = new Account();
+
+        TransactionResult result = sender.submit(List.of(transfer(payer, 1)), List.of(payer))
+                .get(10, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertEquals(1, sender.getComputeUnitEstimator().getSimulations());
+        assertNotNull(sentTransaction.get());
+        sender.close();
+    }
+
+    private static TransactionInstruction transfer(Account payer, long lamports) {
+        return SystemProgram.transfer(payer.getPublicKey(), new Account().getPublicKey(), lamports);
+    }
+
+    private static int limit(TransactionInstruction instruction) {
+        assertEquals(ComputeBudgetProgram.PROGRAM_ID, instruction.getProgramId());
+        assertEquals(2, instruction.getData()[0]);
+        return ByteBuffer.wrap(instruction.getData(), 1, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    private static String simulated(String unitsConsumed, String err) {
+        return "{\"context\":{\"slot\":1},\"value\":{\"err\":" + err + ",\"logs\":[],\"accounts\":null,"
+                + "\"unitsConsumed\":" + unitsConsumed + "}}";
+    }
+}
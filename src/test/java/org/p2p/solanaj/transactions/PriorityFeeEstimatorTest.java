@@ -0,0 +1,103 @@
+package org.p2p.solanaj.transactions;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.core.TransactionInstruction;
+import org.p2p.solanaj.programs.ComputeBudgetProgram;
+import org.p2p.solanaj.programs.SystemProgram;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.utils.FakeRpc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriorityFeeEstimatorTest {
+
+    @Test
+    public void percentilesAreComputedPerAccountSetOverTheSlotWindow() throws Exception {
+        PublicKey payer = new Account().getPublicKey();
+        PublicKey pool = new Account().getPublicKey();
+        AtomicLong newestSlot = new AtomicLong(100);
+        AtomicLong requests = new AtomicLong();
+        AtomicReference<String> lastRequest = new AtomicReference<>();
+        RpcClient client = FakeRpc.client(body -> {
+            requests.incrementAndGet();
+            lastRequest.set(body);
+            // fees 1..100 for slots 1..100, later slots cost 1000
+            StringBuilder samples = new StringBuilder();
+            for (long slot = newestSlot.get() - 99; slot <= newestSlot.get(); slot++) {
+                samples.append(samples.length() == 0 ? "" : ",").append("{\"slot\":").append(slot)
+                        .append(",\"prioritizationFee\":").append(slot <= 100 ? slot : 1000).append('}');
+            }
+            return "[" + samples + "]";
+        });
+
+        PriorityFeeEstimator estimator = new PriorityFeeEstimator(client);
+        estimator.setSlotWindow(100);
+        estimator.setRefreshInterval(Duration.ofMillis(500));
+
+        PriorityFeeEstimator.FeeEstimate estimate = estimator.getEstimate(List.of(pool, payer));
+        assertEquals(100, estimate.getSampleCount());
+        assertEquals(50, estimate.getP50());
+        assertEquals(75, estimate.getP75());
+        assertEquals(90, estimate.getP90());
+        assertEquals(99, estimate.getP99());
+        assertEquals(100, estimate.getNewestSlot());
+        assertTrue(lastRequest.get().contains(pool.toBase58()) && lastRequest.get().contains(payer.toBase58()));
+
+        // the same set in another order is served from the cache
+        assertSame(estimate, estimator.getEstimate(Set.of(payer, pool)));
+        assertEquals(1, requests.get());
+
+        // refreshed in the background; slots that left the window no longer count
+        newestSlot.set(150);
+        for (int i = 0; i < 100 && estimator.getEstimate(List.of(payer, pool)).getNewestSlot() < 150; i++) {
+            Thread.sleep(20);
+        }
+        estimate = estimator.getEstimate(List.of(payer, pool));
+        assertEquals(100, estimate.getSampleCount());
+        assertEquals(100, estimate.getPercentile(50));
+        assertEquals(1000, estimate.getP75());
+
+        // the instruction carries the configured percentile within the bounds
+        estimator.setPercentile(50);
+        estimator.setMaxComputeUnitPrice(500);
+        List<TransactionInstruction> instructions = List.of(SystemProgram.transfer(payer, pool, 1));
+        assertEquals(Set.of(payer, pool), PriorityFeeEstimator.writableAccounts(instructions));
+        TransactionInstruction price = estimator.computeUnitPrice(instructions);
+        assertEquals(ComputeBudgetProgram.PROGRAM_ID, price.getProgramId());
+        assertEquals(100, ByteBuffer.wrap(price.getData(), 1, 8).order(ByteOrder.LITTLE_ENDIAN).getLong());
+        estimator.setPercentile(99);
+        assertEquals(500, estimator.getComputeUnitPrice(Set.of(payer, pool)));
+        assertEquals(1, estimator.getTrackedSets());
+
+        estimator.close();
+        assertFalse(estimator.isRunning());
+    }
+
+    @Test
+    public void idleAccountSetsAreDropped() throws Exception {
+        RpcClient client = FakeRpc.client(body -> "[{\"slot\":1,\"prioritizationFee\":7}]");
+        PriorityFeeEstimator estimator = new PriorityFeeEstimator(client);
+        estimator.setRefreshInterval(Duration.ofMillis(10));
+        estimator.setIdleTimeout(Duration.ofMillis(50));
+        estimator.setMaxTrackedSets(1);
+
+        assertEquals(7, estimator.getComputeUnitPrice(List.of()));
+        assertEquals(7, estimator.getComputeUnitPrice(List.of(new Account().getPublicKey())));
+        assertEquals(1, estimator.getTrackedSets());
+        for (int i = 0; i < 100 && estimator.isRunning(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(estimator.isRunning());
+        assertEquals(0, estimator.getTrackedSets());
+    }
+}
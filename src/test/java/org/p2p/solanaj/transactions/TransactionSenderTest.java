@@ -0,0 +1,182 @@
+package org.p2p.solanaj.transactions;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.core.Account;
+import org.p2p.solanaj.core.Transaction;
+import org.p2p.solanaj.programs.SystemProgram;
+import org.p2p.solanaj.rpc.RpcClient;
+import org.p2p.solanaj.rpc.RpcException;
+import org.p2p.solanaj.rpc.types.config.TransactionSenderConfig;
+import org.p2p.solanaj.utils.FakeRpc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionSenderTest {
+
+    private static final Pattern SIGNATURE = Pattern.compile("\"(sig-\\d+)\"");
+
+    @Test
+    public void transactionsAreSentConcurrentlyAndConfirmedInBatches() throws Exception {
+        AtomicInteger sentCount = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger largestStatusBatch = new AtomicInteger();
+        RpcClient client = FakeRpc.client(body -> {
+            if (body.contains("getLatestBlockhash")) {
+                return blockhash(1000);
+            }
+            if (body.contains("getBlockHeight")) {
+                return "500";
+            }
+            if (body.contains("sendTransaction")) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(2);
+                inFlight.decrementAndGet();
+                return "\"sig-" + sentCount.incrementAndGet() + "\"";
+            }
+            List<String> statuses = new ArrayList<>();
+            Matcher signature = SIGNATURE.matcher(body);
+            while (signature.find()) {
+                int number = Integer.parseInt(signature.group(1).substring(4));
+                // odd transactions fail on chain, every tenth is still only processed in the first rounds
+                statuses.add(number % 10 == 0 && sentCount.get() < 600
+                        ? "{\"slot\":7,\"confirmations\":0,\"confirmationStatus\":\"processed\",\"err\":null}"
+                        : "{\"slot\":7,\"confirmations\":1,\"confirmationStatus\":\"confirmed\",\"err\":"
+                        + (number % 2 == 1 ? "{\"InstructionError\":[0,\"Custom\"]}" : "null") + "}");
+            }
+            largestStatusBatch.accumulateAndGet(statuses.size(), Math::max);
+            return "{\"context\":{\"slot\":8},\"value\":[" + String.join(",", statuses) + "]}";
+        });
+        client.setMaxConcurrentRequests(64);
+
+        TransactionSenderConfig config = new TransactionSenderConfig();
+        config.setSignerThreads(4);
+        config.setMaxConcurrentSends(4);
+        config.setQueueCapacity(100);
+        config.setPollInterval(Duration.ofMillis(20));
+        TransactionSender sender = new TransactionSender(client, config);
+
+        Account payer = new Account();
+        List<CompletableFuture<TransactionResult>> results = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Transaction transaction = new Transaction();
+            transaction.addInstruction(SystemProgram.transfer(payer.getPublicKey(), new Account().getPublicKey(), i));
+            results.add(sender.submit(transaction, List.of(payer)));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+        int failedOnChain = 0;
+        for (CompletableFuture<TransactionResult> result : results) {
+            TransactionResult transactionResult = result.get();
+            assertEquals("confirmed", transactionResult.getConfirmationStatus());
+            assertEquals(7, transactionResult.getSlot());
+            failedOnChain += transactionResult.isSuccess() ? 0 : 1;
+        }
+        assertEquals(300, failedOnChain);
+        assertEquals(600, sender.getConfirmed());
+        assertEquals(600, sender.getSent());
+        assertEquals(0, sender.getPending());
+        assertTrue(maxInFlight.get() <= 4);
+        assertTrue(largestStatusBatch.get() <= 256);
+        assertTrue(sender.getStatusRequests() < 600);
+        sender.close();
+    }
+
+    @Test
+    public void transactionsFailWhenNotSentOrExpired() throws Exception {
+        AtomicLong blockHeight = new AtomicLong(500);
+        RpcClient client = FakeRpc.client(body -> {
+            if (body.contains("getLatestBlockhash")) {
+                return blockhash(1000);
+            }
+            if (body.contains("getBlockHeight")) {
+                return String.valueOf(blockHeight.get());
+            }
+            if (body.contains("sendTransaction")) {
+                return "\"sig-1\"";
+            }
+            return "{\"context\":{\"slot\":8},\"value\":[null]}";
+        });
+        TransactionSenderConfig config = new TransactionSenderConfig();
+        config.setPollInterval(Duration.ofMillis(20));
+        TransactionSender sender = new TransactionSender(client, config);
+        Account payer = new Account();
+
+        CompletableFuture<TransactionResult> result = sender.submit(transfer(payer), List.of(payer));
+        for (int i = 0; i < 100 && sender.getPending() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, sender.getPending());
+        assertFalse(result.isDone());
+
+        // the block height passes the last valid block height of the blockhash
+        blockHeight.set(1001);
+        ExecutionException expired = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(expired.getCause() instanceof RpcException);
+        assertEquals(1, sender.getExpired());
+
+        sender.close();
+        assertThrows(IllegalStateException.class, () -> sender.submit(transfer(payer), List.of(payer)));
+    }
+
+    @Test
+    public void identicalTransactionsCompleteTogether() throws Exception {
+        AtomicInteger sends = new AtomicInteger();
+        RpcClient client = FakeRpc.client(body -> {
+            if (body.contains("getLatestBlockhash")) {
+                return blockhash(1000);
+            }
+            if (body.contains("getBlockHeight")) {
+                return "500";
+            }
+            if (body.contains("sendTransaction")) {
+                sends.incrementAndGet();
+                return "\"sig-1\"";
+            }
+            // not seen until both copies were sent
+            return "{\"context\":{\"slot\":8},\"value\":[" + (sends.get() < 2 ? "null"
+                    : "{\"slot\":7,\"confirmations\":1,\"confirmationStatus\":\"confirmed\",\"err\":null}") + "]}";
+        });
+        TransactionSenderConfig config = new TransactionSenderConfig();
+        config.setPollInterval(Duration.ofMillis(20));
+        TransactionSender sender = new TransactionSender(client, config);
+        Account payer = new Account();
+
+        CompletableFuture<TransactionResult> first = sender.submit(transfer(payer), List.of(payer));
+        CompletableFuture<TransactionResult> second = sender.submit(transfer(payer), List.of(payer));
+        assertEquals("sig-1", first.get(5, TimeUnit.SECONDS).getSignature());
+        assertSame(first.get(), second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, sender.getPending());
+        sender.close();
+    }
+
+    private static Transaction transfer(Account payer) {
+        Transaction transaction = new Transaction();
+        transaction.addInstruction(SystemProgram.transfer(payer.getPublicKey(), new Account().getPublicKey(), 1));
+        return transaction;
+    }
+
+    private static String blockhash(long lastValidBlockHeight) {
+        return "{\"context\":{\"slot\":1},\"value\":{\"blockhash\":\"" + new Account().getPublicKey()
+                + "\",\"lastValidBlockHeight\":" + lastValidBlockHeight + "}}";
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
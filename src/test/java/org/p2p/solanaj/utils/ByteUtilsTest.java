@@ -1,11 +1,14 @@
 package org.p2p.solanaj.utils;
 
+import org.bitcoinj.core.Base58;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
 
 public class ByteUtilsTest {
 
@@ -41,4 +44,18 @@ public class ByteUtilsTest {
         });
     }
 
+    @Test
+    public void encodeBase58() {
+        Random random = new Random(7);
+        for (int length = 0; length <= 80; length++) {
+            for (int zeros = 0; zeros <= Math.min(length, 3); zeros++) {
+                byte[] input = new byte[length];
+                random.nextBytes(input);
+                Arrays.fill(input, 0, zeros, (byte) 0);
+                assertEquals(Base58.encode(input), ByteUtils.encodeBase58(input));
+            }
+        }
+        assertEquals("1111", ByteUtils.encodeBase58(new byte[4]));
+    }
+
 }
@@ -0,0 +1,78 @@
+package org.p2p.solanaj.utils;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.p2p.solanaj.rpc.RpcClient;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * An RPC node for tests: requests of the returned clients are answered in process by a function of the request
+ * body, without touching the network.
+ */
+public final class FakeRpc {
+
+    private FakeRpc() {
+    }
+
+    /**
+     * Returns a client answering every request with the result the server returns for its body.
+     *
+     * @param server the JSON of the result for a request body
+     * @return the client
+     */
+    public static RpcClient client(Function<String, String> server) {
+        return rawClient(body -> envelope(server.apply(body)));
+    }
+
+    /**
+     * Returns a client answering every request with the complete response the server returns for its body, for
+     * errors and batches.
+     *
+     * @param server the JSON of the response for a request body
+     * @return the client
+     */
+    public static RpcClient rawClient(Function<String, String> server) {
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> response(chain.request(), server))
+                .build();
+        return new RpcClient("http://localhost", httpClient);
+    }
+
+    /**
+     * Answers a request with the complete response the server returns for its body, for interceptors that handle
+     * some requests differently.
+     *
+     * @param request the request
+     * @param server  the JSON of the response for a request body
+     * @return a successful HTTP response
+     * @throws IOException if the request body cannot be read
+     */
+    public static Response response(Request request, Function<String, String> server) throws IOException {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(server.apply(buffer.readUtf8()), MediaType.parse("application/json")))
+                .build();
+    }
+
+    /**
+     * Wraps a result into a JSON-RPC response.
+     *
+     * @param result the JSON of the result
+     * @return the response
+     */
+    public static String envelope(String result) {
+        return "{\"jsonrpc\":\"2.0\",\"result\":" + result + ",\"id\":\"1\"}";
+    }
+}
@@ -0,0 +1,87 @@
+package org.p2p.solanaj.utils;
+
+import org.p2p.solanaj.core.PublicKey;
+import org.p2p.solanaj.ws.SubscriptionWebSocketClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A WebSocket client for tests that is always open and records what it sends instead of connecting. Subscription
+ * requests are answered with {@link #confirm(String, long)} and notifications are delivered with
+ * {@link #onMessage(String)}.
+ */
+public final class FakeWebSocket extends SubscriptionWebSocketClient {
+
+    private static final Pattern REQUEST_ID = Pattern.compile("\"id\":\"([^\"]+)\"");
+
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+    public FakeWebSocket() {
+        super(URI.create("ws://localhost"));
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void send(String text) {
+        sent.add(text);
+    }
+
+    /**
+     * Returns the messages sent so far, in order.
+     *
+     * @return the sent messages
+     */
+    public List<String> getSent() {
+        synchronized (sent) {
+            return new ArrayList<>(sent);
+        }
+    }
+
+    /**
+     * Returns the message sent last.
+     *
+     * @return the last sent message
+     */
+    public String getLastSent() {
+        synchronized (sent) {
+            return sent.get(sent.size() - 1);
+        }
+    }
+
+    /**
+     * Answers a subscription request with a subscription id.
+     *
+     * @param request        the request as sent
+     * @param subscriptionId the subscription id to answer with
+     */
+    public void confirm(String request, long subscriptionId) {
+        Matcher id = REQUEST_ID.matcher(request);
+        if (!id.find()) {
+            throw new IllegalArgumentException("No request id in " + request);
+        }
+        onMessage("{\"jsonrpc\":\"2.0\",\"result\":" + subscriptionId + ",\"id\":\"" + id.group(1) + "\"}");
+    }
+
+    /**
+     * Answers the accountSubscribe requests of the given account with a subscription id.
+     *
+     * @param account        the subscribed account
+     * @param subscriptionId the subscription id to answer with
+     */
+    public void confirmAccount(PublicKey account, long subscriptionId) {
+        for (String message : getSent()) {
+            if (message.contains("accountSubscribe") && message.contains(account.toBase58())) {
+                confirm(message, subscriptionId);
+            }
+        }
+    }
+}
@@ -3,6 +3,9 @@ package org.p2p.solanaj.utils;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public class ShortvecEncodingTest {
 
     @Test
@@ -18,4 +21,27 @@ public class ShortvecEncodingTest {
         assertArrayEquals(new byte[] { -128, -128, -128, 1 } /* [0x80, 0x80, 0x80, 0x01] */,
                 ShortvecEncoding.encodeLength(2097152)); // 0x200000
     }
+
+    @Test
+    public void writeLength() {
+        byte[] out = new byte[8];
+        for (int len : new int[] { 0, 1, 127, 128, 255, 256, 32767, 2097152 }) {
+            byte[] expected = ShortvecEncoding.encodeLength(len);
+            assertEquals(expected.length, ShortvecEncoding.encodedLength(len));
+            assertEquals(2 + expected.length, ShortvecEncoding.writeLength(out, 2, len));
+            assertArrayEquals(expected, Arrays.copyOfRange(out, 2, 2 + expected.length));
+        }
+    }
+
+    @Test
+    public void decodeLength() {
+        for (int len : new int[] { 0, 1, 127, 128, 255, 256, 32767, 65535 }) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            buffer.put(ShortvecEncoding.encodeLength(len)).put((byte) 9).flip();
+            assertEquals(len, ShortvecEncoding.decodeLength(buffer));
+            assertEquals(9, buffer.get());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> ShortvecEncoding.decodeLength(ByteBuffer.wrap(new byte[] { -1, -1, -1, 1 })));
+    }
 }
@@ -0,0 +1,128 @@
+package org.p2p.solanaj.ws;
+
+import org.junit.jupiter.api.Test;
+import org.p2p.solanaj.rpc.types.config.Commitment;
+import org.p2p.solanaj.ws.listeners.NotificationEventListener;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriptionManagerTest {
+
+    private final List<FakeClient> clients = new ArrayList<>();
+
+    private static class FakeClient extends SubscriptionWebSocketClient {
+        final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+        FakeClient(URI uri) {
+            super(uri);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void send(String text) {
+            sent.add(text);
+        }
+
+        /**
+         * Confirms the last subscribe request with the given subscription id.
+         */
+        void confirm(long subscriptionId) {
+            Matcher id = Pattern.compile("\"id\":\"([^\"]+)\"").matcher(sent.get(sent.size() - 1));
+            assertTrue(id.find());
+            onMessage("{\"jsonrpc\":\"2.0\",\"result\":" + subscriptionId + ",\"id\":\"" + id.group(1) + "\"}");
+        }
+
+        long count(String method) {
+            return sent.stream().filter(message -> message.contains("\"" + method + "\"")).count();
+        }
+    }
+
+    private SubscriptionManager manager(int connectionsPerEndpoint) {
+        return new SubscriptionManager(connectionsPerEndpoint, uri -> {
+            FakeClient client = new FakeClient(uri);
+            clients.add(client);
+            return client;
+        });
+    }
+
+    @Test
+    void identicalSubscriptionsShareOneServerSubscription() {
+        SubscriptionManager manager = manager(1);
+        List<Object> first = new ArrayList<>();
+        List<Object> second = new ArrayList<>();
+        NotificationEventListener firstListener = first::add;
+        NotificationEventListener secondListener = second::add;
+
+        SubscriptionManager.Subscription a = manager.accountSubscribe("https://localhost", "account",
+                Commitment.CONFIRMED, "base64", firstListener);
+        SubscriptionManager.Subscription b = manager.accountSubscribe("https://localhost:8899/path", "account",
+                Commitment.CONFIRMED, "base64", secondListener);
+        assertEquals(1, clients.size());
+        FakeClient client = clients.get(0);
+        assertEquals(URI.create("wss://localhost"), client.getURI());
+        assertEquals(1, client.count("accountSubscribe"));
+        client.confirm(5);
+        assertEquals(5, b.getSubscriptionId());
+
+        client.onMessage("{\"jsonrpc\":\"2.0\",\"method\":\"accountNotification\",\"params\":{\"result\":"
+                + "{\"context\":{\"slot\":3},\"value\":{\"lamports\":1}},\"subscription\":5}}");
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+
+        // cancelled on the server only when the last listener leaves
+        a.close();
+        a.close();
+        assertEquals(0, client.count("accountUnsubscribe"));
+        b.close();
+        assertEquals(1, client.count("accountUnsubscribe"));
+        assertEquals(0, manager.getSubscriptionCount());
+
+        // closed before the server confirmed it: cancelled once confirmed
+        manager.accountSubscribe("https://localhost", "account", Commitment.CONFIRMED, "base64", firstListener)
+                .close();
+        assertEquals(2, client.count("accountSubscribe"));
+        client.confirm(6);
+        assertTrue(client.sent.get(client.sent.size() - 1).contains("\"params\":[6]"));
+        assertEquals(2, client.count("accountUnsubscribe"));
+    }
+
+    @Test
+    void signatureSubscriptionsEndWithTheirNotification() {
+        SubscriptionManager manager = manager(2);
+        List<Object> notifications = new ArrayList<>();
+
+        manager.signatureSubscribe("http://localhost", "sig", notifications::add);
+        manager.signatureSubscribe("http://localhost", "sig", notifications::add);
+        FakeClient client = clients.get(0);
+        client.confirm(9);
+        client.onMessage("{\"jsonrpc\":\"2.0\",\"method\":\"signatureNotification\",\"params\":{\"result\":"
+                + "{\"context\":{\"slot\":3},\"value\":{\"err\":null}},\"subscription\":9}}");
+        assertEquals(2, notifications.size());
+        assertTrue(notifications.get(0) instanceof SignatureNotification);
+        assertEquals(0, manager.getSubscriptionCount());
+
+        // further subscriptions are spread over a second connection, up to the pool size
+        manager.signatureSubscribe("http://localhost", "other", notifications::add);
+        manager.signatureSubscribe("http://localhost", "third", notifications::add);
+        manager.slotSubscribe("http://localhost", notifications::add);
+        assertEquals(2, manager.getConnectionCount());
+        assertEquals(3, manager.getSubscriptionCount());
+        assertEquals(0, client.count("signatureUnsubscribe"));
+        assertEquals(ws("http://localhost"), manager.getClient("http://localhost").getURI());
+    }
+
+    private static URI ws(String endpoint) {
+        return SubscriptionWebSocketClient.webSocketUri(endpoint);
+    }
+}